@@ -0,0 +1,141 @@
+// ID - 212945760
+
+package benchmarks;
+
+import game.events.BrickField;
+import game.events.GameEnvironment;
+import game.events.HitEventQueue;
+import game.events.SpriteCollection;
+import game.events.TileMap;
+import game.listeners.HitListener;
+import game.objects.Ball;
+import game.objects.Block;
+import geometry.Rectangle;
+
+import java.awt.Color;
+
+/**
+ * A report of the memory footprint (the heap bytes per brick) of a field of bricks, stored as Block objects (with
+ * their listeners, in the tile map of a GameEnvironment, a SpriteCollection and a HitEventQueue, as in a game) and
+ * as a BrickField. The footprint is the growth of the used heap after a full GC, so it is only an estimate.
+ *
+ * @author Ori Dabush
+ */
+public class BrickFootprint {
+
+    private static final int COLUMNS = 1000;
+    private static final int[] ROWS = {100, 1000};
+    private static final int BLOCK_ROWS_LIMIT = 100;
+    private static final int BRICK_WIDTH = 20;
+    private static final int BRICK_HEIGHT = 10;
+    private static final Color[] COLORS = {Color.GRAY, Color.RED, Color.YELLOW, Color.GREEN, Color.WHITE, Color.PINK};
+    private static final int GC_ROUNDS = 5;
+
+    // The structures that are measured, kept here so they are reachable while the heap is measured.
+    private static Object[] kept;
+
+    /**
+     * The main method, which prints the report.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        for (int rows : ROWS) {
+            if (rows <= BLOCK_ROWS_LIMIT) {
+                report("Block objects", rows, measureBlocks(rows));
+            }
+            report("BrickField", rows, measureBrickField(rows));
+        }
+    }
+
+    /**
+     * A method to print the footprint of a field.
+     *
+     * @param name  the name of the representation.
+     * @param rows  the number of rows of the field.
+     * @param bytes the number of bytes the field takes.
+     */
+    private static void report(String name, int rows, long bytes) {
+        int bricks = COLUMNS * rows;
+        System.out.printf("%-14s %,10d bricks: %,14d bytes, %8.1f bytes/brick%n", name, bricks, bytes,
+                (double) bytes / bricks);
+    }
+
+    /**
+     * A method to measure the footprint of a field of Block objects.
+     *
+     * @param rows the number of rows of the field.
+     * @return the number of bytes the field takes.
+     */
+    private static long measureBlocks(int rows) {
+        long before = usedMemory();
+        HitListener first = new CountingListener(), second = new CountingListener();
+        GameEnvironment environment = new GameEnvironment(0, 0, COLUMNS * BRICK_WIDTH, rows * BRICK_HEIGHT,
+                GameEnvironment.DEFAULT_CELL_SIZE);
+        environment.setTileMap(new TileMap(0, 0, BRICK_WIDTH, BRICK_HEIGHT, COLUMNS, rows));
+        SpriteCollection sprites = new SpriteCollection();
+        HitEventQueue hitEvents = new HitEventQueue();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                Block b = new Block(new Rectangle(col * BRICK_WIDTH, row * BRICK_HEIGHT, BRICK_WIDTH, BRICK_HEIGHT),
+                        COLORS[row % COLORS.length]);
+                b.addHitListener(first);
+                b.addHitListener(second);
+                environment.addCollidable(b);
+                sprites.addSprite(b);
+                hitEvents.register(b);
+            }
+        }
+        kept = new Object[]{environment, sprites, hitEvents};
+        long bytes = usedMemory() - before;
+        kept = null;
+        return bytes;
+    }
+
+    /**
+     * A method to measure the footprint of a BrickField.
+     *
+     * @param rows the number of rows of the field.
+     * @return the number of bytes the field takes.
+     */
+    private static long measureBrickField(int rows) {
+        long before = usedMemory();
+        BrickField field = new BrickField(0, 0, BRICK_WIDTH, BRICK_HEIGHT, COLUMNS, rows);
+        field.addHitListener(new CountingListener());
+        field.addHitListener(new CountingListener());
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                field.addBrick(col, row, COLORS[row % COLORS.length]);
+            }
+        }
+        kept = new Object[]{field};
+        long bytes = usedMemory() - before;
+        kept = null;
+        return bytes;
+    }
+
+    /**
+     * A method to get the used heap memory after a full GC.
+     *
+     * @return the number of used bytes.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A listener that counts the hits, like the listeners of a game.
+     */
+    private static final class CountingListener implements HitListener {
+        private int hits;
+
+        @Override
+        public void hitEvent(Block beingHit, Ball hitter) {
+            this.hits++;
+        }
+    }
+}
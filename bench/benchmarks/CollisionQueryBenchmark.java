@@ -0,0 +1,226 @@
+// ID - 212945760
+
+package benchmarks;
+
+import game.events.CollisionBatch;
+import game.events.CollisionInfo;
+import game.events.GameEnvironment;
+import game.events.SlabKernel;
+import game.events.TileMap;
+import game.objects.Block;
+import game.objects.Collidable;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A benchmark that compares GameEnvironment.getClosestCollision to a linear scan over all the collidables, on
+ * fields of 100, 1,000 and 10,000 blocks. The blocks are stored either in the grid of the environment (with gaps
+ * between them) or in its tile map (next to each other). It also times the batch query
+ * (GameEnvironment.getClosestCollisions), which gets all the trajectories as a struct of arrays, after checking
+ * that it gives the same results as the single queries (for points, and for circles with CollisionBatch). The
+ * queries of moving circles in the tile map are checked against the same queries in the grid. The slab kernel of
+ * the batch query (see SlabKernel) is printed first - the bench-vector target of build.xml runs the benchmark with
+ * the Vector API kernel.
+ *
+ * @author Ori Dabush
+ */
+public class CollisionQueryBenchmark {
+
+    private static final int[] BLOCK_COUNTS = {100, 1000, 10000};
+    private static final int BLOCK_WIDTH = 20;
+    private static final int BLOCK_HEIGHT = 10;
+    private static final int GAP = 4;
+    private static final int QUERIES = 200000;
+    private static final int ROUNDS = 5;
+    private static final double STEP = 5;
+    private static final double[] RADIUSES = {0.5, 3, 10, 25};
+
+    /**
+     * The main method, which runs the benchmark.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        System.out.println("slab kernel: " + SlabKernel.best().getClass().getSimpleName());
+        for (int count : BLOCK_COUNTS) {
+            run(count, false);
+        }
+        for (int count : BLOCK_COUNTS) {
+            run(count, true);
+        }
+    }
+
+    /**
+     * A method to run the benchmark on a field of a given number of blocks.
+     *
+     * @param count the number of blocks.
+     * @param tiled true if the blocks are stored in a tile map, false if they are stored in the grid.
+     */
+    private static void run(int count, boolean tiled) {
+        int perLine = (int) Math.ceil(Math.sqrt(count));
+        int gap = tiled ? 0 : GAP;
+        double width = perLine * (BLOCK_WIDTH + gap);
+        double height = perLine * (BLOCK_HEIGHT + gap);
+        GameEnvironment env = new GameEnvironment(0, 0, width, height, GameEnvironment.DEFAULT_CELL_SIZE);
+        if (tiled) {
+            env.setTileMap(new TileMap(0, 0, BLOCK_WIDTH, BLOCK_HEIGHT, perLine, perLine));
+        }
+        // The same blocks in the grid, to check the queries of circles in the tile map.
+        GameEnvironment reference = new GameEnvironment(0, 0, width, height, GameEnvironment.DEFAULT_CELL_SIZE);
+        List<Collidable> all = new ArrayList<Collidable>();
+        for (int i = 0; i < count; i++) {
+            Block b = new Block(new Rectangle((i % perLine) * (BLOCK_WIDTH + gap),
+                    (i / perLine) * (BLOCK_HEIGHT + gap), BLOCK_WIDTH, BLOCK_HEIGHT), Color.RED);
+            env.addCollidable(b);
+            reference.addCollidable(b);
+            all.add(b);
+        }
+        Random rand = new Random(count);
+        Line[] trajectories = new Line[QUERIES];
+        double[] x1s = new double[QUERIES], y1s = new double[QUERIES];
+        double[] x2s = new double[QUERIES], y2s = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double x = rand.nextDouble() * width, y = rand.nextDouble() * height;
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            trajectories[i] = new Line(x, y, x + STEP * Math.cos(angle), y + STEP * Math.sin(angle));
+            x1s[i] = x;
+            y1s[i] = y;
+            x2s[i] = x + STEP * Math.cos(angle);
+            y2s[i] = y + STEP * Math.sin(angle);
+        }
+        CollisionInfo[] infos = new CollisionInfo[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            infos[i] = new CollisionInfo();
+        }
+        // Checking that both ways give the same results before timing them.
+        int linearQueries = Math.max(1, QUERIES / count * 10);
+        for (int i = 0; i < Math.min(QUERIES, linearQueries); i++) {
+            CollisionInfo info = env.getClosestCollision(trajectories[i]);
+            Collidable expected = linearScan(all, trajectories[i]);
+            if ((info == null ? null : info.collisionObject()) != expected) {
+                throw new RuntimeException("grid and linear scan disagree on query " + i);
+            }
+        }
+        // Checking that the batch query gives the same results as the single queries.
+        env.getClosestCollisions(x1s, y1s, x2s, y2s, infos, QUERIES);
+        CollisionInfo single = new CollisionInfo();
+        for (int i = 0; i < QUERIES; i++) {
+            boolean found = env.getClosestCollision(x1s[i], y1s[i], x2s[i], y2s[i], single);
+            if (infos[i].collisionObject() != (found ? single.collisionObject() : null)
+                    || found && !infos[i].collisionPoint().equals(single.collisionPoint())) {
+                throw new RuntimeException("the batch and the single queries disagree on query " + i);
+            }
+        }
+        checkCircleBatch(env, x1s, y1s, x2s, y2s);
+        if (tiled) {
+            checkCircles(env, reference, x1s, y1s, x2s, y2s);
+        }
+        double indexNanos = Double.MAX_VALUE, linearNanos = Double.MAX_VALUE, batchNanos = Double.MAX_VALUE;
+        int hits = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Line trajectory : trajectories) {
+                if (env.getClosestCollision(trajectory) != null) {
+                    hits++;
+                }
+            }
+            indexNanos = Math.min(indexNanos, (double) (System.nanoTime() - start) / QUERIES);
+            start = System.nanoTime();
+            hits += env.getClosestCollisions(x1s, y1s, x2s, y2s, infos, QUERIES);
+            batchNanos = Math.min(batchNanos, (double) (System.nanoTime() - start) / QUERIES);
+            start = System.nanoTime();
+            for (int i = 0; i < linearQueries; i++) {
+                if (linearScan(all, trajectories[i % QUERIES]) != null) {
+                    hits++;
+                }
+            }
+            linearNanos = Math.min(linearNanos, (double) (System.nanoTime() - start) / linearQueries);
+        }
+        System.out.printf("%6d blocks: %s %10.1f ns/query, batch %8.1f ns/query, linear %12.1f ns/query,"
+                        + " speedup x%.1f (%d hits)%n", count, tiled ? "tile map" : "grid    ", indexNanos, batchNanos,
+                linearNanos, linearNanos / indexNanos, hits);
+    }
+
+    /**
+     * A method to check that a batch of queries of moving circles gives the same results as the single queries.
+     *
+     * @param env the environment.
+     * @param x1s the x values of the starts of the trajectories.
+     * @param y1s the y values of the starts of the trajectories.
+     * @param x2s the x values of the ends of the trajectories.
+     * @param y2s the y values of the ends of the trajectories.
+     */
+    private static void checkCircleBatch(GameEnvironment env, double[] x1s, double[] y1s, double[] x2s,
+                                         double[] y2s) {
+        CollisionBatch batch = new CollisionBatch();
+        CollisionInfo[] infos = new CollisionInfo[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            infos[i] = new CollisionInfo();
+            batch.add(x1s[i], y1s[i], x2s[i], y2s[i], RADIUSES[i % RADIUSES.length], infos[i]);
+        }
+        env.getClosestCollisions(batch);
+        CollisionInfo single = new CollisionInfo();
+        for (int i = 0; i < QUERIES; i++) {
+            boolean found = env.getClosestCollision(x1s[i], y1s[i], x2s[i], y2s[i], RADIUSES[i % RADIUSES.length],
+                    single);
+            if (infos[i].collisionObject() != (found ? single.collisionObject() : null)
+                    || found && infos[i].getHit().getParameter() != single.getHit().getParameter()) {
+                throw new RuntimeException("the batch and the single queries disagree on the circle of query " + i);
+            }
+        }
+    }
+
+    /**
+     * A method to check that the queries of moving circles in an environment with a tile map give the same results
+     * as the same queries in an environment that stores the same blocks in its grid. The trajectories are scaled up,
+     * so some of them cross many tiles.
+     *
+     * @param env       the environment with the tile map.
+     * @param reference the environment with the grid.
+     * @param x1s       the x values of the starts of the trajectories.
+     * @param y1s       the y values of the starts of the trajectories.
+     * @param x2s       the x values of the ends of the trajectories.
+     * @param y2s       the y values of the ends of the trajectories.
+     */
+    private static void checkCircles(GameEnvironment env, GameEnvironment reference, double[] x1s, double[] y1s,
+                                     double[] x2s, double[] y2s) {
+        CollisionInfo actual = new CollisionInfo(), expected = new CollisionInfo();
+        for (int i = 0; i < QUERIES; i++) {
+            double radius = RADIUSES[i % RADIUSES.length], scale = 1 + i % 20;
+            double x2 = x1s[i] + (x2s[i] - x1s[i]) * scale, y2 = y1s[i] + (y2s[i] - y1s[i]) * scale;
+            boolean found = env.getClosestCollision(x1s[i], y1s[i], x2, y2, radius, actual);
+            if (found != reference.getClosestCollision(x1s[i], y1s[i], x2, y2, radius, expected)
+                    || found && (actual.collisionObject() != expected.collisionObject()
+                    || actual.getHit().getParameter() != expected.getHit().getParameter())) {
+                throw new RuntimeException("the tile map and the grid disagree on the circle of query " + i);
+            }
+        }
+    }
+
+    /**
+     * The collision query as it was done before the grid - checking the trajectory against every collidable.
+     *
+     * @param all        all the collidables.
+     * @param trajectory the trajectory.
+     * @return the closest collidable that the trajectory hits, or null if there isn't one.
+     */
+    private static Collidable linearScan(List<Collidable> all, Line trajectory) {
+        Collidable closest = null;
+        double closestDistance = 0;
+        Point start = trajectory.start();
+        for (Collidable c : all) {
+            Point p = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
+            if (p != null && (closest == null || start.distance(p) < closestDistance)) {
+                closest = c;
+                closestDistance = start.distance(p);
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,117 @@
+// ID - 212945760
+
+package benchmarks;
+
+import game.operation.Game;
+import game.operation.LevelBuilder;
+import geometry.Fixed;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.SegmentHit;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * A benchmark that compares the fixed-point physics to the double physics - the swept circle test against a brick
+ * (Rectangle.intersectSweptCircleFixed against Rectangle.intersectSweptCircle), and whole headless games of the
+ * built-in level with many balls (Game.setFixedPointPhysics).
+ *
+ * @author Ori Dabush
+ */
+public class FixedPointBenchmark {
+
+    private static final int TESTS = 1000000;
+    private static final int BALLS = 200;
+    private static final int ROUNDS = 5;
+    private static final double RADIUS = 5;
+
+    /**
+     * The main method, which runs the benchmark.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        testBenchmark();
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("round %d: double %s, fixed %s%n", round, game(false), game(true));
+        }
+    }
+
+    /**
+     * A method to time the swept circle tests, on random steps around a brick (the steps are fixed-point values, so
+     * both tests get the same input).
+     */
+    private static void testBenchmark() {
+        Rectangle brick = new Rectangle(100, 100, Game.BLOCK_WIDTH, Game.BLOCK_HEIGHT);
+        Random rand = new Random(1);
+        long[] values = new long[4 * TESTS];
+        double[] doubles = new double[4 * TESTS];
+        for (int i = 0; i < TESTS; i++) {
+            double x = 80 + rand.nextDouble() * (Game.BLOCK_WIDTH + 40), y = 80 + rand.nextDouble() * 40;
+            double angle = rand.nextDouble() * 2 * Math.PI, speed = 1 + rand.nextDouble() * 9;
+            values[4 * i] = Fixed.fromDouble(x);
+            values[4 * i + 1] = Fixed.fromDouble(y);
+            values[4 * i + 2] = Fixed.fromDouble(x + speed * Math.cos(angle));
+            values[4 * i + 3] = Fixed.fromDouble(y + speed * Math.sin(angle));
+        }
+        for (int i = 0; i < values.length; i++) {
+            doubles[i] = Fixed.toDouble(values[i]);
+        }
+        SegmentHit hit = new SegmentHit(), other = new SegmentHit();
+        long radius = Fixed.fromDouble(RADIUS);
+        int agree = 0;
+        for (int i = 0; i < TESTS; i++) {
+            boolean d = brick.intersectSweptCircle(doubles[4 * i], doubles[4 * i + 1], doubles[4 * i + 2],
+                    doubles[4 * i + 3], RADIUS, hit);
+            boolean f = brick.intersectSweptCircleFixed(values[4 * i], values[4 * i + 1], values[4 * i + 2],
+                    values[4 * i + 3], radius, other);
+            if (d == f && (!d || hit.getFaces() == other.getFaces())) {
+                agree++;
+            }
+        }
+        System.out.printf("the tests agree on %.4f%% of the steps%n", 100.0 * agree / TESTS);
+        for (int round = 0; round < ROUNDS; round++) {
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < TESTS; i++) {
+                if (brick.intersectSweptCircle(doubles[4 * i], doubles[4 * i + 1], doubles[4 * i + 2],
+                        doubles[4 * i + 3], RADIUS, hit)) {
+                    hits++;
+                }
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < TESTS; i++) {
+                if (brick.intersectSweptCircleFixed(values[4 * i], values[4 * i + 1], values[4 * i + 2],
+                        values[4 * i + 3], radius, other)) {
+                    hits++;
+                }
+            }
+            long end = System.nanoTime();
+            System.out.printf("round %d: double %.1f ns/test, fixed %.1f ns/test (%d hits)%n", round,
+                    (double) (middle - start) / TESTS, (double) (end - middle) / TESTS, hits);
+        }
+    }
+
+    /**
+     * A method to run a headless game of the built-in level with many balls until it ends.
+     *
+     * @param fixed true for the fixed-point physics, false for the double physics.
+     * @return a description of the game's speed and result.
+     */
+    private static String game(boolean fixed) {
+        LevelBuilder builder = Game.builtInLevel();
+        for (int i = 0; i < BALLS; i++) {
+            builder.addBall(new Point(Game.WIDTH / 2, Game.HEIGHT - 45), (int) RADIUS, Game.BALL_SPEED, Color.WHITE);
+        }
+        Game game = new Game();
+        game.setSeed(1);
+        game.setFixedPointPhysics(fixed);
+        game.setLevel(builder.build());
+        game.initializeHeadless(null);
+        long start = System.nanoTime();
+        long ticks = game.runHeadless(-1);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("%.0f ticks/second (%d ticks, score %d)", ticks / seconds, ticks, game.getScore());
+    }
+}
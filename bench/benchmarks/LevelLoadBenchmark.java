@@ -0,0 +1,71 @@
+// ID - 212945760
+
+package benchmarks;
+
+import extras.Counter;
+import game.events.BrickField;
+import game.listeners.BlockRemover;
+import game.listeners.ScoreTrackingListener;
+import game.operation.Factory;
+import game.operation.Game;
+import game.operation.LevelBuilder;
+import game.operation.LevelFile;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A benchmark of loading a large level (1,000,000 cells) in the binary level format - the time to map the file
+ * (LevelFile.open), and the time to build its BrickField from the mapped bytes (Factory.createBrickField).
+ *
+ * @author Ori Dabush
+ */
+public class LevelLoadBenchmark {
+
+    private static final int COLUMNS = 1000;
+    private static final int ROWS = 1000;
+    private static final double FILL = 0.8;
+    private static final Color[] COLORS = {Color.GRAY, Color.RED, Color.YELLOW, Color.CYAN, Color.PINK, Color.GREEN};
+    private static final int ROUNDS = 5;
+
+    /**
+     * The main method, which runs the benchmark.
+     *
+     * @param args not used.
+     * @throws IOException if the level file can't be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        LevelBuilder builder = new LevelBuilder(0, 0, 20, 10, COLUMNS, ROWS);
+        Random rand = new Random(1);
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                if (rand.nextDouble() < FILL) {
+                    builder.addBrick(col, row, COLORS[rand.nextInt(COLORS.length)]);
+                }
+            }
+        }
+        Path path = Files.createTempFile("level", ".bin");
+        try {
+            builder.write(path);
+            System.out.printf("level file: %,d cells, %,d bytes%n", COLUMNS * ROWS, Files.size(path));
+            for (int round = 0; round < ROUNDS; round++) {
+                Game game = new Game();
+                Factory f = new Factory(game);
+                BlockRemover br = new BlockRemover(game, new Counter());
+                ScoreTrackingListener stl = new ScoreTrackingListener(new Counter());
+                long start = System.nanoTime();
+                LevelFile level = LevelFile.open(path);
+                long opened = System.nanoTime();
+                BrickField field = f.createBrickField(level, br, stl);
+                long built = System.nanoTime();
+                System.out.printf("round %d: open %.3f ms, build %.3f ms, %,d bricks%n", round,
+                        (opened - start) / 1e6, (built - opened) / 1e6, field.getBrickCount());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+// ID - 212945760
+
+package benchmarks;
+
+import extras.Compare;
+import geometry.Line;
+import geometry.Point;
+
+import java.util.Random;
+
+/**
+ * A check that compares the segment intersection kernel (Line.intersect, used by Line.isIntersecting and
+ * Line.intersectionWith) to the slope-based implementation that Line had before it, on millions of random pairs of
+ * segments - random real values, and small whole values which create many parallel, collinear, vertical and
+ * degenerate (point) segments. Pairs that the slope-based implementation fails on (it throws on some vertical and
+ * degenerate segments) are skipped. The only difference that is allowed is an end point of one segment that is
+ * exactly on the other one, which the kernel finds and the slope-based implementation could miss (its point was
+ * rounded off the segments, and it checked the range of the segments without a tolerance).
+ *
+ * @author Ori Dabush
+ */
+public class LineIntersectionCheck {
+
+    private static final int PAIRS = 2000000;
+    private static final double TOLERANCE = Math.pow(10, -6);
+
+    /**
+     * The main method, which runs the check.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        Random rand = new Random(1);
+        int intersections = 0, skipped = 0, missed = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            double[] a = randomSegment(rand, i), b = randomSegment(rand, i);
+            Line first = new Line(a[0], a[1], a[2], a[3]), second = new Line(b[0], b[1], b[2], b[3]);
+            SlopeLine oldFirst = new SlopeLine(a), oldSecond = new SlopeLine(b);
+            boolean expectedIntersecting;
+            Point expected;
+            try {
+                expectedIntersecting = oldFirst.isIntersecting(oldSecond);
+                expected = oldFirst.intersectionWith(oldSecond);
+            } catch (RuntimeException e) {
+                skipped++;
+                continue;
+            }
+            boolean actualIntersecting = first.isIntersecting(second);
+            Point actual = first.intersectionWith(second);
+            if (expected != null) {
+                intersections++;
+            }
+            if (!expectedIntersecting && expected == null && actualIntersecting && actual != null
+                    && (isEndOf(actual, a) && isExactlyOn(actual, b) || isEndOf(actual, b) && isExactlyOn(actual, a))) {
+                missed++;
+                continue;
+            }
+            if (expectedIntersecting != actualIntersecting || (expected == null) != (actual == null)
+                    || (expected != null && (Math.abs(expected.getX() - actual.getX()) > TOLERANCE
+                    || Math.abs(expected.getY() - actual.getY()) > TOLERANCE))) {
+                throw new RuntimeException("different intersections for pair " + i + ": (" + a[0] + ", " + a[1]
+                        + ", " + a[2] + ", " + a[3] + ") and (" + b[0] + ", " + b[1] + ", " + b[2] + ", " + b[3]
+                        + ")");
+            }
+        }
+        System.out.println(PAIRS + " pairs checked, " + intersections + " intersections, " + skipped + " skipped, "
+                + missed + " end points that only the kernel found, no other differences");
+    }
+
+    /**
+     * A method to check if a point is one of the end points of a segment (by epsilon).
+     *
+     * @param p the point.
+     * @param s the segment, {x1, y1, x2, y2}.
+     * @return true if the point is an end point of the segment, false otherwise.
+     */
+    private static boolean isEndOf(Point p, double[] s) {
+        return (Compare.cmpDouble(p.getX(), s[0]) && Compare.cmpDouble(p.getY(), s[1]))
+                || (Compare.cmpDouble(p.getX(), s[2]) && Compare.cmpDouble(p.getY(), s[3]));
+    }
+
+    /**
+     * A method to check if a point is exactly on a segment, without a tolerance (the values of the whole-valued
+     * segments are exact, so are their products).
+     *
+     * @param p the point.
+     * @param s the segment, {x1, y1, x2, y2}.
+     * @return true if the point is on the segment, false otherwise.
+     */
+    private static boolean isExactlyOn(Point p, double[] s) {
+        double x = p.getX(), y = p.getY();
+        return (s[2] - s[0]) * (y - s[1]) == (s[3] - s[1]) * (x - s[0])
+                && Math.min(s[0], s[2]) <= x && x <= Math.max(s[0], s[2])
+                && Math.min(s[1], s[3]) <= y && y <= Math.max(s[1], s[3]);
+    }
+
+    /**
+     * A method to create a random segment - with real values for every third pair, and otherwise with small whole
+     * values.
+     *
+     * @param rand  the random generator.
+     * @param index the index of the pair.
+     * @return the segment, {x1, y1, x2, y2}.
+     */
+    private static double[] randomSegment(Random rand, int index) {
+        if (index % 3 == 0) {
+            return new double[]{rand.nextDouble() * 100, rand.nextDouble() * 100, rand.nextDouble() * 100,
+                    rand.nextDouble() * 100};
+        }
+        double x = rand.nextInt(8), y = rand.nextInt(8);
+        return new double[]{x, y, x + rand.nextInt(7) - 3, y + rand.nextInt(7) - 3};
+    }
+
+    /**
+     * The SlopeLine class, the slope-based implementation of the intersection of segments, which Line had before the
+     * intersection kernel.
+     */
+    private static final class SlopeLine {
+        private Point start;
+        private Point end;
+
+        /**
+         * A constructor for the SlopeLine class.
+         *
+         * @param segment the segment, {x1, y1, x2, y2}.
+         */
+        private SlopeLine(double[] segment) {
+            this.start = new Point(segment[0], segment[1]);
+            this.end = new Point(segment[2], segment[3]);
+        }
+
+        /**
+         * A method that calculates the length of the line.
+         *
+         * @return the length of the line, -1 if one of the points (start / end) is null.
+         */
+        private double length() {
+            if (this.start == null || this.end == null) {
+                return -1;
+            }
+            return this.start.distance(this.end);
+        }
+
+        /**
+         * A method that finds the current line's slope, if it doesn't have a slope (x=5 for example), it returns null.
+         *
+         * @return the slope of the current line.
+         */
+        private Double slope() {
+            if (this.start == null || this.end == null) {
+                return null;
+            }
+            if (Compare.cmpDouble(this.start.getX(), this.end.getX())) {
+                return null;
+            }
+            return (this.start.getY() - this.end.getY()) / (this.start.getX() - this.end.getX());
+        }
+
+        /**
+         * A method that checks if the point is in the range of the line.
+         *
+         * @param p the point we would like to check
+         * @return true if it is in the range, false otherwise.
+         */
+        private boolean isPointInRange(Point p) {
+            if (p == null || this.start == null || this.end == null) {
+                return false;
+            }
+            return (((this.start.getX() <= p.getX() && p.getX() <= this.end.getX())
+                    || (this.end.getX() <= p.getX() && p.getX() <= this.start.getX()))
+                    && ((this.start.getY() <= p.getY() && p.getY() <= this.end.getY())
+                    || (this.end.getY() <= p.getY() && p.getY() <= this.start.getY())));
+        }
+
+        /**
+         * A method that checks if two lines have the same line equation.
+         *
+         * @param other the other line.
+         * @return true if they have the same line equation, false otherwise.
+         */
+        private boolean haveSameLineEquation(SlopeLine other) {
+            if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
+                return false;
+            }
+            if (this.slope() == null && other.slope() == null) {
+                return this.start.getX() == other.start.getX();
+            }
+            if (this.slope() == null || other.slope() == null) {
+                return false;
+            }
+            // comparing the slope and the intersection with y axis
+            boolean isSlopeEqual = Compare.cmpDouble(this.slope(), other.slope());
+            boolean isYAxisIntersectionEqual = Compare.cmpDouble(-this.slope() * this.start.getX() + this.start.getY(),
+                    -other.slope() * other.start.getX() + other.start.getY());
+            return isSlopeEqual && isYAxisIntersectionEqual;
+        }
+
+        /**
+         * A method that checks if the lines contain each other.
+         *
+         * @param other the other line.
+         * @return true if they contain each other, false otherwise.
+         */
+        private boolean isOn(SlopeLine other) {
+            if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
+                return false;
+            }
+            if (this.haveSameLineEquation(other)) {
+                return (this.isPointInRange(other.start) && this.isPointInRange(other.end))
+                        || (other.isPointInRange(this.start) && other.isPointInRange(this.end));
+            }
+            return false;
+        }
+
+        /**
+         * A method that checks if the current line and another line are intersecting.
+         *
+         * @param other the line that we want to check if the current line intersects.
+         * @return true if the lines intersect, false otherwise.
+         */
+        private boolean isIntersecting(SlopeLine other) {
+            // check that there's no null value
+            if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
+                return false;
+            }
+            // case of two null slopes
+            if (this.slope() == null && other.slope() == null) {
+                if (!this.haveSameLineEquation(other)) {
+                    return false;
+                } else {
+                    if (this.isOn(other)) {
+                        return Compare.cmpDouble(this.length(), 0.0) || Compare.cmpDouble(other.length(), 0.0);
+                    } else {
+                        return this.start.equals(other.start) || this.end.equals(other.end)
+                                || this.start.equals(other.end) || this.end.equals(other.start);
+                    }
+                }
+            }
+            // case of 'this' having a null slope
+            if (this.slope() == null) {
+                double intersectionX = this.start.getX(),
+                        intersectionY = other.slope() * (intersectionX - other.start.getX()) + other.start.getY();
+                Point intersection = new Point(intersectionX, intersectionY);
+                // checking if the intersection is on the segments.
+                return this.isPointInRange(intersection) && other.isPointInRange(intersection);
+            }
+            // case of 'other' having a null slope
+            if (other.slope() == null) {
+                double intersectionX = other.start.getX(),
+                        intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
+                Point intersection = new Point(intersectionX, intersectionY);
+                // checking if the intersection is on the segments.
+                return this.isPointInRange(intersection) && other.isPointInRange(intersection);
+            }
+            // case of different slopes (which are not null)
+            if (!(Compare.cmpDouble(this.slope(), other.slope()))) {
+                // case of 'this' having a slope which is 0.
+                if (Compare.cmpDouble(this.slope(), 0.0)) {
+                    double intersectionY = this.start.getY(),
+                            intersectionX = (intersectionY - other.start.getY()) / other.slope() + other.start.getX();
+                    Point intersection = new Point(intersectionX, intersectionY);
+                    // checking if the intersection is on the segments.
+                    return this.isPointInRange(intersection) && other.isPointInRange(intersection);
+                }
+                // case of 'other' having a slope which is 0.
+                if (Compare.cmpDouble(other.slope(), 0.0)) {
+                    double intersectionY = other.start.getY(),
+                            intersectionX = (intersectionY - this.start.getY()) / this.slope() + this.start.getX();
+                    Point intersection = new Point(intersectionX, intersectionY);
+                    // checking if the intersection is on the segments.
+                    return this.isPointInRange(intersection) && other.isPointInRange(intersection);
+                }
+                // case of different slopes (which are not null / 0)
+                double intersectionX = (this.slope() * this.start.getX() - other.slope() * other.start.getX()
+                        + other.start.getY() - this.start.getY()) / (this.slope() - other.slope()),
+                        intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
+                Point intersection = new Point(intersectionX, intersectionY);
+                // checking if the intersection is on the segments.
+                return this.isPointInRange(intersection) && other.isPointInRange(intersection);
+            }
+            // case of equal slopes
+            if (!this.haveSameLineEquation(other)) {
+                return false;
+            } else {
+                if (this.isOn(other)) {
+                    return Compare.cmpDouble(this.length(), 0.0) || Compare.cmpDouble(other.length(), 0.0);
+                } else {
+                    return this.start.equals(other.start) || this.end.equals(other.end)
+                            || this.start.equals(other.end) || this.end.equals(other.start);
+                }
+            }
+        }
+
+        /**
+         * A method that finds the intersection between the current line and another line.
+         *
+         * @param other the line that we want to find the intersection of the current line with.
+         * @return the intersection point if the lines intersect, and null otherwise.
+         */
+        private Point intersectionWith(SlopeLine other) {
+            // check that there's no null value.
+            if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
+                return null;
+            }
+            // check if they are intersecting.
+            if (this.isIntersecting(other)) {
+                // case of 2 null slopes.
+                if (this.slope() == null && other.slope() == null) {
+                    if (Compare.cmpDouble(this.start.getY(), other.start.getY())) {
+                        return this.start;
+                    }
+                    if (Compare.cmpDouble(this.end.getY(), other.start.getY())) {
+                        return this.end;
+                    }
+                    if (Compare.cmpDouble(this.start.getY(), other.end.getY())) {
+                        return this.start;
+                    }
+                    if (Compare.cmpDouble(this.end.getY(), other.end.getY())) {
+                        return this.end;
+                    }
+                }
+                // case of 'this' having a null slope.
+                if (this.slope() == null) {
+                    double intersectionX = this.start.getX(),
+                            intersectionY = other.slope() * (intersectionX - other.start.getX()) + other.start.getY();
+                    return new Point(intersectionX, intersectionY);
+                }
+                // case of 'other' having a null slope.
+                if (other.slope() == null) {
+                    double intersectionX = other.start.getX(),
+                            intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
+                    return new Point(intersectionX, intersectionY);
+                }
+                // case of 2 equal slopes which are not null
+                if (Compare.cmpDouble(other.slope(), this.slope())) {
+                    if (Compare.cmpDouble(this.length(), 0.0)) {
+                        return this.start;
+                    }
+                    if (Compare.cmpDouble(other.length(), 0.0)) {
+                        return other.start;
+                    }
+                    if (this.start.equals(other.start) || this.start.equals(other.end)) {
+                        return this.start;
+                    }
+                    if (this.end.equals(other.end) || this.end.equals(other.start)) {
+                        return this.end;
+                    }
+                }
+                //case of 2 different slopes which are not null
+                double intersectionX = (this.slope() * this.start.getX() - other.slope() * other.start.getX()
+                        + other.start.getY() - this.start.getY()) / (this.slope() - other.slope());
+                double intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
+
+                // Changing the values that are not precise.
+                if (Compare.cmpDouble(intersectionX, Math.round(intersectionX))) {
+                    intersectionX = Math.round(intersectionX);
+                }
+                if (Compare.cmpDouble(intersectionY, Math.round(intersectionY))) {
+                    intersectionY = Math.round(intersectionY);
+                }
+
+                return new Point(intersectionX, intersectionY);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+// ID - 212945760
+
+package benchmarks;
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A check that compares the slab-method query (Rectangle.intersectSegment, used by
+ * Line.closestIntersectionToStartOfLine) to the closest point of Rectangle.intersectionPoints, on millions of random
+ * segments - random real values, and small whole values which create many segments on edges and through corners.
+ *
+ * @author Ori Dabush
+ */
+public class SegmentRectangleCheck {
+
+    private static final int SEGMENTS = 3000000;
+    private static final double TOLERANCE = Math.pow(10, -6);
+
+    /**
+     * The main method, which runs the check.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        Random rand = new Random(1);
+        int hits = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            Rectangle r;
+            Line l;
+            if (i % 3 == 0) {
+                r = new Rectangle(rand.nextDouble() * 100, rand.nextDouble() * 100,
+                        rand.nextDouble() * 50, rand.nextDouble() * 50);
+                l = new Line(rand.nextDouble() * 150, rand.nextDouble() * 150,
+                        rand.nextDouble() * 150, rand.nextDouble() * 150);
+            } else {
+                // every third rectangle has no height, like the paddle.
+                r = new Rectangle(rand.nextInt(10), rand.nextInt(10), rand.nextInt(6),
+                        i % 3 == 1 ? rand.nextInt(6) + 1 : 0);
+                double x = rand.nextInt(16), y = rand.nextInt(16);
+                l = new Line(x, y, x + rand.nextInt(11) - 5, y + rand.nextInt(11) - 5);
+            }
+            if (l.length() == 0) {
+                continue;
+            }
+            Point expected = closestOfIntersectionPoints(l, r), actual = l.closestIntersectionToStartOfLine(r);
+            if (expected != null) {
+                hits++;
+            }
+            if ((expected == null) != (actual == null) || (expected != null
+                    && (Math.abs(expected.getX() - actual.getX()) > TOLERANCE
+                    || Math.abs(expected.getY() - actual.getY()) > TOLERANCE))) {
+                throw new RuntimeException("different intersections for segment " + i);
+            }
+        }
+        System.out.println(SEGMENTS + " segments checked, " + hits + " intersections, no differences");
+    }
+
+    /**
+     * A method to find the closest intersection of a segment with a rectangle from the list of intersectionPoints.
+     *
+     * @param l the segment.
+     * @param r the rectangle.
+     * @return the closest intersection to the start of the segment, or null if there isn't one.
+     */
+    private static Point closestOfIntersectionPoints(Line l, Rectangle r) {
+        List<Point> points = r.intersectionPoints(l);
+        Point closest = null;
+        for (Point p : points) {
+            if (closest == null || p.distance(l.start()) < closest.distance(l.start())) {
+                closest = p;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,106 @@
+// ID - 212945760
+
+package benchmarks;
+
+import game.operation.Game;
+import game.operation.GameState;
+import game.operation.LevelBuilder;
+import game.operation.TrackingBot;
+import geometry.Point;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A benchmark of the game snapshots (see GameState) - the time it takes to save a game of the built-in level with
+ * many balls into a reused snapshot and to restore it, and a check that a restored game (from the snapshot, and from
+ * its autosave file) plays exactly as the original game did after the snapshot.
+ *
+ * @author Ori Dabush
+ */
+public class SnapshotBenchmark {
+
+    private static final int BALLS = 200;
+    private static final int RADIUS = 5;
+    private static final int WARMUP_TICKS = 300;
+    private static final int CHECK_TICKS = 600;
+    private static final int SNAPSHOTS = 100000;
+    private static final int ROUNDS = 5;
+
+    /**
+     * The main method, which runs the benchmark.
+     *
+     * @param args not used.
+     * @throws IOException if the autosave file can't be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        Game game = game();
+        game.simulate(WARMUP_TICKS);
+        GameState state = new GameState();
+        game.saveState(state);
+        System.out.printf("a snapshot of %d balls is %d bytes%n", BALLS, state.getSize());
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < SNAPSHOTS; i++) {
+                game.saveState(state);
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < SNAPSHOTS; i++) {
+                game.loadState(state);
+            }
+            long end = System.nanoTime();
+            System.out.printf("round %d: save %.2f us, restore %.2f us%n", round,
+                    (middle - start) / 1e3 / SNAPSHOTS, (end - middle) / 1e3 / SNAPSHOTS);
+        }
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            long start = System.nanoTime();
+            state.save(file);
+            System.out.printf("autosave: %.2f ms%n", (System.nanoTime() - start) / 1e6);
+            game.setStateHashing(true);
+            long ticks = game.simulate(CHECK_TICKS);
+            long expected = game.getStateHashes().get(game.getTick());
+            game.loadState(state);
+            System.out.printf("restored game: %s%n", check(game, ticks, expected));
+            Game other = game();
+            other.loadState(GameState.load(file));
+            System.out.printf("game restored from the autosave: %s%n", check(other, ticks, expected));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * A method to create a headless game of the built-in level with many balls, played by a bot.
+     *
+     * @return the game.
+     */
+    private static Game game() {
+        LevelBuilder builder = Game.builtInLevel();
+        for (int i = 0; i < BALLS; i++) {
+            builder.addBall(new Point(Game.WIDTH / 2, Game.HEIGHT - 45), RADIUS, Game.BALL_SPEED, Color.WHITE);
+        }
+        Game game = new Game();
+        game.setSeed(1);
+        game.setLevel(builder.build());
+        game.initializeHeadless(new TrackingBot());
+        return game;
+    }
+
+    /**
+     * A method to check that a restored game reaches the same state as the original game.
+     *
+     * @param game     the restored game.
+     * @param ticks    the number of ticks that the original game played after the snapshot.
+     * @param expected the hash of the state of the original game after these ticks.
+     * @return a description of the result of the check.
+     */
+    private static String check(Game game, long ticks, long expected) {
+        game.setStateHashing(true);
+        game.simulate(ticks);
+        return game.getStateHashes().get(game.getTick()) == expected ? "same state after " + ticks + " ticks"
+                : "DIVERGED";
+    }
+}
@@ -0,0 +1,112 @@
+// ID - 212945760
+
+package benchmarks.jmh;
+
+import game.events.CollisionInfo;
+import game.events.GameEnvironment;
+import game.objects.Block;
+import geometry.Line;
+import geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * JMH benchmarks of GameEnvironment.getClosestCollision on fields of a varying number of blocks (with gaps between
+ * them, so they are stored in the grid) - the Line based query, the allocation-free query, and the batch query of
+ * many trajectories (one per ball) in a single call.
+ *
+ * @author Ori Dabush
+ */
+@State(Scope.Thread)
+public class CollisionBenchmarks {
+
+    private static final int BLOCK_WIDTH = 20;
+    private static final int BLOCK_HEIGHT = 10;
+    private static final int GAP = 4;
+    private static final int TRAJECTORIES = 256;
+    private static final double STEP = 5;
+
+    @Param({ "100", "1000", "10000" })
+    private int collidables;
+
+    private GameEnvironment env;
+    private Line[] lines;
+    private double[] x1s;
+    private double[] y1s;
+    private double[] x2s;
+    private double[] y2s;
+    private CollisionInfo[] infos;
+    private int next;
+
+    /**
+     * A method to create the field of blocks and the trajectories.
+     */
+    @Setup
+    public void setUp() {
+        int perLine = (int) Math.ceil(Math.sqrt(this.collidables));
+        double width = perLine * (BLOCK_WIDTH + GAP), height = perLine * (BLOCK_HEIGHT + GAP);
+        this.env = new GameEnvironment(0, 0, width, height, GameEnvironment.DEFAULT_CELL_SIZE);
+        for (int i = 0; i < this.collidables; i++) {
+            this.env.addCollidable(new Block(new Rectangle((i % perLine) * (BLOCK_WIDTH + GAP),
+                    (i / perLine) * (BLOCK_HEIGHT + GAP), BLOCK_WIDTH, BLOCK_HEIGHT), Color.RED));
+        }
+        Random rand = new Random(this.collidables);
+        this.lines = new Line[TRAJECTORIES];
+        this.x1s = new double[TRAJECTORIES];
+        this.y1s = new double[TRAJECTORIES];
+        this.x2s = new double[TRAJECTORIES];
+        this.y2s = new double[TRAJECTORIES];
+        this.infos = new CollisionInfo[TRAJECTORIES];
+        for (int i = 0; i < TRAJECTORIES; i++) {
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            this.x1s[i] = rand.nextDouble() * width;
+            this.y1s[i] = rand.nextDouble() * height;
+            this.x2s[i] = this.x1s[i] + STEP * Math.cos(angle);
+            this.y2s[i] = this.y1s[i] + STEP * Math.sin(angle);
+            this.lines[i] = new Line(this.x1s[i], this.y1s[i], this.x2s[i], this.y2s[i]);
+            this.infos[i] = new CollisionInfo();
+        }
+        this.next = 0;
+    }
+
+    /**
+     * Benchmarks the Line based query (which creates a CollisionInfo object for every collision).
+     *
+     * @return the information about the collision (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public CollisionInfo lineQuery() {
+        this.next = (this.next + 1) % TRAJECTORIES;
+        return this.env.getClosestCollision(this.lines[this.next]);
+    }
+
+    /**
+     * Benchmarks the allocation-free query, with a reused CollisionInfo object.
+     *
+     * @return true if there is a collision (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public boolean reusedInfoQuery() {
+        this.next = (this.next + 1) % TRAJECTORIES;
+        return this.env.getClosestCollision(this.x1s[this.next], this.y1s[this.next], this.x2s[this.next],
+                this.y2s[this.next], this.infos[this.next]);
+    }
+
+    /**
+     * Benchmarks the batch query of all the trajectories (one operation is one trajectory).
+     *
+     * @return the number of collisions (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    @OperationsPerInvocation(TRAJECTORIES)
+    public int batchQuery() {
+        return this.env.getClosestCollisions(this.x1s, this.y1s, this.x2s, this.y2s, this.infos, TRAJECTORIES);
+    }
+}
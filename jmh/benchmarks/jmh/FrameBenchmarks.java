@@ -0,0 +1,67 @@
+// ID - 212945760
+
+package benchmarks.jmh;
+
+import game.operation.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A JMH benchmark of a whole headless frame of the game - drawing it to a NullDrawSurface and
+ * SpriteCollection.notifyAllTimePassed. A new game is created before the current one ends, so every measured frame
+ * is a frame of a running game.
+ *
+ * @author Ori Dabush
+ */
+@State(Scope.Thread)
+public class FrameBenchmarks {
+
+    // The number of frames to play before creating a new game (the shortest games are longer than that).
+    private static final int FRAMES_PER_GAME = 100;
+
+    @Param({ "1", "4" })
+    private int threads;
+
+    private Game game;
+    private int frames;
+
+    /**
+     * A method to create a new game when the current one has played enough frames.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+        if (this.game == null || this.frames == FRAMES_PER_GAME) {
+            this.tearDown();
+            this.game = new Game();
+            this.game.setPhysicsThreads(this.threads);
+            this.game.initializeHeadless(null);
+            this.frames = 0;
+        }
+    }
+
+    /**
+     * A method to stop the threads of the current game.
+     */
+    @TearDown
+    public void tearDown() {
+        if (this.game != null) {
+            this.game.setPhysicsThreads(1);
+        }
+    }
+
+    /**
+     * Benchmarks a single frame.
+     *
+     * @return the number of frames that were played (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public long frame() {
+        this.frames++;
+        return this.game.runHeadless(1);
+    }
+}
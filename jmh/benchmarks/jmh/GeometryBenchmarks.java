@@ -0,0 +1,91 @@
+// ID - 212945760
+
+package benchmarks.jmh;
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.SegmentHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the geometry - Line.intersectionWith, Rectangle.intersectionPoints and the allocation-free
+ * Rectangle.intersectSegment, on a fixed set of random segments.
+ *
+ * @author Ori Dabush
+ */
+@State(Scope.Thread)
+public class GeometryBenchmarks {
+
+    private static final int SEGMENTS = 1024;
+    private static final double SIZE = 100;
+
+    private Line[] lines;
+    private Rectangle rectangle;
+    private SegmentHit hit;
+    private int next;
+
+    /**
+     * A method to create the segments and the rectangle.
+     */
+    @Setup
+    public void setUp() {
+        Random rand = new Random(1);
+        this.lines = new Line[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.lines[i] = new Line(rand.nextDouble() * SIZE, rand.nextDouble() * SIZE,
+                    rand.nextDouble() * SIZE, rand.nextDouble() * SIZE);
+        }
+        this.rectangle = new Rectangle(SIZE / 4, SIZE / 4, SIZE / 2, SIZE / 2);
+        this.hit = new SegmentHit();
+        this.next = 0;
+    }
+
+    /**
+     * A method to get the next segment of the set.
+     *
+     * @return the next segment.
+     */
+    private Line nextLine() {
+        this.next = (this.next + 1) & (SEGMENTS - 1);
+        return this.lines[this.next];
+    }
+
+    /**
+     * Benchmarks Line.intersectionWith on two segments of the set.
+     *
+     * @return the intersection point (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        return this.nextLine().intersectionWith(this.nextLine());
+    }
+
+    /**
+     * Benchmarks Rectangle.intersectionPoints on a segment of the set.
+     *
+     * @return the intersection points (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        return this.rectangle.intersectionPoints(this.nextLine());
+    }
+
+    /**
+     * Benchmarks Rectangle.intersectSegment (the query that the collision detection uses) on a segment of the set.
+     *
+     * @return true if the segment intersects the rectangle (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public boolean rectangleIntersectSegment() {
+        Line l = this.nextLine();
+        return this.rectangle.intersectSegment(l.start().getX(), l.start().getY(), l.end().getX(), l.end().getY(),
+                this.hit);
+    }
+}
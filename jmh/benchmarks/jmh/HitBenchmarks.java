@@ -0,0 +1,105 @@
+// ID - 212945760
+
+package benchmarks.jmh;
+
+import game.events.CollisionInfo;
+import game.events.GameEnvironment;
+import game.objects.Ball;
+import game.objects.Block;
+import game.objects.Paddle;
+import game.operation.TickKeyboard;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Color;
+
+/**
+ * JMH benchmarks of Block.hit and Paddle.hit - the form that gets a point and returns a new velocity, and the form
+ * that changes the ball's velocity by the information of the collision.
+ *
+ * @author Ori Dabush
+ */
+@State(Scope.Thread)
+public class HitBenchmarks {
+
+    private static final double DX = 3;
+    private static final double DY = 4;
+
+    private Ball ball;
+    private Block block;
+    private Paddle paddle;
+    private CollisionInfo blockCollision;
+    private CollisionInfo paddleCollision;
+    private Point blockPoint;
+    private Point paddlePoint;
+    private Velocity velocity;
+
+    /**
+     * A method to create the block, the paddle and the collisions of a ball with them.
+     */
+    @Setup
+    public void setUp() {
+        this.block = new Block(new Rectangle(100, 100, 50, 20), Color.RED);
+        this.paddle = new Paddle(new Rectangle(100, 300, 100, 5), Color.YELLOW, new TickKeyboard());
+        GameEnvironment env = new GameEnvironment();
+        env.addCollidable(this.block);
+        env.addMovingCollidable(this.paddle);
+        this.ball = new Ball(0, 0, 5, Color.WHITE);
+        this.blockCollision = new CollisionInfo();
+        env.getClosestCollision(120, 90, 120 + DX, 90 + 4 * DY, this.blockCollision);
+        this.paddleCollision = new CollisionInfo();
+        env.getClosestCollision(150, 290, 150 + DX, 290 + 4 * DY, this.paddleCollision);
+        this.blockPoint = this.blockCollision.collisionPoint();
+        this.paddlePoint = this.paddleCollision.collisionPoint();
+        this.velocity = new Velocity(DX, DY);
+    }
+
+    /**
+     * Benchmarks the Block.hit form that returns a new velocity.
+     *
+     * @return the new velocity (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public Velocity blockHitByPoint() {
+        return this.block.hit(this.ball, this.blockPoint, this.velocity);
+    }
+
+    /**
+     * Benchmarks the Block.hit form that changes the velocity.
+     *
+     * @return the changed velocity (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public Velocity blockHitByInfo() {
+        this.velocity.set(DX, DY);
+        this.block.hit(this.ball, this.blockCollision, this.velocity);
+        return this.velocity;
+    }
+
+    /**
+     * Benchmarks the Paddle.hit form that returns a new velocity.
+     *
+     * @return the new velocity (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public Velocity paddleHitByPoint() {
+        return this.paddle.hit(this.ball, this.paddlePoint, this.velocity);
+    }
+
+    /**
+     * Benchmarks the Paddle.hit form that changes the velocity.
+     *
+     * @return the changed velocity (so the JIT doesn't remove the call).
+     */
+    @Benchmark
+    public Velocity paddleHitByInfo() {
+        this.velocity.set(DX, DY);
+        this.paddle.hit(this.ball, this.paddleCollision, this.velocity);
+        return this.velocity;
+    }
+}
@@ -1,6 +1,11 @@
 // ID - 212945760
 
 import game.operation.Game;
+import game.operation.LevelFile;
+import game.operation.Replay;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * The gameOperation.Ass3Game class, which initializes a game and runs it.
@@ -12,11 +17,29 @@ public class Ass5Game {
     /**
      * The main method, which operates the gameOperation.Ass3Game class.
      *
-     * @param args not used right now.
+     * @param args an optional number of threads to step the game's sprites with (1 by default), and an optional
+     *             number of physics steps per second (60 by default), an optional path of a level file (see
+     *             LevelConverter), and an optional path to save a replay of the game to (see ReplayGame).
+     * @throws IOException if the level file can't be read or the replay can't be written.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Game game = new Game();
+        if (args.length > 0) {
+            game.setPhysicsThreads(Integer.parseInt(args[0]));
+        }
+        if (args.length > 1) {
+            game.setPhysicsRate(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            game.setLevel(LevelFile.open(Paths.get(args[2])));
+        }
         game.initialize();
+        if (args.length > 3) {
+            game.startRecording(Replay.DEFAULT_KEYFRAME_INTERVAL);
+        }
         game.run();
+        if (args.length > 3) {
+            game.getRecording().write(Paths.get(args[3]));
+        }
     }
 }
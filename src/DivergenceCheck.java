@@ -0,0 +1,76 @@
+// ID - 212945760
+
+import game.operation.Game;
+import game.operation.Replay;
+import game.operation.StateHashLog;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The DivergenceCheck class, which plays a replay (see ReplayGame) headless while hashing the state of the game
+ * after every tick (see StateHashLog), and reports the first tick in which two runs of it diverged - a serial run
+ * and a parallel run, or a run on this machine and a run on another machine.
+ *
+ * @author Ori Dabush
+ */
+public class DivergenceCheck {
+
+    /**
+     * The main method, which checks the replay.
+     *
+     * @param args the path of the replay file, an optional number of threads to step the game's sprites with (the
+     *             number of processors by default), and optionally "write" or "compare" and the path of a hashes
+     *             file - to write the hashes of the run to it, or to compare the run with the hashes in it. Without
+     *             them, a run with the given number of threads is compared with a serial run.
+     * @throws IOException if the files can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length == 3) {
+            System.out.println("usage: DivergenceCheck replay-file [threads] [write|compare hashes-file]");
+            return;
+        }
+        Replay replay = Replay.read(Paths.get(args[0]));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        StateHashLog run = play(replay, threads);
+        if (args.length > 3 && args[2].equals("write")) {
+            run.write(Paths.get(args[3]));
+            System.out.printf("wrote the hashes of %d ticks%n", run.getEndTick() - run.getFirstTick());
+            return;
+        }
+        StateHashLog other;
+        String name;
+        if (args.length > 3 && args[2].equals("compare")) {
+            other = StateHashLog.read(Paths.get(args[3]));
+            name = args[3];
+        } else {
+            other = play(replay, 1);
+            name = "the serial run";
+        }
+        long tick = run.firstDivergence(other);
+        if (tick < 0) {
+            long ticks = run.getEndTick() - run.getFirstTick() - 1;
+            System.out.printf("the run is identical to %s in all %d ticks%n", name, ticks);
+        } else {
+            System.out.printf("the run diverged from %s - the states first differ after %d ticks%n", name, tick);
+        }
+    }
+
+    /**
+     * A method to play a replay headless to its end, while hashing the states of the game.
+     *
+     * @param replay  the replay.
+     * @param threads the number of threads to step the game's sprites with.
+     * @return the hashes of the states of the game.
+     */
+    private static StateHashLog play(Replay replay, int threads) {
+        Game game = new Game();
+        game.setReplay(replay);
+        game.setPhysicsThreads(threads);
+        game.initializeHeadless(null);
+        game.setStateHashing(true);
+        game.runHeadless(replay.getInput().getTicks());
+        game.setPhysicsThreads(1);
+        return game.getStateHashes();
+    }
+}
@@ -0,0 +1,46 @@
+// ID - 212945760
+
+import game.operation.Game;
+import game.operation.LevelFile;
+import game.operation.TrackingBot;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The HeadlessGame class, which runs a game without a GUI, as fast as possible, and reports how many frames
+ * (ticks) per second were run.
+ *
+ * @author Ori Dabush
+ */
+public class HeadlessGame {
+
+    /**
+     * The main method, which runs the headless game.
+     *
+     * @param args the maximal number of ticks to run (until the game ends by default), an optional number of
+     *             threads to step the game's sprites with (1 by default), an optional path of a level file, and an
+     *             optional "fixed" to use the fixed-point physics (see Game.setFixedPointPhysics), and an optional
+     *             "bot" to let a bot play the paddle (see TrackingBot) instead of leaving it still.
+     * @throws IOException if the level file can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        long maxTicks = args.length > 0 ? Long.parseLong(args[0]) : -1;
+        Game game = new Game();
+        if (args.length > 1) {
+            game.setPhysicsThreads(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            game.setLevel(LevelFile.open(Paths.get(args[2])));
+        }
+        if (args.length > 3) {
+            game.setFixedPointPhysics(args[3].equals("fixed"));
+        }
+        game.initializeHeadless(args.length > 4 && args[4].equals("bot") ? new TrackingBot() : null);
+        long start = System.nanoTime();
+        long ticks = game.runHeadless(maxTicks);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("ticks: %d, seconds: %.3f, ticks/second: %.1f, score: %d%n",
+                ticks, seconds, ticks / seconds, game.getScore());
+    }
+}
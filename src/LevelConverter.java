@@ -0,0 +1,28 @@
+// ID - 212945760
+
+import game.operation.Game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The LevelConverter class, which exports the built-in level of the game to a file in the binary level format (see
+ * LevelFile), so it can be loaded with the level argument of Ass5Game and HeadlessGame.
+ *
+ * @author Ori Dabush
+ */
+public class LevelConverter {
+
+    /**
+     * The main method, which exports the built-in level.
+     *
+     * @param args the path of the level file (level.bin by default).
+     * @throws IOException if the file can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "level.bin");
+        Game.builtInLevel().write(path);
+        System.out.println("the built-in level was written to " + path);
+    }
+}
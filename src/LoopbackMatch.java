@@ -0,0 +1,104 @@
+// ID - 212945760
+
+import game.network.GameClient;
+import game.network.GameServer;
+import game.operation.Game;
+import game.operation.LevelFile;
+import game.operation.TrackingBot;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The LoopbackMatch class, which plays a whole multiplayer match on one machine - a game server and a client for
+ * every player (played by bots, see TrackingBot), over the loopback interface - and checks that every client saw the
+ * end of the server's game.
+ *
+ * @author Ori Dabush
+ */
+public class LoopbackMatch {
+    // The default maximal number of ticks of the match (a minute of the default physics rate) - bots may keep the
+    // balls in the game forever.
+    private static final long DEFAULT_MAX_TICKS = 3600;
+
+    /**
+     * The main method, which plays the match.
+     *
+     * @param args an optional number of players (2 by default), an optional seed of the game (0 by default), an
+     *             optional maximal number of ticks (DEFAULT_MAX_TICKS by default, a negative number plays until the
+     *             game ends), an optional "realtime" to play in real time (in lockstep by default, see
+     *             GameServer.setLockstep), an optional number of physics steps per second (60 by default, a real time
+     *             match of a higher rate runs faster), and an optional path of a level file.
+     * @throws Exception if the server or a client fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Game game = new Game();
+        game.setPlayers(args.length > 0 ? Integer.parseInt(args[0]) : 2);
+        game.setSeed(args.length > 1 ? Long.parseLong(args[1]) : 0);
+        long maxTicks = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_MAX_TICKS;
+        boolean lockstep = args.length < 4 || !args[3].equals("realtime");
+        if (args.length > 4) {
+            game.setPhysicsRate(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            game.setLevel(LevelFile.open(Paths.get(args[5])));
+        }
+        final GameServer server = new GameServer(game, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.setLockstep(lockstep);
+        server.setMaxTicks(maxTicks);
+        SocketAddress address = server.getAddress();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.run();
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }, "server");
+        long start = System.nanoTime();
+        serverThread.start();
+        final GameClient[] clients = new GameClient[game.getPlayers()];
+        Thread[] clientThreads = new Thread[clients.length];
+        for (int i = 0; i < clients.length; i++) {
+            final GameClient client = new GameClient(address);
+            clients[i] = client;
+            clientThreads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        client.play(new TrackingBot(client.getPlayer()));
+                    } catch (IOException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }, "client-" + i);
+            clientThreads[i].start();
+        }
+        for (Thread thread : clientThreads) {
+            thread.join();
+        }
+        serverThread.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (failure.get() != null) {
+            throw new RuntimeException("the match failed!", failure.get());
+        }
+        System.out.printf("server: ticks %d, score %d, %s, seconds %.3f, ticks/second %.1f%n", game.getTick(),
+                game.getScore(), game.isOver() ? "game over" : "stopped at the tick limit", seconds,
+                game.getTick() / seconds);
+        boolean same = true;
+        for (GameClient client : clients) {
+            System.out.printf("client %d: ticks %d, score %d%n", client.getPlayer(), client.getFinalTick(),
+                    client.getFinalScore());
+            same &= client.getFinalTick() == game.getTick() && client.getFinalScore() == game.getScore();
+            client.close();
+        }
+        System.out.println(same ? "all the clients saw the end of the match" : "the clients disagree with the server");
+    }
+}
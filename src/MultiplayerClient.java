@@ -0,0 +1,44 @@
+// ID - 212945760
+
+import biuoop.DrawSurface;
+import biuoop.GUI;
+import game.network.GameClient;
+import game.operation.Game;
+import game.operation.InputSource;
+import game.operation.KeyboardInput;
+import game.operation.TrackingBot;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * The MultiplayerClient class, which connects to a game server (see MultiplayerServer), draws every state of its
+ * game, and plays one of its players with the keyboard (or with a bot).
+ *
+ * @author Ori Dabush
+ */
+public class MultiplayerClient {
+
+    /**
+     * The main method, which runs the client.
+     *
+     * @param args the host of the server, its port, and an optional "bot" to let a bot play the player (see
+     *             TrackingBot) instead of the keyboard.
+     * @throws IOException if the client can't connect to the server.
+     */
+    public static void main(String[] args) throws IOException {
+        try (GameClient client = new GameClient(new InetSocketAddress(args[0], Integer.parseInt(args[1])))) {
+            GUI gui = new GUI("Arkanoid - player " + (client.getPlayer() + 1), Game.WIDTH, Game.HEIGHT);
+            InputSource input = args.length > 2 && args[2].equals("bot") ? new TrackingBot(client.getPlayer())
+                    : new KeyboardInput(gui.getKeyboardSensor(), client.getPlayer());
+            while (client.receive()) {
+                client.send(input);
+                DrawSurface d = gui.getDrawSurface();
+                client.getGame().drawFrame(d, 1);
+                gui.show(d);
+            }
+            System.out.printf("ticks: %d, score: %d%n", client.getFinalTick(), client.getFinalScore());
+            gui.close();
+        }
+    }
+}
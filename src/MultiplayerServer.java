@@ -0,0 +1,41 @@
+// ID - 212945760
+
+import game.network.GameServer;
+import game.operation.Game;
+import game.operation.LevelFile;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+/**
+ * The MultiplayerServer class, which runs an authoritative server of a game of several players (see GameServer), and
+ * prints the result of the game when it ends.
+ *
+ * @author Ori Dabush
+ */
+public class MultiplayerServer {
+
+    /**
+     * The main method, which runs the server.
+     *
+     * @param args the port to listen on, an optional number of players (2 by default), an optional path of a level
+     *             file ("-" for the built-in level), and an optional "lockstep" to play every tick only after all
+     *             the clients sent their inputs (in real time by default).
+     * @throws IOException if the level file can't be read or the server can't listen on the port.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        Game game = new Game();
+        game.setPlayers(args.length > 1 ? Integer.parseInt(args[1]) : 2);
+        if (args.length > 2 && !args[2].equals("-")) {
+            game.setLevel(LevelFile.open(Paths.get(args[2])));
+        }
+        try (GameServer server = new GameServer(game, new InetSocketAddress(port))) {
+            server.setLockstep(args.length > 3 && args[3].equals("lockstep"));
+            System.out.printf("waiting for %d players on %s%n", game.getPlayers(), server.getAddress());
+            server.run();
+        }
+        System.out.printf("ticks: %d, score: %d%n", game.getTick(), game.getScore());
+    }
+}
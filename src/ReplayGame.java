@@ -0,0 +1,50 @@
+// ID - 212945760
+
+import game.operation.Game;
+import game.operation.Replay;
+import game.operation.ReplayPlayer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The ReplayGame class, which plays a replay that was recorded by Ass5Game.
+ *
+ * @author Ori Dabush
+ */
+public class ReplayGame {
+
+    /**
+     * The main method, which plays the replay.
+     *
+     * @param args the path of the replay file, an optional tick to start playing from (0 by default), and an
+     *             optional "headless" to re-simulate the replay without a GUI, as fast as possible, and report
+     *             whether it reproduced the recorded game.
+     * @throws IOException if the replay file can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: ReplayGame replay-file [tick] [headless]");
+            return;
+        }
+        Replay replay = Replay.read(Paths.get(args[0]));
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long tick = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        if (args.length > 2 && args[2].equals("headless")) {
+            long start = System.nanoTime();
+            Game game = player.seek(tick, false);
+            double seekSeconds = (System.nanoTime() - start) / 1e9;
+            game.runHeadless(replay.getInput().getTicks() - game.getTick());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("seek to tick %d: %.3f seconds, replay: %d ticks in %.3f seconds (%.1f ticks/second)%n",
+                    tick, seekSeconds, game.getTick() - tick, seconds, (game.getTick() - tick) / seconds);
+            boolean matches = game.getTick() == replay.getFinalTick() && game.getScore() == replay.getFinalScore();
+            System.out.printf("ticks: %d, score: %d, recorded ticks: %d, recorded score: %d, %s%n", game.getTick(),
+                    game.getScore(), replay.getFinalTick(), replay.getFinalScore(),
+                    matches ? "reproduced" : "DIVERGED");
+            return;
+        }
+        Game game = player.seek(tick, true);
+        game.run();
+    }
+}
@@ -0,0 +1,106 @@
+// ID - 212945760
+
+import game.operation.GameResult;
+import game.operation.GameResultListener;
+import game.operation.InputSource;
+import game.operation.LevelFile;
+import game.operation.ScriptedInput;
+import game.operation.TournamentJob;
+import game.operation.TournamentRunner;
+import game.operation.TrackingBot;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Tournament class, which plays many headless games in parallel (see TournamentRunner), prints the result of
+ * every game as it ends and the average score of every controller, and reports how many games per second were
+ * played.
+ *
+ * @author Ori Dabush
+ */
+public class Tournament {
+    // The number of ticks that the sweep controller moves the paddle to one side before it turns back.
+    private static final int SWEEP_TICKS = 90;
+    // The default maximal number of ticks of a game - a bot may keep the balls in the game forever.
+    private static final long DEFAULT_MAX_TICKS = 20000;
+
+    /**
+     * The main method, which runs the tournament.
+     *
+     * @param args the number of games (100 by default), an optional number of threads (the number of processors by
+     *             default), an optional comma-separated list of controllers ("idle", "sweep" and "bot", all of
+     *             them by default) that play the games in turns, an optional path of a level file ("-" for the built-in
+     *             level), and an optional maximal number of ticks of a game (DEFAULT_MAX_TICKS by default, a
+     *             negative number plays every game until it ends - which may never happen). Games that are stopped at
+     *             the maximal number of ticks are reported as unfinished.
+     * @throws IOException if the level file can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String[] names = (args.length > 2 ? args[2] : "idle,sweep,bot").split(",");
+        LevelFile level = args.length > 3 && !args[3].equals("-") ? LevelFile.open(Paths.get(args[3])) : null;
+        long maxTicks = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_MAX_TICKS;
+        InputSource[] controllers = new InputSource[names.length];
+        for (int i = 0; i < names.length; i++) {
+            controllers[i] = controller(names[i]);
+        }
+        List<TournamentJob> jobs = new ArrayList<TournamentJob>();
+        for (int i = 0; i < games; i++) {
+            int c = i % names.length;
+            jobs.add(new TournamentJob(level, i / names.length, names[c], controllers[c], maxTicks));
+        }
+        // The total score, the number of games and the number of unfinished games of every controller (the listener's
+        // calls are serialized).
+        final Map<String, long[]> scores = new LinkedHashMap<String, long[]>();
+        for (String name : names) {
+            scores.put(name, new long[3]);
+        }
+        TournamentRunner runner = new TournamentRunner(threads);
+        TournamentRunner.Summary summary = runner.run(jobs, new GameResultListener() {
+            @Override
+            public void gameEnded(GameResult result) {
+                System.out.println(result);
+                long[] total = scores.get(result.getJob().getControllerName());
+                total[0] += result.getScore();
+                total[1]++;
+                if (!result.isFinished()) {
+                    total[2]++;
+                }
+            }
+        });
+        for (Map.Entry<String, long[]> entry : scores.entrySet()) {
+            long[] total = entry.getValue();
+            System.out.printf("controller %s: %d games (%d unfinished), average score %.1f%n", entry.getKey(),
+                    total[1], total[2], total[1] > 0 ? total[0] / (double) total[1] : 0.0);
+        }
+        System.out.println(summary);
+    }
+
+    /**
+     * A method to create a controller by its name.
+     *
+     * @param name the name of the controller.
+     * @return the controller.
+     */
+    private static InputSource controller(String name) {
+        if (name.equals("idle")) {
+            return new ScriptedInput(false);
+        }
+        if (name.equals("sweep")) {
+            ScriptedInput sweep = new ScriptedInput(true);
+            sweep.add(InputSource.LEFT, SWEEP_TICKS);
+            sweep.add(InputSource.RIGHT, SWEEP_TICKS);
+            return sweep;
+        }
+        if (name.equals("bot")) {
+            return new TrackingBot();
+        }
+        throw new RuntimeException("unknown controller " + name + "!");
+    }
+}
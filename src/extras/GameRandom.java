@@ -0,0 +1,75 @@
+// ID - 212945760
+
+package extras;
+
+import java.util.Random;
+
+/**
+ * The GameRandom class, a random generator whose whole state is a single long that can be read and set, so a copy
+ * of the state of a game can include its generator. It is the same linear congruential generator as
+ * java.util.Random, so for the same seed it draws the same numbers, except for nextGaussian, which doesn't keep its
+ * second value for the next call. Unlike java.util.Random, it is not thread-safe.
+ *
+ * @author Ori Dabush
+ */
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    // The constants of the generator (see java.util.Random).
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // The 48 bits of the generator's state. It is set by setSeed, which the constructor of Random calls, so it has
+    // no initializer (an initializer would run after it and reset it).
+    private long state;
+
+    /**
+     * A constructor for the GameRandom class.
+     *
+     * @param seed the seed of the generator.
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * An access method to the state of the generator.
+     *
+     * @return the state.
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * A method to set the state of the generator to a state that was returned by getState.
+     *
+     * @param newState the state.
+     */
+    public void setState(long newState) {
+        this.state = newState & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    @Override
+    public double nextGaussian() {
+        // The polar method of java.util.Random, without keeping the second value.
+        double v1, v2, s;
+        do {
+            v1 = 2 * this.nextDouble() - 1;
+            v2 = 2 * this.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+    }
+}
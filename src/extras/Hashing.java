@@ -0,0 +1,52 @@
+// ID - 212945760
+
+package extras;
+
+/**
+ * The Hashing class, which mixes 64-bit values into hashes. The mixing is a fixed sequence of integer operations, so
+ * a hash is the same in every run and on every machine (unlike Object.hashCode), and states of the game can be
+ * compared by their hashes.
+ *
+ * @author Ori Dabush
+ */
+public class Hashing {
+    // The constants of the SplitMix64 generator.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+
+    /**
+     * A method to mix a value into a hash of it, in which every bit depends on all the bits of the value.
+     *
+     * @param value the value.
+     * @return the hash of the value.
+     */
+    public static long mix(long value) {
+        long z = value + GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * MIX_1;
+        z = (z ^ (z >>> 27)) * MIX_2;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A method to add a value to a hash (the order of the values matters).
+     *
+     * @param hash  the hash of the previous values.
+     * @param value the value.
+     * @return the hash of the previous values and the value.
+     */
+    public static long combine(long hash, long value) {
+        return mix(hash * 31 + value);
+    }
+
+    /**
+     * A method to add a double value to a hash, by its bits (so -0.0 and 0.0 are different values).
+     *
+     * @param hash  the hash of the previous values.
+     * @param value the value.
+     * @return the hash of the previous values and the value.
+     */
+    public static long combine(long hash, double value) {
+        return combine(hash, Double.doubleToLongBits(value));
+    }
+}
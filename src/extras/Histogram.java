@@ -0,0 +1,194 @@
+// ID - 212945760
+
+package extras;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Histogram class, a histogram of non-negative values (latencies in nanoseconds for example) over a rolling
+ * window of time. The values are counted in log-linear buckets - 8 buckets for every power of 2 - so a percentile is
+ * found with a relative error of at most 12.5%, in a fixed amount of memory. The window is made of some slots of
+ * time, and a slot is cleared when it is used again, so the histogram describes the last (slots - 1) to slots slot
+ * durations. Recording is lock-free (except for clearing a slot, once in a slot duration), so values can be recorded
+ * from any thread.
+ *
+ * @author Ori Dabush
+ */
+public class Histogram {
+    // The number of bits of the sub-bucket in a bucket index (8 sub-buckets for every power of 2).
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // The largest power of 2 that has buckets, larger values are counted in the last bucket.
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private long slotNanos;
+    private Slot[] slots;
+
+    /**
+     * A constructor for the Histogram class.
+     *
+     * @param slotCount the number of slots in the window.
+     * @param slotNanos the duration of a slot, in nanoseconds.
+     */
+    public Histogram(int slotCount, long slotNanos) {
+        if (slotCount <= 0 || slotNanos <= 0) {
+            throw new RuntimeException("invalid histogram window!");
+        }
+        this.slotNanos = slotNanos;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            this.slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * A method to record a value.
+     *
+     * @param value the value (negative values are recorded as 0).
+     */
+    public void record(long value) {
+        this.record(value, System.nanoTime());
+    }
+
+    /**
+     * A method to record a value at a given time, for callers that have already read the time.
+     *
+     * @param value the value (negative values are recorded as 0).
+     * @param now   the time of the value (from System.nanoTime).
+     */
+    public void record(long value, long now) {
+        long v = Math.max(0, value);
+        long epoch = Math.floorDiv(now, this.slotNanos);
+        Slot slot = this.slots[(int) Math.floorMod(epoch, (long) this.slots.length)];
+        if (slot.epoch != epoch) {
+            slot.clear(epoch);
+        }
+        slot.counts.incrementAndGet(bucketOf(v));
+        slot.sum.addAndGet(v);
+        long max = slot.max.get();
+        while (v > max && !slot.max.compareAndSet(max, v)) {
+            max = slot.max.get();
+        }
+    }
+
+    /**
+     * A method to summarize the values that were recorded in the window.
+     *
+     * @return the summary of the values.
+     */
+    public HistogramSnapshot snapshot() {
+        long epoch = Math.floorDiv(System.nanoTime(), this.slotNanos);
+        long[] counts = new long[BUCKETS];
+        long count = 0, sum = 0, max = 0;
+        for (Slot slot : this.slots) {
+            if (slot.epoch <= epoch - this.slots.length) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = slot.counts.get(i);
+                counts[i] += c;
+                count += c;
+            }
+            sum += slot.sum.get();
+            max = Math.max(max, slot.max.get());
+        }
+        if (count == 0) {
+            return new HistogramSnapshot(0, 0, 0, 0, 0);
+        }
+        return new HistogramSnapshot(count, (double) sum / count, percentile(counts, count, 0.5, max),
+                percentile(counts, count, 0.99, max), max);
+    }
+
+    /**
+     * A method to find a percentile of the values of a histogram - the upper bound of the bucket it is in.
+     *
+     * @param counts   the counts of the buckets.
+     * @param count    the number of values.
+     * @param fraction the fraction of the values that are not larger than the percentile (0.99 for p99).
+     * @param max      the largest value, which bounds the percentile.
+     * @return the percentile.
+     */
+    private static long percentile(long[] counts, long count, double fraction, long max) {
+        long rank = (long) Math.ceil(fraction * count), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * A method to find the bucket of a value.
+     *
+     * @param value the value (not negative).
+     * @return the index of the bucket.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        if (exponent == MAX_EXPONENT && value >= 2L << MAX_EXPONENT) {
+            subBucket = SUB_BUCKETS - 1;
+        }
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * A method to find the largest value of a bucket.
+     *
+     * @param bucket the index of the bucket.
+     * @return the largest value of the bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * A slot of the window - the values that were recorded in one slot duration (the epoch of the slot).
+     */
+    private static final class Slot {
+        private volatile long epoch;
+        private AtomicLongArray counts;
+        private AtomicLong sum;
+        private AtomicLong max;
+
+        /**
+         * A constructor for the Slot class.
+         */
+        private Slot() {
+            // No epoch yet.
+            this.epoch = Long.MIN_VALUE;
+            this.counts = new AtomicLongArray(BUCKETS);
+            this.sum = new AtomicLong();
+            this.max = new AtomicLong();
+        }
+
+        /**
+         * A method to clear the slot, so it can be used for another epoch.
+         *
+         * @param newEpoch the new epoch of the slot.
+         */
+        private synchronized void clear(long newEpoch) {
+            if (this.epoch == newEpoch) {
+                return;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                this.counts.set(i, 0);
+            }
+            this.sum.set(0);
+            this.max.set(0);
+            this.epoch = newEpoch;
+        }
+    }
+}
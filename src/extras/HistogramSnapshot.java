@@ -0,0 +1,98 @@
+// ID - 212945760
+
+package extras;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * The HistogramSnapshot class, a summary of the values of a Histogram - their number, mean, median (p50), 99th
+ * percentile (p99) and maximum. It is an immutable value, so it can be published over JMX (as composite data).
+ *
+ * @author Ori Dabush
+ */
+public class HistogramSnapshot {
+    private long count;
+    private double mean;
+    private long p50;
+    private long p99;
+    private long max;
+
+    /**
+     * A constructor for the HistogramSnapshot class.
+     *
+     * @param count the number of values.
+     * @param mean  the mean of the values.
+     * @param p50   the median of the values.
+     * @param p99   the 99th percentile of the values.
+     * @param max   the largest value.
+     */
+    public HistogramSnapshot(long count, double mean, long p50, long p99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * A method to create a snapshot from its JMX form, so MXBean proxies can return snapshots.
+     *
+     * @param data the composite data of the snapshot.
+     * @return the snapshot.
+     */
+    public static HistogramSnapshot from(CompositeData data) {
+        return new HistogramSnapshot((Long) data.get("count"), (Double) data.get("mean"), (Long) data.get("p50"),
+                (Long) data.get("p99"), (Long) data.get("max"));
+    }
+
+    /**
+     * An access method to the number of values.
+     *
+     * @return the number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * An access method to the mean of the values.
+     *
+     * @return the mean of the values (0 if there are none).
+     */
+    public double getMean() {
+        return this.mean;
+    }
+
+    /**
+     * An access method to the median of the values.
+     *
+     * @return the median of the values (0 if there are none).
+     */
+    public long getP50() {
+        return this.p50;
+    }
+
+    /**
+     * An access method to the 99th percentile of the values.
+     *
+     * @return the 99th percentile of the values (0 if there are none).
+     */
+    public long getP99() {
+        return this.p99;
+    }
+
+    /**
+     * An access method to the largest value.
+     *
+     * @return the largest value (0 if there are none).
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1f, p50 %d, p99 %d, max %d", this.count, this.mean, this.p50,
+                this.p99, this.max);
+    }
+}
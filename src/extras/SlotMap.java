@@ -0,0 +1,193 @@
+// ID - 212945760
+
+package extras;
+
+import java.util.Arrays;
+
+/**
+ * The SlotMap class, a container that gives every value a handle when it is added, and removes values by their
+ * handles in O(1). A handle is made of a slot (an index that stays the same while the value is in the container, so
+ * it can index other arrays) and the generation of the slot, which changes when the value is removed - so a handle of
+ * a removed value never refers to another value that got the same slot later.
+ * The values are also kept in a dense array in the order they were added, which is iterated with size and valueAt
+ * without creating any objects. Removing a value only leaves a hole (null) in the dense array, and the structural
+ * changes - closing the holes and freeing the slots of the removed values - are done in flush, which should be called
+ * when nothing iterates over the container.
+ *
+ * @param <T> the type of the values.
+ * @author Ori Dabush
+ */
+public class SlotMap<T> {
+    private static final int INITIAL_CAPACITY = 16;
+    // The number of bits of the slot in a handle (the generation is in the other bits).
+    private static final int SLOT_BITS = 32;
+    private static final long SLOT_MASK = 0xFFFFFFFFL;
+
+    // The values in the order they were added (null for removed values), and the slots of the values.
+    private Object[] values;
+    private int[] valueSlots;
+    private int size;
+    // The number of holes in the dense array.
+    private int holes;
+    // The index of the value of every slot in the dense array, and the generations of the slots.
+    private int[] indexes;
+    private int[] generations;
+    private int slotCount;
+    // The slots that can be used again.
+    private int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * A constructor for the SlotMap class, which creates an empty container.
+     */
+    public SlotMap() {
+        this.values = new Object[INITIAL_CAPACITY];
+        this.valueSlots = new int[INITIAL_CAPACITY];
+        this.size = 0;
+        this.holes = 0;
+        this.indexes = new int[INITIAL_CAPACITY];
+        this.generations = new int[INITIAL_CAPACITY];
+        this.slotCount = 0;
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.freeCount = 0;
+    }
+
+    /**
+     * A method to add a value to the end of the container.
+     *
+     * @param value the value (not null).
+     * @return the handle of the value.
+     */
+    public long add(T value) {
+        if (value == null) {
+            throw new RuntimeException("can't add null to a SlotMap!");
+        }
+        int slot;
+        if (this.freeCount > 0) {
+            slot = this.freeSlots[--this.freeCount];
+        } else {
+            if (this.slotCount == this.indexes.length) {
+                this.indexes = Arrays.copyOf(this.indexes, 2 * this.indexes.length);
+                this.generations = Arrays.copyOf(this.generations, 2 * this.generations.length);
+            }
+            slot = this.slotCount++;
+        }
+        if (this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+            this.valueSlots = Arrays.copyOf(this.valueSlots, 2 * this.valueSlots.length);
+        }
+        this.values[this.size] = value;
+        this.valueSlots[this.size] = slot;
+        this.indexes[slot] = this.size++;
+        return ((long) this.generations[slot] << SLOT_BITS) | slot;
+    }
+
+    /**
+     * A method to remove the value of a handle. The value is not iterated anymore, but its slot is freed only in
+     * the next flush.
+     *
+     * @param handle the handle.
+     * @return true if the value was removed, false if the handle doesn't refer to a value in the container.
+     */
+    public boolean remove(long handle) {
+        if (!this.contains(handle)) {
+            return false;
+        }
+        int slot = slotOf(handle);
+        this.values[this.indexes[slot]] = null;
+        this.generations[slot]++;
+        this.holes++;
+        return true;
+    }
+
+    /**
+     * A method to check if a handle refers to a value in the container.
+     *
+     * @param handle the handle.
+     * @return true if it refers to a value in the container, false otherwise.
+     */
+    public boolean contains(long handle) {
+        int slot = slotOf(handle);
+        // Removing a value changes the generation of its slot, so only the handles of values in the container match.
+        return slot >= 0 && slot < this.slotCount && this.generations[slot] == (int) (handle >>> SLOT_BITS);
+    }
+
+    /**
+     * A method to get the value of a handle.
+     *
+     * @param handle the handle.
+     * @return the value, or null if the handle doesn't refer to a value in the container.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long handle) {
+        return this.contains(handle) ? (T) this.values[this.indexes[slotOf(handle)]] : null;
+    }
+
+    /**
+     * A method to get the slot of a handle - an index that is smaller than slotCount, and doesn't change while the
+     * value is in the container.
+     *
+     * @param handle the handle.
+     * @return the slot of the handle.
+     */
+    public static int slotOf(long handle) {
+        return (int) (handle & SLOT_MASK);
+    }
+
+    /**
+     * An access method to the number of slots that were used so far (all the slots are smaller than it).
+     *
+     * @return the number of slots.
+     */
+    public int slotCount() {
+        return this.slotCount;
+    }
+
+    /**
+     * An access method to the size of the dense array - the number of values in the container, and the holes of
+     * the values that were removed since the last flush.
+     *
+     * @return the size of the dense array.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * A method to get a value from the dense array, by its index. The values are in the order they were added.
+     *
+     * @param index the index (smaller than size).
+     * @return the value, or null if it was removed.
+     */
+    @SuppressWarnings("unchecked")
+    public T valueAt(int index) {
+        return (T) this.values[index];
+    }
+
+    /**
+     * A method to apply the structural changes of the removals - to close the holes of the removed values in the
+     * dense array (keeping the order of the other values) and free their slots, so they can be used again.
+     */
+    public void flush() {
+        if (this.holes == 0) {
+            return;
+        }
+        int next = 0;
+        for (int i = 0; i < this.size; i++) {
+            int slot = this.valueSlots[i];
+            if (this.values[i] == null) {
+                if (this.freeCount == this.freeSlots.length) {
+                    this.freeSlots = Arrays.copyOf(this.freeSlots, 2 * this.freeSlots.length);
+                }
+                this.freeSlots[this.freeCount++] = slot;
+                continue;
+            }
+            this.values[next] = this.values[i];
+            this.valueSlots[next] = slot;
+            this.indexes[slot] = next++;
+        }
+        Arrays.fill(this.values, next, this.size, null);
+        this.size = next;
+        this.holes = 0;
+    }
+}
@@ -0,0 +1,539 @@
+// ID - 212945760
+
+package game.events;
+
+import biuoop.DrawSurface;
+import extras.Hashing;
+import game.listeners.HitListener;
+import game.listeners.HitNotifier;
+import game.objects.Ball;
+import game.objects.Block;
+import game.objects.Collidable;
+import game.objects.StaticSprite;
+import game.operation.Game;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.SegmentHit;
+import geometry.Velocity;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The BrickField class, a compact field of bricks on a fixed grid (the blocks of a level). Instead of a Block object
+ * for every brick, the field keeps a bit for every brick (if it is alive) and the index of its color in a palette
+ * (a byte), and the listeners of all the bricks are shared by the field. So a brick takes about one byte, and a field
+ * can have millions of them. The field is a single collidable and a single sprite of the game - its collision queries
+ * check the bricks in the tiles that the trajectory passes through, and the hits are reported with the index of the
+ * brick (see CollisionInfo.getPart). The listeners get a Block view of the brick that was hit, which is created only
+ * when it is notified, and removing the view from the game removes the brick from the field.
+ *
+ * @author Ori Dabush
+ */
+public class BrickField implements Collidable, StaticSprite, HitNotifier {
+    // The maximal number of colors in the palette (the indexes are bytes).
+    private static final int MAX_COLORS = 256;
+    // A tolerance that adds the tiles that a circle only touches.
+    private static final double EPSILON = Math.pow(10, -9);
+
+    // The location of the upper-left corner of the field, and the size of a brick.
+    private double originX;
+    private double originY;
+    private double brickWidth;
+    private double brickHeight;
+    // The number of columns and rows in the field, brick (col, row) is in index row * columns + col.
+    private int columns;
+    private int rows;
+    private Rectangle bounds;
+    // The bricks that are alive (bit i % 64 of long i / 64 is the bit of brick i, the layout of the state), and their
+    // number.
+    private long[] alive;
+    private int aliveCount;
+    // The hash of the alive bricks - the XOR of the hashes of their indexes, so it is updated in O(1) when a brick is
+    // added or removed.
+    private long aliveHash;
+    // The indexes of the colors of the bricks in the palette.
+    private byte[] colors;
+    private Color[] palette;
+    private int paletteSize;
+    private List<HitListener> hitListeners;
+    // The game that the field is in (null if it isn't in a game), its hit events queue and the field's id in it.
+    private Game game;
+    private HitEventQueue hitEvents;
+    private int id;
+
+    /**
+     * A constructor for the BrickField class, which creates an empty field.
+     *
+     * @param x           the x value of the upper-left corner of the field.
+     * @param y           the y value of the upper-left corner of the field.
+     * @param brickWidth  the width of a brick.
+     * @param brickHeight the height of a brick.
+     * @param columns     the number of columns in the field.
+     * @param rows        the number of rows in the field.
+     */
+    public BrickField(double x, double y, double brickWidth, double brickHeight, int columns, int rows) {
+        if (brickWidth <= 0 || brickHeight <= 0 || columns <= 0 || rows <= 0
+                || (long) columns * rows > Integer.MAX_VALUE) {
+            throw new RuntimeException("invalid brick field size!");
+        }
+        this.originX = x;
+        this.originY = y;
+        this.brickWidth = brickWidth;
+        this.brickHeight = brickHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.bounds = new Rectangle(x, y, columns * brickWidth, rows * brickHeight);
+        this.alive = new long[(columns * rows + Long.SIZE - 1) / Long.SIZE];
+        this.aliveCount = 0;
+        this.aliveHash = 0;
+        this.colors = new byte[columns * rows];
+        this.palette = new Color[MAX_COLORS];
+        this.paletteSize = 0;
+        this.hitListeners = new CopyOnWriteArrayList<HitListener>();
+        this.game = null;
+        this.hitEvents = null;
+        this.id = -1;
+    }
+
+    /**
+     * A method to add a brick to the field (or change the color of a brick that is already in it).
+     *
+     * @param column the column of the brick.
+     * @param row    the row of the brick.
+     * @param color  the color of the brick.
+     */
+    public void addBrick(int column, int row, Color color) {
+        this.addBrick(column, row, this.addColor(color));
+    }
+
+    /**
+     * A method to add a brick to the field (or change the color of a brick that is already in it), with a color of
+     * the field's palette.
+     *
+     * @param column     the column of the brick.
+     * @param row        the row of the brick.
+     * @param colorIndex the index of the color in the palette (see addColor).
+     */
+    public void addBrick(int column, int row, int colorIndex) {
+        if (colorIndex < 0 || colorIndex >= this.paletteSize) {
+            throw new RuntimeException("the color is not in the palette!");
+        }
+        int index = this.indexOf(column, row);
+        this.reviveBrick(index);
+        this.colors[index] = (byte) colorIndex;
+    }
+
+    /**
+     * A method to check if there is a brick in a given place of the field.
+     *
+     * @param column the column of the place.
+     * @param row    the row of the place.
+     * @return true if there is a brick in the place, false otherwise.
+     */
+    public boolean isAlive(int column, int row) {
+        return this.isAlive(this.indexOf(column, row));
+    }
+
+    /**
+     * An access method to the number of bricks in the field.
+     *
+     * @return the number of bricks in the field.
+     */
+    public int getBrickCount() {
+        return this.aliveCount;
+    }
+
+    /**
+     * A method to get the hash of the bricks that are alive. It is kept up to date as bricks are added and removed,
+     * so getting it is O(1).
+     *
+     * @return the hash of the alive bricks.
+     */
+    public long getStateHash() {
+        return this.aliveHash;
+    }
+
+    /**
+     * A method to get the number of longs in the state of the field (see saveState) - one bit for every brick.
+     *
+     * @return the size of the state.
+     */
+    public int getStateSize() {
+        return (this.colors.length + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * A method to save the bricks that are alive - bit i % 64 of long i / 64 is the alive bit of brick i (brick
+     * (col, row) is in index row * columns + col).
+     *
+     * @param state  the array to save the state to.
+     * @param offset the index of the first long of the state in the array (getStateSize longs are saved).
+     */
+    public void saveState(long[] state, int offset) {
+        System.arraycopy(this.alive, 0, state, offset, this.alive.length);
+    }
+
+    /**
+     * A method to load the bricks that are alive from a state that was saved by saveState (a brick that was removed
+     * gets back its color). Only the bricks that changed are updated, and their areas are drawn again.
+     *
+     * @param state  the array to load the state from.
+     * @param offset the index of the first long of the state in the array.
+     */
+    public void loadState(long[] state, int offset) {
+        int size = this.getStateSize();
+        if (size * Long.SIZE > this.colors.length
+                && (state[offset + size - 1] >>> (this.colors.length % Long.SIZE)) != 0) {
+            throw new RuntimeException("the brick is outside of the field!");
+        }
+        for (int word = 0; word < size; word++) {
+            long bits = state[offset + word];
+            for (long changed = bits ^ this.alive[word]; changed != 0; changed &= changed - 1) {
+                int bit = Long.numberOfTrailingZeros(changed), index = word * Long.SIZE + bit;
+                if ((bits & (1L << bit)) != 0) {
+                    this.reviveBrick(index);
+                } else {
+                    this.removeBrick(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to check if a brick is alive.
+     *
+     * @param index the index of the brick.
+     * @return true if the brick is alive, false otherwise.
+     */
+    private boolean isAlive(int index) {
+        return (this.alive[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * A method to find the first brick that is alive from a given index.
+     *
+     * @param from the index to start from.
+     * @return the index of the brick, or -1 if there is no alive brick from the index.
+     */
+    private int nextAlive(int from) {
+        int word = from / Long.SIZE;
+        if (word >= this.alive.length) {
+            return -1;
+        }
+        // the bits of the bricks before the index are cleared (a shift by a long's size is taken modulo it).
+        long bits = this.alive[word] & (-1L << from);
+        while (bits == 0) {
+            word++;
+            if (word == this.alive.length) {
+                return -1;
+            }
+            bits = this.alive[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * A method to get a Block view of a brick of the field. The view is a new object (it is not kept by the field),
+     * and removing it from the game removes the brick from the field.
+     *
+     * @param column the column of the brick.
+     * @param row    the row of the brick.
+     * @return the view of the brick, or null if there is no brick in this place.
+     */
+    public Block brickAt(int column, int row) {
+        int index = this.indexOf(column, row);
+        return this.isAlive(index) ? new Brick(index) : null;
+    }
+
+    /**
+     * A method to add a brick to the field (its color is kept in colors).
+     *
+     * @param index the index of the brick.
+     */
+    private void reviveBrick(int index) {
+        if (this.isAlive(index)) {
+            return;
+        }
+        this.alive[index / Long.SIZE] |= 1L << index;
+        this.aliveCount++;
+        this.aliveHash ^= Hashing.mix(index);
+        if (this.game != null) {
+            this.game.staticAreaChanged(this.brickRectangle(index));
+        }
+    }
+
+    /**
+     * A method to remove a brick from the field.
+     *
+     * @param index the index of the brick.
+     */
+    private void removeBrick(int index) {
+        if (!this.isAlive(index)) {
+            return;
+        }
+        this.alive[index / Long.SIZE] &= ~(1L << index);
+        this.aliveCount--;
+        this.aliveHash ^= Hashing.mix(index);
+        if (this.game != null) {
+            this.game.staticAreaChanged(this.brickRectangle(index));
+        }
+    }
+
+    /**
+     * A method to get the index of a brick from its column and row.
+     *
+     * @param column the column of the brick.
+     * @param row    the row of the brick.
+     * @return the index of the brick.
+     */
+    private int indexOf(int column, int row) {
+        if (column < 0 || column >= this.columns || row < 0 || row >= this.rows) {
+            throw new RuntimeException("the brick is outside of the field!");
+        }
+        return row * this.columns + column;
+    }
+
+    /**
+     * A method to get the index of a color in the palette, adding it to the palette if it isn't there.
+     *
+     * @param color the color.
+     * @return the index of the color.
+     */
+    public int addColor(Color color) {
+        for (int i = 0; i < this.paletteSize; i++) {
+            if (this.palette[i].equals(color)) {
+                return i;
+            }
+        }
+        if (this.paletteSize == MAX_COLORS) {
+            throw new RuntimeException("too many colors in a brick field!");
+        }
+        this.palette[this.paletteSize] = color;
+        return this.paletteSize++;
+    }
+
+    /**
+     * A method to create the rectangle of a brick.
+     *
+     * @param index the index of the brick.
+     * @return the rectangle of the brick.
+     */
+    private Rectangle brickRectangle(int index) {
+        return new Rectangle(this.originX + (index % this.columns) * this.brickWidth,
+                this.originY + (index / this.columns) * this.brickHeight, this.brickWidth, this.brickHeight);
+    }
+
+    /**
+     * A method to find the first collision of a circle that moves from (x1, y1) to (x2, y2) with the bricks of the
+     * field, and offer it to a CollisionInfo object with the index of the brick (see CollisionInfo.getPart). All the
+     * bricks in the bounding box of the movement are checked - the movement of a single step is short, so there are
+     * only a few of them. A circle of radius 0 is a point, and its collisions are ordered by their distance from the
+     * start of the trajectory, as in GameEnvironment.getClosestCollision.
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @param info   the information about the closest collision so far.
+     * @param rank   the order the field was added to the environment in.
+     */
+    void findClosestCollision(double x1, double y1, double x2, double y2, double radius, CollisionInfo info,
+                              int rank) {
+        if (this.aliveCount == 0) {
+            return;
+        }
+        double reach = radius + EPSILON;
+        int minColumn = Math.max(0, (int) Math.floor((Math.min(x1, x2) - reach - this.originX) / this.brickWidth));
+        int maxColumn = (int) Math.floor((Math.max(x1, x2) + reach - this.originX) / this.brickWidth);
+        int minRow = Math.max(0, (int) Math.floor((Math.min(y1, y2) - reach - this.originY) / this.brickHeight));
+        int maxRow = (int) Math.floor((Math.max(y1, y2) + reach - this.originY) / this.brickHeight);
+        maxColumn = Math.min(this.columns - 1, maxColumn);
+        maxRow = Math.min(this.rows - 1, maxRow);
+        Rectangle r = info.candidateRectangle();
+        for (int row = minRow; row <= maxRow; row++) {
+            int end = row * this.columns + maxColumn + 1;
+            for (int i = this.nextAlive(row * this.columns + minColumn); i >= 0 && i < end;
+                 i = this.nextAlive(i + 1)) {
+                r.set(this.originX + (i - row * this.columns) * this.brickWidth, this.originY + row * this.brickHeight,
+                        this.brickWidth, this.brickHeight);
+                if (radius == 0) {
+                    if (r.intersectSegment(x1, y1, x2, y2, info.candidate())) {
+                        info.offer(this, rank, i, x1, y1);
+                    }
+                } else if (info.intersectSweptCircle(r, x1, y1, x2, y2, radius)) {
+                    info.offerByParameter(this, rank, i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    @Override
+    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+        if (collisionPoint == null || currentVelocity == null) {
+            return null;
+        }
+        // Finding the brick and the faces of the collision using the trajectory that ends in the collision point.
+        CollisionInfo info = new CollisionInfo();
+        this.findClosestCollision(collisionPoint.getX() - currentVelocity.getDx(),
+                collisionPoint.getY() - currentVelocity.getDy(), collisionPoint.getX(), collisionPoint.getY(), 0,
+                info, 0);
+        Velocity newVelocity = new Velocity(currentVelocity);
+        if (info.collisionObject() != null) {
+            this.hit(hitter, info, newVelocity);
+        }
+        return newVelocity;
+    }
+
+    /**
+     * A method to change the velocity of a ball after a collision with a brick - the ball bounces from the faces of
+     * the brick that the collision point is on, as it bounces from a Block. If the field is in a game, its listeners
+     * are notified at the end of the tick (see HitEventQueue), and otherwise (or if the ball isn't in the game)
+     * they are notified immediately.
+     *
+     * @param hitter   the ball that hit the brick.
+     * @param info     the information about the collision (with the index of the brick).
+     * @param velocity the velocity before the collision, which is changed to the velocity after it.
+     */
+    @Override
+    public void hit(Ball hitter, CollisionInfo info, Velocity velocity) {
+        SegmentHit collision = info.getHit();
+        if (collision.isOnFace(Rectangle.TOP_FACE | Rectangle.BOTTOM_FACE)) {
+            velocity.set(velocity.getDx(), -velocity.getDy());
+        }
+        if (collision.isOnFace(Rectangle.LEFT_FACE | Rectangle.RIGHT_FACE)) {
+            velocity.set(-velocity.getDx(), velocity.getDy());
+        }
+
+        // A ball that isn't in the game (it only has its environment) has no id in the queue.
+        if (this.hitEvents != null && hitter.getId() >= 0) {
+            this.hitEvents.add(this.id, info.getPart(), hitter.getId());
+        } else {
+            this.notifyHit(info.getPart(), hitter);
+        }
+    }
+
+    @Override
+    public void addToGame(Game g) {
+        if (this.hitEvents != g.getHitEvents()) {
+            this.hitEvents = g.getHitEvents();
+            this.id = this.hitEvents.register(this);
+        }
+        this.game = g;
+        g.addSprite(this);
+        g.addCollidable(this);
+    }
+
+    @Override
+    public Rectangle getDrawnArea() {
+        return this.bounds;
+    }
+
+    @Override
+    public void drawOn(DrawSurface d) {
+        for (int i = this.nextAlive(0); i >= 0; i = this.nextAlive(i + 1)) {
+            this.drawBrick(d, i);
+        }
+    }
+
+    @Override
+    public void drawAreaOn(DrawSurface d, Rectangle area) {
+        // The outline of a brick is drawn one pixel after its right and bottom edges.
+        double left = area.getX() - 1, top = area.getY() - 1;
+        int minColumn = Math.max(0, (int) Math.floor((left - this.originX) / this.brickWidth));
+        int minRow = Math.max(0, (int) Math.floor((top - this.originY) / this.brickHeight));
+        int maxColumn = (int) Math.floor((left + 1 + area.getWidth() - this.originX) / this.brickWidth);
+        int maxRow = (int) Math.floor((top + 1 + area.getHeight() - this.originY) / this.brickHeight);
+        maxColumn = Math.min(this.columns - 1, maxColumn);
+        maxRow = Math.min(this.rows - 1, maxRow);
+        for (int row = minRow; row <= maxRow; row++) {
+            int end = row * this.columns + maxColumn + 1;
+            for (int i = this.nextAlive(row * this.columns + minColumn); i >= 0 && i < end;
+                 i = this.nextAlive(i + 1)) {
+                this.drawBrick(d, i);
+            }
+        }
+    }
+
+    /**
+     * A method to draw a brick on a given DrawSurface, the same way a Block is drawn.
+     *
+     * @param d     the given DrawSurface.
+     * @param index the index of the brick.
+     */
+    private void drawBrick(DrawSurface d, int index) {
+        int x = (int) (this.originX + (index % this.columns) * this.brickWidth);
+        int y = (int) (this.originY + (index / this.columns) * this.brickHeight);
+        d.setColor(this.palette[this.colors[index] & 0xFF]);
+        d.fillRectangle(x, y, (int) this.brickWidth, (int) this.brickHeight);
+        d.setColor(Color.BLACK);
+        d.drawRectangle(x, y, (int) this.brickWidth, (int) this.brickHeight);
+    }
+
+    @Override
+    public void timePassed() {
+        // the bricks don't move.
+    }
+
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.hitListeners.add(hl);
+    }
+
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.hitListeners.remove(hl);
+    }
+
+    @Override
+    public void notifyHit(int part, Ball hitter) {
+        // A brick can be hit by a few balls in the same tick, and only the first hit (which removes it) counts.
+        if (part < 0 || !this.isAlive(part)) {
+            return;
+        }
+        Block brick = new Brick(part);
+        for (HitListener hl : this.hitListeners) {
+            hl.hitEvent(brick, hitter);
+        }
+    }
+
+    /**
+     * A Block view of a brick of the field. The listeners of the bricks are the listeners of the field, so they can't
+     * be changed through a single brick, and removing the view from the game removes the brick from the field.
+     */
+    private final class Brick extends Block {
+        private int index;
+
+        /**
+         * A constructor for the Brick class.
+         *
+         * @param index the index of the brick.
+         */
+        private Brick(int index) {
+            super(brickRectangle(index), palette[colors[index] & 0xFF]);
+            this.index = index;
+        }
+
+        @Override
+        public void removeFromGame(Game g) {
+            removeBrick(this.index);
+        }
+
+        @Override
+        public void addHitListener(HitListener hl) {
+            // the listeners are shared by the whole field.
+        }
+
+        @Override
+        public void removeHitListener(HitListener hl) {
+            // the listeners are shared by the whole field.
+        }
+    }
+}
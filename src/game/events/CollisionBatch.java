@@ -0,0 +1,138 @@
+// ID - 212945760
+
+package game.events;
+
+import java.util.Arrays;
+
+/**
+ * The CollisionBatch class, a list of collision queries of moving circles (the next steps of the balls for example)
+ * that are run together by GameEnvironment.getClosestCollisions. The queries are stored as a struct of arrays, which
+ * are allocated once and grow as needed, so a batch can be reused every tick without creating objects.
+ *
+ * @author Ori Dabush
+ */
+public class CollisionBatch {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double[] x1s;
+    private double[] y1s;
+    private double[] x2s;
+    private double[] y2s;
+    private double[] radiuses;
+    private CollisionInfo[] infos;
+    private int size;
+
+    /**
+     * A constructor for the CollisionBatch class, which creates an empty batch.
+     */
+    public CollisionBatch() {
+        this.x1s = new double[INITIAL_CAPACITY];
+        this.y1s = new double[INITIAL_CAPACITY];
+        this.x2s = new double[INITIAL_CAPACITY];
+        this.y2s = new double[INITIAL_CAPACITY];
+        this.radiuses = new double[INITIAL_CAPACITY];
+        this.infos = new CollisionInfo[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * A method to add a query of a circle that moves from (x1, y1) to (x2, y2) to the batch (see
+     * GameEnvironment.getClosestCollision).
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle (0 for a point).
+     * @param info   the object that the information about the collision will be written to.
+     */
+    public void add(double x1, double y1, double x2, double y2, double radius, CollisionInfo info) {
+        if (this.size == this.infos.length) {
+            int capacity = 2 * this.size;
+            this.x1s = Arrays.copyOf(this.x1s, capacity);
+            this.y1s = Arrays.copyOf(this.y1s, capacity);
+            this.x2s = Arrays.copyOf(this.x2s, capacity);
+            this.y2s = Arrays.copyOf(this.y2s, capacity);
+            this.radiuses = Arrays.copyOf(this.radiuses, capacity);
+            this.infos = Arrays.copyOf(this.infos, capacity);
+        }
+        this.x1s[this.size] = x1;
+        this.y1s[this.size] = y1;
+        this.x2s[this.size] = x2;
+        this.y2s[this.size] = y2;
+        this.radiuses[this.size] = radius;
+        this.infos[this.size] = info;
+        this.size++;
+    }
+
+    /**
+     * A method to remove all the queries from the batch.
+     */
+    public void clear() {
+        Arrays.fill(this.infos, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * An access method to the number of queries in the batch.
+     *
+     * @return the number of queries.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * An access method to the x values of the starts of the trajectories.
+     *
+     * @return the x values of the starts (the first size() values are the queries).
+     */
+    double[] getX1s() {
+        return this.x1s;
+    }
+
+    /**
+     * An access method to the y values of the starts of the trajectories.
+     *
+     * @return the y values of the starts (the first size() values are the queries).
+     */
+    double[] getY1s() {
+        return this.y1s;
+    }
+
+    /**
+     * An access method to the x values of the ends of the trajectories.
+     *
+     * @return the x values of the ends (the first size() values are the queries).
+     */
+    double[] getX2s() {
+        return this.x2s;
+    }
+
+    /**
+     * An access method to the y values of the ends of the trajectories.
+     *
+     * @return the y values of the ends (the first size() values are the queries).
+     */
+    double[] getY2s() {
+        return this.y2s;
+    }
+
+    /**
+     * An access method to the radiuses of the circles.
+     *
+     * @return the radiuses (the first size() values are the queries).
+     */
+    double[] getRadiuses() {
+        return this.radiuses;
+    }
+
+    /**
+     * An access method to the objects that the information about the collisions is written to.
+     *
+     * @return the objects (the first size() values are the queries).
+     */
+    CollisionInfo[] getInfos() {
+        return this.infos;
+    }
+}
@@ -3,20 +3,59 @@
 package game.events;
 
 import game.objects.Collidable;
+import geometry.Fixed;
 import geometry.Point;
+import geometry.Rectangle;
+import geometry.SegmentHit;
 
 /**
  * The CollisionInfo class, which gives information about a collision - it tells where it happened (a point) and
- * what is the collidable object that the collision was with.
+ * what is the collidable object that the collision was with. A CollisionInfo object can also be reused by many
+ * collision queries (see GameEnvironment.getClosestCollision), so the queries don't need to create new objects.
  *
  * @author Ori Dabush
  */
 public class CollisionInfo {
 
-    // The point where the collision happens (where the ball is supposed to move to).
+    // The point where the collision happens (where the ball is supposed to move to), created when it is asked for.
     private Point collisionPoint;
     // The collidable object that the collision was with.
     private Collidable collisionObject;
+    // The details of the collision - the parameter along the trajectory, the point and the faces it is on.
+    private SegmentHit hit;
+    // The square of the distance of the collision from the start of the trajectory (or the parameter of the
+    // collision along the trajectory, for the collisions of a moving circle).
+    private double squaredDistance;
+    // The order the collidable was added to the environment in, which orders collisions in the same distance.
+    private int order;
+    // The part of the collidable that the collision was with (see getPart).
+    private int part;
+    // A reusable result for the checks of a single collidable during a query.
+    private SegmentHit candidate;
+    // A reusable rectangle for the checks of collidables that don't have rectangles of their own (see BrickField).
+    private Rectangle candidateRectangle;
+    // The number of exact tests in the current query (every test writes to the candidate result), and the number of
+    // queries that were made with this object.
+    private int tests;
+    private int queries;
+    // Whether the circles of the queries are tested in fixed-point (see Rectangle.intersectSweptCircleFixed), and the
+    // fixed-point values of the circle of the current query.
+    private boolean fixedPoint;
+    private long fixedX1;
+    private long fixedY1;
+    private long fixedX2;
+    private long fixedY2;
+    private long fixedRadius;
+
+    /**
+     * A constructor to create an empty CollisionInfo object, which can be filled by a collision query.
+     */
+    public CollisionInfo() {
+        this.hit = new SegmentHit();
+        this.candidate = new SegmentHit();
+        this.candidateRectangle = new Rectangle(0, 0, 0, 0);
+        this.reset();
+    }
 
     /**
      * A constructor to create a CollisionInfo object from a given point and collidable object.
@@ -25,8 +64,12 @@ public class CollisionInfo {
      * @param collisionObject the collidable object that the collision was with.
      */
     public CollisionInfo(Point collisionPoint, Collidable collisionObject) {
+        this();
         this.collisionPoint = collisionPoint;
         this.collisionObject = collisionObject;
+        if (collisionPoint != null) {
+            this.hit.set(0, collisionPoint.getX(), collisionPoint.getY(), 0);
+        }
     }
 
     /**
@@ -35,6 +78,9 @@ public class CollisionInfo {
      * @return the point at which the collision occurs.
      */
     public Point collisionPoint() {
+        if (this.collisionPoint == null && this.collisionObject != null) {
+            this.collisionPoint = new Point(this.hit.getX(), this.hit.getY());
+        }
         return this.collisionPoint;
     }
 
@@ -46,4 +92,206 @@ public class CollisionInfo {
     public Collidable collisionObject() {
         return this.collisionObject;
     }
-}
\ No newline at end of file
+
+    /**
+     * An access method to the details of the collision - its parameter along the trajectory, its point and the faces
+     * of the collidable's rectangle it is on.
+     *
+     * @return the details of the collision.
+     */
+    public SegmentHit getHit() {
+        return this.hit;
+    }
+
+    /**
+     * An access method to the part of the collidable that the collision was with, for collidables that are made of
+     * many parts (like the bricks of a BrickField).
+     *
+     * @return the index of the part, or -1 if the collision was with a collidable that has a single part.
+     */
+    public int getPart() {
+        return this.part;
+    }
+
+    /**
+     * A method to clear the information, before a new query.
+     */
+    void reset() {
+        this.collisionPoint = null;
+        this.collisionObject = null;
+        this.squaredDistance = 0;
+        this.order = 0;
+        this.part = -1;
+        this.tests = 0;
+    }
+
+    /**
+     * A method to clear the information before a new query of a circle, and keep the fixed-point values of the
+     * circle if the queries are in fixed-point.
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     */
+    void startQuery(double x1, double y1, double x2, double y2, double radius) {
+        this.reset();
+        if (this.fixedPoint) {
+            this.fixedX1 = Fixed.fromDouble(x1);
+            this.fixedY1 = Fixed.fromDouble(y1);
+            this.fixedX2 = Fixed.fromDouble(x2);
+            this.fixedY2 = Fixed.fromDouble(y2);
+            this.fixedRadius = Fixed.fromDouble(radius);
+        }
+    }
+
+    /**
+     * A method to set whether the circles of the queries that are made with this object are tested in fixed-point
+     * (see Rectangle.intersectSweptCircleFixed) or in doubles (the default). The values of a fixed-point query
+     * should be fixed-point values (see Fixed.toDouble), so they are converted exactly.
+     *
+     * @param fixed true to test the circles in fixed-point, false to test them in doubles.
+     */
+    public void setFixedPoint(boolean fixed) {
+        this.fixedPoint = fixed;
+    }
+
+    /**
+     * A method to check whether the circles of the queries are tested in fixed-point.
+     *
+     * @return true if they are tested in fixed-point, false otherwise.
+     */
+    public boolean isFixedPoint() {
+        return this.fixedPoint;
+    }
+
+    /**
+     * A method to count a new query that is made with this object.
+     *
+     * @return the number of queries that were made with this object before it.
+     */
+    int nextQuery() {
+        return this.queries++;
+    }
+
+    /**
+     * An access method to the number of exact tests of collidables in the current query.
+     *
+     * @return the number of tests.
+     */
+    int getTests() {
+        return this.tests;
+    }
+
+    /**
+     * An access method to the reusable rectangle of a single check during a query.
+     *
+     * @return the reusable rectangle.
+     */
+    Rectangle candidateRectangle() {
+        return this.candidateRectangle;
+    }
+
+    /**
+     * An access method to the reusable result of a single check during a query.
+     *
+     * @return the reusable result.
+     */
+    SegmentHit candidate() {
+        this.tests++;
+        return this.candidate;
+    }
+
+    /**
+     * A method to find the contact of the circle of the current query with a rectangle (see
+     * Rectangle.intersectSweptCircle) into the candidate result - in fixed-point if the queries are in fixed-point.
+     *
+     * @param r      the rectangle.
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @return true if the circle touches the rectangle while it moves, false otherwise.
+     */
+    boolean intersectSweptCircle(Rectangle r, double x1, double y1, double x2, double y2, double radius) {
+        if (this.fixedPoint) {
+            return r.intersectSweptCircleFixed(this.fixedX1, this.fixedY1, this.fixedX2, this.fixedY2,
+                    this.fixedRadius, this.candidate());
+        }
+        return r.intersectSweptCircle(x1, y1, x2, y2, radius, this.candidate());
+    }
+
+    /**
+     * A method to offer the collision in the candidate result. It replaces the current collision if it is closer to
+     * the start of the trajectory, or if it is in the same distance and its collidable was added before.
+     *
+     * @param c      the collidable of the candidate collision.
+     * @param rank   the order the collidable was added to the environment in.
+     * @param startX the x value of the start of the trajectory.
+     * @param startY the y value of the start of the trajectory.
+     */
+    void offer(Collidable c, int rank, double startX, double startY) {
+        this.offer(c, rank, -1, startX, startY);
+    }
+
+    /**
+     * A method to offer the collision in the candidate result, with a part of a collidable (see getPart). Collisions
+     * with parts of the same collidable in the same distance are ordered by the order they are offered in.
+     *
+     * @param c         the collidable of the candidate collision.
+     * @param rank      the order the collidable was added to the environment in.
+     * @param partIndex the index of the part of the collidable.
+     * @param startX    the x value of the start of the trajectory.
+     * @param startY    the y value of the start of the trajectory.
+     */
+    void offer(Collidable c, int rank, int partIndex, double startX, double startY) {
+        double dx = this.candidate.getX() - startX, dy = this.candidate.getY() - startY;
+        double distance = dx * dx + dy * dy;
+        if (this.collisionObject == null || distance < this.squaredDistance
+                || (distance == this.squaredDistance && rank < this.order)) {
+            this.collisionObject = c;
+            this.collisionPoint = null;
+            this.hit.set(this.candidate);
+            this.squaredDistance = distance;
+            this.order = rank;
+            this.part = partIndex;
+        }
+    }
+
+    /**
+     * A method to offer the collision of a moving circle in the candidate result. It replaces the current collision
+     * if the circle reaches it before (a smaller parameter along the trajectory), or at the same time and its
+     * collidable was added before. The contact points of a circle are not on its trajectory, so their distances from
+     * its start don't order the collisions.
+     *
+     * @param c    the collidable of the candidate collision.
+     * @param rank the order the collidable was added to the environment in.
+     */
+    void offerByParameter(Collidable c, int rank) {
+        this.offerByParameter(c, rank, -1);
+    }
+
+    /**
+     * A method to offer the collision of a moving circle in the candidate result, with a part of a collidable (see
+     * getPart). Collisions with parts of the same collidable at the same time are ordered by the order they are
+     * offered in.
+     *
+     * @param c         the collidable of the candidate collision.
+     * @param rank      the order the collidable was added to the environment in.
+     * @param partIndex the index of the part of the collidable.
+     */
+    void offerByParameter(Collidable c, int rank, int partIndex) {
+        double t = this.candidate.getParameter();
+        if (this.collisionObject == null || t < this.squaredDistance
+                || (t == this.squaredDistance && rank < this.order)) {
+            this.collisionObject = c;
+            this.collisionPoint = null;
+            this.hit.set(this.candidate);
+            this.squaredDistance = t;
+            this.order = rank;
+            this.part = partIndex;
+        }
+    }
+}
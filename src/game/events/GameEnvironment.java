@@ -2,40 +2,229 @@
 
 package game.events;
 
+import extras.SlotMap;
 import game.objects.Collidable;
+import game.operation.FrameStats;
+import game.operation.Game;
 import geometry.Line;
-import geometry.Point;
 import geometry.Rectangle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * The GameEnvironment class, which contains a list of all the collidable game.objects in the game.
+ * The GameEnvironment class, which contains all the collidable game.objects in the game.
+ * The collidables that don't move are stored in a uniform grid (a spatial hash), so a collision query only
+ * checks the collidables in the cells that the trajectory passes through. Collidables that fill a tile of the
+ * environment's tile map (if it has one) are stored in the tile map instead. Collidables that move (like the paddle)
+ * are kept in a separate list and are checked on every query, and so are the brick fields (see BrickField), which
+ * find the bricks that a trajectory passes through by themselves.
+ * The bounds of the collidables in the grid are also kept as a struct of arrays (minX, minY, maxX, maxY), so a
+ * query can reject most of the candidates with a slab test over these arrays, without calling
+ * getCollisionRectangle through the Collidable interface.
+ * The entries of the grid and the moving collidables are stored in SlotMaps, so removing a collidable is O(1): it
+ * is only marked as removed, and the structural changes (removing it from its cells and reusing its slot) are done
+ * in flush, which the game calls between the ticks.
  *
  * @author Ori Dabush
  */
 public class GameEnvironment {
 
     /**
-     * The list of all the collidable objects in the game.
+     * The default size (in pixels) of a cell in the grid.
      */
-    private List<Collidable> collidables;
+    public static final double DEFAULT_CELL_SIZE = 32;
+
+    // A tolerance for the slab test, so it never rejects a collidable that the exact test accepts.
+    private static final double EPSILON = Math.pow(10, -9);
+    // The initial capacity of the bounds arrays.
+    private static final int INITIAL_SLOTS = 64;
+    // The initial capacity of the list of the removed entries.
+    private static final int INITIAL_REMOVED = 16;
+    // One of every 64 queries of a CollisionInfo object is measured, when the environment has stats.
+    private static final int STATS_SAMPLE_MASK = 63;
+
+    // The location of the upper-left corner of the grid, and the size of a cell.
+    private double originX;
+    private double originY;
+    private double cellSize;
+    // The number of columns and rows in the grid.
+    private int columns;
+    private int rows;
+    // The cells of the grid, cell (col, row) is in index row * columns + col.
+    private List<List<Entry>> cells;
+    // The entries of all the collidables that are not in the tile map.
+    private Map<Collidable, Entry> entries;
+    // The entries of the collidables in the grid (that don't move), and of the collidables that can move.
+    private SlotMap<Entry> gridEntries;
+    private SlotMap<Entry> movingEntries;
+    // The entries of the brick fields.
+    private SlotMap<Entry> brickFieldEntries;
+    // The entries that were removed from the grid since the last flush (they are still in their cells).
+    private Entry[] removedEntries;
+    private int removedCount;
+    // The bounds of the collidables in the grid, the collidable of entry e is in index e.slot (its slot in
+    // gridEntries).
+    private double[] minXs;
+    private double[] minYs;
+    private double[] maxXs;
+    private double[] maxYs;
+    // The tile map of the grid-aligned collidables, or null if there isn't one.
+    private TileMap tileMap;
+    // The number of collidables that were added so far, used to keep the insertion order.
+    private int insertions;
+    // The stats that the queries are measured in, or null.
+    private FrameStats stats;
+    // The buffers of the batch queries of every thread (created by its first one).
+    private ThreadLocal<Batch> batches;
 
     /**
-     * A constructor for the gameEvents.GameEnvironment class, which creates a new empty ArrayList.
+     * A constructor for the gameEvents.GameEnvironment class, which creates an empty environment in the size of the
+     * game's screen.
      */
     public GameEnvironment() {
-        this.collidables = new ArrayList<Collidable>();
+        this(0, 0, Game.WIDTH, Game.HEIGHT, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * A constructor for the gameEvents.GameEnvironment class, which creates an empty environment whose grid covers
+     * the given area. Collidables outside of this area are still supported, they are stored in the border cells.
+     *
+     * @param x        the x value of the upper-left corner of the grid.
+     * @param y        the y value of the upper-left corner of the grid.
+     * @param width    the width of the grid.
+     * @param height   the height of the grid.
+     * @param cellSize the size of a single cell of the grid.
+     */
+    public GameEnvironment(double x, double y, double width, double height, double cellSize) {
+        if (cellSize <= 0 || width <= 0 || height <= 0) {
+            throw new RuntimeException("invalid grid size!");
+        }
+        this.originX = x;
+        this.originY = y;
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(width / cellSize);
+        this.rows = (int) Math.ceil(height / cellSize);
+        this.cells = new ArrayList<List<Entry>>(this.columns * this.rows);
+        for (int i = 0; i < this.columns * this.rows; i++) {
+            this.cells.add(new ArrayList<Entry>());
+        }
+        this.entries = new IdentityHashMap<Collidable, Entry>();
+        this.gridEntries = new SlotMap<Entry>();
+        this.movingEntries = new SlotMap<Entry>();
+        this.brickFieldEntries = new SlotMap<Entry>();
+        this.removedEntries = new Entry[INITIAL_REMOVED];
+        this.removedCount = 0;
+        this.minXs = new double[INITIAL_SLOTS];
+        this.minYs = new double[INITIAL_SLOTS];
+        this.maxXs = new double[INITIAL_SLOTS];
+        this.maxYs = new double[INITIAL_SLOTS];
+        this.tileMap = null;
+        this.insertions = 0;
+        this.stats = null;
+        this.batches = new ThreadLocal<Batch>() {
+            @Override
+            protected Batch initialValue() {
+                return new Batch();
+            }
+        };
+    }
+
+    /**
+     * A method to set the stats that the latencies of the collision queries and their numbers of tests are recorded
+     * in. Only a sample of the queries is measured, so measuring them doesn't slow the queries down.
+     *
+     * @param newStats the stats, or null to stop measuring the queries.
+     */
+    public void setStats(FrameStats newStats) {
+        this.stats = newStats;
+    }
+
+    /**
+     * A method to set the tile map of the environment. Collidables that are added after it is set and fill one of
+     * its tiles exactly are stored in the tile map. A tile map that already has collidables can't be replaced.
+     *
+     * @param map the tile map.
+     */
+    public void setTileMap(TileMap map) {
+        if (this.tileMap != null && !this.tileMap.isEmpty()) {
+            throw new RuntimeException("the tile map of the environment already has collidables!");
+        }
+        this.tileMap = map;
     }
 
     /**
-     * A method to add the given collidable to the environment.
+     * A method to add the given collidable to the environment. The collidable is assumed not to move while it is in
+     * the environment, use addMovingCollidable for collidables that can move.
      *
      * @param c the given collidable.
      */
     public void addCollidable(Collidable c) {
-        this.collidables.add(c);
+        if (c == null || this.entries.containsKey(c)) {
+            return;
+        }
+        if (c instanceof BrickField) {
+            this.addBrickField((BrickField) c);
+            return;
+        }
+        if (this.tileMap != null && !this.tileMap.contains(c) && this.tileMap.add(c, this.insertions)) {
+            this.insertions++;
+            return;
+        }
+        Rectangle r = c.getCollisionRectangle();
+        Entry e = new Entry(c, this.insertions++);
+        e.minColumn = this.columnOf(r.getX());
+        e.minRow = this.rowOf(r.getY());
+        e.maxColumn = this.columnOf(r.getX() + r.getWidth());
+        e.maxRow = this.rowOf(r.getY() + r.getHeight());
+        e.handle = this.gridEntries.add(e);
+        e.slot = SlotMap.slotOf(e.handle);
+        this.ensureBounds(e.slot);
+        this.minXs[e.slot] = r.getX();
+        this.minYs[e.slot] = r.getY();
+        this.maxXs[e.slot] = r.getX() + r.getWidth();
+        this.maxYs[e.slot] = r.getY() + r.getHeight();
+        for (int row = e.minRow; row <= e.maxRow; row++) {
+            for (int col = e.minColumn; col <= e.maxColumn; col++) {
+                this.cells.get(row * this.columns + col).add(e);
+            }
+        }
+        this.entries.put(c, e);
+    }
+
+    /**
+     * A method to add a collidable that can move (like the paddle) to the environment. Such collidables are not
+     * stored in the grid, and they are checked on every query.
+     *
+     * @param c the given collidable.
+     */
+    public void addMovingCollidable(Collidable c) {
+        if (c == null || this.entries.containsKey(c)) {
+            return;
+        }
+        Entry e = new Entry(c, this.insertions++);
+        e.moving = true;
+        e.handle = this.movingEntries.add(e);
+        this.entries.put(c, e);
+    }
+
+    /**
+     * A method to add a brick field to the environment. The field is not stored in the grid, it is checked on every
+     * query and finds the bricks that the trajectory passes through by itself.
+     *
+     * @param field the brick field.
+     */
+    public void addBrickField(BrickField field) {
+        if (field == null || this.entries.containsKey(field)) {
+            return;
+        }
+        Entry e = new Entry(field, this.insertions++);
+        e.brickField = field;
+        e.handle = this.brickFieldEntries.add(e);
+        this.entries.put(field, e);
     }
 
     /**
@@ -48,43 +237,633 @@ public class GameEnvironment {
      * not collide with any of the collidables in this collection.
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        if (trajectory == null || this.collidables.isEmpty()) {
+        if (trajectory == null) {
             return null;
         }
+        CollisionInfo info = new CollisionInfo();
+        if (!this.getClosestCollision(trajectory.start().getX(), trajectory.start().getY(),
+                trajectory.end().getX(), trajectory.end().getY(), info)) {
+            return null;
+        }
+        return info;
+    }
+
+    /**
+     * Assume an object moving from (x1, y1) to (x2, y2). This method finds the closest collision that is going to
+     * occur and writes it into a given CollisionInfo object, so it doesn't create any objects. Collisions in the same
+     * distance are ordered by the order the collidables were added to the environment in.
+     *
+     * @param x1   the x value of the start of the trajectory.
+     * @param y1   the y value of the start of the trajectory.
+     * @param x2   the x value of the end of the trajectory.
+     * @param y2   the y value of the end of the trajectory.
+     * @param info the object that the information about the closest collision is written to.
+     * @return true if this object will collide with one of the collidables in this collection, false otherwise.
+     */
+    public boolean getClosestCollision(double x1, double y1, double x2, double y2, CollisionInfo info) {
+        return this.getClosestCollision(x1, y1, x2, y2, 0, info);
+    }
+
+    /**
+     * Assume a circle moving from (x1, y1) to (x2, y2). This method finds the first collidable that the circle is
+     * going to touch (see Rectangle.intersectSweptCircle) and writes the collision into a given CollisionInfo object.
+     * Collisions at the same time are ordered by the order the collidables were added to the environment in.
+     * A circle of radius 0 is a point, so it gives the same result as getClosestCollision(x1, y1, x2, y2, info).
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @param info   the object that the information about the collision is written to.
+     * @return true if the circle will collide with one of the collidables in this collection, false otherwise.
+     */
+    public boolean getClosestCollision(double x1, double y1, double x2, double y2, double radius,
+                                       CollisionInfo info) {
+        FrameStats s = this.stats;
+        if (s == null || (info.nextQuery() & STATS_SAMPLE_MASK) != 0) {
+            return this.findClosestCollision(x1, y1, x2, y2, radius, info);
+        }
+        long start = System.nanoTime();
+        boolean found = this.findClosestCollision(x1, y1, x2, y2, radius, info);
+        long end = System.nanoTime();
+        s.record(FrameStats.COLLISION_QUERY, end - start, end);
+        s.record(FrameStats.COLLISION_TESTS, info.getTests(), end);
+        return found;
+    }
+
+    /**
+     * The implementation of getClosestCollision for a circle.
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @param info   the object that the information about the collision is written to.
+     * @return true if the circle will collide with one of the collidables in this collection, false otherwise.
+     */
+    private boolean findClosestCollision(double x1, double y1, double x2, double y2, double radius,
+                                         CollisionInfo info) {
+        info.startQuery(x1, y1, x2, y2, radius);
+        // The cells that the circle passes through (the cells of its bounding box).
+        int minColumn = this.columnOf(Math.min(x1, x2) - radius), maxColumn = this.columnOf(Math.max(x1, x2) + radius);
+        int minRow = this.rowOf(Math.min(y1, y2) - radius), maxRow = this.rowOf(Math.max(y1, y2) + radius);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minColumn; col <= maxColumn; col++) {
+                List<Entry> cell = this.cells.get(row * this.columns + col);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry e = cell.get(i);
+                    // A collidable that covers some of the checked cells is checked only in the first of them.
+                    if (e.removed || col != Math.max(e.minColumn, minColumn) || row != Math.max(e.minRow, minRow)) {
+                        continue;
+                    }
+                    if (this.mayIntersect(e.slot, x1, y1, x2, y2, radius)) {
+                        check(e, x1, y1, x2, y2, radius, info);
+                    }
+                }
+            }
+        }
+        // Checking the collidables of the tile map.
+        if (this.tileMap != null) {
+            this.tileMap.findClosestCollision(x1, y1, x2, y2, radius, info);
+        }
+        // Checking the bricks of the brick fields.
+        for (int i = 0; i < this.brickFieldEntries.size(); i++) {
+            Entry e = this.brickFieldEntries.valueAt(i);
+            if (e != null) {
+                e.brickField.findClosestCollision(x1, y1, x2, y2, radius, info, e.order);
+            }
+        }
+        // Checking the collidables that can move.
+        for (int i = 0; i < this.movingEntries.size(); i++) {
+            Entry e = this.movingEntries.valueAt(i);
+            if (e != null) {
+                check(e, x1, y1, x2, y2, radius, info);
+            }
+        }
+        return info.collisionObject() != null;
+    }
 
-        List<Collidable> collidablesCopy = new ArrayList<>(this.collidables);
-
-        // The start of the trajectory line.
-        Point start = trajectory.start();
-        // The values of the closest gameEvents.CollisionInfo object to the start of the trajectory line.
-        Collidable firstCollidable = collidablesCopy.get(0);
-        Rectangle r = firstCollidable.getCollisionRectangle();
-        Point closestCollision = trajectory.closestIntersectionToStartOfLine(r);
-        // Checking if there's a closer collision.
-        for (Collidable c : collidablesCopy) {
-            r = c.getCollisionRectangle();
-            Point closestIntersection = trajectory.closestIntersectionToStartOfLine(r);
-            // Saving the details of the collision if it is closer to the start of the trajectory line.
-            if (closestIntersection != null) {
-                if (closestCollision == null) {
-                    closestCollision = closestIntersection;
-                    firstCollidable = c;
-                } else if (start.distance(closestIntersection) < start.distance(closestCollision)) {
-                    closestCollision = closestIntersection;
-                    firstCollidable = c;
+    /**
+     * A method to check the collision of a trajectory with the collidable of an entry, and offer it to the
+     * information about the closest collision.
+     *
+     * @param e      the entry.
+     * @param x1     the x value of the start of the trajectory.
+     * @param y1     the y value of the start of the trajectory.
+     * @param x2     the x value of the end of the trajectory.
+     * @param y2     the y value of the end of the trajectory.
+     * @param radius the radius of the circle that moves along the trajectory (0 for a point).
+     * @param info   the information about the closest collision so far.
+     */
+    private static void check(Entry e, double x1, double y1, double x2, double y2, double radius,
+                              CollisionInfo info) {
+        Rectangle r = e.collidable.getCollisionRectangle();
+        if (radius == 0) {
+            if (r.intersectSegment(x1, y1, x2, y2, info.candidate())) {
+                info.offer(e.collidable, e.order, x1, y1);
+            }
+        } else if (info.intersectSweptCircle(r, x1, y1, x2, y2, radius)) {
+            info.offerByParameter(e.collidable, e.order);
+        }
+    }
+
+    /**
+     * A batch form of getClosestCollision, which finds the closest collisions of many trajectories (the trajectories
+     * of all the balls for example) in one call. The trajectories are given as a struct of arrays - trajectory i is
+     * from (x1s[i], y1s[i]) to (x2s[i], y2s[i]) - and the information about the collision of trajectory i is
+     * written to infos[i]. The results are the same as the results of getClosestCollision for every trajectory, but
+     * the work on the grid is shared: the trajectories are grouped by the cells they pass through, the bounds of the
+     * collidables of every cell are gathered once, and all the trajectories of the cell are swept over them with the
+     * slab test (see SlabKernel) before the exact tests (see Batch). The buffers of the batch queries are kept per
+     * thread, so several threads can run batch queries at once (while the environment doesn't change).
+     *
+     * @param x1s   the x values of the starts of the trajectories.
+     * @param y1s   the y values of the starts of the trajectories.
+     * @param x2s   the x values of the ends of the trajectories.
+     * @param y2s   the y values of the ends of the trajectories.
+     * @param infos the objects that the information about the collisions is written to.
+     * @param count the number of trajectories.
+     * @return the number of trajectories that collide with one of the collidables in this collection.
+     */
+    public int getClosestCollisions(double[] x1s, double[] y1s, double[] x2s, double[] y2s, CollisionInfo[] infos,
+                                    int count) {
+        return this.findClosestCollisions(x1s, y1s, x2s, y2s, null, infos, count);
+    }
+
+    /**
+     * A batch form of getClosestCollision for moving circles, which runs all the queries of a batch (see the batch
+     * form for points). The slab test of the grid is done with the bounds of the collidables widened by the radius
+     * of every circle, as in a single query, so the results are the same as the results of the single queries.
+     *
+     * @param queries the queries.
+     * @return the number of queries that found a collision.
+     */
+    public int getClosestCollisions(CollisionBatch queries) {
+        return this.findClosestCollisions(queries.getX1s(), queries.getY1s(), queries.getX2s(), queries.getY2s(),
+                queries.getRadiuses(), queries.getInfos(), queries.size());
+    }
+
+    /**
+     * A method to run a batch query (see getClosestCollisions).
+     *
+     * @param x1s      the x values of the starts of the trajectories.
+     * @param y1s      the y values of the starts of the trajectories.
+     * @param x2s      the x values of the ends of the trajectories.
+     * @param y2s      the y values of the ends of the trajectories.
+     * @param radiuses the radiuses of the circles that move along the trajectories, or null for points.
+     * @param infos    the objects that the information about the collisions is written to.
+     * @param count    the number of trajectories.
+     * @return the number of trajectories that collide with one of the collidables in this collection.
+     */
+    private int findClosestCollisions(double[] x1s, double[] y1s, double[] x2s, double[] y2s, double[] radiuses,
+                                      CollisionInfo[] infos, int count) {
+        this.batches.get().run(x1s, y1s, x2s, y2s, radiuses, infos, count);
+        int collisions = 0;
+        for (int i = 0; i < count; i++) {
+            double x1 = x1s[i], y1 = y1s[i], x2 = x2s[i], y2 = y2s[i];
+            double radius = radiuses == null ? 0 : radiuses[i];
+            CollisionInfo info = infos[i];
+            // The collidables that are not in the grid are checked as in a single query.
+            if (this.tileMap != null) {
+                this.tileMap.findClosestCollision(x1, y1, x2, y2, radius, info);
+            }
+            for (int j = 0; j < this.brickFieldEntries.size(); j++) {
+                Entry e = this.brickFieldEntries.valueAt(j);
+                if (e != null) {
+                    e.brickField.findClosestCollision(x1, y1, x2, y2, radius, info, e.order);
                 }
             }
+            for (int j = 0; j < this.movingEntries.size(); j++) {
+                Entry e = this.movingEntries.valueAt(j);
+                if (e != null) {
+                    check(e, x1, y1, x2, y2, radius, info);
+                }
+            }
+            if (info.collisionObject() != null) {
+                collisions++;
+            }
         }
-        // Creating & returning the new gameEvents.CollisionInfo object.
-        return new CollisionInfo(closestCollision, firstCollidable);
+        return collisions;
     }
 
     /**
-     * A method to remove a collidable object from the current GameEnvironment.
+     * A method to remove a collidable object from the current GameEnvironment. It isn't found by the queries
+     * anymore, but it is removed from the grid's cells only in the next flush.
      *
      * @param c is the collidable that will be removed.
      */
     public void removeCollidable(Collidable c) {
-        this.collidables.remove(c);
+        if (this.tileMap != null && this.tileMap.remove(c)) {
+            return;
+        }
+        Entry e = this.entries.remove(c);
+        if (e == null) {
+            return;
+        }
+        e.removed = true;
+        if (e.moving) {
+            this.movingEntries.remove(e.handle);
+            return;
+        }
+        if (e.brickField != null) {
+            this.brickFieldEntries.remove(e.handle);
+            return;
+        }
+        if (this.removedCount == this.removedEntries.length) {
+            this.removedEntries = Arrays.copyOf(this.removedEntries, 2 * this.removedEntries.length);
+        }
+        this.removedEntries[this.removedCount++] = e;
+    }
+
+    /**
+     * A method to apply the structural changes of the removals since the last flush - to remove the removed
+     * collidables from the grid's cells and free their slots. It shouldn't be called while a query runs.
+     */
+    public void flush() {
+        for (int i = 0; i < this.removedCount; i++) {
+            Entry e = this.removedEntries[i];
+            for (int row = e.minRow; row <= e.maxRow; row++) {
+                for (int col = e.minColumn; col <= e.maxColumn; col++) {
+                    this.cells.get(row * this.columns + col).remove(e);
+                }
+            }
+            // The slot is freed only after the entry was removed from its cells, since it can be used again.
+            this.gridEntries.remove(e.handle);
+            this.removedEntries[i] = null;
+        }
+        this.removedCount = 0;
+        this.gridEntries.flush();
+        this.movingEntries.flush();
+        this.brickFieldEntries.flush();
+    }
+
+    /**
+     * A slab test of a trajectory against the bounds in a given slot (grown by a radius). It is a quick check that is
+     * used before the exact check of the collidable's rectangle, so it only needs to be conservative - it may accept
+     * trajectories that don't intersect the bounds, but it never rejects one that does.
+     *
+     * @param slot   the slot of the bounds.
+     * @param x1     the x value of the start of the trajectory.
+     * @param y1     the y value of the start of the trajectory.
+     * @param x2     the x value of the end of the trajectory.
+     * @param y2     the y value of the end of the trajectory.
+     * @param radius the radius to grow the bounds by.
+     * @return false if the trajectory surely doesn't intersect the bounds, true otherwise.
+     */
+    private boolean mayIntersect(int slot, double x1, double y1, double x2, double y2, double radius) {
+        double tEnter = -EPSILON, tExit = 1 + EPSILON;
+        double dx = x2 - x1, dy = y2 - y1;
+        double minX = this.minXs[slot] - radius, maxX = this.maxXs[slot] + radius;
+        double minY = this.minYs[slot] - radius, maxY = this.maxYs[slot] + radius;
+        if (dx != 0) {
+            double t1 = (minX - x1) / dx, t2 = (maxX - x1) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (x1 < minX - EPSILON || x1 > maxX + EPSILON) {
+            return false;
+        }
+        if (dy != 0) {
+            double t1 = (minY - y1) / dy, t2 = (maxY - y1) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (y1 < minY - EPSILON || y1 > maxY + EPSILON) {
+            return false;
+        }
+        return tEnter <= tExit + EPSILON;
+    }
+
+    /**
+     * A method to grow the bounds arrays, if they are too small for a given slot.
+     *
+     * @param slot the slot.
+     */
+    private void ensureBounds(int slot) {
+        if (slot < this.minXs.length) {
+            return;
+        }
+        int capacity = Math.max(this.minXs.length * 2, slot + 1);
+        this.minXs = Arrays.copyOf(this.minXs, capacity);
+        this.minYs = Arrays.copyOf(this.minYs, capacity);
+        this.maxXs = Arrays.copyOf(this.maxXs, capacity);
+        this.maxYs = Arrays.copyOf(this.maxYs, capacity);
+    }
+
+    /**
+     * A method to find the column of the grid that a given x value is in.
+     *
+     * @param x the given x value.
+     * @return the column of the x value, values outside the grid are in the border columns.
+     */
+    private int columnOf(double x) {
+        int col = (int) Math.floor((x - this.originX) / this.cellSize);
+        return Math.max(0, Math.min(this.columns - 1, col));
+    }
+
+    /**
+     * A method to find the row of the grid that a given y value is in.
+     *
+     * @param y the given y value.
+     * @return the row of the y value, values outside the grid are in the border rows.
+     */
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - this.originY) / this.cellSize);
+        return Math.max(0, Math.min(this.rows - 1, row));
+    }
+
+    /**
+     * The Batch class, the buffers and the steps of a batch query on the grid (see getClosestCollisions). The
+     * trajectories are handled in chunks that fit in the cache. The trajectories of a chunk are sorted into the cells
+     * of their bounding boxes (a counting sort - the trajectories of cell c are items cellStarts[c] to
+     * cellStarts[c] + cellCounts[c] - 1). Then, for every cell that has trajectories, the bounds of its collidables
+     * are gathered into contiguous lanes, and every trajectory of the cell is swept over the lanes with a slab test
+     * (see SlabKernel) - a tight loop over arrays, without going through the entries - and only the collidables that
+     * pass it get the exact test. The bounding box of a circle's trajectory and the bounds in its slab test are
+     * widened by its radius, as in a single query.
+     */
+    private final class Batch {
+        // The number of trajectories in a chunk.
+        private static final int CHUNK = 1024;
+
+        private double[] x1s;
+        private double[] y1s;
+        private double[] x2s;
+        private double[] y2s;
+        private double[] radiuses;
+        private CollisionInfo[] infos;
+        // The first cell of the bounding box of every trajectory of the chunk (a collidable is tested only in its
+        // first cell that the trajectory passes through, as in a single query).
+        private int[] minColumns;
+        private int[] minRows;
+        // The pairs of a cell and a trajectory that passes through it, in the order they were found.
+        private int[] pairCells;
+        private int[] pairItems;
+        // The trajectories of every cell, and the cells that have trajectories (in the order they got their first
+        // one), so a chunk doesn't go over all the cells of the grid.
+        private int[] cellCounts;
+        private int[] cellStarts;
+        private int[] items;
+        private int[] touchedCells;
+        private int touchedCount;
+        // The lanes of the collidables of the current cell - their bounds, their first cells and their entries, and
+        // the lanes that the current trajectory passes the slab test of.
+        private SlabLanes lanes;
+        private int[] laneMinColumns;
+        private int[] laneMinRows;
+        private Entry[] laneEntries;
+        private int[] selected;
+        // Whether some of the lanes start in the column of the current cell, in its row, or in both - a trajectory
+        // whose bounding box starts before the cell tests only these lanes in it, so the cell is skipped without
+        // the slab test if there are none.
+        private boolean columnStartLanes;
+        private boolean rowStartLanes;
+        private boolean cornerStartLanes;
+
+        /**
+         * A constructor for the Batch class, which creates the buffers (the lanes and the items grow as needed).
+         */
+        private Batch() {
+            int cellCount = GameEnvironment.this.cells.size();
+            this.minColumns = new int[CHUNK];
+            this.minRows = new int[CHUNK];
+            this.cellCounts = new int[cellCount];
+            this.cellStarts = new int[cellCount];
+            this.touchedCells = new int[cellCount];
+            this.touchedCount = 0;
+            this.pairCells = new int[4 * CHUNK];
+            this.pairItems = new int[4 * CHUNK];
+            this.items = new int[4 * CHUNK];
+            this.lanes = new SlabLanes(INITIAL_SLOTS);
+            this.growLanes(INITIAL_SLOTS);
+        }
+
+        /**
+         * A method to run the grid part of a batch query - to write the closest collision of every trajectory with
+         * the collidables of the grid into its CollisionInfo object.
+         *
+         * @param startXs the x values of the starts of the trajectories.
+         * @param startYs the y values of the starts of the trajectories.
+         * @param endXs   the x values of the ends of the trajectories.
+         * @param endYs   the y values of the ends of the trajectories.
+         * @param radii   the radiuses of the circles that move along the trajectories, or null for points.
+         * @param results the objects that the information about the collisions is written to.
+         * @param count   the number of trajectories.
+         */
+        private void run(double[] startXs, double[] startYs, double[] endXs, double[] endYs, double[] radii,
+                         CollisionInfo[] results, int count) {
+            this.x1s = startXs;
+            this.y1s = startYs;
+            this.x2s = endXs;
+            this.y2s = endYs;
+            this.radiuses = radii;
+            this.infos = results;
+            for (int from = 0; from < count; from += CHUNK) {
+                this.sweepChunk(from, Math.min(count, from + CHUNK));
+            }
+            this.infos = null;
+        }
+
+        /**
+         * A method to run the grid part of a batch query on a chunk of the trajectories.
+         *
+         * @param from the index of the first trajectory of the chunk.
+         * @param to   the index after the last trajectory of the chunk.
+         */
+        private void sweepChunk(int from, int to) {
+            this.sort(from, to);
+            int perRow = GameEnvironment.this.columns;
+            for (int c = 0; c < this.touchedCount; c++) {
+                int cell = this.touchedCells[c];
+                int n = this.cellCounts[cell];
+                // The counts are cleared here, so they are ready for the next chunk.
+                this.cellCounts[cell] = 0;
+                if (this.gather(cell) == 0) {
+                    continue;
+                }
+                int start = this.cellStarts[cell];
+                for (int j = start; j < start + n; j++) {
+                    this.sweep(this.items[j], cell % perRow, cell / perRow);
+                }
+            }
+        }
+
+        /**
+         * A method to start the queries of a chunk of the trajectories and sort them into the cells of their bounding
+         * boxes.
+         *
+         * @param from the index of the first trajectory of the chunk.
+         * @param to   the index after the last trajectory of the chunk.
+         */
+        private void sort(int from, int to) {
+            GameEnvironment env = GameEnvironment.this;
+            int total = 0;
+            this.touchedCount = 0;
+            for (int t = from; t < to; t++) {
+                double x1 = this.x1s[t], y1 = this.y1s[t], x2 = this.x2s[t], y2 = this.y2s[t];
+                double radius = this.radiusOf(t);
+                this.infos[t].startQuery(x1, y1, x2, y2, radius);
+                int i = t - from;
+                int minColumn = env.columnOf(Math.min(x1, x2) - radius);
+                int maxColumn = env.columnOf(Math.max(x1, x2) + radius);
+                int minRow = env.rowOf(Math.min(y1, y2) - radius), maxRow = env.rowOf(Math.max(y1, y2) + radius);
+                this.minColumns[i] = minColumn;
+                this.minRows[i] = minRow;
+                for (int row = minRow; row <= maxRow; row++) {
+                    for (int col = minColumn; col <= maxColumn; col++) {
+                        int cell = row * env.columns + col;
+                        // The trajectories are not sorted into the cells that have no collidables.
+                        if (env.cells.get(cell).isEmpty()) {
+                            continue;
+                        }
+                        if (this.cellCounts[cell] == 0) {
+                            this.touchedCells[this.touchedCount++] = cell;
+                        }
+                        this.cellCounts[cell]++;
+                        if (total == this.pairCells.length) {
+                            this.pairCells = Arrays.copyOf(this.pairCells, 2 * total);
+                            this.pairItems = Arrays.copyOf(this.pairItems, 2 * total);
+                        }
+                        this.pairCells[total] = cell;
+                        this.pairItems[total] = t;
+                        total++;
+                    }
+                }
+            }
+            if (this.items.length < total) {
+                this.items = new int[Math.max(total, 2 * this.items.length)];
+            }
+            int offset = 0;
+            for (int c = 0; c < this.touchedCount; c++) {
+                int cell = this.touchedCells[c];
+                this.cellStarts[cell] = offset;
+                offset += this.cellCounts[cell];
+                this.cellCounts[cell] = 0;
+            }
+            for (int p = 0; p < total; p++) {
+                int cell = this.pairCells[p];
+                this.items[this.cellStarts[cell] + this.cellCounts[cell]++] = this.pairItems[p];
+            }
+        }
+
+        /**
+         * A method to gather the bounds of the collidables of a cell into the lanes.
+         *
+         * @param cell the index of the cell.
+         * @return the number of lanes (the collidables of the cell that weren't removed).
+         */
+        private int gather(int cell) {
+            GameEnvironment env = GameEnvironment.this;
+            List<Entry> cellEntries = env.cells.get(cell);
+            if (this.laneEntries.length < cellEntries.size()) {
+                this.growLanes(Math.max(cellEntries.size(), 2 * this.laneEntries.length));
+            }
+            this.lanes.clear();
+            int col = cell % env.columns, row = cell / env.columns;
+            this.columnStartLanes = false;
+            this.rowStartLanes = false;
+            this.cornerStartLanes = false;
+            for (int i = 0; i < cellEntries.size(); i++) {
+                Entry e = cellEntries.get(i);
+                if (e.removed) {
+                    continue;
+                }
+                int lane = this.lanes.size();
+                this.lanes.add(env.minXs[e.slot], env.minYs[e.slot], env.maxXs[e.slot], env.maxYs[e.slot]);
+                this.laneMinColumns[lane] = e.minColumn;
+                this.laneMinRows[lane] = e.minRow;
+                this.laneEntries[lane] = e;
+                this.columnStartLanes |= e.minColumn == col;
+                this.rowStartLanes |= e.minRow == row;
+                this.cornerStartLanes |= e.minColumn == col && e.minRow == row;
+            }
+            if (this.selected.length < this.lanes.capacity()) {
+                this.selected = new int[this.lanes.capacity()];
+            }
+            return this.lanes.size();
+        }
+
+        /**
+         * A method to sweep a trajectory over the lanes of the current cell - the slab test of the kernel against the
+         * bounds of every lane, and the exact test of the collidables that pass it.
+         *
+         * @param t   the index of the trajectory.
+         * @param col the column of the cell.
+         * @param row the row of the cell.
+         */
+        private void sweep(int t, int col, int row) {
+            double x1 = this.x1s[t], y1 = this.y1s[t], x2 = this.x2s[t], y2 = this.y2s[t];
+            double radius = this.radiusOf(t);
+            int i = t % CHUNK, minColumn = this.minColumns[i], minRow = this.minRows[i];
+            boolean laterColumn = col > minColumn, laterRow = row > minRow;
+            if (laterColumn && laterRow ? !this.cornerStartLanes
+                    : laterColumn && !this.columnStartLanes || laterRow && !this.rowStartLanes) {
+                // None of the lanes is tested in this cell (see below), so the slab test is skipped.
+                return;
+            }
+            this.lanes.setSegment(x1, y1, x2, y2, radius);
+            int count = SlabKernel.best().select(this.lanes, this.selected);
+            for (int j = 0; j < count; j++) {
+                int k = this.selected[j];
+                // A collidable that covers some of the trajectory's cells is tested only in the first of them.
+                if (col == Math.max(this.laneMinColumns[k], minColumn)
+                        && row == Math.max(this.laneMinRows[k], minRow)) {
+                    check(this.laneEntries[k], x1, y1, x2, y2, radius, this.infos[t]);
+                }
+            }
+        }
+
+        /**
+         * A method to get the radius of the circle that moves along a trajectory.
+         *
+         * @param t the index of the trajectory.
+         * @return the radius, 0 if the trajectories are of points.
+         */
+        private double radiusOf(int t) {
+            return this.radiuses == null ? 0 : this.radiuses[t];
+        }
+
+        /**
+         * A method to grow the first cells, the entries and the selection of the lanes (their bounds grow by
+         * themselves, see SlabLanes).
+         *
+         * @param capacity the new capacity of the lanes.
+         */
+        private void growLanes(int capacity) {
+            this.laneMinColumns = new int[capacity];
+            this.laneMinRows = new int[capacity];
+            this.laneEntries = new Entry[capacity];
+            this.selected = new int[capacity];
+        }
+    }
+
+    /**
+     * An entry of a collidable in the environment - the collidable, the order it was added in, its handle in its
+     * slot map, and for collidables in the grid, the range of cells it covers and the slot of its bounds. The entry
+     * of a brick field also refers to the field itself.
+     */
+    private static final class Entry {
+        private Collidable collidable;
+        private int order;
+        private int minColumn;
+        private int minRow;
+        private int maxColumn;
+        private int maxRow;
+        private int slot;
+        private long handle;
+        private boolean moving;
+        private BrickField brickField;
+        private boolean removed;
+
+        /**
+         * A constructor for the Entry class.
+         *
+         * @param collidable the collidable of the entry.
+         * @param order      the order the collidable was added in.
+         */
+        private Entry(Collidable collidable, int order) {
+            this.collidable = collidable;
+            this.order = order;
+        }
     }
-}
\ No newline at end of file
+}
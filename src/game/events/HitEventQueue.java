@@ -0,0 +1,352 @@
+// ID - 212945760
+
+package game.events;
+
+import game.listeners.HitNotifier;
+import game.objects.Ball;
+
+import java.util.Arrays;
+
+/**
+ * The HitEventQueue class, which collects the hit events of a tick and dispatches them to the notifiers (the blocks
+ * and the brick fields) at the end of the tick (see endTick), so their listeners don't change the game (remove blocks
+ * and balls) in the middle of the collision detection. The events are stored as records of ints (the id of the
+ * notifier, the part of it that was hit and the id of the ball) in a ring buffer that is allocated once, and the
+ * notifiers and the balls get their ids when they are registered and give them back when they leave the game.
+ * Hits of the same ball on the same part of a notifier in one tick are coalesced into one event, by a table of the
+ * hits of the tick (so adding an event takes a constant time, however many events the tick has).
+ *
+ * @author Ori Dabush
+ */
+public class HitEventQueue {
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The registered notifiers and balls, by their ids.
+    private HitNotifier[] notifiers;
+    private IdPool notifierIds;
+    private Ball[] balls;
+    private IdPool ballIds;
+
+    // The ring buffer of the events (its capacity is a power of 2).
+    private int[] eventNotifiers;
+    private int[] eventParts;
+    private int[] eventBalls;
+    private int head;
+    private int size;
+
+    // The hits of the current tick, for the coalescing - a hash table of the notifiers, parts and balls of the hits
+    // (with open addressing, its capacity is a power of 2). A slot is used only if it is stamped with the current
+    // tick, so the table doesn't have to be cleared between the ticks.
+    private long[] hitTicks;
+    private int[] hitNotifiers;
+    private int[] hitParts;
+    private int[] hitBalls;
+    private int hitCount;
+
+    private long tick;
+
+    /**
+     * A constructor for the HitEventQueue class.
+     */
+    public HitEventQueue() {
+        this.notifiers = new HitNotifier[INITIAL_CAPACITY];
+        this.notifierIds = new IdPool();
+        this.balls = new Ball[INITIAL_CAPACITY];
+        this.ballIds = new IdPool();
+        this.eventNotifiers = new int[INITIAL_CAPACITY];
+        this.eventParts = new int[INITIAL_CAPACITY];
+        this.eventBalls = new int[INITIAL_CAPACITY];
+        this.head = 0;
+        this.size = 0;
+        this.hitTicks = new long[INITIAL_CAPACITY];
+        Arrays.fill(this.hitTicks, -1);
+        this.hitNotifiers = new int[INITIAL_CAPACITY];
+        this.hitParts = new int[INITIAL_CAPACITY];
+        this.hitBalls = new int[INITIAL_CAPACITY];
+        this.hitCount = 0;
+        this.tick = 0;
+    }
+
+    /**
+     * A method to register a notifier (a block or a brick field), so it can be hit.
+     *
+     * @param notifier the notifier.
+     * @return the id of the notifier.
+     */
+    public int register(HitNotifier notifier) {
+        int id = this.notifierIds.take();
+        if (id == this.notifiers.length) {
+            this.notifiers = Arrays.copyOf(this.notifiers, 2 * this.notifiers.length);
+        }
+        this.notifiers[id] = notifier;
+        return id;
+    }
+
+    /**
+     * A method to register a ball, so it can hit blocks.
+     *
+     * @param ball the ball.
+     * @return the id of the ball.
+     */
+    public int register(Ball ball) {
+        int id = this.ballIds.take();
+        if (id == this.balls.length) {
+            this.balls = Arrays.copyOf(this.balls, 2 * this.balls.length);
+        }
+        this.balls[id] = ball;
+        return id;
+    }
+
+    /**
+     * A method to unregister a notifier that left the game. Its id is reused only after the end of the current tick,
+     * so the events that it already got are still dispatched to it.
+     *
+     * @param notifier   the notifier.
+     * @param notifierId the id of the notifier.
+     */
+    public void unregister(HitNotifier notifier, int notifierId) {
+        if (notifierId < 0 || notifierId >= this.notifierIds.count || this.notifiers[notifierId] != notifier) {
+            throw new RuntimeException("the notifier is not registered!");
+        }
+        this.notifierIds.release(notifierId);
+    }
+
+    /**
+     * A method to unregister a ball that left the game. Its id is reused only after the end of the current tick, so
+     * the events of its hits are still dispatched with it.
+     *
+     * @param ball   the ball.
+     * @param ballId the id of the ball.
+     */
+    public void unregister(Ball ball, int ballId) {
+        if (ballId < 0 || ballId >= this.ballIds.count || this.balls[ballId] != ball) {
+            throw new RuntimeException("the ball is not registered!");
+        }
+        this.ballIds.release(ballId);
+    }
+
+    /**
+     * An access method to the number of the current tick.
+     *
+     * @return the number of the current tick (the number of ticks that were ended).
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * An access method to the number of events that weren't dispatched yet.
+     *
+     * @return the number of events.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * A method to add a hit event of the current tick, unless the same ball has already hit the same part of the same
+     * notifier in it.
+     *
+     * @param notifierId the id of the notifier that was hit.
+     * @param part       the part of the notifier that was hit (see CollisionInfo.getPart).
+     * @param ballId     the id of the ball that hit it.
+     */
+    public void add(int notifierId, int part, int ballId) {
+        if (notifierId < 0 || notifierId >= this.notifierIds.count || ballId < 0 || ballId >= this.ballIds.count) {
+            throw new RuntimeException("the notifier or the ball are not registered!");
+        }
+        if (!this.markHit(notifierId, part, ballId)) {
+            return;
+        }
+
+        if (this.size == this.eventNotifiers.length) {
+            this.grow();
+        }
+        int index = (this.head + this.size) & (this.eventNotifiers.length - 1);
+        this.eventNotifiers[index] = notifierId;
+        this.eventParts[index] = part;
+        this.eventBalls[index] = ballId;
+        this.size++;
+    }
+
+    /**
+     * A method to end the current tick - to dispatch all the events to their notifiers (in the order they were
+     * added), free the ids of the objects that left the game, and start the next tick.
+     */
+    public void endTick() {
+        int mask = this.eventNotifiers.length - 1;
+        while (this.size > 0) {
+            int index = this.head;
+            this.head = (this.head + 1) & mask;
+            this.size--;
+            this.notifiers[this.eventNotifiers[index]].notifyHit(this.eventParts[index],
+                    this.balls[this.eventBalls[index]]);
+            // The listeners could have added events, so the buffer could have grown.
+            mask = this.eventNotifiers.length - 1;
+        }
+        for (int i = 0; i < this.notifierIds.releasedCount; i++) {
+            this.notifiers[this.notifierIds.released[i]] = null;
+        }
+        this.notifierIds.recycle();
+        for (int i = 0; i < this.ballIds.releasedCount; i++) {
+            this.balls[this.ballIds.released[i]] = null;
+        }
+        this.ballIds.recycle();
+        // The slots of the hits are stamped with this tick, so they are free in the next one.
+        this.hitCount = 0;
+        this.tick++;
+    }
+
+    /**
+     * A method to mark a hit of the current tick in the table of the hits.
+     *
+     * @param notifierId the id of the notifier that was hit.
+     * @param part       the part of the notifier that was hit.
+     * @param ballId     the id of the ball that hit it.
+     * @return true if the hit was marked, false if it was already marked in the tick.
+     */
+    private boolean markHit(int notifierId, int part, int ballId) {
+        int mask = this.hitTicks.length - 1;
+        int slot = hitSlot(notifierId, part, ballId, mask);
+        while (this.hitTicks[slot] == this.tick) {
+            if (this.hitNotifiers[slot] == notifierId && this.hitParts[slot] == part && this.hitBalls[slot] == ballId) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.hitTicks[slot] = this.tick;
+        this.hitNotifiers[slot] = notifierId;
+        this.hitParts[slot] = part;
+        this.hitBalls[slot] = ballId;
+        // The table is kept at most half full, so the probes are short.
+        this.hitCount++;
+        if (2 * this.hitCount > this.hitTicks.length) {
+            this.growHits();
+        }
+        return true;
+    }
+
+    /**
+     * A method to double the capacity of the table of the hits, keeping the hits of the current tick.
+     */
+    private void growHits() {
+        long[] oldTicks = this.hitTicks;
+        int[] oldNotifiers = this.hitNotifiers;
+        int[] oldParts = this.hitParts;
+        int[] oldBalls = this.hitBalls;
+        int capacity = 2 * oldTicks.length;
+        this.hitTicks = new long[capacity];
+        Arrays.fill(this.hitTicks, -1);
+        this.hitNotifiers = new int[capacity];
+        this.hitParts = new int[capacity];
+        this.hitBalls = new int[capacity];
+        for (int i = 0; i < oldTicks.length; i++) {
+            if (oldTicks[i] != this.tick) {
+                continue;
+            }
+            int slot = hitSlot(oldNotifiers[i], oldParts[i], oldBalls[i], capacity - 1);
+            while (this.hitTicks[slot] == this.tick) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            this.hitTicks[slot] = this.tick;
+            this.hitNotifiers[slot] = oldNotifiers[i];
+            this.hitParts[slot] = oldParts[i];
+            this.hitBalls[slot] = oldBalls[i];
+        }
+    }
+
+    /**
+     * A method to find the first slot of a hit in the table of the hits.
+     *
+     * @param notifierId the id of the notifier that was hit.
+     * @param part       the part of the notifier that was hit.
+     * @param ballId     the id of the ball that hit it.
+     * @param mask       the capacity of the table minus 1.
+     * @return the slot.
+     */
+    private static int hitSlot(int notifierId, int part, int ballId, int mask) {
+        int h = notifierId * 0x9E3779B9 + part * 0x85EBCA6B + ballId * 0xC2B2AE35;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * A method to double the capacity of the ring buffer, keeping the events in their order.
+     */
+    private void grow() {
+        int capacity = this.eventNotifiers.length;
+        int[] newNotifiers = new int[2 * capacity];
+        int[] newParts = new int[2 * capacity];
+        int[] newBalls = new int[2 * capacity];
+        for (int i = 0; i < this.size; i++) {
+            int index = (this.head + i) & (capacity - 1);
+            newNotifiers[i] = this.eventNotifiers[index];
+            newParts[i] = this.eventParts[index];
+            newBalls[i] = this.eventBalls[index];
+        }
+        this.eventNotifiers = newNotifiers;
+        this.eventParts = newParts;
+        this.eventBalls = newBalls;
+        this.head = 0;
+    }
+
+    /**
+     * The IdPool class, the ids of a kind of objects (the notifiers or the balls). New objects get the ids that were
+     * freed before they get new ones, and an id that is released is freed only at the end of the tick (see recycle).
+     */
+    private static final class IdPool {
+        // The number of ids that were ever given (every id is below it).
+        private int count;
+        private int[] free;
+        private int freeCount;
+        private int[] released;
+        private int releasedCount;
+
+        /**
+         * A constructor for the IdPool class.
+         */
+        private IdPool() {
+            this.count = 0;
+            this.free = new int[INITIAL_CAPACITY];
+            this.freeCount = 0;
+            this.released = new int[INITIAL_CAPACITY];
+            this.releasedCount = 0;
+        }
+
+        /**
+         * A method to take an id - a free one if there is one, and otherwise a new one.
+         *
+         * @return the id.
+         */
+        private int take() {
+            if (this.freeCount > 0) {
+                return this.free[--this.freeCount];
+            }
+            return this.count++;
+        }
+
+        /**
+         * A method to release an id, which is freed at the end of the tick.
+         *
+         * @param id the id.
+         */
+        private void release(int id) {
+            if (this.releasedCount == this.released.length) {
+                this.released = Arrays.copyOf(this.released, 2 * this.released.length);
+            }
+            this.released[this.releasedCount++] = id;
+        }
+
+        /**
+         * A method to free the ids that were released in the tick.
+         */
+        private void recycle() {
+            if (this.freeCount + this.releasedCount > this.free.length) {
+                this.free = Arrays.copyOf(this.free, Math.max(2 * this.free.length,
+                        this.freeCount + this.releasedCount));
+            }
+            System.arraycopy(this.released, 0, this.free, this.freeCount, this.releasedCount);
+            this.freeCount += this.releasedCount;
+            this.releasedCount = 0;
+        }
+    }
+}
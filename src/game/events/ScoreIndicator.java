@@ -34,7 +34,7 @@ public class ScoreIndicator implements Sprite {
     public void drawOn(DrawSurface d) {
         d.setColor(Color.WHITE);
         Rectangle rect = this.shape;
-        d.drawRectangle((int) rect.getUpperLeft().getX(), (int) rect.getUpperLeft().getY(),
+        d.drawRectangle((int) rect.getX(), (int) rect.getY(),
                 (int) rect.getWidth(), (int) rect.getHeight());
         d.setColor(Color.BLACK);
         d.drawText(350, 19, "Score: " + this.score.getValue(), 20);
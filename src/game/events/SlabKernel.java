@@ -0,0 +1,118 @@
+// ID - 212945760
+
+package game.events;
+
+/**
+ * The SlabKernel class, the slab test of the batch collision queries (see GameEnvironment.getClosestCollisions) -
+ * it selects the lanes whose rectangles, widened by the radius of a circle, the circle's center segment passes
+ * through. Only the selected lanes get the exact test, so a kernel may select more lanes than needed but never
+ * fewer. The scalar kernel is always available. A kernel that uses the Vector API (VectorSlabKernel, under `vector`)
+ * is used instead when it is on the class path and the module jdk.incubator.vector is added (see the *-vector
+ * targets of build.xml), unless the system property game.scalarSlabs is true. Both kernels select the same lanes.
+ *
+ * @author Ori Dabush
+ */
+public abstract class SlabKernel {
+
+    /**
+     * The tolerance of the slab test, the same as the tolerance of the single queries.
+     */
+    protected static final double EPSILON = Math.pow(10, -9);
+
+    // The name of the class of the Vector API kernel, and the property that turns it off.
+    private static final String VECTOR_KERNEL = "game.events.VectorSlabKernel";
+    private static final String SCALAR_PROPERTY = "game.scalarSlabs";
+
+    private static final SlabKernel BEST = load();
+
+    /**
+     * A method to get the kernel that the batch queries use - the Vector API kernel if it is available, and
+     * otherwise the scalar kernel.
+     *
+     * @return the kernel.
+     */
+    public static SlabKernel best() {
+        return BEST;
+    }
+
+    /**
+     * A method to select the lanes that the segment of the lanes passes through (with the rectangles widened by the
+     * radius), in their order.
+     *
+     * @param lanes    the lanes and the segment.
+     * @param selected the array that the indexes of the selected lanes are written to (its size should be at least
+     *                 lanes.capacity()).
+     * @return the number of selected lanes.
+     */
+    public abstract int select(SlabLanes lanes, int[] selected);
+
+    /**
+     * A method to select the lanes of a range with the scalar slab test, for the kernels' lanes that are not
+     * handled in another way (the tail of the vectors for example).
+     *
+     * @param lanes    the lanes and the segment.
+     * @param from     the index of the first lane of the range.
+     * @param to       the index after the last lane of the range.
+     * @param selected the array that the indexes of the selected lanes are written to.
+     * @param count    the number of lanes that were selected before the range.
+     * @return the number of selected lanes, including the ones before the range.
+     */
+    protected static int selectRange(SlabLanes lanes, int from, int to, int[] selected, int count) {
+        double[] minXs = lanes.getMinXs(), minYs = lanes.getMinYs(), maxXs = lanes.getMaxXs();
+        double[] maxYs = lanes.getMaxYs();
+        double x1 = lanes.getStartX(), y1 = lanes.getStartY(), radius = lanes.getRadius();
+        double dx = lanes.getDx(), dy = lanes.getDy();
+        double inverseDx = lanes.getInverseDx(), inverseDy = lanes.getInverseDy();
+        int n = count;
+        for (int k = from; k < to; k++) {
+            double minX = minXs[k] - radius, maxX = maxXs[k] + radius;
+            double minY = minYs[k] - radius, maxY = maxYs[k] + radius;
+            double tEnter = -EPSILON, tExit = 1 + EPSILON;
+            if (dx != 0) {
+                double t1 = (minX - x1) * inverseDx, t2 = (maxX - x1) * inverseDx;
+                tEnter = Math.max(tEnter, Math.min(t1, t2));
+                tExit = Math.min(tExit, Math.max(t1, t2));
+            } else if (x1 < minX - EPSILON || x1 > maxX + EPSILON) {
+                continue;
+            }
+            if (dy != 0) {
+                double t1 = (minY - y1) * inverseDy, t2 = (maxY - y1) * inverseDy;
+                tEnter = Math.max(tEnter, Math.min(t1, t2));
+                tExit = Math.min(tExit, Math.max(t1, t2));
+            } else if (y1 < minY - EPSILON || y1 > maxY + EPSILON) {
+                continue;
+            }
+            if (tEnter <= tExit + EPSILON) {
+                selected[n++] = k;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * A method to load the best available kernel.
+     *
+     * @return the Vector API kernel if it can be loaded, and otherwise the scalar kernel.
+     */
+    private static SlabKernel load() {
+        if (Boolean.getBoolean(SCALAR_PROPERTY)) {
+            return new ScalarSlabKernel();
+        }
+        try {
+            return (SlabKernel) Class.forName(VECTOR_KERNEL).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // The kernel isn't on the class path, or the module of the Vector API wasn't added.
+            return new ScalarSlabKernel();
+        }
+    }
+
+    /**
+     * The ScalarSlabKernel class, the kernel that tests the lanes one at a time.
+     */
+    private static final class ScalarSlabKernel extends SlabKernel {
+        @Override
+        public int select(SlabLanes lanes, int[] selected) {
+            return selectRange(lanes, 0, lanes.size(), selected, 0);
+        }
+    }
+}
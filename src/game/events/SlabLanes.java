@@ -0,0 +1,208 @@
+// ID - 212945760
+
+package game.events;
+
+import java.util.Arrays;
+
+/**
+ * The SlabLanes class, the input of a SlabKernel - the bounds of some rectangles as a struct of arrays (the lanes),
+ * and the segment of a circle's center that is swept over them. The bounds of a lane are the bounds of its rectangle,
+ * the kernel widens them by the radius of the circle.
+ *
+ * @author Ori Dabush
+ */
+public final class SlabLanes {
+    private double[] minXs;
+    private double[] minYs;
+    private double[] maxXs;
+    private double[] maxYs;
+    private int size;
+    // The segment that is swept over the lanes.
+    private double startX;
+    private double startY;
+    private double dx;
+    private double dy;
+    private double inverseDx;
+    private double inverseDy;
+    private double radius;
+
+    /**
+     * A constructor for the SlabLanes class, which creates empty lanes.
+     *
+     * @param capacity the initial capacity of the lanes (they grow as needed).
+     */
+    public SlabLanes(int capacity) {
+        this.minXs = new double[Math.max(1, capacity)];
+        this.minYs = new double[this.minXs.length];
+        this.maxXs = new double[this.minXs.length];
+        this.maxYs = new double[this.minXs.length];
+        this.size = 0;
+    }
+
+    /**
+     * A method to remove all the lanes.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * A method to add a lane.
+     *
+     * @param minX the x value of the left side of the rectangle.
+     * @param minY the y value of the top side of the rectangle.
+     * @param maxX the x value of the right side of the rectangle.
+     * @param maxY the y value of the bottom side of the rectangle.
+     */
+    public void add(double minX, double minY, double maxX, double maxY) {
+        if (this.size == this.minXs.length) {
+            int capacity = 2 * this.size;
+            this.minXs = Arrays.copyOf(this.minXs, capacity);
+            this.minYs = Arrays.copyOf(this.minYs, capacity);
+            this.maxXs = Arrays.copyOf(this.maxXs, capacity);
+            this.maxYs = Arrays.copyOf(this.maxYs, capacity);
+        }
+        this.minXs[this.size] = minX;
+        this.minYs[this.size] = minY;
+        this.maxXs[this.size] = maxX;
+        this.maxYs[this.size] = maxY;
+        this.size++;
+    }
+
+    /**
+     * A method to set the segment that is swept over the lanes.
+     *
+     * @param x1 the x value of the start of the circle's center segment.
+     * @param y1 the y value of the start of the circle's center segment.
+     * @param x2 the x value of the end of the circle's center segment.
+     * @param y2 the y value of the end of the circle's center segment.
+     * @param r  the radius of the circle (0 for a point).
+     */
+    public void setSegment(double x1, double y1, double x2, double y2, double r) {
+        this.startX = x1;
+        this.startY = y1;
+        this.dx = x2 - x1;
+        this.dy = y2 - y1;
+        this.inverseDx = 1 / this.dx;
+        this.inverseDy = 1 / this.dy;
+        this.radius = r;
+    }
+
+    /**
+     * An access method to the number of lanes.
+     *
+     * @return the number of lanes.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * An access method to the capacity of the lanes, which is also the size that an array of selected lanes should
+     * have (see SlabKernel.select).
+     *
+     * @return the capacity of the lanes.
+     */
+    public int capacity() {
+        return this.minXs.length;
+    }
+
+    /**
+     * An access method to the x values of the left sides of the lanes (the first size() values are the lanes).
+     *
+     * @return the x values of the left sides.
+     */
+    public double[] getMinXs() {
+        return this.minXs;
+    }
+
+    /**
+     * An access method to the y values of the top sides of the lanes (the first size() values are the lanes).
+     *
+     * @return the y values of the top sides.
+     */
+    public double[] getMinYs() {
+        return this.minYs;
+    }
+
+    /**
+     * An access method to the x values of the right sides of the lanes (the first size() values are the lanes).
+     *
+     * @return the x values of the right sides.
+     */
+    public double[] getMaxXs() {
+        return this.maxXs;
+    }
+
+    /**
+     * An access method to the y values of the bottom sides of the lanes (the first size() values are the lanes).
+     *
+     * @return the y values of the bottom sides.
+     */
+    public double[] getMaxYs() {
+        return this.maxYs;
+    }
+
+    /**
+     * An access method to the x value of the start of the segment.
+     *
+     * @return the x value of the start of the segment.
+     */
+    public double getStartX() {
+        return this.startX;
+    }
+
+    /**
+     * An access method to the y value of the start of the segment.
+     *
+     * @return the y value of the start of the segment.
+     */
+    public double getStartY() {
+        return this.startY;
+    }
+
+    /**
+     * An access method to the horizontal movement of the segment.
+     *
+     * @return the x value of the end of the segment minus the x value of its start.
+     */
+    public double getDx() {
+        return this.dx;
+    }
+
+    /**
+     * An access method to the vertical movement of the segment.
+     *
+     * @return the y value of the end of the segment minus the y value of its start.
+     */
+    public double getDy() {
+        return this.dy;
+    }
+
+    /**
+     * An access method to the inverse of the horizontal movement of the segment.
+     *
+     * @return 1 / getDx().
+     */
+    public double getInverseDx() {
+        return this.inverseDx;
+    }
+
+    /**
+     * An access method to the inverse of the vertical movement of the segment.
+     *
+     * @return 1 / getDy().
+     */
+    public double getInverseDy() {
+        return this.inverseDy;
+    }
+
+    /**
+     * An access method to the radius of the circle that moves along the segment.
+     *
+     * @return the radius (0 for a point).
+     */
+    public double getRadius() {
+        return this.radius;
+    }
+}
@@ -3,42 +3,135 @@
 package game.events;
 
 import biuoop.DrawSurface;
+import extras.SlotMap;
+import game.objects.BatchedSprite;
+import game.objects.InterpolatedSprite;
+import game.objects.ParallelSprite;
 import game.objects.Sprite;
+import game.objects.StaticSprite;
+import geometry.Rectangle;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The gameEvents.SpriteCollection class, which creates a list of Sprites and calls their methods using one method only.
+ * The collection can also step its sprites in parallel (see setParallelism) - then the ParallelSprites (the balls)
+ * are prepared on a ForkJoin pool, and their changes are applied on the game's thread in the order of the
+ * collection, so the game gives the same results with any number of threads. The collision queries of the
+ * BatchedSprites that a task prepares are run together as a batch query (see GameEnvironment.getClosestCollisions).
+ * The sprites are stored in a SlotMap, so removing a sprite is O(1) and iterating over them doesn't create objects.
+ * The holes of the removed sprites are closed at the start of the next step.
  *
  * @author Ori Dabush
  */
 public class SpriteCollection {
-    private List<Sprite> sprites;
+    // The number of sprites that a single task of the pool prepares without splitting.
+    private static final int TASK_SIZE = 64;
+    // The batch of the collision queries of every thread of the pool.
+    private static final ThreadLocal<CollisionBatch> BATCHES = new ThreadLocal<CollisionBatch>() {
+        @Override
+        protected CollisionBatch initialValue() {
+            return new CollisionBatch();
+        }
+    };
+
+    private SlotMap<Sprite> sprites;
+    // The handles of the sprites in the slot map.
+    private Map<Sprite, Long> handles;
+    // The pool that prepares the ParallelSprites, or null if the sprites are stepped on the game's thread only.
+    private ForkJoinPool pool;
+    // A reusable list of the ParallelSprites of the current step.
+    private List<ParallelSprite> parallelSprites;
 
     /**
      * A constructor for the gameEvents.SpriteCollection class.
      */
     public SpriteCollection() {
-        this.sprites = new ArrayList<Sprite>();
+        this.sprites = new SlotMap<Sprite>();
+        this.handles = new IdentityHashMap<Sprite, Long>();
+        this.pool = null;
+        this.parallelSprites = new ArrayList<ParallelSprite>();
+    }
+
+    /**
+     * A method to set the number of threads that step the sprites. With more than one thread, the sprites that are
+     * not ParallelSprites are stepped first (in the order of the collection), then all the ParallelSprites are
+     * prepared in parallel, and then their changes are applied in the order of the collection.
+     *
+     * @param threads the number of threads, 1 (or less) to step the sprites on the game's thread only.
+     */
+    public void setParallelism(int threads) {
+        if (this.pool != null) {
+            this.pool.shutdown();
+            this.pool = null;
+        }
+        if (threads > 1) {
+            this.pool = new ForkJoinPool(threads);
+        }
     }
 
     /**
-     * A method to add a given gameEvents.Sprite to the collection.
+     * A method to add a given gameEvents.Sprite to the end of the collection (a sprite is in the collection at most
+     * once).
      *
      * @param s the given gameEvents.Sprite.
+     * @return the handle of the sprite in the collection, which can be used to remove it.
+     */
+    public long addSprite(Sprite s) {
+        Long handle = this.handles.get(s);
+        if (handle != null) {
+            return handle;
+        }
+        long h = this.sprites.add(s);
+        this.handles.put(s, h);
+        return h;
+    }
+
+    /**
+     * A method to check if a sprite is in the collection.
+     *
+     * @param s the sprite.
+     * @return true if the sprite is in the collection, false otherwise.
      */
-    public void addSprite(Sprite s) {
-        this.sprites.add(s);
+    public boolean contains(Sprite s) {
+        return this.handles.containsKey(s);
     }
 
     /**
      * A method to call timePassed() on all sprites.
      */
     public void notifyAllTimePassed() {
-        List<Sprite> spritesCopy = new ArrayList<>(this.sprites);
-        for (Sprite s : spritesCopy) {
-            s.timePassed();
+        // The sprites are added and removed only between the ticks (see HitEventQueue), so it is a safe point to
+        // close the holes of the removed sprites.
+        this.sprites.flush();
+        if (this.pool == null) {
+            for (int i = 0; i < this.sprites.size(); i++) {
+                Sprite s = this.sprites.valueAt(i);
+                if (s != null) {
+                    s.timePassed();
+                }
+            }
+            return;
+        }
+        this.parallelSprites.clear();
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.valueAt(i);
+            if (s == null) {
+                continue;
+            } else if (s instanceof ParallelSprite) {
+                this.parallelSprites.add((ParallelSprite) s);
+            } else {
+                s.timePassed();
+            }
+        }
+        this.pool.invoke(new PrepareTask(this.parallelSprites, 0, this.parallelSprites.size()));
+        for (ParallelSprite s : this.parallelSprites) {
+            s.applyTimePassed();
         }
     }
 
@@ -48,18 +141,174 @@ public class SpriteCollection {
      * @param d the given DrawSurface.
      */
     public void drawAllOn(DrawSurface d) {
-        List<Sprite> spritesCopy = new ArrayList<>(this.sprites);
-        for (Sprite s : spritesCopy) {
-            s.drawOn(d);
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.valueAt(i);
+            if (s != null) {
+                s.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * A method to draw all the sprites using a given DrawSurface, between their previous state and their current
+     * state (see InterpolatedSprite). Sprites that don't move are drawn in their current state.
+     *
+     * @param d     the given DrawSurface.
+     * @param alpha the part of the way from the previous state to the current state, between 0 and 1.
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.valueAt(i);
+            if (s == null) {
+                continue;
+            } else if (s instanceof InterpolatedSprite) {
+                ((InterpolatedSprite) s).drawOn(d, alpha);
+            } else {
+                s.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * A method to draw the static sprites (see StaticSprite) that are in a given area, using a given DrawSurface.
+     *
+     * @param d    the given DrawSurface.
+     * @param area the area, or null to draw all the static sprites.
+     */
+    public void drawStaticOn(DrawSurface d, Rectangle area) {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.valueAt(i);
+            if (!(s instanceof StaticSprite)) {
+                continue;
+            }
+            if (area == null) {
+                s.drawOn(d);
+            } else if (touches(((StaticSprite) s).getDrawnArea(), area)) {
+                ((StaticSprite) s).drawAreaOn(d, area);
+            }
         }
     }
 
+    /**
+     * A method to draw the sprites that are not static (the sprites that are not drawn into the background layer),
+     * between their previous state and their current state (see InterpolatedSprite).
+     *
+     * @param d     the given DrawSurface.
+     * @param alpha the part of the way from the previous state to the current state, between 0 and 1.
+     */
+    public void drawMovingOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.valueAt(i);
+            if (s == null) {
+                continue;
+            } else if (s instanceof InterpolatedSprite) {
+                ((InterpolatedSprite) s).drawOn(d, alpha);
+            } else if (!(s instanceof StaticSprite)) {
+                s.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * A method to check if the drawing of a sprite in a given area (with the outline after its right and bottom
+     * edges) touches another area.
+     *
+     * @param drawn the area of the sprite.
+     * @param area  the other area.
+     * @return true if they touch, false otherwise.
+     */
+    private static boolean touches(Rectangle drawn, Rectangle area) {
+        return drawn.getX() <= area.getX() + area.getWidth()
+                && area.getX() <= drawn.getX() + drawn.getWidth() + 1
+                && drawn.getY() <= area.getY() + area.getHeight()
+                && area.getY() <= drawn.getY() + drawn.getHeight() + 1;
+    }
+
     /**
      * A method to remove a sprite object from the collection.
      *
      * @param s the object which will be removed.
      */
     public void removeSprite(Sprite s) {
-        this.sprites.remove(s);
+        Long handle = this.handles.remove(s);
+        if (handle != null) {
+            this.sprites.remove(handle);
+        }
+    }
+
+    /**
+     * A method to remove a sprite object from the collection by its handle.
+     *
+     * @param handle the handle of the sprite (see addSprite), nothing is removed if it was already removed.
+     */
+    public void removeSprite(long handle) {
+        Sprite s = this.sprites.get(handle);
+        if (s != null) {
+            this.handles.remove(s);
+            this.sprites.remove(handle);
+        }
+    }
+
+    /**
+     * A method to prepare a range of ParallelSprites. The queries of the BatchedSprites of the range (that are in the
+     * environment of the first of them) are added to the batch of the thread and run together, and the other
+     * sprites are prepared one at a time.
+     *
+     * @param toPrepare the sprites.
+     * @param from      the index of the first sprite of the range.
+     * @param to        the index after the last sprite of the range.
+     */
+    private static void prepare(List<ParallelSprite> toPrepare, int from, int to) {
+        CollisionBatch batch = BATCHES.get();
+        GameEnvironment env = null;
+        for (int i = from; i < to; i++) {
+            ParallelSprite s = toPrepare.get(i);
+            GameEnvironment spriteEnv = s instanceof BatchedSprite ? ((BatchedSprite) s).getEnv() : null;
+            if (spriteEnv != null && (env == null || spriteEnv == env)) {
+                env = spriteEnv;
+                ((BatchedSprite) s).prepareTimePassed(batch);
+            } else {
+                s.prepareTimePassed();
+            }
+        }
+        if (env != null) {
+            env.getClosestCollisions(batch);
+        }
+        batch.clear();
+    }
+
+    /**
+     * A task that prepares a range of ParallelSprites, splitting it between the threads of the pool.
+     */
+    private static final class PrepareTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private List<ParallelSprite> toPrepare;
+        private int from;
+        private int to;
+
+        /**
+         * A constructor for the PrepareTask class.
+         *
+         * @param toPrepare the sprites.
+         * @param from      the index of the first sprite of the range.
+         * @param to        the index after the last sprite of the range.
+         */
+        private PrepareTask(List<ParallelSprite> toPrepare, int from, int to) {
+            this.toPrepare = toPrepare;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= TASK_SIZE) {
+                prepare(this.toPrepare, this.from, this.to);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new PrepareTask(this.toPrepare, this.from, middle),
+                    new PrepareTask(this.toPrepare, middle, this.to));
+        }
     }
-}
\ No newline at end of file
+}
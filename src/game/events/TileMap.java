@@ -0,0 +1,393 @@
+// ID - 212945760
+
+package game.events;
+
+import game.objects.Collidable;
+import geometry.Rectangle;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The TileMap class, which stores collidables that are aligned to a fixed grid of tiles (like the blocks of the
+ * game) by their tile. A trajectory is checked with a DDA walk (Amanatides-Woo) over the tiles it passes through,
+ * from its start to its end, so the cost of a query depends on the length of the trajectory and not on the number
+ * of the tiles. A moving circle is checked with the same walk over its center's trajectory, against the tiles that
+ * are up to its radius away.
+ *
+ * @author Ori Dabush
+ */
+public class TileMap {
+
+    // A tolerance for values that are on the border between two tiles.
+    private static final double EPSILON = Math.pow(10, -9);
+
+    // The location of the upper-left corner of the map, and the size of a tile.
+    private double originX;
+    private double originY;
+    private double tileWidth;
+    private double tileHeight;
+    // The number of columns and rows in the map.
+    private int columns;
+    private int rows;
+    // The collidables in the tiles, tile (col, row) is in index row * columns + col.
+    private Collidable[] tiles;
+    // The order that every collidable was added to the environment in.
+    private int[] orders;
+    // The index of the tile of every collidable in the map.
+    private Map<Collidable, Integer> indexes;
+
+    /**
+     * A constructor for the TileMap class, which creates an empty map.
+     *
+     * @param x          the x value of the upper-left corner of the map.
+     * @param y          the y value of the upper-left corner of the map.
+     * @param tileWidth  the width of a tile.
+     * @param tileHeight the height of a tile.
+     * @param columns    the number of columns in the map.
+     * @param rows       the number of rows in the map.
+     */
+    public TileMap(double x, double y, double tileWidth, double tileHeight, int columns, int rows) {
+        if (tileWidth <= 0 || tileHeight <= 0 || columns <= 0 || rows <= 0) {
+            throw new RuntimeException("invalid tile map size!");
+        }
+        this.originX = x;
+        this.originY = y;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.tiles = new Collidable[columns * rows];
+        this.orders = new int[columns * rows];
+        this.indexes = new IdentityHashMap<Collidable, Integer>();
+    }
+
+    /**
+     * A method to find the tile that a given rectangle fills exactly.
+     *
+     * @param r the given rectangle.
+     * @return the index of the tile, or -1 if the rectangle doesn't fill a tile of the map.
+     */
+    public int tileIndexOf(Rectangle r) {
+        if (r == null || r.getWidth() != this.tileWidth || r.getHeight() != this.tileHeight) {
+            return -1;
+        }
+        double col = (r.getX() - this.originX) / this.tileWidth;
+        double row = (r.getY() - this.originY) / this.tileHeight;
+        if (col != Math.floor(col) || row != Math.floor(row)
+                || col < 0 || col >= this.columns || row < 0 || row >= this.rows) {
+            return -1;
+        }
+        return (int) row * this.columns + (int) col;
+    }
+
+    /**
+     * A method to add a collidable to the map, if its collision rectangle fills an empty tile exactly.
+     *
+     * @param c     the collidable.
+     * @param order the order the collidable was added to the environment in.
+     * @return true if the collidable was added, false otherwise.
+     */
+    public boolean add(Collidable c, int order) {
+        int index = this.tileIndexOf(c.getCollisionRectangle());
+        if (index < 0 || this.tiles[index] != null) {
+            return false;
+        }
+        this.tiles[index] = c;
+        this.orders[index] = order;
+        this.indexes.put(c, index);
+        return true;
+    }
+
+    /**
+     * A method to remove a collidable from the map.
+     *
+     * @param c the collidable.
+     * @return true if the collidable was in the map, false otherwise.
+     */
+    public boolean remove(Collidable c) {
+        Integer index = this.indexes.remove(c);
+        if (index == null) {
+            return false;
+        }
+        this.tiles[index] = null;
+        return true;
+    }
+
+    /**
+     * A method to check if a collidable is in the map.
+     *
+     * @param c the collidable.
+     * @return true if it is in the map, false otherwise.
+     */
+    public boolean contains(Collidable c) {
+        return this.indexes.containsKey(c);
+    }
+
+    /**
+     * A method to check if the map is empty.
+     *
+     * @return true if there are no collidables in the map, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.indexes.isEmpty();
+    }
+
+    /**
+     * A method to find the closest collision of a trajectory from (x1, y1) to (x2, y2) with the collidables of the
+     * map, and offer it to a CollisionInfo object (which keeps it if it is closer than the collision it already has).
+     * Collisions in the same distance are ordered by the order the collidables were added in.
+     *
+     * @param x1   the x value of the start of the trajectory.
+     * @param y1   the y value of the start of the trajectory.
+     * @param x2   the x value of the end of the trajectory.
+     * @param y2   the y value of the end of the trajectory.
+     * @param info the information about the closest collision so far.
+     */
+    public void findClosestCollision(double x1, double y1, double x2, double y2, CollisionInfo info) {
+        this.findClosestCollision(x1, y1, x2, y2, 0, info);
+    }
+
+    /**
+     * A method to find the first collision of a circle that moves from (x1, y1) to (x2, y2) with the collidables of
+     * the map (see Rectangle.intersectSweptCircle), and offer it to a CollisionInfo object. The trajectory of the
+     * circle's center is checked with the DDA walk - a circle of radius 0 is a point, and a larger circle is checked
+     * against the tiles around every tile of the walk (see walkSweptCircle).
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @param info   the information about the closest collision so far.
+     */
+    public void findClosestCollision(double x1, double y1, double x2, double y2, double radius,
+                                     CollisionInfo info) {
+        if (this.indexes.isEmpty()) {
+            return;
+        }
+        if (radius != 0) {
+            this.walkSweptCircle(x1, y1, x2, y2, radius, info);
+            return;
+        }
+        // The trajectory in tile units, relative to the upper-left corner of the map.
+        double u1 = (x1 - this.originX) / this.tileWidth;
+        double v1 = (y1 - this.originY) / this.tileHeight;
+        double du = (x2 - this.originX) / this.tileWidth - u1;
+        double dv = (y2 - this.originY) / this.tileHeight - v1;
+
+        // Clipping the trajectory to the map (the part of it between tEnter and tExit).
+        double tEnter = 0, tExit = 1;
+        if (du != 0) {
+            double t1 = -u1 / du, t2 = (this.columns - u1) / du;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (u1 < 0 || u1 > this.columns) {
+            return;
+        }
+        if (dv != 0) {
+            double t1 = -v1 / dv, t2 = (this.rows - v1) / dv;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (v1 < 0 || v1 > this.rows) {
+            return;
+        }
+        if (tEnter > tExit + EPSILON) {
+            return;
+        }
+
+        // The first tile, and the values of the walk.
+        double uEnter = u1 + du * tEnter, vEnter = v1 + dv * tEnter;
+        int col = clamp((int) (isOnBorder(uEnter) ? Math.rint(uEnter) : Math.floor(uEnter)), this.columns);
+        int row = clamp((int) (isOnBorder(vEnter) ? Math.rint(vEnter) : Math.floor(vEnter)), this.rows);
+        int stepX = du > 0 ? 1 : (du < 0 ? -1 : 0);
+        int stepY = dv > 0 ? 1 : (dv < 0 ? -1 : 0);
+        double tMaxX = du > 0 ? (col + 1 - u1) / du : (du < 0 ? (col - u1) / du : Double.POSITIVE_INFINITY);
+        double tMaxY = dv > 0 ? (row + 1 - v1) / dv : (dv < 0 ? (row - v1) / dv : Double.POSITIVE_INFINITY);
+        double tDeltaX = du != 0 ? 1 / Math.abs(du) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dv != 0 ? 1 / Math.abs(dv) : Double.POSITIVE_INFINITY;
+        // A trajectory that starts on the border between two columns / rows touches the tiles on both sides, and if
+        // it moves along the border, it touches them all the way.
+        int sideX = isOnBorder(uEnter) ? -1 : 0;
+        int sideY = isOnBorder(vEnter) ? -1 : 0;
+
+        while (true) {
+            double tNext = Math.min(tMaxX, tMaxY);
+            // A trajectory that passes through a corner of tiles touches the two tiles next to the corner.
+            boolean corner = Math.abs(tMaxX - tMaxY) <= EPSILON && tNext <= tExit + EPSILON;
+            for (int k = 0; k < (corner ? 6 : 4); k++) {
+                int index = this.candidateAt(k, col, row, k < 4 ? sideX : stepX, k < 4 ? sideY : stepY);
+                if (index >= 0 && this.tiles[index] != null && this.tiles[index].getCollisionRectangle()
+                        .intersectSegment(x1, y1, x2, y2, info.candidate())) {
+                    info.offer(this.tiles[index], this.orders[index], x1, y1);
+                }
+            }
+            // Stopping when the next tile is after the end of the trajectory or after the closest collision.
+            if (tNext > tExit + EPSILON
+                    || (info.collisionObject() != null && tNext > info.getHit().getParameter() + EPSILON)) {
+                return;
+            }
+            sideX = du == 0 ? sideX : 0;
+            sideY = dv == 0 ? sideY : 0;
+            if (tMaxX <= tMaxY) {
+                col += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (col < 0 || col >= this.columns || row < 0 || row >= this.rows) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A method to find the first collision of a circle (with a radius above 0) that moves from (x1, y1) to (x2, y2)
+     * with the collidables of the map, by a DDA walk over the tiles of the Minkowski sum of the map and the circle.
+     * The circle touches a tile exactly when its center is at most a radius away from it, so when the center is in
+     * a given tile, the circle can only touch the tiles that are up to a radius (rounded up to whole tiles) away from
+     * it. The walk goes over the tiles of the center's trajectory (including the ones around the map, the center can
+     * be outside of the map while the circle touches it) and checks the tiles around each of them, and it stops at
+     * the first tile after the closest collision, as the walk of a point does.
+     *
+     * @param x1     the x value of the start of the circle's center trajectory.
+     * @param y1     the y value of the start of the circle's center trajectory.
+     * @param x2     the x value of the end of the circle's center trajectory.
+     * @param y2     the y value of the end of the circle's center trajectory.
+     * @param radius the radius of the circle.
+     * @param info   the information about the closest collision so far.
+     */
+    private void walkSweptCircle(double x1, double y1, double x2, double y2, double radius, CollisionInfo info) {
+        // The radius in tile units, and the number of tiles around a tile of the walk that the circle can touch.
+        double reachX = radius / this.tileWidth, reachY = radius / this.tileHeight;
+        int aroundX = (int) Math.floor(reachX + EPSILON) + 1;
+        int aroundY = (int) Math.floor(reachY + EPSILON) + 1;
+        // The trajectory in tile units, relative to the upper-left corner of the map.
+        double u1 = (x1 - this.originX) / this.tileWidth;
+        double v1 = (y1 - this.originY) / this.tileHeight;
+        double du = (x2 - this.originX) / this.tileWidth - u1;
+        double dv = (y2 - this.originY) / this.tileHeight - v1;
+
+        // Clipping the trajectory to the map, widened by the radius.
+        double tEnter = 0, tExit = 1;
+        if (du != 0) {
+            double t1 = (-reachX - u1) / du, t2 = (this.columns + reachX - u1) / du;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (u1 < -reachX || u1 > this.columns + reachX) {
+            return;
+        }
+        if (dv != 0) {
+            double t1 = (-reachY - v1) / dv, t2 = (this.rows + reachY - v1) / dv;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (v1 < -reachY || v1 > this.rows + reachY) {
+            return;
+        }
+        if (tEnter > tExit + EPSILON) {
+            return;
+        }
+
+        // The first tile (which can be outside of the map), and the values of the walk.
+        int col = Math.max(-aroundX, Math.min(this.columns - 1 + aroundX, (int) Math.floor(u1 + du * tEnter)));
+        int row = Math.max(-aroundY, Math.min(this.rows - 1 + aroundY, (int) Math.floor(v1 + dv * tEnter)));
+        int stepX = du > 0 ? 1 : -1;
+        int stepY = dv > 0 ? 1 : -1;
+        double tMaxX = du > 0 ? (col + 1 - u1) / du : (du < 0 ? (col - u1) / du : Double.POSITIVE_INFINITY);
+        double tMaxY = dv > 0 ? (row + 1 - v1) / dv : (dv < 0 ? (row - v1) / dv : Double.POSITIVE_INFINITY);
+        double tDeltaX = du != 0 ? 1 / Math.abs(du) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dv != 0 ? 1 / Math.abs(dv) : Double.POSITIVE_INFINITY;
+
+        while (true) {
+            for (int r = Math.max(0, row - aroundY); r <= Math.min(this.rows - 1, row + aroundY); r++) {
+                for (int c = Math.max(0, col - aroundX); c <= Math.min(this.columns - 1, col + aroundX); c++) {
+                    int index = r * this.columns + c;
+                    if (this.tiles[index] != null && info.intersectSweptCircle(
+                            this.tiles[index].getCollisionRectangle(), x1, y1, x2, y2, radius)) {
+                        info.offerByParameter(this.tiles[index], this.orders[index]);
+                    }
+                }
+            }
+            // Stopping when the next tile is after the end of the trajectory or after the closest collision.
+            double tNext = Math.min(tMaxX, tMaxY);
+            if (tNext > tExit + EPSILON
+                    || (info.collisionObject() != null && tNext > info.getHit().getParameter() + EPSILON)) {
+                return;
+            }
+            if (tMaxX <= tMaxY) {
+                col += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (col < -aroundX || col >= this.columns + aroundX || row < -aroundY || row >= this.rows + aroundY) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A method to get the k-th tile that should be checked when the walk is in a given tile - the tile itself, the
+     * tiles next to it in the given directions, and the tile in the corner between them.
+     *
+     * @param k   the number of the candidate (0 to 5).
+     * @param col the column of the current tile.
+     * @param row the row of the current tile.
+     * @param dx  the horizontal direction of the tiles next to the current tile.
+     * @param dy  the vertical direction of the tiles next to the current tile.
+     * @return the index of the tile, or -1 if it is outside the map.
+     */
+    private int candidateAt(int k, int col, int row, int dx, int dy) {
+        switch (k) {
+            case 0:
+                return this.indexAt(col, row);
+            case 1:
+            case 4:
+                return dx == 0 ? -1 : this.indexAt(col + dx, row);
+            case 2:
+            case 5:
+                return dy == 0 ? -1 : this.indexAt(col, row + dy);
+            case 3:
+                return dx == 0 || dy == 0 ? -1 : this.indexAt(col + dx, row + dy);
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * A method to get the index of a tile from its column and row.
+     *
+     * @param col the column of the tile.
+     * @param row the row of the tile.
+     * @return the index of the tile, or -1 if it is outside the map.
+     */
+    private int indexAt(int col, int row) {
+        if (col < 0 || col >= this.columns || row < 0 || row >= this.rows) {
+            return -1;
+        }
+        return row * this.columns + col;
+    }
+
+    /**
+     * A method to check if a value (in tile units) is on the border between two tiles.
+     *
+     * @param value the value.
+     * @return true if it is on a border, false otherwise.
+     */
+    private static boolean isOnBorder(double value) {
+        return Math.abs(value - Math.rint(value)) <= EPSILON;
+    }
+
+    /**
+     * A method to clamp a column / row into the map.
+     *
+     * @param value the column / row.
+     * @param size  the number of columns / rows in the map.
+     * @return the clamped value.
+     */
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
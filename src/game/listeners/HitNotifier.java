@@ -2,6 +2,8 @@
 
 package game.listeners;
 
+import game.objects.Ball;
+
 /**
  * This is the HitNotifier interface, which will be used to notify about hit events.
  *
@@ -21,4 +23,13 @@ public interface HitNotifier {
      * @param hl the HitListener that will be removed.
      */
     void removeHitListener(HitListener hl);
+
+    /**
+     * A method to notify the HitListeners about a hit event (it is called by the game's HitEventQueue at the end of
+     * the tick that the hit happened in).
+     *
+     * @param part   the part of the notifier that was hit (see CollisionInfo.getPart), or -1 if it has a single part.
+     * @param hitter the ball that hit the notifier.
+     */
+    void notifyHit(int part, Ball hitter);
 }
\ No newline at end of file
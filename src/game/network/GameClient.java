@@ -0,0 +1,242 @@
+// ID - 212945760
+
+package game.network;
+
+import game.operation.Game;
+import game.operation.GameState;
+import game.operation.InputSource;
+import game.operation.LevelFile;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The GameClient class, a client of a GameServer, which plays one of the players of its game. The client keeps a
+ * mirror of the server's game - a game of the same level and physics, which only loads the states that the server
+ * sends (see receive) and is never played by the client itself - so it can draw the game (see Game.drawFrame) and
+ * let an input source (a bot, or the keyboard of a GUI) choose the actions of its player.
+ *
+ * @author Ori Dabush
+ */
+public class GameClient implements Closeable {
+    // The initial size of the buffer of the received bytes (it grows to fit the biggest packet).
+    private static final int RECEIVE_BUFFER_SIZE = 1 << 16;
+
+    private SocketChannel channel;
+    private ByteBuffer received;
+    private ByteBuffer input;
+    private int player;
+    private Game game;
+    private GameState state;
+    // The tick of the last state that was received, and the end of the game (-1 until the server sends it).
+    private long tick;
+    private long finalTick;
+    private int finalScore;
+
+    /**
+     * A constructor for the GameClient class, which connects to a server and creates the mirror of its game.
+     *
+     * @param address the address of the server.
+     * @throws IOException if the client can't connect to the server.
+     */
+    public GameClient(SocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        try {
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.received = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+            this.received.flip();
+            this.input = ByteBuffer.allocate(Protocol.FRAME_SIZE + Protocol.INPUT_SIZE);
+            this.game = this.hello(this.nextPacket());
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.state = new GameState();
+        this.tick = -1;
+        this.finalTick = -1;
+        this.finalScore = 0;
+    }
+
+    /**
+     * A method to read the HELLO packet of the server and create the mirror of its game.
+     *
+     * @param packet the packet.
+     * @return the mirror of the game.
+     */
+    private Game hello(ByteBuffer packet) {
+        if (packet.get() != Protocol.HELLO || packet.getInt() != Protocol.MAGIC) {
+            throw new RuntimeException("not a game server!");
+        }
+        int version = packet.getInt();
+        if (version != Protocol.VERSION) {
+            throw new RuntimeException("unsupported protocol version " + version + "!");
+        }
+        this.player = packet.getInt();
+        Game mirror = new Game();
+        mirror.setPlayers(packet.getInt());
+        mirror.setSeed(packet.getLong());
+        mirror.setPhysicsRate(packet.getInt());
+        mirror.setFixedPointPhysics(packet.get() != 0);
+        int size = packet.getInt();
+        if (size != packet.remaining()) {
+            throw new RuntimeException("invalid HELLO packet!");
+        }
+        // The level is copied, since the packet's buffer is reused.
+        ByteBuffer level = ByteBuffer.allocate(size);
+        level.put(packet);
+        level.flip();
+        mirror.setLevel(new LevelFile(level));
+        mirror.initializeHeadless(null);
+        return mirror;
+    }
+
+    /**
+     * A method to read the next whole packet from the server, waiting for it if needed.
+     *
+     * @return a view of the packet (its type and its body), valid until the next packet is read.
+     * @throws IOException if the server can't be read, or it disconnected.
+     */
+    private ByteBuffer nextPacket() throws IOException {
+        ByteBuffer packet = Protocol.nextPacket(this.received);
+        while (packet == null) {
+            this.received.compact();
+            if (this.received.position() >= Integer.BYTES) {
+                int length = Protocol.checkLength(this.received.getInt(0));
+                if (this.received.capacity() < Integer.BYTES + length) {
+                    ByteBuffer bigger = ByteBuffer.allocate(Integer.BYTES + length);
+                    this.received.flip();
+                    bigger.put(this.received);
+                    this.received = bigger;
+                }
+            }
+            if (this.channel.read(this.received) < 0) {
+                throw new EOFException("the server disconnected");
+            }
+            this.received.flip();
+            packet = Protocol.nextPacket(this.received);
+        }
+        return packet;
+    }
+
+    /**
+     * A method to receive the next packet of the server - a state of the game, which the mirror of the game loads,
+     * or the end of the game.
+     *
+     * @return true if a state was received, false if the game ended (see getFinalTick and getFinalScore).
+     * @throws IOException if the server can't be read, or it disconnected.
+     */
+    public boolean receive() throws IOException {
+        ByteBuffer packet = this.nextPacket();
+        byte type = packet.get();
+        if (type == Protocol.STATE) {
+            this.state.read(packet, packet.remaining());
+            this.game.loadState(this.state);
+            this.tick = this.state.getTick();
+            return true;
+        }
+        if (type == Protocol.END && packet.remaining() == Protocol.END_SIZE) {
+            this.finalTick = packet.getLong();
+            this.finalScore = packet.getInt();
+            return false;
+        }
+        throw new RuntimeException("unexpected packet!");
+    }
+
+    /**
+     * A method to send the actions of the client's player for the last state that was received.
+     *
+     * @param actions the actions (LEFT and RIGHT, as the actions of the first player, see InputSource).
+     * @throws IOException if the server can't be written to.
+     */
+    public void send(int actions) throws IOException {
+        ByteBuffer packet = this.input;
+        packet.clear();
+        int start = Protocol.begin(packet, Protocol.INPUT);
+        packet.putLong(this.tick).put((byte) (actions & InputSource.PLAYER_MASK));
+        Protocol.end(packet, start);
+        packet.flip();
+        while (packet.hasRemaining()) {
+            this.channel.write(packet);
+        }
+    }
+
+    /**
+     * A method to send the actions that an input source chooses for the client's player, in the last state that
+     * was received.
+     *
+     * @param source the input source (it may choose the actions of all the players, only the actions of the
+     *               client's player are sent).
+     * @throws IOException if the server can't be written to.
+     */
+    public void send(InputSource source) throws IOException {
+        this.send(source.sample(this.game) >>> (this.player * InputSource.PLAYER_BITS));
+    }
+
+    /**
+     * A method to play the client's player until the game ends - to send the actions of an input source after every
+     * state that is received.
+     *
+     * @param source the input source of the player.
+     * @throws IOException if the server can't be read or written to.
+     */
+    public void play(InputSource source) throws IOException {
+        while (this.receive()) {
+            this.send(source);
+        }
+    }
+
+    /**
+     * An access method to the index of the client's player.
+     *
+     * @return the index of the player.
+     */
+    public int getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * An access method to the mirror of the server's game.
+     *
+     * @return the mirror of the game.
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * An access method to the tick of the last state that was received.
+     *
+     * @return the tick, or -1 if no state was received yet.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * An access method to the final tick of the game.
+     *
+     * @return the final tick, or -1 if the game didn't end yet.
+     */
+    public long getFinalTick() {
+        return this.finalTick;
+    }
+
+    /**
+     * An access method to the final score of the game.
+     *
+     * @return the final score (0 if the game didn't end yet).
+     */
+    public int getFinalScore() {
+        return this.finalScore;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
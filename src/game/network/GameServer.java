@@ -0,0 +1,566 @@
+// ID - 212945760
+
+package game.network;
+
+import game.operation.Game;
+import game.operation.GameState;
+import game.operation.InputSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * The GameServer class, an authoritative server of a game of several players (see Game.setPlayers) - the game runs
+ * only on the server, and its clients (see GameClient) send the actions of their players and get the state of the
+ * game after every tick (see Protocol). Everything runs on one thread, in a loop over a non-blocking Selector: the
+ * server accepts a client for every player, and then plays the game in real time (physics rate ticks per second), or
+ * in lockstep (every tick waits for the inputs of all the clients to the previous state). A client that disconnects
+ * leaves its paddle still, and states that a slow client doesn't read in time are dropped (the next state replaces
+ * them). In lockstep, a client that doesn't send its input to a state in time (see setAckTimeout) is disconnected,
+ * so a stuck client can't stall the match.
+ *
+ * @author Ori Dabush
+ */
+public class GameServer implements Closeable {
+    // The size of the buffer of the received bytes of a client (only INPUT packets are received).
+    private static final int RECEIVE_BUFFER_SIZE = 256;
+    // The number of states that may wait to be sent to a client before new states are dropped.
+    private static final int MAX_PENDING_STATES = 4;
+    // The time to wait for the clients to get the end of the game, in milliseconds.
+    private static final long CLOSE_TIMEOUT = 5000;
+    // The maximal number of ticks that a late server plays at once to catch up with the real time.
+    private static final int MAX_CATCH_UP_TICKS = 15;
+    // The default time that a client has to send its input to a state in lockstep, in milliseconds.
+    private static final long DEFAULT_ACK_TIMEOUT = 2000;
+
+    private Game game;
+    private NetworkInput input;
+    private Selector selector;
+    private ServerSocketChannel server;
+    // The connections of the players (null for a player that isn't connected), and their number.
+    private Connection[] connections;
+    private int connected;
+    private boolean started;
+    private boolean lockstep;
+    // The tick to end the match at even if the game didn't end, or a negative number to play until the game ends.
+    private long maxTicks;
+    // The time that a client has to send its input to a state in lockstep (in milliseconds, or a negative number to
+    // wait forever), and the time that the current state was sent (System.nanoTime).
+    private long ackTimeout;
+    private long stateSentAt;
+    // The snapshot of the game, and the packets that are sent to all the clients.
+    private GameState state;
+    private ByteBuffer statePacket;
+    private ByteBuffer hello;
+
+    /**
+     * A constructor for the GameServer class, which initializes a game (without a GUI, with the inputs of the
+     * clients) and starts listening for the clients of its players.
+     *
+     * @param game    the game - its seed, level, players and physics should be set, and it shouldn't be initialized.
+     * @param address the address to listen on (a port of 0 listens on a free port, see getAddress).
+     * @throws IOException if the server can't listen on the address.
+     */
+    public GameServer(Game game, SocketAddress address) throws IOException {
+        this.game = game;
+        this.input = new NetworkInput(game.getPlayers());
+        game.initializeHeadless(this.input);
+        this.connections = new Connection[game.getPlayers()];
+        this.connected = 0;
+        this.started = false;
+        this.lockstep = false;
+        this.maxTicks = -1;
+        this.ackTimeout = DEFAULT_ACK_TIMEOUT;
+        this.stateSentAt = 0;
+        this.state = new GameState();
+        game.saveState(this.state);
+        this.statePacket = ByteBuffer.allocate(Protocol.FRAME_SIZE + this.state.getSize());
+        this.hello = this.helloTemplate();
+        this.selector = Selector.open();
+        try {
+            this.server = ServerSocketChannel.open();
+            this.server.bind(address);
+            this.server.configureBlocking(false);
+            this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A method to create the HELLO packet of the game (its player index is set for every client).
+     *
+     * @return the packet.
+     */
+    private ByteBuffer helloTemplate() {
+        ByteBuffer level = this.game.getLevel().getBytes();
+        ByteBuffer packet = ByteBuffer.allocate(Protocol.FRAME_SIZE + 6 * Integer.BYTES + Long.BYTES + 1
+                + level.remaining());
+        int start = Protocol.begin(packet, Protocol.HELLO);
+        packet.putInt(Protocol.MAGIC).putInt(Protocol.VERSION).putInt(0).putInt(this.game.getPlayers());
+        packet.putLong(this.game.getSeed()).putInt(this.game.getPhysicsRate());
+        packet.put((byte) (this.game.isFixedPointPhysics() ? 1 : 0));
+        packet.putInt(level.remaining()).put(level);
+        Protocol.end(packet, start);
+        packet.flip();
+        return packet;
+    }
+
+    /**
+     * A method to get the address that the server listens on.
+     *
+     * @return the address.
+     * @throws IOException if the address can't be read.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return this.server.getLocalAddress();
+    }
+
+    /**
+     * A method to set whether the game runs in lockstep (every tick waits for the inputs of all the connected
+     * clients to the previous state, so the game doesn't depend on the timing of the network) or in real time (the
+     * default).
+     *
+     * @param enabled true for lockstep, false for real time.
+     */
+    public void setLockstep(boolean enabled) {
+        this.lockstep = enabled;
+    }
+
+    /**
+     * A method to set the maximal number of ticks of the match - when it is reached, the match ends (the clients get
+     * the END packet) even if the game didn't end.
+     *
+     * @param ticks the maximal number of ticks, or a negative number to play until the game ends (the default).
+     */
+    public void setMaxTicks(long ticks) {
+        this.maxTicks = ticks;
+    }
+
+    /**
+     * A method to set the time that a client has to send its input to a state in lockstep. A client that doesn't
+     * send it in time is disconnected (its paddle stays still from then on, as the paddle of a client that
+     * disconnected by itself), and the match goes on with the other clients.
+     *
+     * @param millis the time in milliseconds (2 seconds by default), or a negative number to wait for the clients
+     *               forever.
+     */
+    public void setAckTimeout(long millis) {
+        this.ackTimeout = millis;
+    }
+
+    /**
+     * An access method to the game of the server.
+     *
+     * @return the game.
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * A method to run the server - to wait until all the players are connected, and then play the game until it
+     * ends (or until the maximal number of ticks is played, or all the clients disconnect), and send its end to the
+     * clients.
+     *
+     * @throws IOException if the selector fails.
+     */
+    public void run() throws IOException {
+        while (this.connected < this.connections.length) {
+            this.selector.select();
+            this.handleKeys();
+        }
+        this.started = true;
+        this.broadcastState();
+        long nanosPerTick = 1000000000L / this.game.getPhysicsRate();
+        long nextTick = System.nanoTime() + nanosPerTick;
+        while (this.isPlaying()) {
+            long now = System.nanoTime();
+            if (this.lockstep ? this.allAcknowledged() : now >= nextTick) {
+                this.game.simulate(1);
+                this.broadcastState();
+                nextTick = Math.max(nextTick + nanosPerTick, now - MAX_CATCH_UP_TICKS * nanosPerTick);
+                continue;
+            }
+            if (this.lockstep && this.ackTimeout >= 0) {
+                long deadline = this.stateSentAt + this.ackTimeout * 1000000;
+                if (now - deadline >= 0) {
+                    this.disconnectLateClients();
+                    continue;
+                }
+                this.selector.select(Math.max(1, (deadline - now) / 1000000));
+            } else if (this.lockstep) {
+                this.selector.select();
+            } else {
+                this.selector.select(Math.max(1, (nextTick - now) / 1000000));
+            }
+            this.handleKeys();
+        }
+        this.broadcastEnd();
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT;
+        while (this.hasPendingOutput() && System.currentTimeMillis() < deadline) {
+            this.selector.select(Math.max(1, deadline - System.currentTimeMillis()));
+            this.handleKeys();
+        }
+        this.close();
+    }
+
+    /**
+     * A method to check if the match goes on - if the game didn't end, the maximal number of ticks wasn't played, and
+     * some clients are still connected.
+     *
+     * @return true if the match goes on, false otherwise.
+     */
+    private boolean isPlaying() {
+        return !this.game.isOver() && this.connected > 0 && (this.maxTicks < 0 || this.game.getTick() < this.maxTicks);
+    }
+
+    /**
+     * A method to handle the keys that the selector selected - to accept clients, and to read from and write to
+     * the connected clients.
+     *
+     * @throws IOException if a client can't be accepted.
+     */
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                this.accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    this.receive(connection);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    this.flush(connection);
+                }
+            } catch (IOException | RuntimeException e) {
+                // A client that fails (or breaks the protocol) is disconnected, and the game goes on without it.
+                this.disconnect(connection);
+            }
+        }
+    }
+
+    /**
+     * A method to accept a client as the next player that isn't connected, and send it the HELLO packet. Clients
+     * that connect after the game starts are closed.
+     *
+     * @throws IOException if the client can't be accepted.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = this.server.accept();
+        if (channel == null) {
+            return;
+        }
+        if (this.started || this.connected == this.connections.length) {
+            channel.close();
+            return;
+        }
+        int player = 0;
+        while (this.connections[player] != null) {
+            player++;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel, player,
+                this.hello.remaining() + MAX_PENDING_STATES * this.statePacket.capacity());
+        connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+        this.connections[player] = connection;
+        this.connected++;
+        ByteBuffer packet = this.hello.duplicate();
+        packet.putInt(Protocol.FRAME_SIZE + 2 * Integer.BYTES, player);
+        try {
+            this.send(connection, packet, false);
+        } catch (IOException e) {
+            this.disconnect(connection);
+        }
+    }
+
+    /**
+     * A method to read the packets that a client sent.
+     *
+     * @param connection the client.
+     * @throws IOException if the client can't be read, or it disconnected.
+     */
+    private void receive(Connection connection) throws IOException {
+        if (connection.channel.read(connection.received) < 0) {
+            throw new IOException("the client disconnected");
+        }
+        ByteBuffer received = connection.received;
+        received.flip();
+        ByteBuffer packet = nextInput(received);
+        while (packet != null) {
+            if (packet.get() != Protocol.INPUT) {
+                throw new RuntimeException("unexpected packet!");
+            }
+            connection.acknowledged = Math.max(connection.acknowledged, packet.getLong());
+            // The server only takes the actions of the client's own player.
+            this.input.setActions(connection.player, packet.get() & InputSource.PLAYER_MASK);
+            packet = nextInput(received);
+        }
+        received.compact();
+        // A full buffer without a whole packet would never be read again (the client only sends small packets).
+        if (!received.hasRemaining()) {
+            throw new RuntimeException("the client's packet is too long!");
+        }
+    }
+
+    /**
+     * A method to take the next whole packet from the received bytes of a client. Clients only send INPUT packets,
+     * so a frame of any other length is rejected as soon as its length is received.
+     *
+     * @param received the received bytes, from their position to their limit.
+     * @return a view of the packet (its type and its body), or null if the bytes don't hold a whole packet.
+     */
+    private static ByteBuffer nextInput(ByteBuffer received) {
+        if (received.remaining() >= Integer.BYTES
+                && received.getInt(received.position()) != 1 + Protocol.INPUT_SIZE) {
+            throw new RuntimeException("unexpected packet length!");
+        }
+        return Protocol.nextPacket(received);
+    }
+
+    /**
+     * A method to send a packet to a client.
+     *
+     * @param connection the client.
+     * @param packet     the packet (from its position to its limit, which aren't changed).
+     * @param droppable  true if the packet may be dropped when the client has too many packets waiting.
+     * @throws IOException if the client can't be written to.
+     */
+    private void send(Connection connection, ByteBuffer packet, boolean droppable) throws IOException {
+        ByteBuffer pending = connection.pending;
+        if (pending.remaining() < packet.remaining()) {
+            if (droppable) {
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(pending.position() + packet.remaining());
+            pending.flip();
+            bigger.put(pending);
+            connection.pending = bigger;
+        }
+        connection.pending.put(packet.duplicate());
+        this.flush(connection);
+    }
+
+    /**
+     * A method to write as much as possible of the packets that wait to be sent to a client, and to wait until it
+     * can be written to if some of them are left.
+     *
+     * @param connection the client.
+     * @throws IOException if the client can't be written to.
+     */
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer pending = connection.pending;
+        pending.flip();
+        connection.channel.write(pending);
+        pending.compact();
+        int ops = pending.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (connection.key.interestOps() != ops) {
+            connection.key.interestOps(ops);
+        }
+    }
+
+    /**
+     * A method to send the current state of the game to all the clients. In real time, a client that has too many
+     * states waiting doesn't get this one.
+     */
+    private void broadcastState() {
+        this.game.saveState(this.state);
+        ByteBuffer packet = this.statePacket;
+        packet.clear();
+        int start = Protocol.begin(packet, Protocol.STATE);
+        this.state.write(packet);
+        Protocol.end(packet, start);
+        packet.flip();
+        this.broadcast(packet, !this.lockstep);
+        this.stateSentAt = System.nanoTime();
+    }
+
+    /**
+     * A method to send the end of the game to all the clients.
+     */
+    private void broadcastEnd() {
+        ByteBuffer packet = ByteBuffer.allocate(Protocol.FRAME_SIZE + Protocol.END_SIZE);
+        int start = Protocol.begin(packet, Protocol.END);
+        packet.putLong(this.game.getTick()).putInt(this.game.getScore());
+        Protocol.end(packet, start);
+        packet.flip();
+        this.broadcast(packet, false);
+    }
+
+    /**
+     * A method to send a packet to all the clients.
+     *
+     * @param packet    the packet.
+     * @param droppable true if the packet may be dropped for clients that have too many packets waiting.
+     */
+    private void broadcast(ByteBuffer packet, boolean droppable) {
+        for (Connection connection : this.connections) {
+            if (connection == null) {
+                continue;
+            }
+            try {
+                this.send(connection, packet, droppable);
+            } catch (IOException e) {
+                this.disconnect(connection);
+            }
+        }
+    }
+
+    /**
+     * A method to check if all the connected clients sent their inputs to the current state of the game.
+     *
+     * @return true if they all did, false otherwise.
+     */
+    private boolean allAcknowledged() {
+        for (Connection connection : this.connections) {
+            if (connection != null && connection.acknowledged < this.game.getTick()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to disconnect the clients that didn't send their inputs to the current state of the game.
+     */
+    private void disconnectLateClients() {
+        for (Connection connection : this.connections) {
+            if (connection != null && connection.acknowledged < this.game.getTick()) {
+                this.disconnect(connection);
+            }
+        }
+    }
+
+    /**
+     * A method to check if some packets wait to be sent to the clients.
+     *
+     * @return true if some packets wait, false otherwise.
+     */
+    private boolean hasPendingOutput() {
+        for (Connection connection : this.connections) {
+            if (connection != null && connection.pending.position() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to disconnect a client. Its paddle stays still from now on.
+     *
+     * @param connection the client.
+     */
+    private void disconnect(Connection connection) {
+        if (this.connections[connection.player] != connection) {
+            return;
+        }
+        this.connections[connection.player] = null;
+        this.connected--;
+        this.input.setActions(connection.player, 0);
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // The client is gone anyway.
+            return;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : this.connections) {
+            if (connection != null) {
+                this.disconnect(connection);
+            }
+        }
+        if (this.server != null) {
+            this.server.close();
+        }
+        this.selector.close();
+    }
+
+    /**
+     * The Connection class, a connected client - its channel, its player, its buffers and its last input.
+     */
+    private static final class Connection {
+        private SocketChannel channel;
+        private SelectionKey key;
+        private int player;
+        // The received bytes that weren't handled yet, and the bytes that wait to be sent (both in write mode).
+        private ByteBuffer received;
+        private ByteBuffer pending;
+        // The tick of the last state that the client sent its input to.
+        private long acknowledged;
+
+        /**
+         * A constructor for the Connection class.
+         *
+         * @param channel  the channel of the client.
+         * @param player   the index of the client's player.
+         * @param capacity the capacity of the buffer of the bytes that wait to be sent.
+         */
+        private Connection(SocketChannel channel, int player, int capacity) {
+            this.channel = channel;
+            this.key = null;
+            this.player = player;
+            this.received = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+            this.pending = ByteBuffer.allocate(capacity);
+            this.acknowledged = -1;
+        }
+    }
+
+    /**
+     * The NetworkInput class, the input of the game of the server - the last actions that every client sent.
+     */
+    private static final class NetworkInput implements InputSource {
+        private int[] actions;
+
+        /**
+         * A constructor for the NetworkInput class.
+         *
+         * @param players the number of players.
+         */
+        private NetworkInput(int players) {
+            this.actions = new int[players];
+        }
+
+        /**
+         * A method to set the actions of a player.
+         *
+         * @param player the index of the player.
+         * @param mask   the actions of the player (as the actions of the first player).
+         */
+        private void setActions(int player, int mask) {
+            this.actions[player] = mask;
+        }
+
+        @Override
+        public int sample(Game game) {
+            int mask = 0;
+            for (int i = 0; i < this.actions.length; i++) {
+                mask |= this.actions[i] << (i * PLAYER_BITS);
+            }
+            return mask;
+        }
+    }
+}
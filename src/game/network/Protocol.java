@@ -0,0 +1,127 @@
+// ID - 212945760
+
+package game.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Protocol class, the binary protocol between a GameServer and its clients (see GameClient), over TCP. Every
+ * packet is framed by its length (an int, the length of the rest of the packet) and its type (a byte), and all the
+ * values are big-endian:
+ * <pre>
+ * HELLO (server to client, when it connects): magic ("ARKN"), version, player, players (ints), seed (long),
+ *        physics rate (int), fixed-point physics (byte), level size (int) and the bytes of the level (see LevelFile)
+ * INPUT (client to server, after every state): the tick of the last state that the client got (long) and the
+ *        actions of its player (a byte, see InputSource)
+ * STATE (server to client, after every tick): a snapshot of the whole game (see GameState.write)
+ * END   (server to client, when the game ends): the final tick (long) and the final score (int)
+ * </pre>
+ * A state packet holds the whole game, so a client that misses a state (the server drops the states of a client that
+ * doesn't read them fast enough) is up to date again with the next one.
+ *
+ * @author Ori Dabush
+ */
+public final class Protocol {
+
+    /**
+     * The first int of a HELLO packet ("ARKN").
+     */
+    public static final int MAGIC = 0x41524B4E;
+    /**
+     * The version of the protocol.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The type of a HELLO packet.
+     */
+    public static final byte HELLO = 1;
+    /**
+     * The type of an INPUT packet.
+     */
+    public static final byte INPUT = 2;
+    /**
+     * The type of a STATE packet.
+     */
+    public static final byte STATE = 3;
+    /**
+     * The type of an END packet.
+     */
+    public static final byte END = 4;
+    /**
+     * The size of the frame of a packet - its length and its type.
+     */
+    public static final int FRAME_SIZE = Integer.BYTES + 1;
+    /**
+     * The maximal length of a packet.
+     */
+    public static final int MAX_PACKET_SIZE = 1 << 24;
+
+    // The sizes of the bodies of the packets that have a fixed size.
+    static final int INPUT_SIZE = Long.BYTES + 1;
+    static final int END_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * A constructor for the Protocol class, which isn't used (the class only holds the constants and the framing of
+     * the protocol).
+     */
+    private Protocol() {
+    }
+
+    /**
+     * A method to start a packet in a buffer - to put its frame (its length is set by end).
+     *
+     * @param out  the buffer.
+     * @param type the type of the packet.
+     * @return the position of the packet in the buffer, for end.
+     */
+    static int begin(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putInt(0);
+        out.put(type);
+        return start;
+    }
+
+    /**
+     * A method to end a packet that was started by begin - to set its length.
+     *
+     * @param out   the buffer.
+     * @param start the position of the packet, as returned by begin.
+     */
+    static void end(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - Integer.BYTES);
+    }
+
+    /**
+     * A method to check the length of a packet, as read from its frame.
+     *
+     * @param length the length.
+     * @return the length.
+     */
+    static int checkLength(int length) {
+        if (length < 1 || length > MAX_PACKET_SIZE) {
+            throw new RuntimeException("invalid packet length " + length + "!");
+        }
+        return length;
+    }
+
+    /**
+     * A method to take the next whole packet from a buffer of received bytes.
+     *
+     * @param in the buffer, from its position to its limit (its position is moved after the packet).
+     * @return a view of the packet (its type and its body), or null if the buffer doesn't hold a whole packet.
+     */
+    static ByteBuffer nextPacket(ByteBuffer in) {
+        if (in.remaining() < FRAME_SIZE) {
+            return null;
+        }
+        int length = checkLength(in.getInt(in.position()));
+        if (in.remaining() < Integer.BYTES + length) {
+            return null;
+        }
+        ByteBuffer packet = in.duplicate();
+        packet.position(in.position() + Integer.BYTES);
+        packet.limit(packet.position() + length);
+        in.position(packet.limit());
+        return packet;
+    }
+}
@@ -3,10 +3,11 @@
 package game.objects;
 
 import biuoop.DrawSurface;
+import game.events.CollisionBatch;
 import game.events.CollisionInfo;
 import game.events.GameEnvironment;
+import game.events.HitEventQueue;
 import game.operation.Game;
-import geometry.Line;
 import geometry.Point;
 import geometry.Velocity;
 
@@ -17,13 +18,30 @@ import java.awt.Color;
  *
  * @author Ori Dabush
  */
-public class Ball implements Sprite {
+public class Ball implements BatchedSprite, InterpolatedSprite {
 
-    private Point center;
+    /**
+     * The number of values in the state of a ball (see saveState).
+     */
+    public static final int STATE_SIZE = 6;
+
+    // The maximal number of collisions that the ball handles in a single step.
+    static final int MAX_COLLISIONS_PER_STEP = 4;
+
+    private double centerX;
+    private double centerY;
+    // The location of the ball before its last step.
+    private double previousX;
+    private double previousY;
     private int size;
     private Color color;
     private Velocity velocity;
     private GameEnvironment env;
+    // A reusable object for the collision queries of the ball, so moving it doesn't create new objects.
+    private CollisionInfo collision;
+    // The id of the ball in the hit events queue of its game (-1 if it was never in a game).
+    private int id;
+    private HitEventQueue hitEvents;
 
     /**
      * A constructor that creates a ball from a center point, radius and color.
@@ -33,12 +51,7 @@ public class Ball implements Sprite {
      * @param color  the color of the ball.
      */
     public Ball(Point center, int r, Color color) {
-        this.center = new Point(center);
-        this.size = r;
-        this.color = color;
-        // in case that there's no need in velocity.
-        this.velocity = new Velocity(0, 0);
-        this.env = null;
+        this(center.getX(), center.getY(), r, color);
     }
 
     /**
@@ -50,12 +63,7 @@ public class Ball implements Sprite {
      * @param color the ball's color.
      */
     public Ball(int x, int y, int r, Color color) {
-        this.center = new Point(x, y);
-        this.size = r;
-        this.color = color;
-        // in case that there's no need in velocity.
-        this.velocity = new Velocity(0, 0);
-        this.env = null;
+        this((double) x, (double) y, r, color);
     }
 
     /**
@@ -67,12 +75,18 @@ public class Ball implements Sprite {
      * @param color the ball's color.
      */
     public Ball(double x, double y, int r, Color color) {
-        this.center = new Point(x, y);
+        this.centerX = x;
+        this.centerY = y;
+        this.previousX = x;
+        this.previousY = y;
         this.size = r;
         this.color = color;
         // in case that there's no need in velocity.
         this.velocity = new Velocity(0, 0);
         this.env = null;
+        this.collision = new CollisionInfo();
+        this.id = -1;
+        this.hitEvents = null;
     }
 
     /**
@@ -81,7 +95,7 @@ public class Ball implements Sprite {
      * @return the ball's location x value.
      */
     public int getX() {
-        return (int) this.center.getX();
+        return (int) this.centerX;
     }
 
     /**
@@ -90,7 +104,16 @@ public class Ball implements Sprite {
      * @return the ball's location y value.
      */
     public int getY() {
-        return (int) this.center.getY();
+        return (int) this.centerY;
+    }
+
+    /**
+     * A method that gives access to the ball's id in the hit events queue of its game.
+     *
+     * @return the ball's id, or -1 if it isn't in a game.
+     */
+    public int getId() {
+        return this.id;
     }
 
     /**
@@ -139,6 +162,37 @@ public class Ball implements Sprite {
         this.velocity = new Velocity(dx, dy);
     }
 
+    /**
+     * A method to save the state of the ball that changes while it moves - its center, its center before its last
+     * step and its velocity.
+     *
+     * @param state  the array to save the state to.
+     * @param offset the index of the first value of the state in the array (STATE_SIZE values are saved).
+     */
+    public void saveState(double[] state, int offset) {
+        state[offset] = this.centerX;
+        state[offset + 1] = this.centerY;
+        state[offset + 2] = this.previousX;
+        state[offset + 3] = this.previousY;
+        state[offset + 4] = this.velocity.getDx();
+        state[offset + 5] = this.velocity.getDy();
+    }
+
+    /**
+     * A method to load a state of the ball that was saved by saveState.
+     *
+     * @param state  the array to load the state from.
+     * @param offset the index of the first value of the state in the array.
+     */
+    public void loadState(double[] state, int offset) {
+        this.centerX = state[offset];
+        this.centerY = state[offset + 1];
+        this.previousX = state[offset + 2];
+        this.previousY = state[offset + 3];
+        // The velocity is changed in place, so a restore doesn't create objects.
+        this.velocity.set(state[offset + 4], state[offset + 5]);
+    }
+
     /**
      * An accessor method to get the velocity value of the current ball.
      *
@@ -149,23 +203,49 @@ public class Ball implements Sprite {
     }
 
     /**
-     * A method that moves the ball one step by its velocity, using the applyToPoint method on the ball's
-     * center point. The method will change the velocity depending on the gameEvents.GameEnvironment.
+     * A method that moves the ball one step by its velocity. The method will change the velocity depending on the
+     * gameEvents.GameEnvironment. The ball is a circle (its size is the radius) - it moves until it touches a
+     * collidable, bounces from it, and keeps moving with its new velocity for the rest of the step, so it can bounce
+     * a few times in a single step (up to MAX_COLLISIONS_PER_STEP). It works on the ball's values and reusable
+     * objects only, so it doesn't create any new objects.
      */
     public void moveOneStep() {
-        Point locationWithoutCollision = this.velocity.applyToPoint(this.center);
-        Line trajectory = new Line(this.center, locationWithoutCollision);
-        CollisionInfo info = this.env.getClosestCollision(trajectory);
-        // The collisionPoint is a null when there's no collision.
-        if (info == null || info.collisionPoint() == null) {
-            this.center = locationWithoutCollision;
-        } else {
-            // change the velocity
-            this.velocity = info.collisionObject().hit(this, locationWithoutCollision, this.velocity);
-            // get the ball "almost" hitting the collidable
-            Line toCollisionPoint = new Line(this.center, info.collisionPoint());
-            this.center = toCollisionPoint.getEndCloser();
+        this.findCollision(1);
+        this.applyStep();
+    }
+
+    /**
+     * A method to find the first collision of the ball in a part of its next step, without changing anything.
+     *
+     * @param time the part of the step (1 for the whole step).
+     */
+    private void findCollision(double time) {
+        this.env.getClosestCollision(this.centerX, this.centerY, this.centerX + this.velocity.getDx() * time,
+                this.centerY + this.velocity.getDy() * time, this.size, this.collision);
+    }
+
+    /**
+     * A method to move the ball by the collision that was found by findCollision(1), and by the collisions after
+     * it in the rest of the step.
+     */
+    private void applyStep() {
+        this.previousX = this.centerX;
+        this.previousY = this.centerY;
+        double time = 1;
+        for (int i = 1; this.collision.collisionObject() != null; i++) {
+            // moving the ball to the collision, and changing its velocity.
+            double t = this.collision.getHit().getParameter();
+            this.centerX += this.velocity.getDx() * time * t;
+            this.centerY += this.velocity.getDy() * time * t;
+            this.collision.collisionObject().hit(this, this.collision, this.velocity);
+            time *= 1 - t;
+            if (i == MAX_COLLISIONS_PER_STEP || time <= 0) {
+                return;
+            }
+            this.findCollision(time);
         }
+        this.centerX += this.velocity.getDx() * time;
+        this.centerY += this.velocity.getDy() * time;
     }
 
     /**
@@ -173,6 +253,7 @@ public class Ball implements Sprite {
      *
      * @return the game environment of the current ball.
      */
+    @Override
     public GameEnvironment getEnv() {
         return this.env;
     }
@@ -192,13 +273,42 @@ public class Ball implements Sprite {
         surface.fillCircle(this.getX(), this.getY(), this.size);
     }
 
+    @Override
+    public void drawOn(DrawSurface surface, double alpha) {
+        surface.setColor(this.color);
+        surface.fillCircle((int) (this.previousX + (this.centerX - this.previousX) * alpha),
+                (int) (this.previousY + (this.centerY - this.previousY) * alpha), this.size);
+    }
+
     @Override
     public void timePassed() {
         this.moveOneStep();
     }
 
+    @Override
+    public void prepareTimePassed() {
+        this.findCollision(1);
+    }
+
+    @Override
+    public void prepareTimePassed(CollisionBatch batch) {
+        batch.add(this.centerX, this.centerY, this.centerX + this.velocity.getDx(),
+                this.centerY + this.velocity.getDy(), this.size, this.collision);
+    }
+
+    @Override
+    public void applyTimePassed() {
+        // The collidables are removed only at the end of the tick (see HitEventQueue), so the collision that was
+        // found in prepareTimePassed is still valid.
+        this.applyStep();
+    }
+
     @Override
     public void addToGame(Game g) {
+        if (this.hitEvents != g.getHitEvents()) {
+            this.hitEvents = g.getHitEvents();
+            this.id = this.hitEvents.register(this);
+        }
         g.addSprite(this);
     }
 
@@ -208,6 +318,11 @@ public class Ball implements Sprite {
      * @param g is the game that the ball will be removed from.
      */
     public void removeFromGame(Game g) {
+        if (this.hitEvents != null) {
+            this.hitEvents.unregister(this, this.id);
+            this.hitEvents = null;
+            this.id = -1;
+        }
         g.removeSprite(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+// ID - 212945760
+
+package game.objects;
+
+import game.events.CollisionBatch;
+import game.events.GameEnvironment;
+
+/**
+ * The BatchedSprite interface, which will be implemented by ParallelSprites whose prepareTimePassed is a single
+ * collision query in their game environment (like the balls), so the queries of many of them can be run together
+ * (see GameEnvironment.getClosestCollisions). Adding the query to a batch and running the batch should be the same
+ * as calling prepareTimePassed.
+ *
+ * @author Ori Dabush
+ */
+public interface BatchedSprite extends ParallelSprite {
+
+    /**
+     * An access method to the game environment that the query of the sprite is made in.
+     *
+     * @return the game environment, or null if the sprite doesn't have one.
+     */
+    GameEnvironment getEnv();
+
+    /**
+     * A method to add the query of prepareTimePassed to a batch, instead of running it. The result of the query is
+     * used by applyTimePassed, after the batch is run in the sprite's game environment.
+     *
+     * @param batch the batch.
+     */
+    void prepareTimePassed(CollisionBatch batch);
+}
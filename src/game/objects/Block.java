@@ -3,27 +3,32 @@
 package game.objects;
 
 import biuoop.DrawSurface;
+import game.events.CollisionInfo;
+import game.events.HitEventQueue;
 import game.operation.Game;
-import geometry.Line;
 import geometry.Point;
 import geometry.Rectangle;
+import geometry.SegmentHit;
 import geometry.Velocity;
 import game.listeners.HitListener;
 import game.listeners.HitNotifier;
 
 import java.awt.Color;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The block class, which creates blocks that the ball will collide with.
  *
  * @author Ori Dabush
  */
-public class Block implements Collidable, Sprite, HitNotifier {
+public class Block implements Collidable, StaticSprite, HitNotifier {
     private Rectangle rectangle;
     private Color color;
     private List<HitListener> hitListeners;
+    // The hit events queue of the game that the block is in (null if it isn't in a game), and its id in it.
+    private HitEventQueue hitEvents;
+    private int id;
 
     /**
      * A constructor to create a block object.
@@ -34,7 +39,11 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public Block(Rectangle rectangle, Color color) {
         this.rectangle = new Rectangle(rectangle);
         this.color = color;
-        this.hitListeners = new ArrayList<>();
+        // The listeners can remove themselves while they are notified, and iterating over a CopyOnWriteArrayList
+        // doesn't need a copy of it (it is copied only when listeners are added or removed, which is rare).
+        this.hitListeners = new CopyOnWriteArrayList<>();
+        this.hitEvents = null;
+        this.id = -1;
     }
 
     /**
@@ -60,33 +69,41 @@ public class Block implements Collidable, Sprite, HitNotifier {
         if (collisionPoint == null || currentVelocity == null) {
             return null;
         }
-        Point upperRight = new Point(this.rectangle.getUpperLeft().getX() + this.rectangle.getWidth(),
-                this.rectangle.getUpperLeft().getY());
-        Point bottomLeft = new Point(this.rectangle.getUpperLeft().getX(),
-                this.rectangle.getUpperLeft().getY() + this.rectangle.getHeight());
-        Point bottomRight = new Point(this.rectangle.getUpperLeft().getX() + this.rectangle.getWidth(),
-                this.rectangle.getUpperLeft().getY() + this.rectangle.getHeight());
-        Line upperEdge = new Line(this.rectangle.getUpperLeft(), upperRight);
-        Line bottomEdge = new Line(bottomLeft, bottomRight);
-        Line rightEdge = new Line(upperRight, bottomRight);
-        Line leftEdge = new Line(this.rectangle.getUpperLeft(), bottomLeft);
-
-        Point beforeCollision = new Point(collisionPoint.getX() - currentVelocity.getDx(),
-                collisionPoint.getY() - currentVelocity.getDy());
-        Line trajectory = new Line(beforeCollision, collisionPoint);
-
-        Point intersectionWithRectangle = trajectory.closestIntersectionToStartOfLine(this.rectangle);
-
-        if (upperEdge.isPointOnLine(intersectionWithRectangle) || bottomEdge.isPointOnLine(intersectionWithRectangle)) {
-            currentVelocity = new Velocity(currentVelocity.getDx(), -currentVelocity.getDy());
+        // Finding the faces of the collision using the trajectory that ends in the collision point.
+        CollisionInfo info = new CollisionInfo();
+        this.rectangle.intersectSegment(collisionPoint.getX() - currentVelocity.getDx(),
+                collisionPoint.getY() - currentVelocity.getDy(), collisionPoint.getX(), collisionPoint.getY(),
+                info.getHit());
+        Velocity newVelocity = new Velocity(currentVelocity);
+        this.hit(hitter, info, newVelocity);
+        return newVelocity;
+    }
+
+    /**
+     * A method to change the velocity of a ball after a collision - the ball bounces from the faces of the block
+     * that the collision point is on. If the block is in a game, its listeners are notified at the end of the tick
+     * (see HitEventQueue), and otherwise (or if the ball isn't in the game) they are notified immediately.
+     *
+     * @param hitter   the ball that hit the current block.
+     * @param info     the information about the collision.
+     * @param velocity the velocity before the collision, which is changed to the velocity after it.
+     */
+    @Override
+    public void hit(Ball hitter, CollisionInfo info, Velocity velocity) {
+        SegmentHit collision = info.getHit();
+        if (collision.isOnFace(Rectangle.TOP_FACE | Rectangle.BOTTOM_FACE)) {
+            velocity.set(velocity.getDx(), -velocity.getDy());
         }
-        if (rightEdge.isPointOnLine(intersectionWithRectangle) || leftEdge.isPointOnLine(intersectionWithRectangle)) {
-            currentVelocity = new Velocity(-currentVelocity.getDx(), currentVelocity.getDy());
+        if (collision.isOnFace(Rectangle.LEFT_FACE | Rectangle.RIGHT_FACE)) {
+            velocity.set(-velocity.getDx(), velocity.getDy());
         }
 
-        this.notifyHit(hitter);
-
-        return currentVelocity;
+        // A ball that isn't in the game (it only has its environment) has no id in the queue.
+        if (this.hitEvents != null && hitter.getId() >= 0) {
+            this.hitEvents.add(this.id, -1, hitter.getId());
+        } else {
+            this.notifyHit(hitter);
+        }
     }
 
     /**
@@ -96,10 +113,24 @@ public class Block implements Collidable, Sprite, HitNotifier {
      */
     @Override
     public void addToGame(Game g) {
+        if (this.hitEvents != g.getHitEvents()) {
+            this.hitEvents = g.getHitEvents();
+            this.id = this.hitEvents.register(this);
+        }
         g.addSprite(this);
         g.addCollidable(this);
     }
 
+    @Override
+    public Rectangle getDrawnArea() {
+        return this.rectangle;
+    }
+
+    @Override
+    public void drawAreaOn(DrawSurface d, Rectangle area) {
+        this.drawOn(d);
+    }
+
     /**
      * A method to draw the block on a given DrawSurface.
      *
@@ -109,10 +140,10 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public void drawOn(DrawSurface d) {
         d.setColor(this.color);
         Rectangle r = this.rectangle;
-        d.fillRectangle((int) r.getUpperLeft().getX(), (int) r.getUpperLeft().getY(),
+        d.fillRectangle((int) r.getX(), (int) r.getY(),
                 (int) r.getWidth(), (int) r.getHeight());
         d.setColor(Color.BLACK);
-        d.drawRectangle((int) r.getUpperLeft().getX(), (int) r.getUpperLeft().getY(),
+        d.drawRectangle((int) r.getX(), (int) r.getY(),
                 (int) r.getWidth(), (int) r.getHeight());
     }
 
@@ -130,6 +161,11 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param game the game that the block will be removed from.
      */
     public void removeFromGame(Game game) {
+        if (this.hitEvents != null) {
+            this.hitEvents.unregister(this, this.id);
+            this.hitEvents = null;
+            this.id = -1;
+        }
         game.removeCollidable(this);
         game.removeSprite(this);
     }
@@ -144,16 +180,19 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners.remove(hl);
     }
 
+    @Override
+    public void notifyHit(int part, Ball hitter) {
+        this.notifyHit(hitter);
+    }
+
     /**
      * A method to notify the block's HitListeners about a hit event.
      *
      * @param hitter the ball that hit the current block.
      */
     private void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<HitListener>(this.hitListeners);
         // Notify all game.listeners about a hit event:
-        for (HitListener hl : listeners) {
+        for (HitListener hl : this.hitListeners) {
             hl.hitEvent(this, hitter);
         }
     }
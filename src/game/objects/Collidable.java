@@ -2,6 +2,7 @@
 
 package game.objects;
 
+import game.events.CollisionInfo;
 import game.operation.Game;
 import geometry.Point;
 import geometry.Rectangle;
@@ -31,6 +32,20 @@ public interface Collidable {
      */
     Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
 
+    /**
+     * A method to change the velocity of a ball after a collision. By default it calls the other form of hit with the
+     * collision point and copies the new velocity into the given one, so collidables that only implement that form
+     * still work - Block and Paddle override it to find the new velocity without creating objects.
+     *
+     * @param hitter   the ball that hit the collidable object.
+     * @param info     the information about the collision (its point, and the faces of the rectangle it is on).
+     * @param velocity the velocity before the collision, which is changed to the velocity after it.
+     */
+    default void hit(Ball hitter, CollisionInfo info, Velocity velocity) {
+        Velocity after = this.hit(hitter, info.collisionPoint(), velocity);
+        velocity.set(after.getDx(), after.getDy());
+    }
+
     /**
      * A method to add the collidable into the game.
      *
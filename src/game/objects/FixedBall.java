@@ -0,0 +1,165 @@
+// ID - 212945760
+
+package game.objects;
+
+import biuoop.DrawSurface;
+import game.events.CollisionBatch;
+import game.events.CollisionInfo;
+import geometry.Fixed;
+import geometry.Point;
+import geometry.Velocity;
+
+import java.awt.Color;
+
+/**
+ * The FixedBall class, a ball of the fixed-point physics (see Fixed). Its location and its velocity are fixed-point
+ * values, it moves with integer arithmetic, and its collisions are found with the exact integer tests (see
+ * Rectangle.intersectSweptCircleFixed), so its movement is the same on every machine. It behaves as a Ball - the
+ * collidables change its velocity (which is rounded to fixed-point values after every hit), and it can be used
+ * wherever a Ball is used.
+ *
+ * @author Ori Dabush
+ */
+public class FixedBall extends Ball {
+    private long x;
+    private long y;
+    // The location of the ball before its last step.
+    private long previousX;
+    private long previousY;
+    private long dx;
+    private long dy;
+    // A reusable object for the fixed-point collision queries of the ball.
+    private CollisionInfo fixedCollision;
+
+    /**
+     * A constructor that creates a ball from a center point, radius and color.
+     *
+     * @param center the center point (rounded to the closest fixed-point values).
+     * @param r      the radius.
+     * @param color  the color of the ball.
+     */
+    public FixedBall(Point center, int r, Color color) {
+        super(center, r, color);
+        this.x = Fixed.fromDouble(center.getX());
+        this.y = Fixed.fromDouble(center.getY());
+        this.previousX = this.x;
+        this.previousY = this.y;
+        this.dx = 0;
+        this.dy = 0;
+        this.fixedCollision = new CollisionInfo();
+        this.fixedCollision.setFixedPoint(true);
+    }
+
+    @Override
+    public int getX() {
+        return (int) Fixed.toDouble(this.x);
+    }
+
+    @Override
+    public int getY() {
+        return (int) Fixed.toDouble(this.y);
+    }
+
+    @Override
+    public void setVelocity(Velocity v) {
+        this.setVelocity(v.getDx(), v.getDy());
+    }
+
+    @Override
+    public void setVelocity(double newDx, double newDy) {
+        this.dx = Fixed.fromDouble(newDx);
+        this.dy = Fixed.fromDouble(newDy);
+        // The velocity of the ball is changed in place, since it is set after every bounce and on every restore.
+        this.getVelocity().set(Fixed.toDouble(this.dx), Fixed.toDouble(this.dy));
+    }
+
+    @Override
+    public void saveState(double[] state, int offset) {
+        // The fixed-point values are converted to doubles exactly.
+        state[offset] = Fixed.toDouble(this.x);
+        state[offset + 1] = Fixed.toDouble(this.y);
+        state[offset + 2] = Fixed.toDouble(this.previousX);
+        state[offset + 3] = Fixed.toDouble(this.previousY);
+        state[offset + 4] = Fixed.toDouble(this.dx);
+        state[offset + 5] = Fixed.toDouble(this.dy);
+    }
+
+    @Override
+    public void loadState(double[] state, int offset) {
+        this.x = Fixed.fromDouble(state[offset]);
+        this.y = Fixed.fromDouble(state[offset + 1]);
+        this.previousX = Fixed.fromDouble(state[offset + 2]);
+        this.previousY = Fixed.fromDouble(state[offset + 3]);
+        this.setVelocity(state[offset + 4], state[offset + 5]);
+    }
+
+    @Override
+    public void moveOneStep() {
+        this.findCollision(Fixed.ONE);
+        this.applyStep();
+    }
+
+    /**
+     * A method to find the first collision of the ball in a part of its next step, without changing anything.
+     *
+     * @param time the part of the step, as a fixed-point value (Fixed.ONE for the whole step).
+     */
+    private void findCollision(long time) {
+        this.getEnv().getClosestCollision(Fixed.toDouble(this.x), Fixed.toDouble(this.y),
+                Fixed.toDouble(this.x + Fixed.multiply(this.dx, time)),
+                Fixed.toDouble(this.y + Fixed.multiply(this.dy, time)), this.getSize(), this.fixedCollision);
+    }
+
+    /**
+     * A method to move the ball by the collision that was found by findCollision(Fixed.ONE), and by the collisions
+     * after it in the rest of the step.
+     */
+    private void applyStep() {
+        this.previousX = this.x;
+        this.previousY = this.y;
+        long time = Fixed.ONE;
+        for (int i = 1; this.fixedCollision.collisionObject() != null; i++) {
+            // moving the ball to the collision (the parameter of a fixed-point query is a fixed-point value), and
+            // changing its velocity.
+            long t = Fixed.fromDouble(this.fixedCollision.getHit().getParameter());
+            this.x += Fixed.multiply(Fixed.multiply(this.dx, time), t);
+            this.y += Fixed.multiply(Fixed.multiply(this.dy, time), t);
+            Velocity v = this.getVelocity();
+            this.fixedCollision.collisionObject().hit(this, this.fixedCollision, v);
+            this.setVelocity(v.getDx(), v.getDy());
+            time = Fixed.multiply(time, Fixed.ONE - t);
+            if (i == MAX_COLLISIONS_PER_STEP || time <= 0) {
+                return;
+            }
+            this.findCollision(time);
+        }
+        this.x += Fixed.multiply(this.dx, time);
+        this.y += Fixed.multiply(this.dy, time);
+    }
+
+    @Override
+    public void drawOn(DrawSurface surface, double alpha) {
+        double currentX = Fixed.toDouble(this.x), currentY = Fixed.toDouble(this.y);
+        double startX = Fixed.toDouble(this.previousX), startY = Fixed.toDouble(this.previousY);
+        surface.setColor(this.getColor());
+        surface.fillCircle((int) (startX + (currentX - startX) * alpha), (int) (startY + (currentY - startY) * alpha),
+                this.getSize());
+    }
+
+    @Override
+    public void prepareTimePassed() {
+        this.findCollision(Fixed.ONE);
+    }
+
+    @Override
+    public void prepareTimePassed(CollisionBatch batch) {
+        batch.add(Fixed.toDouble(this.x), Fixed.toDouble(this.y),
+                Fixed.toDouble(this.x + Fixed.multiply(this.dx, Fixed.ONE)),
+                Fixed.toDouble(this.y + Fixed.multiply(this.dy, Fixed.ONE)), this.getSize(), this.fixedCollision);
+    }
+
+    @Override
+    public void applyTimePassed() {
+        this.applyStep();
+    }
+}
@@ -0,0 +1,24 @@
+// ID - 212945760
+
+package game.objects;
+
+import biuoop.DrawSurface;
+
+/**
+ * The InterpolatedSprite interface, which will be implemented by sprites that move. Such a sprite remembers where it
+ * was before the last time that timePassed was called, so it can be drawn anywhere between the previous state and
+ * the current one - the game's frames don't have to be drawn exactly when the sprites move.
+ *
+ * @author Ori Dabush
+ */
+public interface InterpolatedSprite extends Sprite {
+
+    /**
+     * A method to draw the sprite to the screen, in a state between its previous state and its current state.
+     *
+     * @param d     the given DrawSurface.
+     * @param alpha the part of the way from the previous state to the current state (0 is the previous state, 1 is
+     *              the current state, which is what drawOn(d) draws).
+     */
+    void drawOn(DrawSurface d, double alpha);
+}
@@ -3,9 +3,10 @@
 package game.objects;
 
 import biuoop.DrawSurface;
-import biuoop.KeyboardSensor;
+import game.events.CollisionInfo;
 import game.operation.Game;
-import geometry.Line;
+import game.operation.InputSource;
+import game.operation.TickKeyboard;
 import geometry.Point;
 import geometry.Rectangle;
 import geometry.Velocity;
@@ -17,51 +18,132 @@ import java.awt.Color;
  *
  * @author Ori Dabush
  */
-public class Paddle implements Sprite, Collidable {
+public class Paddle implements InterpolatedSprite, Collidable {
+
+    /**
+     * The number of values in the state of a paddle (see saveState).
+     */
+    public static final int STATE_SIZE = 2;
+
     private Rectangle rectangle;
     private Rectangle drawnRectangle;
     private Color color;
-    private KeyboardSensor keyboard;
+    // The actions of the current tick, and the position of the actions of the paddle's player in their mask.
+    private TickKeyboard keyboard;
+    private int actionShift;
+    // The number of pixels the paddle moves in a single step, and the lane that the paddle moves in.
+    private double speed;
+    private double minX;
+    private double maxX;
+    // The x value of the paddle before its last step.
+    private double previousX;
 
     /**
-     * A constructor for the game_objects.Paddle class.
+     * A constructor for the game_objects.Paddle class, which creates a paddle that moves in the game's default speed.
      *
      * @param r the paddle's rectangle.
      * @param c the paddle's color.
-     * @param k the keyboard sensor for the paddle.
+     * @param k the keyboard of the game's ticks, which the paddle reads its actions from.
+     */
+    public Paddle(Rectangle r, Color c, TickKeyboard k) {
+        this(r, c, k, Game.PADDLE_SPEED);
+    }
+
+    /**
+     * A constructor for the game_objects.Paddle class.
+     *
+     * @param r     the paddle's rectangle.
+     * @param c     the paddle's color.
+     * @param k     the keyboard of the game's ticks, which the paddle reads its actions from.
+     * @param speed the number of pixels the paddle moves in a single step.
      */
-    public Paddle(Rectangle r, Color c, KeyboardSensor k) {
+    public Paddle(Rectangle r, Color c, TickKeyboard k, double speed) {
+        this(r, c, k, speed, 0);
+    }
+
+    /**
+     * A constructor for the game_objects.Paddle class, which creates the paddle of a player of a game of several
+     * players. It moves between the side borders, until it is given a lane (see setLane).
+     *
+     * @param r      the paddle's rectangle.
+     * @param c      the paddle's color.
+     * @param k      the keyboard of the game's ticks, which the paddle reads its actions from.
+     * @param speed  the number of pixels the paddle moves in a single step.
+     * @param player the index of the paddle's player (see InputSource.PLAYER_BITS).
+     */
+    public Paddle(Rectangle r, Color c, TickKeyboard k, double speed, int player) {
         this.rectangle = new Rectangle(r.getUpperLeft(), r.getWidth(), 0);
         this.drawnRectangle = new Rectangle(r);
         this.color = c;
         this.keyboard = k;
+        this.actionShift = player * InputSource.PLAYER_BITS;
+        this.speed = speed;
+        this.minX = Game.SIDE_BORDER_SIZE;
+        this.maxX = Game.WIDTH - Game.SIDE_BORDER_SIZE;
+        this.previousX = r.getX();
+    }
+
+    /**
+     * A method to set the lane of the paddle - the range of x values that it moves in.
+     *
+     * @param min the x value of the left end of the lane.
+     * @param max the x value of the right end of the lane.
+     */
+    public void setLane(double min, double max) {
+        this.minX = min;
+        this.maxX = max;
     }
 
     /**
-     * A method to check if the left arrow is pressed and move the paddle left if it is pressed.
+     * A method to check if the action of the tick moves the paddle left and move the paddle left if it does.
      */
     public void moveLeft() {
-        if (this.keyboard.isPressed(KeyboardSensor.LEFT_KEY)
-                && Game.SIDE_BORDER_SIZE < this.rectangle.getUpperLeft().getX()) {
-            this.rectangle.moveRectangleHorizontal(-Game.PADDLE_SPEED);
-            this.drawnRectangle.moveRectangleHorizontal(-Game.PADDLE_SPEED);
+        if (((this.keyboard.getMask() >>> this.actionShift) & InputSource.LEFT) != 0
+                && this.minX < this.rectangle.getX()) {
+            this.rectangle.moveRectangleHorizontal(-this.speed);
+            this.drawnRectangle.moveRectangleHorizontal(-this.speed);
         }
     }
 
     /**
-     * A method to check if the right arrow is pressed and move the paddle right if it is pressed.
+     * A method to check if the action of the tick moves the paddle right and move the paddle right if it does.
      */
     public void moveRight() {
-        if (this.keyboard.isPressed(KeyboardSensor.RIGHT_KEY)
-                && this.rectangle.getUpperLeft().getX() + this.rectangle.getWidth()
-                < Game.WIDTH - Game.SIDE_BORDER_SIZE) {
-            this.rectangle.moveRectangleHorizontal(Game.PADDLE_SPEED);
-            this.drawnRectangle.moveRectangleHorizontal(Game.PADDLE_SPEED);
+        if (((this.keyboard.getMask() >>> this.actionShift) & InputSource.RIGHT) != 0
+                && this.rectangle.getX() + this.rectangle.getWidth() < this.maxX) {
+            this.rectangle.moveRectangleHorizontal(this.speed);
+            this.drawnRectangle.moveRectangleHorizontal(this.speed);
         }
     }
 
+    /**
+     * A method to save the state of the paddle that changes while it moves - its x value and its x value before its
+     * last step.
+     *
+     * @param state  the array to save the state to.
+     * @param offset the index of the first value of the state in the array (STATE_SIZE values are saved).
+     */
+    public void saveState(double[] state, int offset) {
+        state[offset] = this.drawnRectangle.getX();
+        state[offset + 1] = this.previousX;
+    }
+
+    /**
+     * A method to load a state of the paddle that was saved by saveState.
+     *
+     * @param state  the array to load the state from.
+     * @param offset the index of the first value of the state in the array.
+     */
+    public void loadState(double[] state, int offset) {
+        Rectangle r = this.rectangle, drawn = this.drawnRectangle;
+        r.set(state[offset], r.getY(), r.getWidth(), r.getHeight());
+        drawn.set(state[offset], drawn.getY(), drawn.getWidth(), drawn.getHeight());
+        this.previousX = state[offset + 1];
+    }
+
     @Override
     public void timePassed() {
+        this.previousX = this.drawnRectangle.getX();
         this.moveLeft();
         this.moveRight();
     }
@@ -70,10 +152,18 @@ public class Paddle implements Sprite, Collidable {
     public void drawOn(DrawSurface d) {
         d.setColor(this.color);
         Rectangle r = this.drawnRectangle;
-        d.fillRectangle((int) r.getUpperLeft().getX(), (int) r.getUpperLeft().getY(),
+        d.fillRectangle((int) r.getX(), (int) r.getY(),
                 (int) r.getWidth(), (int) r.getHeight());
     }
 
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        d.setColor(this.color);
+        Rectangle r = this.drawnRectangle;
+        double x = this.previousX + (r.getX() - this.previousX) * alpha;
+        d.fillRectangle((int) x, (int) r.getY(), (int) r.getWidth(), (int) r.getHeight());
+    }
+
     @Override
     public Rectangle getCollisionRectangle() {
         return this.rectangle;
@@ -82,44 +172,52 @@ public class Paddle implements Sprite, Collidable {
     /**
      * A method to find the region of the collision point with the paddle.
      *
-     * @param p the collision point.
+     * @param x the x value of the collision point.
      * @return the number of the region (1 to 5).
      */
-    private int findRegion(Point p) {
-        int difference = (int) (p.getX() - this.rectangle.getUpperLeft().getX());
+    private int findRegion(double x) {
+        int difference = (int) (x - this.rectangle.getX());
         int widthOfRegion = (int) this.rectangle.getWidth() / Game.REGIONS;
-        return (difference / widthOfRegion) + 1;
+        // A collision on the right end of the paddle is in the last region.
+        return Math.min(Game.REGIONS, (difference / widthOfRegion) + 1);
     }
 
     @Override
     public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
-        Point beforeCollision = new Point(collisionPoint.getX() - currentVelocity.getDx(),
-                collisionPoint.getY() - currentVelocity.getDy());
-        Line trajectory = new Line(beforeCollision, collisionPoint);
-        Point exactIntersectionPoint = trajectory.closestIntersectionToStartOfLine(this.rectangle);
-        double speed =
-                Math.sqrt(Math.pow(currentVelocity.getDx(), 2) + Math.pow(currentVelocity.getDy(), 2));
+        // Finding the exact collision using the trajectory that ends in the collision point.
+        CollisionInfo info = new CollisionInfo();
+        if (!this.rectangle.intersectSegment(collisionPoint.getX() - currentVelocity.getDx(),
+                collisionPoint.getY() - currentVelocity.getDy(), collisionPoint.getX(), collisionPoint.getY(),
+                info.getHit())) {
+            return currentVelocity;
+        }
+        Velocity newVelocity = new Velocity(currentVelocity);
+        this.hit(hitter, info, newVelocity);
+        return newVelocity;
+    }
+
+    @Override
+    public void hit(Ball hitter, CollisionInfo info, Velocity velocity) {
+        double ballSpeed = Math.sqrt(velocity.getDx() * velocity.getDx() + velocity.getDy() * velocity.getDy());
         // Finding the collision point region.
-        int region = findRegion(exactIntersectionPoint);
+        int region = findRegion(info.getHit().getX());
         if (region == 1) {
-            currentVelocity = Velocity.fromAngleAndSpeed(300, speed);
+            velocity.setFromAngleAndSpeed(300, ballSpeed);
         } else if (region == 2) {
-            currentVelocity = Velocity.fromAngleAndSpeed(330, speed);
+            velocity.setFromAngleAndSpeed(330, ballSpeed);
         } else if (region == 3) {
-            currentVelocity = new Velocity(currentVelocity.getDx(), -currentVelocity.getDy());
+            velocity.set(velocity.getDx(), -velocity.getDy());
         } else if (region == 4) {
-            currentVelocity = Velocity.fromAngleAndSpeed(30, speed);
-
+            velocity.setFromAngleAndSpeed(30, ballSpeed);
         } else if (region == 5) {
-            currentVelocity = Velocity.fromAngleAndSpeed(60, speed);
+            velocity.setFromAngleAndSpeed(60, ballSpeed);
         }
-        return currentVelocity;
     }
 
 
     @Override
     public void addToGame(Game g) {
-        g.addCollidable(this);
+        g.addMovingCollidable(this);
         g.addSprite(this);
     }
 }
\ No newline at end of file
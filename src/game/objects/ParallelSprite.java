@@ -0,0 +1,26 @@
+// ID - 212945760
+
+package game.objects;
+
+/**
+ * The ParallelSprite interface, which will be implemented by sprites whose timePassed can be split into two parts -
+ * a part that only reads the state of the game (so it can run in parallel with the same part of other sprites), and
+ * a part that changes the state of the game (which runs on the game's thread, one sprite at a time).
+ * Calling prepareTimePassed and then applyTimePassed should be the same as calling timePassed.
+ *
+ * @author Ori Dabush
+ */
+public interface ParallelSprite extends Sprite {
+
+    /**
+     * A method to do the part of timePassed that only reads the state of the game (and the sprite's own state).
+     * It may run on any thread, in parallel with the prepareTimePassed of other sprites.
+     */
+    void prepareTimePassed();
+
+    /**
+     * A method to do the part of timePassed that changes the state of the game, using the result of the last call
+     * to prepareTimePassed. It runs on the game's thread.
+     */
+    void applyTimePassed();
+}
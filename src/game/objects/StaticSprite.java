@@ -0,0 +1,34 @@
+// ID - 212945760
+
+package game.objects;
+
+import biuoop.DrawSurface;
+import geometry.Rectangle;
+
+/**
+ * The StaticSprite interface, which will be implemented by sprites that look the same in every frame while they
+ * are in the game (like the blocks). Such sprites are drawn once into the game's background layer, instead of being
+ * drawn again in every frame.
+ *
+ * @author Ori Dabush
+ */
+public interface StaticSprite extends Sprite {
+
+    /**
+     * A method to get the area that the sprite draws on.
+     *
+     * @return a rectangle that contains everything that the sprite draws (not including the right and bottom edges of
+     * an outline, which are one pixel outside of it).
+     */
+    Rectangle getDrawnArea();
+
+    /**
+     * A method to draw the parts of the sprite that are in a given area (a sprite that covers a large area, like a
+     * BrickField, doesn't have to draw all of it when only a small area changed). Drawing more than the area is
+     * allowed.
+     *
+     * @param d    the DrawSurface to draw on.
+     * @param area the area.
+     */
+    void drawAreaOn(DrawSurface d, Rectangle area);
+}
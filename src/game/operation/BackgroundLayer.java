@@ -0,0 +1,177 @@
+// ID - 212945760
+
+package game.operation;
+
+import biuoop.DrawSurface;
+import game.events.SpriteCollection;
+import geometry.Rectangle;
+
+import java.awt.Color;
+
+/**
+ * The BackgroundLayer class, an offscreen image of the parts of the game that don't change between frames - the
+ * background and the static sprites (see StaticSprite). The image is drawn to the screen in every frame instead of
+ * drawing all of them again, and only the areas that changed (where a static sprite was added or removed) are
+ * drawn into it again. The image is opaque (it is faster to draw than a transparent one), so the parts of the window
+ * that nothing else is drawn on have the SCREEN_COLOR. A layer can also be drawn from recordings of the static
+ * sprites (see redraw), when it is drawn on another thread than the sprites are changed on (see Renderer) - a
+ * recording of all of them, or of the ones in the area that changed.
+ *
+ * @author Ori Dabush
+ */
+public class BackgroundLayer {
+
+    /**
+     * The color of the window where nothing is drawn (the default color of a Swing window).
+     */
+    public static final Color SCREEN_COLOR = new Color(238, 238, 238);
+
+    private ImageDrawSurface surface;
+    private SpriteCollection sprites;
+    // False if the whole image has to be drawn again.
+    private boolean valid;
+    // The area of the image that has to be drawn again (if dirty is true).
+    private boolean dirty;
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+    // A reusable rectangle for the pixels of a changed area.
+    private Rectangle pixels;
+
+    /**
+     * A constructor for the BackgroundLayer class.
+     *
+     * @param width   the width of the layer.
+     * @param height  the height of the layer.
+     * @param sprites the sprites of the game (the static ones are drawn into the layer).
+     */
+    public BackgroundLayer(int width, int height, SpriteCollection sprites) {
+        this.surface = new ImageDrawSurface(width, height);
+        this.sprites = sprites;
+        this.valid = false;
+        this.dirty = false;
+        this.pixels = new Rectangle(0, 0, 0, 0);
+    }
+
+    /**
+     * A method to get the pixels of the layer that an area of static sprites covers.
+     *
+     * @param area the area.
+     * @param out  the rectangle to set to the pixels (whole numbers).
+     */
+    static void pixelArea(Rectangle area, Rectangle out) {
+        // The outline of a sprite is drawn one pixel after the right and bottom edges of its area.
+        double minX = Math.floor(area.getX());
+        double minY = Math.floor(area.getY());
+        double maxX = Math.ceil(area.getX() + area.getWidth()) + 1;
+        double maxY = Math.ceil(area.getY() + area.getHeight()) + 1;
+        out.set(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * A constructor for the BackgroundLayer class, for a layer that is drawn from recordings of the static sprites
+     * only (see redraw). Until it is redrawn, the layer has only the background.
+     *
+     * @param width  the width of the layer.
+     * @param height the height of the layer.
+     */
+    public BackgroundLayer(int width, int height) {
+        this(width, height, null);
+    }
+
+    /**
+     * A method to draw the whole layer again, with the static sprites from a recording of their drawing.
+     *
+     * @param staticSprites the recording of the static sprites.
+     */
+    public void redraw(DrawRecording staticSprites) {
+        this.repaint(0, 0, this.surface.getWidth(), this.surface.getHeight());
+        staticSprites.replayOn(this.surface);
+        this.valid = true;
+        this.dirty = false;
+    }
+
+    /**
+     * A method to draw an area of the layer again, with the static sprites from a recording of their drawing in this
+     * area (the rest of the recording is clipped).
+     *
+     * @param staticSprites the recording of the static sprites in the area.
+     * @param area          the area, in whole pixels (see pixelArea).
+     */
+    public void redraw(DrawRecording staticSprites, Rectangle area) {
+        this.repaint((int) area.getX(), (int) area.getY(), (int) area.getWidth(),
+                (int) area.getHeight());
+        staticSprites.replayOn(this.surface);
+    }
+
+    /**
+     * A method to mark the whole layer as changed.
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * A method to mark an area of the layer as changed (where a static sprite was added or removed).
+     *
+     * @param area the area.
+     */
+    public void invalidate(Rectangle area) {
+        if (!this.valid) {
+            return;
+        }
+        pixelArea(area, this.pixels);
+        int minX = (int) this.pixels.getX(), minY = (int) this.pixels.getY();
+        int maxX = minX + (int) this.pixels.getWidth(), maxY = minY + (int) this.pixels.getHeight();
+        if (!this.dirty) {
+            this.dirty = true;
+            this.dirtyMinX = minX;
+            this.dirtyMinY = minY;
+            this.dirtyMaxX = maxX;
+            this.dirtyMaxY = maxY;
+        } else {
+            this.dirtyMinX = Math.min(this.dirtyMinX, minX);
+            this.dirtyMinY = Math.min(this.dirtyMinY, minY);
+            this.dirtyMaxX = Math.max(this.dirtyMaxX, maxX);
+            this.dirtyMaxY = Math.max(this.dirtyMaxY, maxY);
+        }
+    }
+
+    /**
+     * A method to draw the layer using a given DrawSurface, after drawing the areas that changed into it.
+     *
+     * @param d the given DrawSurface.
+     */
+    public void drawOn(DrawSurface d) {
+        if (!this.valid) {
+            this.repaint(0, 0, this.surface.getWidth(), this.surface.getHeight());
+            this.valid = true;
+            this.dirty = false;
+        } else if (this.dirty) {
+            this.repaint(this.dirtyMinX, this.dirtyMinY, this.dirtyMaxX - this.dirtyMinX,
+                    this.dirtyMaxY - this.dirtyMinY);
+            this.dirty = false;
+        }
+        d.drawImage(0, 0, this.surface.getImage());
+    }
+
+    /**
+     * A method to draw an area of the layer again - the background and the static sprites in this area (if the
+     * layer has the sprites).
+     *
+     * @param x the x value of the upper-left corner of the area.
+     * @param y the y value of the upper-left corner of the area.
+     * @param w the width of the area.
+     * @param h the height of the area.
+     */
+    private void repaint(int x, int y, int w, int h) {
+        this.surface.clip(x, y, w, h);
+        this.surface.setColor(SCREEN_COLOR);
+        this.surface.fillRectangle(x, y, w, h);
+        Game.colorBackground(this.surface);
+        if (this.sprites != null) {
+            this.sprites.drawStaticOn(this.surface, new Rectangle(x, y, w, h));
+        }
+    }
+}
@@ -0,0 +1,281 @@
+// ID - 212945760
+
+package game.operation;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.Arrays;
+
+/**
+ * The DrawRecording class, a DrawSurface that records the drawing commands instead of drawing them, so they can be
+ * drawn later (and on another thread) using replayOn. The commands are stored in arrays that are reused after
+ * clear, so recording a frame doesn't create new objects once the arrays are large enough. Colors, texts and images
+ * are stored by reference (polygons are copied, since they can be changed).
+ *
+ * @author Ori Dabush
+ */
+public class DrawRecording implements DrawSurface {
+    // The codes of the commands.
+    private static final int SET_COLOR = 0;
+    private static final int DRAW_LINE = 1;
+    private static final int DRAW_OVAL = 2;
+    private static final int FILL_OVAL = 3;
+    private static final int DRAW_RECTANGLE = 4;
+    private static final int FILL_RECTANGLE = 5;
+    private static final int DRAW_IMAGE = 6;
+    private static final int DRAW_CIRCLE = 7;
+    private static final int FILL_CIRCLE = 8;
+    private static final int DRAW_TEXT = 9;
+    private static final int DRAW_POLYGON = 10;
+    private static final int FILL_POLYGON = 11;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int width;
+    private int height;
+    // The codes of the commands, in the order they were recorded.
+    private int[] commands;
+    private int commandCount;
+    // The int arguments of all the commands, one after the other.
+    private int[] arguments;
+    private int argumentCount;
+    // The object arguments (colors, texts, images and polygons) of all the commands, one after the other.
+    private Object[] objects;
+    private int objectCount;
+
+    /**
+     * A constructor for the DrawRecording class.
+     *
+     * @param width  the width of the surface that the commands will be drawn on.
+     * @param height the height of the surface that the commands will be drawn on.
+     */
+    public DrawRecording(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.commands = new int[INITIAL_CAPACITY];
+        this.arguments = new int[4 * INITIAL_CAPACITY];
+        this.objects = new Object[INITIAL_CAPACITY];
+        this.clear();
+    }
+
+    /**
+     * A method to remove all the recorded commands.
+     */
+    public void clear() {
+        this.commandCount = 0;
+        this.argumentCount = 0;
+        // Removing the references, so the recording doesn't keep old objects alive.
+        Arrays.fill(this.objects, 0, this.objectCount, null);
+        this.objectCount = 0;
+    }
+
+    /**
+     * A method to check if there are no recorded commands.
+     *
+     * @return true if there are no recorded commands, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.commandCount == 0;
+    }
+
+    /**
+     * A method to draw all the recorded commands using a given DrawSurface, in the order they were recorded.
+     *
+     * @param d the given DrawSurface.
+     */
+    public void replayOn(DrawSurface d) {
+        int[] a = this.arguments;
+        int next = 0, nextObject = 0;
+        for (int i = 0; i < this.commandCount; i++) {
+            switch (this.commands[i]) {
+                case SET_COLOR:
+                    d.setColor((Color) this.objects[nextObject++]);
+                    break;
+                case DRAW_LINE:
+                    d.drawLine(a[next], a[next + 1], a[next + 2], a[next + 3]);
+                    next += 4;
+                    break;
+                case DRAW_OVAL:
+                    d.drawOval(a[next], a[next + 1], a[next + 2], a[next + 3]);
+                    next += 4;
+                    break;
+                case FILL_OVAL:
+                    d.fillOval(a[next], a[next + 1], a[next + 2], a[next + 3]);
+                    next += 4;
+                    break;
+                case DRAW_RECTANGLE:
+                    d.drawRectangle(a[next], a[next + 1], a[next + 2], a[next + 3]);
+                    next += 4;
+                    break;
+                case FILL_RECTANGLE:
+                    d.fillRectangle(a[next], a[next + 1], a[next + 2], a[next + 3]);
+                    next += 4;
+                    break;
+                case DRAW_IMAGE:
+                    d.drawImage(a[next], a[next + 1], (Image) this.objects[nextObject++]);
+                    next += 2;
+                    break;
+                case DRAW_CIRCLE:
+                    d.drawCircle(a[next], a[next + 1], a[next + 2]);
+                    next += 3;
+                    break;
+                case FILL_CIRCLE:
+                    d.fillCircle(a[next], a[next + 1], a[next + 2]);
+                    next += 3;
+                    break;
+                case DRAW_TEXT:
+                    d.drawText(a[next], a[next + 1], (String) this.objects[nextObject++], a[next + 2]);
+                    next += 3;
+                    break;
+                case DRAW_POLYGON:
+                    d.drawPolygon((Polygon) this.objects[nextObject++]);
+                    break;
+                case FILL_POLYGON:
+                    d.fillPolygon((Polygon) this.objects[nextObject++]);
+                    break;
+                default:
+                    throw new RuntimeException("unknown drawing command!");
+            }
+        }
+    }
+
+    /**
+     * A method to record a command, and make room for its int arguments.
+     *
+     * @param command the code of the command.
+     * @param size    the number of int arguments of the command.
+     */
+    private void addCommand(int command, int size) {
+        if (this.commandCount == this.commands.length) {
+            this.commands = Arrays.copyOf(this.commands, 2 * this.commands.length);
+        }
+        this.commands[this.commandCount++] = command;
+        if (this.argumentCount + size > this.arguments.length) {
+            this.arguments = Arrays.copyOf(this.arguments, 2 * this.arguments.length);
+        }
+    }
+
+    /**
+     * A method to record a command with 4 int arguments.
+     *
+     * @param command the code of the command.
+     * @param a1      the first argument.
+     * @param a2      the second argument.
+     * @param a3      the third argument.
+     * @param a4      the fourth argument.
+     */
+    private void add(int command, int a1, int a2, int a3, int a4) {
+        this.addCommand(command, 4);
+        this.arguments[this.argumentCount++] = a1;
+        this.arguments[this.argumentCount++] = a2;
+        this.arguments[this.argumentCount++] = a3;
+        this.arguments[this.argumentCount++] = a4;
+    }
+
+    /**
+     * A method to record a command with 3 int arguments.
+     *
+     * @param command the code of the command.
+     * @param a1      the first argument.
+     * @param a2      the second argument.
+     * @param a3      the third argument.
+     */
+    private void add(int command, int a1, int a2, int a3) {
+        this.addCommand(command, 3);
+        this.arguments[this.argumentCount++] = a1;
+        this.arguments[this.argumentCount++] = a2;
+        this.arguments[this.argumentCount++] = a3;
+    }
+
+    /**
+     * A method to record the object argument of the last command.
+     *
+     * @param o the object.
+     */
+    private void addObject(Object o) {
+        if (this.objectCount == this.objects.length) {
+            this.objects = Arrays.copyOf(this.objects, 2 * this.objects.length);
+        }
+        this.objects[this.objectCount++] = o;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        this.addCommand(SET_COLOR, 0);
+        this.addObject(color);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.add(DRAW_LINE, x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        this.add(DRAW_OVAL, x, y, w, h);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        this.add(FILL_OVAL, x, y, w, h);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        this.add(DRAW_RECTANGLE, x, y, w, h);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        this.add(FILL_RECTANGLE, x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        this.addCommand(DRAW_IMAGE, 2);
+        this.arguments[this.argumentCount++] = x;
+        this.arguments[this.argumentCount++] = y;
+        this.addObject(image);
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        this.add(DRAW_CIRCLE, x, y, r);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        this.add(FILL_CIRCLE, x, y, r);
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        this.add(DRAW_TEXT, x, y, fontSize);
+        this.addObject(s);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        this.addCommand(DRAW_POLYGON, 0);
+        this.addObject(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        this.addCommand(FILL_POLYGON, 0);
+        this.addObject(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+}
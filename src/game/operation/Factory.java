@@ -3,19 +3,21 @@
 package game.operation;
 
 import extras.Counter;
+import game.events.BrickField;
+import game.events.TileMap;
 import game.listeners.BallRemover;
 import game.listeners.BlockRemover;
 import game.events.ScoreIndicator;
 import game.listeners.ScoreTrackingListener;
 import game.objects.Ball;
 import game.objects.Block;
+import game.objects.FixedBall;
 import game.objects.Paddle;
 import geometry.Point;
 import geometry.Rectangle;
 import geometry.Velocity;
 
 import java.awt.Color;
-import java.util.Random;
 
 /**
  * The gameOperation.Factory class, which will be used to create the game's elements and add them to the game.
@@ -44,27 +46,99 @@ public class Factory {
      * @param c         the paddle's color.
      */
     public void createPaddle(Point upperLeft, int width, int height, Color c) {
+        this.createPaddle(upperLeft, width, height, c, Game.PADDLE_SPEED);
+    }
+
+    /**
+     * A method to create a paddle with a given speed and add it to the game, as the paddle of the next player.
+     *
+     * @param upperLeft the paddle's upper-left point.
+     * @param width     the paddle's width.
+     * @param height    the paddle's height.
+     * @param c         the paddle's color.
+     * @param speed     the paddle's speed, in pixels per 1/60 of a second.
+     * @return the paddle.
+     */
+    public Paddle createPaddle(Point upperLeft, int width, int height, Color c, double speed) {
         Rectangle r = new Rectangle(upperLeft, width, height);
-        Paddle p = new Paddle(r, c, this.game.getKeyboardSensor());
+        Paddle p = new Paddle(r, c, this.game.getKeyboardSensor(), this.game.speedPerStep(speed),
+                this.game.getPaddleCount());
         p.addToGame(this.game);
+        this.game.addPaddle(p);
+        return p;
     }
 
     /**
-     * A method to create a ball and add it to the game.
+     * A method to create the paddles of the players of the game. With one player, it is the paddle of the level.
+     * Otherwise, the space between the side borders is split into equal lanes, and every player gets a paddle in the
+     * middle of a lane (as wide as the paddle of the level, or as the lane if it is narrower), which moves only in
+     * its lane.
+     *
+     * @param level the level.
+     */
+    private void createPaddles(LevelFile level) {
+        Rectangle paddle = level.getPaddle();
+        int players = this.game.getPlayers();
+        if (players == 1) {
+            this.createPaddle(paddle.getUpperLeft(), (int) paddle.getWidth(), (int) paddle.getHeight(),
+                    level.getPaddleColor(), level.getPaddleSpeed());
+            return;
+        }
+        double lane = (Game.WIDTH - 2.0 * Game.SIDE_BORDER_SIZE) / players;
+        int width = (int) Math.min(paddle.getWidth(), lane);
+        for (int i = 0; i < players; i++) {
+            double left = Game.SIDE_BORDER_SIZE + i * lane;
+            Point upperLeft = new Point(left + (lane - width) / 2, paddle.getY());
+            this.createPaddle(upperLeft, width, (int) paddle.getHeight(), level.getPaddleColor(),
+                    level.getPaddleSpeed()).setLane(left, left + lane);
+        }
+    }
+
+    /**
+     * A method to create the objects of a level (see LevelFile) and add them to the game - the paddles, the balls,
+     * the walls, the death block in the bottom of the screen and the bricks. The objects are built straight from the
+     * bytes of the level, and the environment of the game gets a tile map of the level's grid first, so the walls
+     * and the blocks that fill a tile of the grid exactly are stored in it (see createTileMap).
+     *
+     * @param level the level.
+     * @param br    the BlockRemover of the game.
+     * @param bar   the BallRemover of the game.
+     * @param stl   the ScoreTrackingListener of the game.
+     */
+    public void createLevel(LevelFile level, BlockRemover br, BallRemover bar, ScoreTrackingListener stl) {
+        this.game.getEnvironment().setTileMap(this.createTileMap(level));
+        this.createPaddles(level);
+        for (int i = 0; i < level.getBallCount(); i++) {
+            this.createBall(level.getBallLocation(i), level.getBallRadius(i), level.getBallColor(i),
+                    level.getBallSpeed(i));
+        }
+        for (int i = 0; i < level.getWallCount(); i++) {
+            new Block(level.getWall(i), level.getWallColor(i)).addToGame(this.game);
+        }
+        this.createDeathBlocks(bar);
+        BrickField field = this.createBrickField(level, br, stl);
+        field.addToGame(this.game);
+        this.game.setBrickField(field);
+    }
+
+    /**
+     * A method to create a ball and add it to the game. Its direction is drawn from the game's random generator, so
+     * a game with a given seed always starts the same way.
      *
      * @param startLocation the ball's start location.
      * @param r             the ball's radius.
      * @param c             the ball's color.
-     * @param speed         the ball's speed (not velocity).
+     * @param speed         the ball's speed (not velocity), in pixels per 1/60 of a second.
      */
     public void createBall(Point startLocation, int r, Color c, double speed) {
-        Random rand = new Random();
         // Random angle between -45 to 45
-        int angle = rand.nextInt(91) - 45;
-        Ball ball = new Ball(startLocation, r, c);
-        ball.setVelocity(Velocity.fromAngleAndSpeed(angle, speed));
+        int angle = this.game.getRandom().nextInt(91) - 45;
+        Ball ball = this.game.isFixedPointPhysics() ? new FixedBall(startLocation, r, c)
+                : new Ball(startLocation, r, c);
+        ball.setVelocity(Velocity.fromAngleAndSpeed(angle, this.game.speedPerStep(speed)));
         ball.setEnv(this.game.getEnvironment());
         ball.addToGame(this.game);
+        this.game.addBall(ball);
         this.game.countBall();
     }
 
@@ -138,6 +212,54 @@ public class Factory {
         }
     }
 
+    /**
+     * A method to create the tile map of a level's grid, for the collidables that are aligned to it (the blocks of
+     * createBlock when the level has the default grid, or walls in the size of a brick).
+     *
+     * @param level the level.
+     * @return the tile map.
+     */
+    public TileMap createTileMap(LevelFile level) {
+        Rectangle grid = level.getGrid();
+        return new TileMap(grid.getX(), grid.getY(), level.getBrickWidth(), level.getBrickHeight(),
+                level.getColumns(), level.getRows());
+    }
+
+    /**
+     * A method to create the BrickField of a level, whose bricks are listened to by the given listeners. The bricks
+     * are counted by the BlockRemover, and the field should be added to the game.
+     *
+     * @param level the level.
+     * @param br    the BlockRemover of the game.
+     * @param stl   the ScoreTrackingListener of the game.
+     * @return the brick field.
+     */
+    public BrickField createBrickField(LevelFile level, BlockRemover br, ScoreTrackingListener stl) {
+        Rectangle grid = level.getGrid();
+        BrickField field = new BrickField(grid.getX(), grid.getY(),
+                level.getBrickWidth(), level.getBrickHeight(), level.getColumns(), level.getRows());
+        field.addHitListener(br);
+        field.addHitListener(stl);
+        // The indexes of the level's colors in the field's palette.
+        int[] colors = new int[level.getPaletteSize()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = field.addColor(level.getColor(i));
+        }
+        for (int row = 0; row < level.getRows(); row++) {
+            for (int col = 0; col < level.getColumns(); col++) {
+                int cell = level.getCell(col, row);
+                if (cell > colors.length) {
+                    throw new RuntimeException("a brick's color is not in the level's palette!");
+                }
+                if (cell != 0) {
+                    field.addBrick(col, row, colors[cell - 1]);
+                }
+            }
+        }
+        br.getRemainingBlocks().increase(field.getBrickCount());
+        return field;
+    }
+
     /**
      * Assuming that the screen is a block's array, with 15 blocks (indexes 0-14) in a line and 20 block in a column
      * (indexes 0-19), this is a method to create a column of blocks in the columnIndex column of the array,
@@ -0,0 +1,69 @@
+// ID - 212945760
+
+package game.operation;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The FrameBuffer class, a lock-free triple buffer of frames between a single writer thread (the simulation) and a
+ * single reader thread (the render thread). The writer records into its back frame and publishes it, and the reader
+ * takes the latest published frame. Each frame is owned by one thread at a time, and they are only exchanged through
+ * the middle frame, so neither thread ever waits for the other. If the writer publishes faster than the reader
+ * takes, the older frames are dropped.
+ *
+ * @author Ori Dabush
+ */
+public class FrameBuffer {
+    // The frame that the writer records into.
+    private FrameSnapshot back;
+    // The frame that is exchanged between the threads.
+    private AtomicReference<FrameSnapshot> middle;
+    // The frame that the reader draws.
+    private FrameSnapshot front;
+
+    /**
+     * A constructor for the FrameBuffer class.
+     *
+     * @param width  the width of the frames.
+     * @param height the height of the frames.
+     */
+    public FrameBuffer(int width, int height) {
+        this.back = new FrameSnapshot(width, height);
+        this.middle = new AtomicReference<FrameSnapshot>(new FrameSnapshot(width, height));
+        this.front = new FrameSnapshot(width, height);
+    }
+
+    /**
+     * A method to get the frame that the writer records into. It should be called by the writer thread only.
+     *
+     * @return the frame.
+     */
+    public FrameSnapshot getBack() {
+        return this.back;
+    }
+
+    /**
+     * A method to publish the frame that the writer recorded, and get another frame to record into (getBack). It
+     * should be called by the writer thread only.
+     */
+    public void publish() {
+        this.back.setFresh(true);
+        this.back = this.middle.getAndSet(this.back);
+    }
+
+    /**
+     * A method to take the latest published frame. It should be called by the reader thread only, and the frame
+     * stays valid until the next call.
+     *
+     * @return the latest published frame, or null if no frame was published since the last call.
+     */
+    public FrameSnapshot takeLatest() {
+        // Only the writer replaces the middle frame (with fresh frames), so it can't become stale after the check.
+        if (!this.middle.get().isFresh()) {
+            return null;
+        }
+        this.front.setFresh(false);
+        this.front = this.middle.getAndSet(this.front);
+        return this.front;
+    }
+}
@@ -0,0 +1,146 @@
+// ID - 212945760
+
+package game.operation;
+
+import geometry.Rectangle;
+
+/**
+ * The FrameSnapshot class, a frame of the game as it was recorded by the simulation thread, to be drawn by the
+ * render thread (see Renderer). It holds the drawing commands of the moving sprites (with their positions, colors
+ * and the score), and the drawing commands of the static sprites if the background layer has to be drawn again -
+ * of all of them, or only of the ones in the area that changed since a version of the background that the render
+ * thread already has (see setBackgroundChange).
+ *
+ * @author Ori Dabush
+ */
+public class FrameSnapshot {
+    private DrawRecording movingSprites;
+    private DrawRecording staticSprites;
+    // The version of the static sprites that were recorded, or -1 if they weren't recorded in this frame.
+    private long backgroundVersion;
+    // The version that the changed area is relative to, or -1 if all the static sprites were recorded.
+    private long baseVersion;
+    private Rectangle changedArea;
+    // True if the frame was published and not taken by the render thread yet (see FrameBuffer).
+    private boolean fresh;
+
+    /**
+     * A constructor for the FrameSnapshot class.
+     *
+     * @param width  the width of the frame.
+     * @param height the height of the frame.
+     */
+    public FrameSnapshot(int width, int height) {
+        this.movingSprites = new DrawRecording(width, height);
+        this.staticSprites = new DrawRecording(width, height);
+        this.backgroundVersion = -1;
+        this.baseVersion = -1;
+        this.changedArea = new Rectangle(0, 0, 0, 0);
+        this.fresh = false;
+    }
+
+    /**
+     * An access method to the recording of the moving sprites.
+     *
+     * @return the recording of the moving sprites.
+     */
+    public DrawRecording getMovingSprites() {
+        return this.movingSprites;
+    }
+
+    /**
+     * An access method to the recording of the static sprites, which is valid only if hasBackground is true.
+     *
+     * @return the recording of the static sprites.
+     */
+    public DrawRecording getStaticSprites() {
+        return this.staticSprites;
+    }
+
+    /**
+     * A method to set the version of the static sprites that were recorded in the frame (all of them).
+     *
+     * @param version the version, or -1 if the static sprites weren't recorded in this frame.
+     */
+    public void setBackgroundVersion(long version) {
+        this.backgroundVersion = version;
+        this.baseVersion = -1;
+    }
+
+    /**
+     * A method to set the version of the static sprites that were recorded in the frame, when only the ones in the
+     * changed area (see getChangedArea) were recorded. A background of the base version (or of a later one) gets
+     * the new version by drawing the changed area again.
+     *
+     * @param version the version of the static sprites.
+     * @param base    the version that all the changes since are in the changed area.
+     */
+    public void setBackgroundChange(long version, long base) {
+        this.backgroundVersion = version;
+        this.baseVersion = base;
+    }
+
+    /**
+     * A method to check if only the static sprites in the changed area were recorded in the frame.
+     *
+     * @return true if only the changed area was recorded, false if all the static sprites were (or none).
+     */
+    public boolean isBackgroundChange() {
+        return this.baseVersion >= 0;
+    }
+
+    /**
+     * An access method to the version that the changed area of the frame is relative to.
+     *
+     * @return the base version, or -1 if all the static sprites were recorded.
+     */
+    public long getBaseVersion() {
+        return this.baseVersion;
+    }
+
+    /**
+     * An access method to the area of the static sprites that changed since the base version, in whole pixels. The
+     * simulation thread sets it while it records the frame.
+     *
+     * @return the changed area.
+     */
+    public Rectangle getChangedArea() {
+        return this.changedArea;
+    }
+
+    /**
+     * An access method to the version of the static sprites that were recorded in the frame.
+     *
+     * @return the version, or -1 if the static sprites weren't recorded in this frame.
+     */
+    public long getBackgroundVersion() {
+        return this.backgroundVersion;
+    }
+
+    /**
+     * A method to check if the static sprites were recorded in the frame.
+     *
+     * @return true if they were recorded, false otherwise.
+     */
+    public boolean hasBackground() {
+        return this.backgroundVersion >= 0;
+    }
+
+    /**
+     * A method to mark if the frame was published and not taken yet.
+     *
+     * @param isFresh true if the frame was published and not taken yet, false otherwise.
+     */
+    void setFresh(boolean isFresh) {
+        this.fresh = isFresh;
+    }
+
+    /**
+     * A method to check if the frame was published and not taken yet.
+     *
+     * @return true if the frame was published and not taken yet, false otherwise.
+     */
+    boolean isFresh() {
+        return this.fresh;
+    }
+}
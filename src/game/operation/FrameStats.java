@@ -0,0 +1,190 @@
+// ID - 212945760
+
+package game.operation;
+
+import extras.Histogram;
+import extras.HistogramSnapshot;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The FrameStats class, the instrumentation of a game - a histogram over a rolling window of the latencies of every
+ * phase of a frame, and of some counters (collision tests per query, hits per tick and allocated bytes per tick).
+ * The values can be recorded from any thread (the game's thread, the render thread and the threads that step the
+ * sprites), and the histograms are published as a JMX MXBean (see register), so they can be watched in jconsole.
+ *
+ * @author Ori Dabush
+ */
+public class FrameStats implements FrameStatsMXBean {
+
+    // The metrics, the indexes of their histograms.
+    public static final int BACKGROUND = 0;
+    public static final int DRAW = 1;
+    public static final int SHOW = 2;
+    public static final int RECORD = 3;
+    public static final int TIME_PASSED = 4;
+    public static final int COLLISION_QUERY = 5;
+    public static final int DISPATCH = 6;
+    public static final int COLLISION_TESTS = 7;
+    public static final int HITS = 8;
+    public static final int ALLOCATED_BYTES = 9;
+
+    // The rolling window of the histograms - 10 slots of a second.
+    private static final int WINDOW_SLOTS = 10;
+    private static final long SLOT_NANOS = 1000000000L;
+    private static final int METRICS = 10;
+
+    // The number of games that registered their stats so far, so every game gets its own name.
+    private static final AtomicInteger REGISTERED = new AtomicInteger();
+
+    private Histogram[] histograms;
+    // The thread MXBean that measures the allocations of a thread, or null if it's not supported.
+    private com.sun.management.ThreadMXBean allocations;
+    private ObjectName name;
+
+    /**
+     * A constructor for the FrameStats class.
+     */
+    public FrameStats() {
+        this.histograms = new Histogram[METRICS];
+        for (int i = 0; i < METRICS; i++) {
+            this.histograms[i] = new Histogram(WINDOW_SLOTS, SLOT_NANOS);
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        this.allocations = null;
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            this.allocations = (com.sun.management.ThreadMXBean) threads;
+            this.allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.name = null;
+    }
+
+    /**
+     * A method to record a value of a metric.
+     *
+     * @param metric the metric (BACKGROUND, DRAW, ...).
+     * @param value  the value.
+     */
+    public void record(int metric, long value) {
+        this.histograms[metric].record(value);
+    }
+
+    /**
+     * A method to record a value of a metric at a given time, for callers that have already read the time.
+     *
+     * @param metric the metric (BACKGROUND, DRAW, ...).
+     * @param value  the value.
+     * @param now    the time of the value (from System.nanoTime).
+     */
+    public void record(int metric, long value, long now) {
+        this.histograms[metric].record(value, now);
+    }
+
+    /**
+     * A method to get the number of bytes that the current thread allocated so far.
+     *
+     * @return the number of bytes, or -1 if it can't be measured.
+     */
+    public long allocatedBytes() {
+        return this.allocations != null ? this.allocations.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * A method to record the allocations of the current thread since a given point.
+     *
+     * @param startBytes the number of bytes that the thread allocated at the point (see allocatedBytes).
+     */
+    public void recordAllocations(long startBytes) {
+        if (startBytes >= 0) {
+            this.record(ALLOCATED_BYTES, this.allocatedBytes() - startBytes);
+        }
+    }
+
+    /**
+     * A method to publish the stats in the platform MBean server, as arkanoid:type=FrameStats,game=N.
+     */
+    public void register() {
+        if (this.name != null) {
+            return;
+        }
+        try {
+            ObjectName newName = new ObjectName("arkanoid:type=FrameStats,game=" + REGISTERED.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            this.name = newName;
+        } catch (JMException e) {
+            throw new RuntimeException("can't register the frame stats!", e);
+        }
+    }
+
+    /**
+     * A method to remove the stats from the platform MBean server, if they were registered.
+     */
+    public void unregister() {
+        if (this.name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(this.name);
+        } catch (JMException e) {
+            throw new RuntimeException("can't unregister the frame stats!", e);
+        }
+        this.name = null;
+    }
+
+    @Override
+    public HistogramSnapshot getBackgroundNanos() {
+        return this.histograms[BACKGROUND].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getDrawNanos() {
+        return this.histograms[DRAW].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getShowNanos() {
+        return this.histograms[SHOW].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getRecordNanos() {
+        return this.histograms[RECORD].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getTimePassedNanos() {
+        return this.histograms[TIME_PASSED].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getCollisionQueryNanos() {
+        return this.histograms[COLLISION_QUERY].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getDispatchNanos() {
+        return this.histograms[DISPATCH].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getCollisionTestsPerQuery() {
+        return this.histograms[COLLISION_TESTS].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getHitsPerTick() {
+        return this.histograms[HITS].snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getAllocatedBytesPerTick() {
+        return this.histograms[ALLOCATED_BYTES].snapshot();
+    }
+}
@@ -0,0 +1,85 @@
+// ID - 212945760
+
+package game.operation;
+
+import extras.HistogramSnapshot;
+
+/**
+ * The FrameStatsMXBean interface, the JMX view of the FrameStats of a game - a summary of every histogram over its
+ * rolling window. The latencies are in nanoseconds.
+ *
+ * @author Ori Dabush
+ */
+public interface FrameStatsMXBean {
+
+    /**
+     * An access method to the latencies of drawing the background layer on the render thread (including redrawing
+     * its changed areas).
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getBackgroundNanos();
+
+    /**
+     * An access method to the latencies of drawing the moving sprites on the render thread.
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getDrawNanos();
+
+    /**
+     * An access method to the latencies of showing the frames on the GUI.
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getShowNanos();
+
+    /**
+     * An access method to the latencies of recording the frames on the game's thread.
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getRecordNanos();
+
+    /**
+     * An access method to the latencies of stepping the sprites (SpriteCollection.notifyAllTimePassed).
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getTimePassedNanos();
+
+    /**
+     * An access method to the latencies of the collision queries (a sample of one in every 64 queries of a ball).
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getCollisionQueryNanos();
+
+    /**
+     * An access method to the latencies of dispatching the hit events to the listeners (HitEventQueue.endTick).
+     *
+     * @return the summary of the latencies.
+     */
+    HistogramSnapshot getDispatchNanos();
+
+    /**
+     * An access method to the numbers of exact collision tests per collision query (of the sampled queries).
+     *
+     * @return the summary of the numbers.
+     */
+    HistogramSnapshot getCollisionTestsPerQuery();
+
+    /**
+     * An access method to the numbers of hit events per tick.
+     *
+     * @return the summary of the numbers.
+     */
+    HistogramSnapshot getHitsPerTick();
+
+    /**
+     * An access method to the numbers of bytes that the game's thread allocated per tick.
+     *
+     * @return the summary of the numbers.
+     */
+    HistogramSnapshot getAllocatedBytesPerTick();
+}
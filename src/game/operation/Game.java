@@ -4,20 +4,29 @@ package game.operation;
 
 import biuoop.DrawSurface;
 import biuoop.GUI;
-import biuoop.KeyboardSensor;
-import biuoop.Sleeper;
 import extras.Counter;
+import extras.GameRandom;
 import game.listeners.BallRemover;
 import game.listeners.BlockRemover;
 import game.listeners.ScoreTrackingListener;
+import game.objects.Ball;
 import game.objects.Collidable;
+import game.objects.Paddle;
 import game.objects.Sprite;
+import game.objects.StaticSprite;
+import game.events.BrickField;
 import game.events.GameEnvironment;
+import game.events.HitEventQueue;
 import game.events.SpriteCollection;
 
 import geometry.Point;
+import geometry.Rectangle;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The gameOperation.Game class, which will make the game creating easier.
@@ -36,9 +45,13 @@ public class Game {
     public static final int SCORE_WIDTH = WIDTH;
     public static final int SCORE_HEIGHT = 20;
 
+    // Number of blocks in a line and in a column of the screen.
+    public static final int BLOCKS_IN_LINE = 15;
+    public static final int BLOCKS_IN_COLUMN = 20;
+
     // Sizes of the blocks.
-    public static final int BLOCK_WIDTH = (WIDTH - 2 * SIDE_BORDER_SIZE) / 15;
-    public static final int BLOCK_HEIGHT = (HEIGHT - TOP_BORDER_SIZE - SCORE_HEIGHT) / 20;
+    public static final int BLOCK_WIDTH = (WIDTH - 2 * SIDE_BORDER_SIZE) / BLOCKS_IN_LINE;
+    public static final int BLOCK_HEIGHT = (HEIGHT - TOP_BORDER_SIZE - SCORE_HEIGHT) / BLOCKS_IN_COLUMN;
 
     // Color of the borders
     public static final Color BORDER_COLOR = Color.GRAY;
@@ -48,6 +61,7 @@ public class Game {
     public static final int PADDLE_WIDTH = 100;
     public static final int PADDLE_HEIGHT = 5;
     public static final Point PADDLE_START_LOCATION = new Point(350, HEIGHT - TOP_BORDER_SIZE - PADDLE_HEIGHT);
+    // The speeds of the paddle and the balls are in pixels per 1/60 of a second (a step in the default rate).
     public static final int PADDLE_SPEED = 6;
 
     // parameters of the ball.
@@ -69,23 +83,311 @@ public class Game {
 
     public static final int REGIONS = 5;
 
+    // The default number of physics steps per second, and the number of frames drawn per second.
+    public static final int DEFAULT_PHYSICS_RATE = 60;
+    // The maximal number of players of a game (the actions of all the players fit in a byte of an InputLog).
+    public static final int MAX_PLAYERS = 4;
+    public static final int FRAMES_PER_SECOND = 60;
+    // The longest time (in nanoseconds) that a single frame is allowed to catch up, so a very slow frame (or a pause
+    // of the program) doesn't cause a long burst of physics steps.
+    public static final long MAX_FRAME_NANOS = 250000000L;
+
 
     private SpriteCollection sprites;
+    // The image of the background and the static sprites, which is drawn in every frame (created when the first
+    // frame is drawn, so games that are only simulated don't have one).
+    private BackgroundLayer background;
+    // The version of the static sprites, which changes whenever a static sprite is added or removed.
+    private long backgroundVersion;
+    // The render thread of the game, while it runs with a GUI.
+    private Renderer renderer;
+    // The area of the static sprites that changed since the base version of the render thread's background layer
+    // (the version it had when it last caught up), so the frames only record the static sprites in this area.
+    private long renderBaseVersion;
+    private boolean renderChanged;
+    private Rectangle renderChange;
     private GameEnvironment environment;
+    private HitEventQueue hitEvents;
+    // The instrumentation of the game's frames (published over JMX while the game runs with a GUI).
+    private FrameStats stats;
     private GUI gui;
+    // The input of the paddle (the keyboard of the gui by default, or none in a headless game), and the actions
+    // that were sampled from it at the start of the current tick, which the objects of the game read.
+    private InputSource input;
+    private TickKeyboard tickKeyboard;
     private Counter remainingBlocks;
     private Counter remainingBalls;
     private Counter score;
+    private int physicsRate;
+    // Whether the balls move with the fixed-point physics (see FixedBall).
+    private boolean fixedPointPhysics;
+    // The level of the game, or null for the built-in level (which is built when the game is initialized).
+    private LevelFile level;
+    // The seed of the game's random generator, and the generator (created with the level).
+    private long seed;
+    private GameRandom random;
+    // The number of ticks that were played.
+    private long tick;
+    // The number of players, the paddles of the players, the balls (also the ones that were lost, in the order they
+    // were created) and the bricks of the level (their state is kept in a GameState).
+    private int players;
+    private List<Paddle> paddles;
+    private List<Ball> balls;
+    private BrickField brickField;
+    // The recording of the game, or null if it isn't recorded.
+    private Replay recording;
+    // The hashes of the states of the game after its ticks, or null if they aren't computed.
+    private StateHashLog stateHashes;
 
     /**
-     * A constructor for the game class.
+     * A constructor for the game class, without stats - a game that is simulated isn't measured, and a game that runs
+     * with a GUI creates its stats when it starts (see run).
      */
     public Game() {
+        this(null);
+    }
+
+    /**
+     * A constructor for the game class, with given stats - stats can be shared by many games, and then they describe
+     * all of them.
+     *
+     * @param stats the instrumentation of the game's frames, or null to not measure the ticks.
+     */
+    public Game(FrameStats stats) {
         this.sprites = new SpriteCollection();
+        this.background = null;
+        this.backgroundVersion = 0;
+        this.renderBaseVersion = -1;
+        this.renderChanged = false;
+        this.renderChange = new Rectangle(0, 0, 0, 0);
+        this.renderer = null;
         this.environment = new GameEnvironment();
+        this.hitEvents = new HitEventQueue();
+        this.stats = stats;
+        this.environment.setStats(this.stats);
+        // The environment gets the tile map of the level's grid when the level is created (see Factory.createLevel).
         this.remainingBlocks = new Counter();
         this.remainingBalls = new Counter();
         this.score = new Counter();
+        this.physicsRate = DEFAULT_PHYSICS_RATE;
+        this.fixedPointPhysics = false;
+        this.level = null;
+        this.seed = new Random().nextLong();
+        this.random = null;
+        this.tick = 0;
+        this.input = null;
+        this.tickKeyboard = new TickKeyboard();
+        this.players = 1;
+        this.paddles = new ArrayList<Paddle>();
+        this.balls = new ArrayList<Ball>();
+        this.brickField = null;
+        this.recording = null;
+        this.stateHashes = null;
+    }
+
+    /**
+     * A method to set the seed of the game's random generator (a random seed by default), so the game plays the same
+     * way with the same input. It should be called before the game is initialized.
+     *
+     * @param newSeed the seed.
+     */
+    public void setSeed(long newSeed) {
+        this.seed = newSeed;
+    }
+
+    /**
+     * An access method to the seed of the game's random generator.
+     *
+     * @return the seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * An access method to the game's random generator, which the objects of the game use (instead of their own
+     * generators), so the game depends only on its seed and its input.
+     *
+     * @return the random generator of the game.
+     */
+    public GameRandom getRandom() {
+        if (this.random == null) {
+            throw new RuntimeException("the game isn't initialized!");
+        }
+        return this.random;
+    }
+
+    /**
+     * An access method to the number of ticks that were played.
+     *
+     * @return the current tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * A method to set the number of ticks that were played (when a GameState is restored).
+     *
+     * @param newTick the current tick.
+     */
+    void setTick(long newTick) {
+        this.tick = newTick;
+    }
+
+    /**
+     * A method to play a replay in this game - to use the seed, the physics and the level of the replay, and to
+     * take the input of every tick from the replay (see ReplayInput). It should be called before the game is
+     * initialized.
+     *
+     * @param replay the replay.
+     */
+    public void setReplay(Replay replay) {
+        this.setSeed(replay.getSeed());
+        this.setPhysicsRate(replay.getPhysicsRate());
+        this.setFixedPointPhysics(replay.isFixedPointPhysics());
+        this.setLevel(replay.getLevel());
+        this.setPlayers(replay.getPlayers());
+        this.setInputSource(new ReplayInput(replay.getInput()));
+    }
+
+    /**
+     * A method to set the input of the paddle. It should be called before the game is initialized, or the game
+     * reads the keyboard of the gui (or nothing, without a gui).
+     *
+     * @param source the input of the paddle.
+     */
+    public void setInputSource(InputSource source) {
+        this.input = source;
+    }
+
+    /**
+     * A method to start recording the game (see Replay). It should be called after the game is initialized, before
+     * its first tick.
+     *
+     * @param keyframeInterval the number of ticks between two keyframes of the recording.
+     */
+    public void startRecording(int keyframeInterval) {
+        if (this.random == null || this.tick != 0) {
+            throw new RuntimeException("a game can only be recorded from its first tick!");
+        }
+        this.recording = new Replay(this.seed, this.physicsRate, this.fixedPointPhysics, this.players,
+                this.level.getBytes(), keyframeInterval);
+    }
+
+    /**
+     * A method to start (or stop) hashing the state of the game after every tick (see StateHashLog), to compare it
+     * with other runs of the same game. It should be called after the game is initialized (and after a GameState was
+     * restored into it) - the state when it is called is the first state of the log.
+     *
+     * @param enabled true to hash the states of the game, false to stop.
+     */
+    public void setStateHashing(boolean enabled) {
+        if (!enabled) {
+            this.stateHashes = null;
+            return;
+        }
+        if (this.random == null) {
+            throw new RuntimeException("the game isn't initialized!");
+        }
+        this.stateHashes = new StateHashLog(this.tick);
+        this.stateHashes.record(this);
+    }
+
+    /**
+     * An access method to the hashes of the states of the game.
+     *
+     * @return the log of the hashes, or null if the states aren't hashed.
+     */
+    public StateHashLog getStateHashes() {
+        return this.stateHashes;
+    }
+
+    /**
+     * An access method to the recording of the game.
+     *
+     * @return the recording, or null if the game isn't recorded.
+     */
+    public Replay getRecording() {
+        return this.recording;
+    }
+
+    /**
+     * A method to copy the whole state of the game into a snapshot, between two ticks. The snapshot's buffer is
+     * reused, so saving into the same snapshot again doesn't allocate (see GameState).
+     *
+     * @param state the snapshot to save the state to.
+     */
+    public void saveState(GameState state) {
+        if (this.random == null) {
+            throw new RuntimeException("the game isn't initialized!");
+        }
+        state.capture(this);
+    }
+
+    /**
+     * A method to restore a snapshot that was saved from a game of the same level, seed and physics (this game, or
+     * another game that was set up and initialized the same way), between two ticks.
+     *
+     * @param state the snapshot.
+     */
+    public void loadState(GameState state) {
+        if (this.random == null) {
+            throw new RuntimeException("the game isn't initialized!");
+        }
+        state.restore(this);
+    }
+
+    /**
+     * A method to set the number of physics steps per second. The speeds of the paddle and the balls are scaled by
+     * it, so the game plays in the same speed with any rate. It should be called before the game is initialized.
+     *
+     * @param rate the number of physics steps per second.
+     */
+    public void setPhysicsRate(int rate) {
+        if (rate <= 0) {
+            throw new RuntimeException("invalid physics rate!");
+        }
+        this.physicsRate = rate;
+    }
+
+    /**
+     * An access method to the number of physics steps per second.
+     *
+     * @return the physics rate.
+     */
+    public int getPhysicsRate() {
+        return this.physicsRate;
+    }
+
+    /**
+     * A method to set whether the balls of the game move with the fixed-point physics (see FixedBall) or with the
+     * double physics (the default). It should be called before the game is initialized.
+     *
+     * @param fixed true for the fixed-point physics, false for the double physics.
+     */
+    public void setFixedPointPhysics(boolean fixed) {
+        this.fixedPointPhysics = fixed;
+    }
+
+    /**
+     * A method to check whether the balls of the game move with the fixed-point physics.
+     *
+     * @return true if they move with the fixed-point physics, false otherwise.
+     */
+    public boolean isFixedPointPhysics() {
+        return this.fixedPointPhysics;
+    }
+
+    /**
+     * A method to convert a speed in pixels per 1/60 of a second (like PADDLE_SPEED and BALL_SPEED) to pixels per
+     * physics step of the game.
+     *
+     * @param speed the speed in pixels per 1/60 of a second.
+     * @return the speed in pixels per physics step.
+     */
+    public double speedPerStep(double speed) {
+        return speed * DEFAULT_PHYSICS_RATE / this.physicsRate;
     }
 
     /**
@@ -97,6 +399,15 @@ public class Game {
         this.environment.addCollidable(c);
     }
 
+    /**
+     * A method to add a collidable object that can move (like the paddle) to the game.
+     *
+     * @param c the collidable object.
+     */
+    public void addMovingCollidable(Collidable c) {
+        this.environment.addMovingCollidable(c);
+    }
+
     /**
      * A method to add a sprite object to the game.
      *
@@ -104,15 +415,226 @@ public class Game {
      */
     public void addSprite(Sprite s) {
         this.sprites.addSprite(s);
+        if (s instanceof StaticSprite) {
+            this.staticAreaChanged(((StaticSprite) s).getDrawnArea());
+        }
     }
 
     /**
-     * A method to get a keyboard sensor from the current object's gui.
+     * A method to tell the game that the drawing of its static sprites has changed in a given area (a brick of a
+     * BrickField was removed for example), so the area of the background layer is drawn again.
      *
-     * @return a keyboard sensor.
+     * @param area the area that has changed.
      */
-    public KeyboardSensor getKeyboardSensor() {
-        return this.gui.getKeyboardSensor();
+    public void staticAreaChanged(Rectangle area) {
+        if (this.background != null) {
+            this.background.invalidate(area);
+        }
+        if (this.renderer != null) {
+            this.addRenderChange(area);
+        }
+        this.backgroundVersion++;
+    }
+
+    /**
+     * A method to add an area to the area of the static sprites that changed since the base version of the render
+     * thread's background layer.
+     *
+     * @param area the area that changed.
+     */
+    private void addRenderChange(Rectangle area) {
+        Rectangle r = this.renderChange;
+        double minX = area.getX(), minY = area.getY();
+        double maxX = minX + area.getWidth(), maxY = minY + area.getHeight();
+        if (this.renderChanged) {
+            minX = Math.min(minX, r.getX());
+            minY = Math.min(minY, r.getY());
+            maxX = Math.max(maxX, r.getX() + r.getWidth());
+            maxY = Math.max(maxY, r.getY() + r.getHeight());
+        }
+        r.set(minX, minY, maxX - minX, maxY - minY);
+        this.renderChanged = true;
+    }
+
+    /**
+     * A method to set the number of threads that step the game's sprites (see SpriteCollection.setParallelism).
+     * The game gives the same results with any number of threads.
+     *
+     * @param threads the number of threads, 1 to step the sprites on the game's thread only.
+     */
+    public void setPhysicsThreads(int threads) {
+        this.sprites.setParallelism(threads);
+    }
+
+    /**
+     * A method to get the keyboard of the game's objects. It holds the actions that were sampled from the input of
+     * the paddle at the start of the current tick.
+     *
+     * @return the keyboard of the current tick.
+     */
+    public TickKeyboard getKeyboardSensor() {
+        return this.tickKeyboard;
+    }
+
+    /**
+     * An access method to the queue of the hit events of the game, which are dispatched at the end of each tick.
+     *
+     * @return the queue of the hit events.
+     */
+    public HitEventQueue getHitEvents() {
+        return this.hitEvents;
+    }
+
+    /**
+     * An access method to the instrumentation of the game's frames.
+     *
+     * @return the stats of the game, or null if its ticks aren't measured.
+     */
+    public FrameStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * An access method to the paddle of the first player.
+     *
+     * @return the paddle, or null if it wasn't created yet.
+     */
+    Paddle getPaddle() {
+        return this.getPaddle(0);
+    }
+
+    /**
+     * An access method to the paddle of a player.
+     *
+     * @param player the index of the player.
+     * @return the paddle, or null if it wasn't created yet.
+     */
+    Paddle getPaddle(int player) {
+        return player >= 0 && player < this.paddles.size() ? this.paddles.get(player) : null;
+    }
+
+    /**
+     * An access method to the number of paddles of the game.
+     *
+     * @return the number of paddles.
+     */
+    int getPaddleCount() {
+        return this.paddles.size();
+    }
+
+    /**
+     * A method to add the paddle of the next player (it is called by the Factory).
+     *
+     * @param p the paddle.
+     */
+    void addPaddle(Paddle p) {
+        this.paddles.add(p);
+    }
+
+    /**
+     * An access method to a ball of the game.
+     *
+     * @param index the index of the ball (the balls are indexed in the order they were created).
+     * @return the ball (it may have been lost, see containsSprite).
+     */
+    Ball getBall(int index) {
+        return this.balls.get(index);
+    }
+
+    /**
+     * An access method to the number of balls that were created in the game (including the ones that were lost).
+     *
+     * @return the number of balls.
+     */
+    int getBallCount() {
+        return this.balls.size();
+    }
+
+    /**
+     * A method to add a ball that was created (it is called by the Factory).
+     *
+     * @param b the ball.
+     */
+    void addBall(Ball b) {
+        this.balls.add(b);
+    }
+
+    /**
+     * A method to set the number of players of the game - every player has a paddle in a lane of its own at the
+     * bottom of the screen, and plays it with its bits of the mask of the actions (see InputSource.PLAYER_BITS).
+     * It should be called before the game is initialized.
+     *
+     * @param count the number of players (1 by default, up to MAX_PLAYERS).
+     */
+    public void setPlayers(int count) {
+        if (count <= 0 || count > MAX_PLAYERS) {
+            throw new RuntimeException("invalid number of players!");
+        }
+        this.players = count;
+    }
+
+    /**
+     * An access method to the number of players of the game.
+     *
+     * @return the number of players.
+     */
+    public int getPlayers() {
+        return this.players;
+    }
+
+    /**
+     * An access method to the bricks of the level.
+     *
+     * @return the brick field, or null if it wasn't created yet.
+     */
+    BrickField getBrickField() {
+        return this.brickField;
+    }
+
+    /**
+     * A method to set the bricks of the level (it is called by the Factory).
+     *
+     * @param field the brick field.
+     */
+    void setBrickField(BrickField field) {
+        this.brickField = field;
+    }
+
+    /**
+     * A method to check whether a sprite is in the game.
+     *
+     * @param s the sprite.
+     * @return true if the sprite is in the game, false otherwise.
+     */
+    boolean containsSprite(Sprite s) {
+        return this.sprites.contains(s);
+    }
+
+    /**
+     * An access method to the counter of the blocks that are left.
+     *
+     * @return the counter of the remaining blocks.
+     */
+    Counter getRemainingBlocks() {
+        return this.remainingBlocks;
+    }
+
+    /**
+     * An access method to the counter of the balls that are left.
+     *
+     * @return the counter of the remaining balls.
+     */
+    Counter getRemainingBalls() {
+        return this.remainingBalls;
+    }
+
+    /**
+     * An access method to the counter of the score.
+     *
+     * @return the counter of the score.
+     */
+    Counter getScoreCounter() {
+        return this.score;
     }
 
     /**
@@ -125,27 +647,61 @@ public class Game {
     }
 
     /**
-     * A method to create the blocks in the wanted pattern for ass3, using the factory f.
+     * A method to describe the built-in level of the game - the blocks in the wanted pattern for ass3, the borders,
+     * the paddle and the balls.
      *
-     * @param f   the used factory.
-     * @param br  the BlockRemover listener of the game.
-     * @param stl the ScoreTrackingListener listener of the game.
+     * @return a builder of the built-in level.
      */
-    private void createBlocks(Factory f, BlockRemover br, ScoreTrackingListener stl) {
+    public static LevelBuilder builtInLevel() {
+        LevelBuilder builder = new LevelBuilder(SIDE_BORDER_SIZE, SCORE_HEIGHT + TOP_BORDER_SIZE, BLOCK_WIDTH,
+                BLOCK_HEIGHT, BLOCKS_IN_LINE, BLOCKS_IN_COLUMN);
+        builder.setPaddle(new Rectangle(PADDLE_START_LOCATION, PADDLE_WIDTH, PADDLE_HEIGHT), PADDLE_SPEED,
+                PADDLE_COLOR);
+        for (int i = 0; i < NUM_OF_BALLS; i++) {
+            builder.addBall(BALL_START_LOCATION, BALL_RADIUS, BALL_SPEED, BALL_COLOR);
+        }
+        // The borders (there is no border in the bottom of the screen).
+        builder.addWall(new Rectangle(0, SCORE_HEIGHT, WIDTH, TOP_BORDER_SIZE), BORDER_COLOR);
+        builder.addWall(new Rectangle(0, SCORE_HEIGHT + TOP_BORDER_SIZE, SIDE_BORDER_SIZE,
+                HEIGHT - SCORE_HEIGHT - TOP_BORDER_SIZE), BORDER_COLOR);
+        builder.addWall(new Rectangle(WIDTH - SIDE_BORDER_SIZE, SCORE_HEIGHT + TOP_BORDER_SIZE, SIDE_BORDER_SIZE,
+                HEIGHT - SCORE_HEIGHT - TOP_BORDER_SIZE), BORDER_COLOR);
         int startX = 3, colorIndex = 0;
         for (int y = 3; y < 9; y++) {
-            f.createBlockLine(startX, 15, y, COLORS[colorIndex], br, stl);
+            for (int x = startX; x < BLOCKS_IN_LINE; x++) {
+                builder.addBrick(x, y, COLORS[colorIndex]);
+            }
             colorIndex++;
             startX++;
         }
+        return builder;
+    }
+
+    /**
+     * A method to set the level of the game (the built-in level by default). It should be called before the game is
+     * initialized.
+     *
+     * @param newLevel the level.
+     */
+    public void setLevel(LevelFile newLevel) {
+        this.level = newLevel;
+    }
+
+    /**
+     * An access method to the level of the game.
+     *
+     * @return the level, or null if the built-in level wasn't built yet (it is built when the game is initialized).
+     */
+    public LevelFile getLevel() {
+        return this.level;
     }
 
     /**
      * A method to color the background.
      *
-     * @param d is the GUI's DrawSurface.
+     * @param d is the DrawSurface of the background layer.
      */
-    private static void colorBackground(DrawSurface d) {
+    static void colorBackground(DrawSurface d) {
         d.setColor(BACKGROUND_COLOR);
         d.fillRectangle(SIDE_BORDER_SIZE, SCORE_HEIGHT, WIDTH - 2 * SIDE_BORDER_SIZE, HEIGHT - SCORE_HEIGHT);
     }
@@ -157,15 +713,51 @@ public class Game {
         this.remainingBalls.increase(1);
     }
 
+    /**
+     * An access method to the score of the game.
+     *
+     * @return the score of the game.
+     */
+    public int getScore() {
+        return this.score.getValue();
+    }
+
     /**
      * A method to initialize the game (creating the game and its game.objects).
      */
     public void initialize() {
         // Creating the GUI
         this.gui = new GUI("Arkanoid", WIDTH, HEIGHT);
+        if (this.input == null) {
+            this.input = new KeyboardInput(this.gui.getKeyboardSensor());
+        }
+        this.createLevel();
+    }
+
+    /**
+     * A method to initialize the game without a GUI, to run it with runHeadless.
+     *
+     * @param source the input of the paddle, or null for the input that was set before (no input at all by
+     *               default).
+     */
+    public void initializeHeadless(InputSource source) {
+        this.gui = null;
+        if (source != null) {
+            this.input = source;
+        }
+        this.createLevel();
+    }
 
+    /**
+     * A method to create the game.objects of the level.
+     */
+    private void createLevel() {
         // Creating a factory object
         Factory f = new Factory(this);
+        this.random = new GameRandom(this.seed);
+        if (this.level == null) {
+            this.level = builtInLevel().build();
+        }
 
         BlockRemover blockRemover = new BlockRemover(this, this.remainingBlocks);
 
@@ -175,21 +767,8 @@ public class Game {
 
         f.createScoreIndicator(this.score);
 
-        // Creating the paddle
-        f.createPaddle(PADDLE_START_LOCATION, PADDLE_WIDTH, PADDLE_HEIGHT, PADDLE_COLOR);
-
-        // Creating the balls
-        for (int i = 0; i < NUM_OF_BALLS; i++) {
-            f.createBall(BALL_START_LOCATION, BALL_RADIUS, BALL_COLOR, BALL_SPEED);
-        }
-
-        // Creating the borders
-        f.createBorders(BORDER_COLOR);
-
-        f.createDeathBlocks(ballRemover);
-
-        // Creating the blocks
-        createBlocks(f, blockRemover, scoreTrackingListener);
+        // Creating the paddle, the balls, the borders, the death block and the blocks of the level
+        f.createLevel(this.level, blockRemover, ballRemover, scoreTrackingListener);
     }
 
     /**
@@ -200,7 +779,7 @@ public class Game {
     public boolean outOfBlocks() {
         if (this.remainingBlocks.getValue() == 0) {
             this.score.increase(LEVEL_FINISHING_POINTS);
-            this.gui.close();
+            this.closeGui();
             return true;
         }
         return false;
@@ -213,39 +792,217 @@ public class Game {
      */
     public boolean outOfBalls() {
         if (this.remainingBalls.getValue() == 0) {
-            this.gui.close();
+            this.closeGui();
             return true;
         }
         return false;
     }
 
     /**
-     * A method to run the animation loop.
+     * A method to check if the game has ended, without changing it (unlike outOfBlocks and outOfBalls).
+     *
+     * @return true if the game has ended, false otherwise.
+     */
+    public boolean isOver() {
+        return this.remainingBlocks.getValue() == 0 || this.remainingBalls.getValue() == 0;
+    }
+
+    /**
+     * A method to close the GUI of the game (after stopping its render thread), if it has one.
+     */
+    private void closeGui() {
+        if (this.renderer != null) {
+            this.renderer.stop();
+            this.renderer = null;
+            this.stats.unregister();
+        }
+        if (this.gui != null) {
+            this.gui.close();
+        }
+    }
+
+    /**
+     * A method to run the animation loop. The physics runs in fixed steps (physicsRate steps per second of real
+     * time), and FRAMES_PER_SECOND times per second a frame is recorded, with the moving sprites between their last
+     * two physics states, and published to the render thread (see Renderer). The render thread draws the frames to
+     * the GUI, so the physics never waits for the drawing.
      */
     public void run() {
-        GUI g = this.gui;
-        Sleeper sleeper = new Sleeper();
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
+        if (this.stats == null) {
+            this.stats = new FrameStats();
+            this.environment.setStats(this.stats);
+        }
+        this.stats.register();
+        this.renderer = new Renderer(this.gui, WIDTH, HEIGHT, this.stats);
+        this.renderer.start();
+        long nanosPerStep = 1000000000L / this.physicsRate;
+        long nanosPerFrame = 1000000000L / FRAMES_PER_SECOND;
+        long previousTime = System.nanoTime(), nextFrameTime = previousTime;
+        // The real time that passed and wasn't simulated yet.
+        long accumulator = 0;
         while (true) {
-            long startTime = System.currentTimeMillis();
+            long now = System.nanoTime();
+            accumulator += Math.min(now - previousTime, MAX_FRAME_NANOS);
+            previousTime = now;
+            while (accumulator >= nanosPerStep) {
+                if (this.playOneTick()) {
+                    return;
+                }
+                accumulator -= nanosPerStep;
+            }
 
-            DrawSurface d = g.getDrawSurface();
-            colorBackground(d);
-            this.sprites.drawAllOn(d);
-            g.show(d);
-            this.sprites.notifyAllTimePassed();
+            if (now >= nextFrameTime) {
+                long recordStart = System.nanoTime();
+                this.recordFrame(this.renderer.getFrame(), (double) accumulator / nanosPerStep);
+                this.stats.record(FrameStats.RECORD, System.nanoTime() - recordStart);
+                this.renderer.publish();
+                nextFrameTime = Math.max(nextFrameTime + nanosPerFrame, now);
+            }
 
-            if (this.outOfBlocks() || this.outOfBalls()) {
-                return;
+            // Waiting until the next physics step or the next frame, whichever comes first.
+            long wait = Math.min(nextFrameTime, now + nanosPerStep - accumulator) - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
             }
+        }
+    }
 
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+    /**
+     * A method to record a frame of the game for the render thread - the moving sprites, and the static sprites if
+     * the render thread doesn't have their current version in its background layer: only the ones in the area that
+     * changed since its version, or all of them if it has no version yet.
+     *
+     * @param frame the frame to record into.
+     * @param alpha the part of the way from the previous physics state to the current one to draw the moving
+     *              sprites in (see SpriteCollection.drawMovingOn).
+     */
+    private void recordFrame(FrameSnapshot frame, double alpha) {
+        frame.getMovingSprites().clear();
+        this.sprites.drawMovingOn(frame.getMovingSprites(), alpha);
+        long rendered = this.renderer.getBackgroundVersion();
+        if (rendered == this.backgroundVersion) {
+            frame.setBackgroundVersion(-1);
+            // The render thread has all the changes, so the next ones are collected from its version.
+            this.renderBaseVersion = rendered;
+            this.renderChanged = false;
+            return;
+        }
+        frame.getStaticSprites().clear();
+        if (rendered < 0 || this.renderBaseVersion < 0 || !this.renderChanged) {
+            this.sprites.drawStaticOn(frame.getStaticSprites(), null);
+            frame.setBackgroundVersion(this.backgroundVersion);
+            return;
+        }
+        // The render thread's version is at least the base version, so all the changes it misses are in the area.
+        Rectangle area = frame.getChangedArea();
+        BackgroundLayer.pixelArea(this.renderChange, area);
+        this.sprites.drawStaticOn(frame.getStaticSprites(), area);
+        frame.setBackgroundChange(this.backgroundVersion, this.renderBaseVersion);
+    }
+
+    /**
+     * A method to run the game without a GUI, as fast as possible (without waiting between the frames). The frames
+     * are drawn to a NullDrawSurface, so the drawing code runs as it does with a GUI.
+     *
+     * @param maxTicks the maximal number of frames to run, or a negative number to run until the game ends.
+     * @return the number of frames that were run.
+     */
+    public long runHeadless(long maxTicks) {
+        DrawSurface d = new NullDrawSurface(WIDTH, HEIGHT);
+        long ticks = 0;
+        while (maxTicks < 0 || ticks < maxTicks) {
+            this.drawFrame(d, 1);
+            ticks++;
+            if (this.playOneTick()) {
+                break;
             }
         }
+        return ticks;
+    }
+
+    /**
+     * A method to run the game without a GUI and without drawing its frames - only its physics and its events - as
+     * fast as possible. It is the fastest way to play a game whose frames are not needed (see TournamentRunner).
+     *
+     * @param maxTicks the maximal number of ticks to run, or a negative number to run until the game ends.
+     * @return the number of ticks that were run.
+     */
+    public long simulate(long maxTicks) {
+        long ticks = 0;
+        while (maxTicks < 0 || ticks < maxTicks) {
+            ticks++;
+            if (this.playOneTick()) {
+                break;
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * A method to draw a frame of the game - the background layer (the background and the static sprites), and then
+     * the other sprites. A game that isn't run by its own loop (a copy of a game of a server, for example) is drawn
+     * with it.
+     *
+     * @param d     the DrawSurface to draw on.
+     * @param alpha the part of the way from the previous physics state to the current one to draw the moving
+     *              sprites in (see SpriteCollection.drawMovingOn).
+     */
+    public void drawFrame(DrawSurface d, double alpha) {
+        if (this.background == null) {
+            this.background = new BackgroundLayer(WIDTH, HEIGHT, this.sprites);
+        }
+        this.background.drawOn(d);
+        this.sprites.drawMovingOn(d, alpha);
+    }
+
+    /**
+     * A method to move the game one frame forward - to read the input of the tick, to move the sprites, and then
+     * dispatch the hit events of the tick (which add and remove game.objects).
+     *
+     * @return true if the game has ended, false otherwise.
+     */
+    private boolean playOneTick() {
+        int mask = this.input != null ? this.input.sample(this) : 0;
+        this.tickKeyboard.setMask(mask);
+        if (this.recording != null) {
+            this.recording.record(this, mask);
+        }
+        if (this.stats != null) {
+            this.measureStep(this.stats);
+        } else {
+            this.sprites.notifyAllTimePassed();
+            this.hitEvents.endTick();
+            // The collidables that were removed by the hit events are removed from the environment's grid.
+            this.environment.flush();
+        }
+        this.tick++;
+        boolean ended = this.outOfBlocks() || this.outOfBalls();
+        if (this.stateHashes != null) {
+            this.stateHashes.record(this);
+        }
+        if (ended && this.recording != null) {
+            this.recording.finish(this);
+        }
+        return ended;
+    }
+
+    /**
+     * A method to move the sprites and dispatch the hit events of a tick (like playOneTick does without stats), while
+     * measuring the latencies, the hits and the allocations of the tick.
+     *
+     * @param s the stats of the game.
+     */
+    private void measureStep(FrameStats s) {
+        long start = System.nanoTime(), allocated = s.allocatedBytes();
+        this.sprites.notifyAllTimePassed();
+        long dispatchStart = System.nanoTime();
+        s.record(FrameStats.HITS, this.hitEvents.size(), dispatchStart);
+        this.hitEvents.endTick();
+        this.environment.flush();
+        long end = System.nanoTime();
+        s.record(FrameStats.TIME_PASSED, dispatchStart - start, end);
+        s.record(FrameStats.DISPATCH, end - dispatchStart, end);
+        s.recordAllocations(allocated);
     }
 
     /**
@@ -264,5 +1021,8 @@ public class Game {
      */
     public void removeSprite(Sprite s) {
         this.sprites.removeSprite(s);
+        if (s instanceof StaticSprite) {
+            this.staticAreaChanged(((StaticSprite) s).getDrawnArea());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The GameResult class, the result of a game that a TournamentRunner played. A game that was stopped at the maximal
+ * number of ticks of its job, before it ended, is unfinished (see isFinished).
+ *
+ * @author Ori Dabush
+ */
+public class GameResult {
+    private int index;
+    private TournamentJob job;
+    private int score;
+    private long ticks;
+    private int blocksLeft;
+    private int ballsLost;
+    private boolean finished;
+    private long nanos;
+
+    /**
+     * A constructor for the GameResult class.
+     *
+     * @param index the index of the job in the tournament.
+     * @param job   the job of the game.
+     * @param game  the game, after it was played.
+     * @param ticks the number of ticks that were played.
+     * @param nanos the time it took to play the game, in nanoseconds.
+     */
+    GameResult(int index, TournamentJob job, Game game, long ticks, long nanos) {
+        this.index = index;
+        this.job = job;
+        this.score = game.getScore();
+        this.ticks = ticks;
+        this.blocksLeft = game.getRemainingBlocks().getValue();
+        this.ballsLost = game.getBallCount() - game.getRemainingBalls().getValue();
+        this.finished = game.isOver();
+        this.nanos = nanos;
+    }
+
+    /**
+     * An access method to the index of the job in the tournament.
+     *
+     * @return the index of the job.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * An access method to the job of the game.
+     *
+     * @return the job.
+     */
+    public TournamentJob getJob() {
+        return this.job;
+    }
+
+    /**
+     * An access method to the final score of the game.
+     *
+     * @return the score.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * An access method to the number of ticks that were played.
+     *
+     * @return the number of ticks.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * An access method to the number of blocks that were left at the end of the game.
+     *
+     * @return the number of blocks left (0 if the level was finished).
+     */
+    public int getBlocksLeft() {
+        return this.blocksLeft;
+    }
+
+    /**
+     * An access method to the number of balls that were lost.
+     *
+     * @return the number of balls lost.
+     */
+    public int getBallsLost() {
+        return this.ballsLost;
+    }
+
+    /**
+     * A method to check if the game ended, or was stopped at the maximal number of ticks of its job.
+     *
+     * @return true if the game ended, false if it was stopped before it ended.
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * An access method to the time it took to play the game.
+     *
+     * @return the time, in nanoseconds.
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("game %d: controller %s, seed %d, score %d, ticks %d%s, blocks left %d, balls lost %d, "
+                        + "%.1f ms", this.index, this.job.getControllerName(), this.job.getSeed(), this.score,
+                this.ticks, this.finished ? "" : " (unfinished)", this.blocksLeft, this.ballsLost, this.nanos / 1e6);
+    }
+}
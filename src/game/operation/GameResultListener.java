@@ -0,0 +1,19 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The GameResultListener interface, which gets the results of the games of a tournament as they end.
+ *
+ * @author Ori Dabush
+ */
+public interface GameResultListener {
+
+    /**
+     * A method that is called when a game of the tournament ends. The calls are made one at a time, but from the
+     * threads of the tournament and not in the order of the jobs.
+     *
+     * @param result the result of the game.
+     */
+    void gameEnded(GameResult result);
+}
@@ -0,0 +1,396 @@
+// ID - 212945760
+
+package game.operation;
+
+import extras.Counter;
+import game.events.BrickField;
+import game.objects.Ball;
+import game.objects.Paddle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The GameState class, a snapshot of the whole state of a game between two ticks - the tick, the state of the random
+ * generator, the counters, the paddles, the balls (by their ids) and the bricks of the level - in one compact
+ * buffer.
+ * A snapshot is reused: saving a game into it again overwrites the buffer (which only grows), so saving and
+ * restoring don't allocate and take microseconds (see Game.saveState and Game.loadState). A snapshot is restored
+ * into a game of the same level, seed and physics, so everything that doesn't change while the game runs (the walls,
+ * the colors, the listeners) isn't copied. The hit events are dispatched at the end of every tick, so there are none
+ * between the ticks. The buffer is:
+ * <pre>
+ * header:  tick, random state (longs), score, remaining blocks, remaining balls, paddle count, ball count, brick
+ *          field state size (ints, -1 if there is no brick field)
+ * paddles: Paddle.STATE_SIZE doubles of every paddle
+ * balls:   the bits of the balls that are in the game (ball count / 64 longs, rounded up), and then
+ *          Ball.STATE_SIZE doubles of every ball
+ * bricks:  the alive bits of the bricks (brick field state size longs, see BrickField.saveState)
+ * </pre>
+ *
+ * @author Ori Dabush
+ */
+public final class GameState {
+    private static final int HEADER_SIZE = 2 * Long.BYTES + 6 * Integer.BYTES;
+    // The offsets of the sizes of the sections in the header.
+    private static final int PADDLES_OFFSET = 2 * Long.BYTES + 3 * Integer.BYTES;
+    private static final int BALLS_OFFSET = PADDLES_OFFSET + Integer.BYTES;
+    private static final int BRICKS_OFFSET = BALLS_OFFSET + Integer.BYTES;
+    // The first int of a snapshot file ("ARKS"), and the version of the format.
+    private static final int MAGIC = 0x41524B53;
+    private static final int VERSION = 2;
+    // The size of the header of a snapshot file - magic, version, size (ints) and the CRC-32 of the snapshot (long).
+    private static final int FILE_HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+
+    // The snapshot is the bytes from 0 to the limit of the buffer.
+    private ByteBuffer buffer;
+    // Scratch arrays of the states of the objects (see Paddle.saveState, Ball.saveState and BrickField.saveState).
+    private double[] values;
+    private long[] words;
+
+    /**
+     * A constructor for the GameState class, which creates an empty snapshot (to be filled by Game.saveState, or by
+     * one of the read methods, or by load).
+     */
+    public GameState() {
+        this.buffer = ByteBuffer.allocate(0);
+        this.values = new double[Math.max(Paddle.STATE_SIZE, Ball.STATE_SIZE)];
+        this.words = new long[0];
+    }
+
+    /**
+     * A method to copy the state of a game into the snapshot.
+     *
+     * @param game the game (between two ticks).
+     */
+    void capture(Game game) {
+        int paddles = game.getPaddleCount();
+        BrickField field = game.getBrickField();
+        int ballCount = game.getBallCount();
+        int brickWords = field != null ? field.getStateSize() : -1;
+        int size = size(paddles, ballCount, brickWords);
+        if (this.buffer.capacity() < size) {
+            this.buffer = ByteBuffer.allocate(Math.max(size, 2 * this.buffer.capacity()));
+        }
+        if (this.words.length < brickWords) {
+            this.words = new long[brickWords];
+        }
+        ByteBuffer out = this.buffer;
+        out.clear();
+        out.putLong(game.getTick());
+        out.putLong(game.getRandom().getState());
+        out.putInt(game.getScore());
+        out.putInt(game.getRemainingBlocks().getValue());
+        out.putInt(game.getRemainingBalls().getValue());
+        out.putInt(paddles);
+        out.putInt(ballCount);
+        out.putInt(brickWords);
+        for (int i = 0; i < paddles; i++) {
+            game.getPaddle(i).saveState(this.values, 0);
+            this.putValues(Paddle.STATE_SIZE);
+        }
+        for (int word = 0; word < ballWords(ballCount); word++) {
+            long bits = 0;
+            for (int i = word * Long.SIZE; i < Math.min(ballCount, (word + 1) * Long.SIZE); i++) {
+                if (game.containsSprite(game.getBall(i))) {
+                    bits |= 1L << i;
+                }
+            }
+            out.putLong(bits);
+        }
+        for (int i = 0; i < ballCount; i++) {
+            game.getBall(i).saveState(this.values, 0);
+            this.putValues(Ball.STATE_SIZE);
+        }
+        if (field != null) {
+            field.saveState(this.words, 0);
+            for (int word = 0; word < brickWords; word++) {
+                out.putLong(this.words[word]);
+            }
+        }
+        out.flip();
+    }
+
+    /**
+     * A method to restore the snapshot into a game of the same level, seed and physics. Balls that were removed from
+     * the game and are in the snapshot are added back to it (after the other sprites).
+     *
+     * @param game the game (between two ticks).
+     */
+    void restore(Game game) {
+        ByteBuffer in = this.buffer;
+        if (in.limit() == 0) {
+            throw new RuntimeException("the state is empty!");
+        }
+        BrickField field = game.getBrickField();
+        int paddles = in.getInt(PADDLES_OFFSET);
+        int ballCount = in.getInt(BALLS_OFFSET);
+        int brickWords = in.getInt(BRICKS_OFFSET);
+        if (game.getBallCount() != ballCount || game.getPaddleCount() != paddles
+                || (field != null ? field.getStateSize() : -1) != brickWords) {
+            throw new RuntimeException("the state is of another game!");
+        }
+        in.position(0);
+        game.setTick(in.getLong());
+        game.getRandom().setState(in.getLong());
+        set(game.getScoreCounter(), in.getInt());
+        set(game.getRemainingBlocks(), in.getInt());
+        set(game.getRemainingBalls(), in.getInt());
+        in.position(HEADER_SIZE);
+        for (int i = 0; i < paddles; i++) {
+            this.getValues(Paddle.STATE_SIZE);
+            game.getPaddle(i).loadState(this.values, 0);
+        }
+        int ballsInGame = in.position();
+        in.position(ballsInGame + ballWords(ballCount) * Long.BYTES);
+        for (int i = 0; i < ballCount; i++) {
+            Ball ball = game.getBall(i);
+            this.getValues(Ball.STATE_SIZE);
+            ball.loadState(this.values, 0);
+            boolean wasInGame = (in.getLong(ballsInGame + (i / Long.SIZE) * Long.BYTES) & (1L << i)) != 0;
+            boolean inGame = game.containsSprite(ball);
+            if (wasInGame && !inGame) {
+                ball.addToGame(game);
+            } else if (!wasInGame && inGame) {
+                ball.removeFromGame(game);
+            }
+        }
+        if (field != null) {
+            if (this.words.length < brickWords) {
+                this.words = new long[brickWords];
+            }
+            for (int word = 0; word < brickWords; word++) {
+                this.words[word] = in.getLong();
+            }
+            field.loadState(this.words, 0);
+        }
+        in.position(0);
+    }
+
+    /**
+     * A method to compute the size of a snapshot.
+     *
+     * @param paddles    the number of paddles.
+     * @param ballCount  the number of balls.
+     * @param brickWords the size of the state of the brick field (-1 if there is no brick field).
+     * @return the size of the snapshot, in bytes.
+     */
+    private static int size(int paddles, int ballCount, int brickWords) {
+        long size = HEADER_SIZE + (long) paddles * Paddle.STATE_SIZE * Double.BYTES
+                + (long) ballWords(ballCount) * Long.BYTES + (long) ballCount * Ball.STATE_SIZE * Double.BYTES
+                + (long) Math.max(brickWords, 0) * Long.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new RuntimeException("the state is too big!");
+        }
+        return (int) size;
+    }
+
+    /**
+     * A method to get the number of longs of the bits of the balls that are in the game.
+     *
+     * @param ballCount the number of balls.
+     * @return the number of longs.
+     */
+    private static int ballWords(int ballCount) {
+        return (ballCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * A method to put values of the scratch array into the buffer.
+     *
+     * @param count the number of values.
+     */
+    private void putValues(int count) {
+        for (int i = 0; i < count; i++) {
+            this.buffer.putDouble(this.values[i]);
+        }
+    }
+
+    /**
+     * A method to get values from the buffer into the scratch array.
+     *
+     * @param count the number of values.
+     */
+    private void getValues(int count) {
+        for (int i = 0; i < count; i++) {
+            this.values[i] = this.buffer.getDouble();
+        }
+    }
+
+    /**
+     * A method to set the value of a counter.
+     *
+     * @param counter the counter.
+     * @param value   the new value of the counter.
+     */
+    private static void set(Counter counter, int value) {
+        counter.increase(value - counter.getValue());
+    }
+
+    /**
+     * An access method to the tick of the snapshot.
+     *
+     * @return the number of ticks that were played before the snapshot was saved.
+     */
+    public long getTick() {
+        if (this.buffer.limit() == 0) {
+            throw new RuntimeException("the state is empty!");
+        }
+        return this.buffer.getLong(0);
+    }
+
+    /**
+     * An access method to the size of the snapshot.
+     *
+     * @return the size of the snapshot, in bytes (0 if it is empty).
+     */
+    public int getSize() {
+        return this.buffer.limit();
+    }
+
+    /**
+     * A method to check that bytes are a valid snapshot - that they have a valid header, and the size that it
+     * describes.
+     *
+     * @param bytes the bytes (from their position to their limit).
+     */
+    private static void validate(ByteBuffer bytes) {
+        int start = bytes.position(), length = bytes.remaining();
+        if (length < HEADER_SIZE) {
+            throw new RuntimeException("invalid game state!");
+        }
+        int paddles = bytes.getInt(start + PADDLES_OFFSET);
+        int ballCount = bytes.getInt(start + BALLS_OFFSET);
+        int brickWords = bytes.getInt(start + BRICKS_OFFSET);
+        if (paddles < 0 || ballCount < 0 || brickWords < -1 || size(paddles, ballCount, brickWords) != length) {
+            throw new RuntimeException("invalid game state!");
+        }
+    }
+
+    /**
+     * A method to write the snapshot into a buffer (a packet of a GameServer, for example).
+     *
+     * @param out the buffer (getSize bytes are put in it).
+     */
+    public void write(ByteBuffer out) {
+        out.put(this.buffer.duplicate());
+    }
+
+    /**
+     * A method to read a snapshot that was written by write(ByteBuffer) into this snapshot, reusing its buffer.
+     *
+     * @param in   the buffer (its position is moved after the snapshot).
+     * @param size the size of the snapshot, in bytes.
+     */
+    public void read(ByteBuffer in, int size) {
+        if (size < 0 || size > in.remaining()) {
+            throw new RuntimeException("invalid game state!");
+        }
+        ByteBuffer bytes = in.duplicate();
+        bytes.limit(bytes.position() + size);
+        validate(bytes);
+        if (this.buffer.capacity() < size) {
+            this.buffer = ByteBuffer.allocate(Math.max(size, 2 * this.buffer.capacity()));
+        }
+        this.buffer.clear();
+        this.buffer.put(bytes);
+        this.buffer.flip();
+        in.position(in.position() + size);
+    }
+
+    /**
+     * A method to write the snapshot.
+     *
+     * @param out the output to write to.
+     * @throws IOException if the output can't be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(this.buffer.limit());
+        out.write(this.buffer.array(), this.buffer.arrayOffset(), this.buffer.limit());
+    }
+
+    /**
+     * A method to read a snapshot that was written by write.
+     *
+     * @param in the input to read from.
+     * @return the snapshot.
+     * @throws IOException if the input can't be read.
+     */
+    public static GameState read(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < HEADER_SIZE) {
+            throw new RuntimeException("invalid game state!");
+        }
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        GameState state = new GameState();
+        state.read(ByteBuffer.wrap(bytes), size);
+        return state;
+    }
+
+    /**
+     * A method to save the snapshot to a file, safely against crashes - the snapshot is written to a temporary
+     * file next to the file and forced to the disk, and then the temporary file replaces the file in one atomic
+     * move. So the file always holds a whole snapshot: the new one, or (if the saving was interrupted) the old one.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    public void save(Path path) throws IOException {
+        if (this.buffer.limit() == 0) {
+            throw new RuntimeException("the state is empty!");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(this.buffer.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(this.buffer.limit()).putLong(crc.getValue()).flip();
+        ByteBuffer[] content = {header, this.buffer.duplicate()};
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content[1].hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * A method to load a snapshot from a file that was saved by save.
+     *
+     * @param path the path of the file.
+     * @return the snapshot.
+     * @throws IOException if the file can't be read.
+     */
+    public static GameState load(Path path) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (bytes.limit() < FILE_HEADER_SIZE || bytes.getInt() != MAGIC) {
+            throw new RuntimeException("not a game state file!");
+        }
+        if (bytes.getInt() != VERSION) {
+            throw new RuntimeException("unsupported game state file version!");
+        }
+        int size = bytes.getInt();
+        long checksum = bytes.getLong();
+        if (size != bytes.remaining()) {
+            throw new RuntimeException("the size of the game state file doesn't match its header!");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new RuntimeException("the game state file is corrupted!");
+        }
+        GameState state = new GameState();
+        state.read(bytes, size);
+        return state;
+    }
+}
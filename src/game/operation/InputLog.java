@@ -0,0 +1,185 @@
+// ID - 212945760
+
+package game.operation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The InputLog class, the input of a game - the mask of the actions of every tick (see InputSource),
+ * run-length encoded. The actions change rarely (compared to the ticks), so a log of a whole game is only a few
+ * kilobytes. The input of any tick is found with a binary search over the runs.
+ *
+ * @author Ori Dabush
+ */
+public class InputLog {
+    private static final int INITIAL_CAPACITY = 64;
+    // The number of bits of the length in every byte of a variable-length number.
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+
+    // The masks of the runs, and the ticks that the runs start in (the ticks of run i are from starts[i] to
+    // starts[i + 1] - 1).
+    private int[] masks;
+    private long[] starts;
+    private int runs;
+    private long ticks;
+
+    /**
+     * A constructor for the InputLog class, which creates an empty log.
+     */
+    public InputLog() {
+        this.masks = new int[INITIAL_CAPACITY];
+        this.starts = new long[INITIAL_CAPACITY];
+        this.runs = 0;
+        this.ticks = 0;
+    }
+
+    /**
+     * A method to add the input of the next tick to the log.
+     *
+     * @param mask the mask of the actions.
+     */
+    public void append(int mask) {
+        if (this.runs == 0 || this.masks[this.runs - 1] != mask) {
+            this.addRun(mask, this.ticks);
+        }
+        this.ticks++;
+    }
+
+    /**
+     * A method to add a run to the log.
+     *
+     * @param mask  the mask of the run.
+     * @param start the tick that the run starts in.
+     */
+    private void addRun(int mask, long start) {
+        if (this.runs == this.masks.length) {
+            this.masks = Arrays.copyOf(this.masks, 2 * this.masks.length);
+            this.starts = Arrays.copyOf(this.starts, 2 * this.starts.length);
+        }
+        this.masks[this.runs] = mask;
+        this.starts[this.runs] = start;
+        this.runs++;
+    }
+
+    /**
+     * A method to get the input of a tick.
+     *
+     * @param tick the tick.
+     * @return the mask of the actions of the tick, or 0 if the tick is not in the log.
+     */
+    public int maskAt(long tick) {
+        if (tick < 0 || tick >= this.ticks) {
+            return 0;
+        }
+        // The last run that starts before or in the tick.
+        int low = 0, high = this.runs - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.starts[middle] <= tick) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return this.masks[low];
+    }
+
+    /**
+     * An access method to the number of ticks in the log.
+     *
+     * @return the number of ticks.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * An access method to the number of runs in the log.
+     *
+     * @return the number of runs.
+     */
+    public int getRuns() {
+        return this.runs;
+    }
+
+    /**
+     * A method to write the log - the number of runs, and the mask and the length of every run (as a
+     * variable-length number).
+     *
+     * @param out the output to write to.
+     * @throws IOException if the output can't be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(this.runs);
+        for (int i = 0; i < this.runs; i++) {
+            long end = i + 1 < this.runs ? this.starts[i + 1] : this.ticks;
+            out.writeByte(this.masks[i]);
+            writeVarLong(out, end - this.starts[i]);
+        }
+    }
+
+    /**
+     * A method to read a log that was written by write.
+     *
+     * @param in the input to read from.
+     * @return the log.
+     * @throws IOException if the input can't be read.
+     */
+    public static InputLog read(DataInput in) throws IOException {
+        InputLog log = new InputLog();
+        int runs = in.readInt();
+        if (runs < 0) {
+            throw new RuntimeException("invalid input log!");
+        }
+        for (int i = 0; i < runs; i++) {
+            int mask = in.readUnsignedByte();
+            long length = readVarLong(in);
+            if (length <= 0) {
+                throw new RuntimeException("invalid input log!");
+            }
+            log.addRun(mask, log.ticks);
+            log.ticks += length;
+        }
+        return log;
+    }
+
+    /**
+     * A method to write a non-negative number in as few bytes as possible - 7 bits in every byte, and the highest
+     * bit tells if there are more bytes.
+     *
+     * @param out   the output to write to.
+     * @param value the number.
+     * @throws IOException if the output can't be written.
+     */
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        long v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            out.writeByte((int) (v & VARINT_MASK) | (VARINT_MASK + 1));
+            v >>>= VARINT_BITS;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * A method to read a number that was written by writeVarLong.
+     *
+     * @param in the input to read from.
+     * @return the number.
+     * @throws IOException if the input can't be read.
+     */
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_BITS) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & VARINT_MASK) << shift;
+            if ((b & (VARINT_MASK + 1)) == 0) {
+                return value;
+            }
+        }
+        throw new RuntimeException("invalid variable-length number!");
+    }
+}
@@ -0,0 +1,43 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The InputSource interface, the input of the paddle of a game. The game samples it once at the start of every tick
+ * into a mask of actions (see TickKeyboard), and the sprites only read the mask, so a game can be played by a
+ * keyboard (KeyboardInput), a script (ScriptedInput), a replay (ReplayInput) or a bot (TrackingBot) the same way,
+ * and a game without a GUI doesn't need a keyboard at all. In a game of several players (see Game.setPlayers) the
+ * actions of player i are the bits of LEFT and RIGHT shifted left by i * PLAYER_BITS. A source that doesn't keep any
+ * state between its samples (as all of these) can be shared by many games that run in parallel (see
+ * TournamentRunner).
+ *
+ * @author Ori Dabush
+ */
+public interface InputSource {
+
+    /**
+     * The bit of the action that moves the paddle left in a mask.
+     */
+    int LEFT = 1;
+    /**
+     * The bit of the action that moves the paddle right in a mask.
+     */
+    int RIGHT = 2;
+    /**
+     * The number of bits of the actions of a player in a mask.
+     */
+    int PLAYER_BITS = 2;
+    /**
+     * The mask of the actions of the first player.
+     */
+    int PLAYER_MASK = LEFT | RIGHT;
+
+    /**
+     * A method to get the actions of the current tick of a game. It is called before the tick is played, so the
+     * game's state is the state after the previous tick.
+     *
+     * @param game the game.
+     * @return the mask of the actions.
+     */
+    int sample(Game game);
+}
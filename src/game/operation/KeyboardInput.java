@@ -0,0 +1,44 @@
+// ID - 212945760
+
+package game.operation;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The KeyboardInput class, an InputSource that reads the arrow keys of a keyboard (the keyboard of a GUI, usually)
+ * as the actions of a player.
+ *
+ * @author Ori Dabush
+ */
+public class KeyboardInput implements InputSource {
+    private KeyboardSensor keyboard;
+    // The position of the player's actions in the mask.
+    private int shift;
+
+    /**
+     * A constructor for the KeyboardInput class, which plays the first player.
+     *
+     * @param keyboard the keyboard.
+     */
+    public KeyboardInput(KeyboardSensor keyboard) {
+        this(keyboard, 0);
+    }
+
+    /**
+     * A constructor for the KeyboardInput class.
+     *
+     * @param keyboard the keyboard.
+     * @param player   the index of the player that the keyboard plays.
+     */
+    public KeyboardInput(KeyboardSensor keyboard, int player) {
+        this.keyboard = keyboard;
+        this.shift = player * PLAYER_BITS;
+    }
+
+    @Override
+    public int sample(Game game) {
+        int actions = (this.keyboard.isPressed(KeyboardSensor.LEFT_KEY) ? LEFT : 0)
+                | (this.keyboard.isPressed(KeyboardSensor.RIGHT_KEY) ? RIGHT : 0);
+        return actions << this.shift;
+    }
+}
@@ -0,0 +1,190 @@
+// ID - 212945760
+
+package game.operation;
+
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LevelBuilder class, which describes a level and writes it in the binary level format (see LevelFile).
+ *
+ * @author Ori Dabush
+ */
+public class LevelBuilder {
+    private int gridX;
+    private int gridY;
+    private int brickWidth;
+    private int brickHeight;
+    private int columns;
+    private int rows;
+    // The cells of the grid (see LevelFile.getCell).
+    private byte[] cells;
+    private List<Color> palette;
+    private int[] paddle;
+    // The records of the walls and the balls, in the order of the file.
+    private List<int[]> walls;
+    private List<int[]> balls;
+
+    /**
+     * A constructor for the LevelBuilder class, which creates a level with an empty grid of bricks.
+     *
+     * @param x           the x value of the upper-left corner of the grid.
+     * @param y           the y value of the upper-left corner of the grid.
+     * @param brickWidth  the width of a brick.
+     * @param brickHeight the height of a brick.
+     * @param columns     the number of columns in the grid.
+     * @param rows        the number of rows in the grid.
+     */
+    public LevelBuilder(int x, int y, int brickWidth, int brickHeight, int columns, int rows) {
+        if (brickWidth <= 0 || brickHeight <= 0 || columns <= 0 || rows <= 0
+                || (long) columns * rows > Integer.MAX_VALUE - LevelFile.HEADER_SIZE) {
+            throw new RuntimeException("invalid grid size!");
+        }
+        this.gridX = x;
+        this.gridY = y;
+        this.brickWidth = brickWidth;
+        this.brickHeight = brickHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = new byte[columns * rows];
+        this.palette = new ArrayList<Color>();
+        this.paddle = new int[]{0, 0, 0, 0, 0, 0};
+        this.walls = new ArrayList<int[]>();
+        this.balls = new ArrayList<int[]>();
+    }
+
+    /**
+     * A method to set the paddle of the level.
+     *
+     * @param r     the rectangle of the paddle (in its start location).
+     * @param speed the speed of the paddle, in pixels per 1/60 of a second.
+     * @param c     the color of the paddle.
+     * @return this builder.
+     */
+    public LevelBuilder setPaddle(Rectangle r, int speed, Color c) {
+        this.paddle = new int[]{(int) r.getX(), (int) r.getY(), (int) r.getWidth(),
+                (int) r.getHeight(), speed, c.getRGB()};
+        return this;
+    }
+
+    /**
+     * A method to add a wall to the level.
+     *
+     * @param r the rectangle of the wall.
+     * @param c the color of the wall.
+     * @return this builder.
+     */
+    public LevelBuilder addWall(Rectangle r, Color c) {
+        this.walls.add(new int[]{(int) r.getX(), (int) r.getY(), (int) r.getWidth(),
+                (int) r.getHeight(), c.getRGB()});
+        return this;
+    }
+
+    /**
+     * A method to add a ball to the level.
+     *
+     * @param startLocation the ball's start location.
+     * @param r             the ball's radius.
+     * @param speed         the ball's speed, in pixels per 1/60 of a second.
+     * @param c             the ball's color.
+     * @return this builder.
+     */
+    public LevelBuilder addBall(Point startLocation, int r, int speed, Color c) {
+        this.balls.add(new int[]{(int) startLocation.getX(), (int) startLocation.getY(), r, speed, c.getRGB()});
+        return this;
+    }
+
+    /**
+     * A method to add a brick to the grid (or change the color of a brick that is already in it).
+     *
+     * @param column the column of the brick.
+     * @param row    the row of the brick.
+     * @param c      the color of the brick.
+     * @return this builder.
+     */
+    public LevelBuilder addBrick(int column, int row, Color c) {
+        if (column < 0 || column >= this.columns || row < 0 || row >= this.rows) {
+            throw new RuntimeException("the brick is outside of the grid!");
+        }
+        int index = this.palette.indexOf(c);
+        if (index < 0) {
+            if (this.palette.size() == LevelFile.MAX_COLORS) {
+                throw new RuntimeException("too many colors in a level!");
+            }
+            index = this.palette.size();
+            this.palette.add(c);
+        }
+        this.cells[row * this.columns + column] = (byte) (index + 1);
+        return this;
+    }
+
+    /**
+     * A method to write the level to a buffer, in the binary level format.
+     *
+     * @return a buffer with the bytes of the level (its position is 0).
+     */
+    public ByteBuffer toBuffer() {
+        long size = LevelFile.HEADER_SIZE + LevelFile.PADDLE_SIZE + (long) this.palette.size() * Integer.BYTES
+                + (long) this.walls.size() * LevelFile.WALL_SIZE + (long) this.balls.size() * LevelFile.BALL_SIZE
+                + this.cells.length;
+        if (size > Integer.MAX_VALUE) {
+            throw new RuntimeException("the level is too large!");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(LevelFile.MAGIC).putInt(LevelFile.VERSION).putInt(this.columns).putInt(this.rows);
+        buffer.putInt(this.gridX).putInt(this.gridY).putInt(this.brickWidth).putInt(this.brickHeight);
+        buffer.putInt(this.palette.size()).putInt(this.walls.size()).putInt(this.balls.size());
+        for (int value : this.paddle) {
+            buffer.putInt(value);
+        }
+        for (Color c : this.palette) {
+            buffer.putInt(c.getRGB());
+        }
+        for (int[] wall : this.walls) {
+            for (int value : wall) {
+                buffer.putInt(value);
+            }
+        }
+        for (int[] ball : this.balls) {
+            for (int value : ball) {
+                buffer.putInt(value);
+            }
+        }
+        buffer.put(this.cells);
+        return buffer.flip();
+    }
+
+    /**
+     * A method to write the level to a file, in the binary level format.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = this.toBuffer();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * A method to create a level from the bytes of this builder, without writing it to a file.
+     *
+     * @return the level.
+     */
+    public LevelFile build() {
+        return new LevelFile(this.toBuffer());
+    }
+}
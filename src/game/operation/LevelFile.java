@@ -0,0 +1,329 @@
+// ID - 212945760
+
+package game.operation;
+
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelFile class, a level in the binary level format, which is read straight from its bytes (usually a
+ * memory-mapped file, see open) without parsing or copying them. All the values are big-endian ints, except for the
+ * brick cells which are bytes:
+ * <pre>
+ * header:  magic ("ARKL"), version, columns, rows, x, y, brick width, brick height (the grid of the bricks),
+ *          palette size, wall count, ball count
+ * paddle:  x, y, width, height, speed, color
+ * palette: palette size colors (RGB)
+ * walls:   wall count walls (x, y, width, height, color)
+ * balls:   ball count spawns (x, y, radius, speed, color)
+ * cells:   columns * rows bytes in rows order - 0 for an empty cell, or 1 + the palette index of the brick's color
+ * </pre>
+ * The speeds are in pixels per 1/60 of a second, as the speeds of Game. LevelBuilder writes levels in this format.
+ *
+ * @author Ori Dabush
+ */
+public class LevelFile {
+
+    /**
+     * The first int of a level file ("ARKL").
+     */
+    public static final int MAGIC = 0x41524B4C;
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The maximal number of colors in the palette (the cells are bytes, and 0 is an empty cell).
+     */
+    public static final int MAX_COLORS = 255;
+
+    // The sizes (in bytes) of the sections and of their records.
+    static final int HEADER_SIZE = 11 * Integer.BYTES;
+    static final int PADDLE_SIZE = 6 * Integer.BYTES;
+    static final int WALL_SIZE = 5 * Integer.BYTES;
+    static final int BALL_SIZE = 5 * Integer.BYTES;
+
+    private ByteBuffer buffer;
+    private int columns;
+    private int rows;
+    private int paletteSize;
+    private int wallCount;
+    private int ballCount;
+    // The offsets of the sections in the buffer.
+    private int paletteOffset;
+    private int wallsOffset;
+    private int ballsOffset;
+    private int cellsOffset;
+
+    /**
+     * A constructor for the LevelFile class, which reads a level from the bytes of a buffer (from its position to its
+     * limit). The buffer is not copied, so it shouldn't be changed while the level is used.
+     *
+     * @param buffer the bytes of the level.
+     */
+    public LevelFile(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        if (this.buffer.remaining() < HEADER_SIZE + PADDLE_SIZE || this.buffer.getInt(0) != MAGIC) {
+            throw new RuntimeException("not a level file!");
+        }
+        if (this.buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new RuntimeException("unsupported level file version " + this.buffer.getInt(Integer.BYTES) + "!");
+        }
+        this.columns = this.header(2);
+        this.rows = this.header(3);
+        this.paletteSize = this.header(8);
+        this.wallCount = this.header(9);
+        this.ballCount = this.header(10);
+        if (this.columns <= 0 || this.rows <= 0 || this.paletteSize < 0 || this.paletteSize > MAX_COLORS
+                || this.wallCount < 0 || this.ballCount < 0 || this.header(6) <= 0 || this.header(7) <= 0) {
+            throw new RuntimeException("invalid level file header!");
+        }
+        this.paletteOffset = HEADER_SIZE + PADDLE_SIZE;
+        long walls = this.paletteOffset + (long) this.paletteSize * Integer.BYTES;
+        long balls = walls + (long) this.wallCount * WALL_SIZE;
+        long cells = balls + (long) this.ballCount * BALL_SIZE;
+        if (cells + (long) this.columns * this.rows != this.buffer.remaining()) {
+            throw new RuntimeException("the size of the level file doesn't match its header!");
+        }
+        this.wallsOffset = (int) walls;
+        this.ballsOffset = (int) balls;
+        this.cellsOffset = (int) cells;
+    }
+
+    /**
+     * A method to open a level file by mapping it to the memory. The level is read from the mapped bytes, so opening
+     * it doesn't read the whole file.
+     *
+     * @param path the path of the level file.
+     * @return the level.
+     * @throws IOException if the file can't be opened or mapped.
+     */
+    public static LevelFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            return new LevelFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * A method to get the bytes of the level, to copy it (into a replay, for example).
+     *
+     * @return a read-only view of the bytes of the level (its position is 0).
+     */
+    public ByteBuffer getBytes() {
+        return this.buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * A method to read an int of the header.
+     *
+     * @param index the index of the int in the header.
+     * @return the int.
+     */
+    private int header(int index) {
+        return this.buffer.getInt(index * Integer.BYTES);
+    }
+
+    /**
+     * A method to read an int of a record.
+     *
+     * @param offset the offset of the record.
+     * @param index  the index of the int in the record.
+     * @return the int.
+     */
+    private int field(int offset, int index) {
+        return this.buffer.getInt(offset + index * Integer.BYTES);
+    }
+
+    /**
+     * An access method to the number of columns of the bricks' grid.
+     *
+     * @return the number of columns.
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * An access method to the number of rows of the bricks' grid.
+     *
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * A method to get the area of the bricks' grid.
+     *
+     * @return the area of the grid.
+     */
+    public Rectangle getGrid() {
+        return new Rectangle(this.header(4), this.header(5), this.header(6) * (double) this.columns,
+                this.header(7) * (double) this.rows);
+    }
+
+    /**
+     * An access method to the width of a brick.
+     *
+     * @return the width of a brick.
+     */
+    public int getBrickWidth() {
+        return this.header(6);
+    }
+
+    /**
+     * An access method to the height of a brick.
+     *
+     * @return the height of a brick.
+     */
+    public int getBrickHeight() {
+        return this.header(7);
+    }
+
+    /**
+     * An access method to the number of colors in the palette.
+     *
+     * @return the number of colors.
+     */
+    public int getPaletteSize() {
+        return this.paletteSize;
+    }
+
+    /**
+     * A method to get a color of the palette.
+     *
+     * @param index the index of the color.
+     * @return the color.
+     */
+    public Color getColor(int index) {
+        return new Color(this.buffer.getInt(this.paletteOffset + index * Integer.BYTES));
+    }
+
+    /**
+     * A method to get a cell of the bricks' grid.
+     *
+     * @param column the column of the cell.
+     * @param row    the row of the cell.
+     * @return 0 if the cell is empty, or 1 + the palette index of the color of its brick.
+     */
+    public int getCell(int column, int row) {
+        return this.buffer.get(this.cellsOffset + row * this.columns + column) & 0xFF;
+    }
+
+    /**
+     * A method to get the rectangle of the paddle (in its start location).
+     *
+     * @return the rectangle of the paddle.
+     */
+    public Rectangle getPaddle() {
+        return new Rectangle(this.field(HEADER_SIZE, 0), this.field(HEADER_SIZE, 1), this.field(HEADER_SIZE, 2),
+                this.field(HEADER_SIZE, 3));
+    }
+
+    /**
+     * An access method to the speed of the paddle.
+     *
+     * @return the speed of the paddle.
+     */
+    public int getPaddleSpeed() {
+        return this.field(HEADER_SIZE, 4);
+    }
+
+    /**
+     * An access method to the color of the paddle.
+     *
+     * @return the color of the paddle.
+     */
+    public Color getPaddleColor() {
+        return new Color(this.field(HEADER_SIZE, 5));
+    }
+
+    /**
+     * An access method to the number of walls.
+     *
+     * @return the number of walls.
+     */
+    public int getWallCount() {
+        return this.wallCount;
+    }
+
+    /**
+     * A method to get the rectangle of a wall.
+     *
+     * @param index the index of the wall.
+     * @return the rectangle of the wall.
+     */
+    public Rectangle getWall(int index) {
+        int offset = this.wallsOffset + index * WALL_SIZE;
+        return new Rectangle(this.field(offset, 0), this.field(offset, 1), this.field(offset, 2),
+                this.field(offset, 3));
+    }
+
+    /**
+     * A method to get the color of a wall.
+     *
+     * @param index the index of the wall.
+     * @return the color of the wall.
+     */
+    public Color getWallColor(int index) {
+        return new Color(this.field(this.wallsOffset + index * WALL_SIZE, 4));
+    }
+
+    /**
+     * An access method to the number of balls.
+     *
+     * @return the number of balls.
+     */
+    public int getBallCount() {
+        return this.ballCount;
+    }
+
+    /**
+     * A method to get the start location of a ball.
+     *
+     * @param index the index of the ball.
+     * @return the start location of the ball.
+     */
+    public Point getBallLocation(int index) {
+        int offset = this.ballsOffset + index * BALL_SIZE;
+        return new Point(this.field(offset, 0), this.field(offset, 1));
+    }
+
+    /**
+     * A method to get the radius of a ball.
+     *
+     * @param index the index of the ball.
+     * @return the radius of the ball.
+     */
+    public int getBallRadius(int index) {
+        return this.field(this.ballsOffset + index * BALL_SIZE, 2);
+    }
+
+    /**
+     * A method to get the speed of a ball.
+     *
+     * @param index the index of the ball.
+     * @return the speed of the ball.
+     */
+    public int getBallSpeed(int index) {
+        return this.field(this.ballsOffset + index * BALL_SIZE, 3);
+    }
+
+    /**
+     * A method to get the color of a ball.
+     *
+     * @param index the index of the ball.
+     * @return the color of the ball.
+     */
+    public Color getBallColor(int index) {
+        return new Color(this.field(this.ballsOffset + index * BALL_SIZE, 4));
+    }
+}
@@ -0,0 +1,145 @@
+// ID - 212945760
+
+package game.operation;
+
+import biuoop.DrawSurface;
+import biuoop.GUI;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The Renderer class, which draws the frames of the game to the GUI on a thread of its own, so drawing and showing
+ * the frames doesn't delay the physics. The simulation thread records the frames into the frame buffer (getFrame)
+ * and publishes them, and the render thread draws the latest published frame - the background layer, which it
+ * keeps up to date with the static sprites that are recorded in the frames (only the areas that changed, once it
+ * has the whole layer), and the moving sprites.
+ *
+ * @author Ori Dabush
+ */
+public class Renderer implements Runnable {
+    // The longest time that the render thread waits for a frame before it checks if it was stopped.
+    private static final long MAX_WAIT_NANOS = 10000000L;
+
+    private GUI gui;
+    private FrameBuffer frames;
+    private BackgroundLayer background;
+    // The version of the static sprites in the background layer (see FrameSnapshot.getBackgroundVersion).
+    private volatile long backgroundVersion;
+    private volatile boolean running;
+    private Thread thread;
+    // The stats that the latencies of drawing the frames are recorded in.
+    private FrameStats stats;
+
+    /**
+     * A constructor for the Renderer class.
+     *
+     * @param gui    the GUI to draw the frames to.
+     * @param width  the width of the frames.
+     * @param height the height of the frames.
+     * @param stats  the stats that the latencies of the background, drawing and showing phases are recorded in.
+     */
+    public Renderer(GUI gui, int width, int height, FrameStats stats) {
+        this.gui = gui;
+        this.stats = stats;
+        this.frames = new FrameBuffer(width, height);
+        this.background = new BackgroundLayer(width, height);
+        this.backgroundVersion = -1;
+        this.running = false;
+        this.thread = null;
+    }
+
+    /**
+     * A method to start the render thread.
+     */
+    public void start() {
+        if (this.thread != null) {
+            throw new RuntimeException("the renderer was already started!");
+        }
+        this.running = true;
+        this.thread = new Thread(this, "render");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * A method to stop the render thread, and wait until it finishes drawing its current frame.
+     */
+    public void stop() {
+        this.running = false;
+        if (this.thread == null) {
+            return;
+        }
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A method to get the frame to record the next frame of the game into. It should be called by the simulation
+     * thread only.
+     *
+     * @return the frame.
+     */
+    public FrameSnapshot getFrame() {
+        return this.frames.getBack();
+    }
+
+    /**
+     * A method to publish the frame that was recorded (see getFrame) to the render thread. It should be called by
+     * the simulation thread only.
+     */
+    public void publish() {
+        this.frames.publish();
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    /**
+     * An access method to the version of the static sprites that the render thread has in its background layer.
+     * The frames should contain the static sprites as long as it is not their current version.
+     *
+     * @return the version of the static sprites in the background layer, or -1 if there are none yet.
+     */
+    public long getBackgroundVersion() {
+        return this.backgroundVersion;
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            FrameSnapshot frame = this.frames.takeLatest();
+            if (frame == null) {
+                LockSupport.parkNanos(MAX_WAIT_NANOS);
+                continue;
+            }
+            long start = System.nanoTime();
+            if (frame.hasBackground() && frame.getBackgroundVersion() != this.backgroundVersion) {
+                if (!frame.isBackgroundChange()) {
+                    this.background.redraw(frame.getStaticSprites());
+                    this.backgroundVersion = frame.getBackgroundVersion();
+                } else if (this.backgroundVersion >= frame.getBaseVersion()) {
+                    // Only the area that changed since a version that the layer has is drawn again.
+                    this.background.redraw(frame.getStaticSprites(), frame.getChangedArea());
+                    this.backgroundVersion = frame.getBackgroundVersion();
+                }
+            }
+            if (this.backgroundVersion < 0) {
+                // The background wasn't recorded yet, so there is nothing to draw the moving sprites on.
+                continue;
+            }
+            DrawSurface d = this.gui.getDrawSurface();
+            this.background.drawOn(d);
+            long drawStart = System.nanoTime();
+            frame.getMovingSprites().replayOn(d);
+            long showStart = System.nanoTime();
+            this.gui.show(d);
+            this.stats.record(FrameStats.BACKGROUND, drawStart - start);
+            this.stats.record(FrameStats.DRAW, showStart - drawStart);
+            this.stats.record(FrameStats.SHOW, System.nanoTime() - showStart);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+// ID - 212945760
+
+package game.operation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Replay class, a recording of a game - everything that the game depends on (the seed of its random generator,
+ * its physics rate and kind, its number of players and its level) and the input of every tick (see InputLog), so
+ * playing the input again reproduces the game exactly. Every keyframeInterval ticks a full state of the game is kept
+ * as a keyframe (see GameState), so a player can get to any tick by restoring the keyframe before it and playing only
+ * the ticks after the keyframe (see ReplayPlayer).
+ *
+ * @author Ori Dabush
+ */
+public class Replay {
+
+    /**
+     * The default number of ticks between two keyframes (10 seconds in the default physics rate).
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 600;
+
+    // The first int of a replay file ("ARKR"), and the version of the format.
+    private static final int MAGIC = 0x41524B52;
+    private static final int VERSION = 4;
+
+    private long seed;
+    private int physicsRate;
+    private boolean fixedPointPhysics;
+    private int players;
+    // The bytes of the level (see LevelFile).
+    private ByteBuffer level;
+    private int keyframeInterval;
+    private InputLog input;
+    private List<GameState> keyframes;
+    // The number of ticks and the score at the end of the game, or -1 if the game didn't end.
+    private long finalTick;
+    private int finalScore;
+
+    /**
+     * A constructor for the Replay class, which creates an empty recording.
+     *
+     * @param seed             the seed of the game's random generator.
+     * @param physicsRate      the number of physics steps per second of the game.
+     * @param fixedPoint       whether the game uses the fixed-point physics (see Game.setFixedPointPhysics).
+     * @param players          the number of players of the game (see Game.setPlayers).
+     * @param level            the bytes of the game's level (see LevelFile).
+     * @param keyframeInterval the number of ticks between two keyframes.
+     */
+    public Replay(long seed, int physicsRate, boolean fixedPoint, int players, ByteBuffer level,
+                  int keyframeInterval) {
+        if (keyframeInterval <= 0) {
+            throw new RuntimeException("invalid keyframe interval!");
+        }
+        this.seed = seed;
+        this.physicsRate = physicsRate;
+        this.fixedPointPhysics = fixedPoint;
+        this.players = players;
+        this.level = level.asReadOnlyBuffer();
+        this.keyframeInterval = keyframeInterval;
+        this.input = new InputLog();
+        this.keyframes = new ArrayList<GameState>();
+        this.finalTick = -1;
+        this.finalScore = 0;
+    }
+
+    /**
+     * A method to record a tick of a game, before the tick is played - a keyframe (every keyframeInterval ticks),
+     * and the input of the tick.
+     *
+     * @param game the game.
+     * @param mask the mask of the actions of the tick (see InputSource).
+     */
+    void record(Game game, int mask) {
+        if (game.getTick() != this.input.getTicks()) {
+            throw new RuntimeException("the ticks of the game weren't all recorded!");
+        }
+        if (game.getTick() % this.keyframeInterval == 0) {
+            GameState keyframe = new GameState();
+            keyframe.capture(game);
+            this.keyframes.add(keyframe);
+        }
+        this.input.append(mask);
+    }
+
+    /**
+     * A method to record the end of a game.
+     *
+     * @param game the game.
+     */
+    void finish(Game game) {
+        this.finalTick = game.getTick();
+        this.finalScore = game.getScore();
+    }
+
+    /**
+     * An access method to the seed of the game's random generator.
+     *
+     * @return the seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * An access method to the number of physics steps per second of the game.
+     *
+     * @return the physics rate.
+     */
+    public int getPhysicsRate() {
+        return this.physicsRate;
+    }
+
+    /**
+     * A method to check whether the game uses the fixed-point physics.
+     *
+     * @return true if it uses the fixed-point physics, false otherwise.
+     */
+    public boolean isFixedPointPhysics() {
+        return this.fixedPointPhysics;
+    }
+
+    /**
+     * An access method to the number of players of the game.
+     *
+     * @return the number of players.
+     */
+    public int getPlayers() {
+        return this.players;
+    }
+
+    /**
+     * An access method to the level of the game.
+     *
+     * @return the level.
+     */
+    public LevelFile getLevel() {
+        return new LevelFile(this.level.duplicate());
+    }
+
+    /**
+     * An access method to the input of the game.
+     *
+     * @return the input log.
+     */
+    public InputLog getInput() {
+        return this.input;
+    }
+
+    /**
+     * A method to find the last keyframe before a tick (or in it).
+     *
+     * @param tick the tick.
+     * @return the keyframe, or null if there is none.
+     */
+    public GameState keyframeAt(long tick) {
+        int low = 0, high = this.keyframes.size() - 1;
+        GameState found = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.keyframes.get(middle).getTick() <= tick) {
+                found = this.keyframes.get(middle);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * An access method to the number of keyframes.
+     *
+     * @return the number of keyframes.
+     */
+    public int getKeyframeCount() {
+        return this.keyframes.size();
+    }
+
+    /**
+     * An access method to the number of ticks that the game lasted.
+     *
+     * @return the number of ticks, or -1 if the game didn't end.
+     */
+    public long getFinalTick() {
+        return this.finalTick;
+    }
+
+    /**
+     * An access method to the score at the end of the game.
+     *
+     * @return the final score.
+     */
+    public int getFinalScore() {
+        return this.finalScore;
+    }
+
+    /**
+     * A method to write the replay to a file.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.seed);
+            out.writeInt(this.physicsRate);
+            out.writeBoolean(this.fixedPointPhysics);
+            out.writeInt(this.players);
+            out.writeInt(this.keyframeInterval);
+            ByteBuffer bytes = this.level.duplicate();
+            out.writeInt(bytes.remaining());
+            while (bytes.hasRemaining()) {
+                out.writeByte(bytes.get());
+            }
+            this.input.write(out);
+            out.writeInt(this.keyframes.size());
+            for (GameState keyframe : this.keyframes) {
+                keyframe.write(out);
+            }
+            out.writeLong(this.finalTick);
+            out.writeInt(this.finalScore);
+        }
+    }
+
+    /**
+     * A method to read a replay from a file that was written by write.
+     *
+     * @param path the path of the file.
+     * @return the replay.
+     * @throws IOException if the file can't be read.
+     */
+    public static Replay read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new RuntimeException("not a replay file!");
+            }
+            if (in.readInt() != VERSION) {
+                throw new RuntimeException("unsupported replay file version!");
+            }
+            long seed = in.readLong();
+            int physicsRate = in.readInt();
+            boolean fixedPoint = in.readBoolean();
+            int players = in.readInt();
+            int keyframeInterval = in.readInt();
+            int levelSize = in.readInt();
+            if (levelSize < 0) {
+                throw new RuntimeException("invalid replay file!");
+            }
+            byte[] level = new byte[levelSize];
+            in.readFully(level);
+            Replay replay = new Replay(seed, physicsRate, fixedPoint, players, ByteBuffer.wrap(level),
+                    keyframeInterval);
+            replay.input = InputLog.read(in);
+            int keyframes = in.readInt();
+            for (int i = 0; i < keyframes; i++) {
+                replay.keyframes.add(GameState.read(in));
+            }
+            replay.finalTick = in.readLong();
+            replay.finalScore = in.readInt();
+            return replay;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The ReplayInput class, an InputSource that plays the input of a recorded game (see Replay) by the ticks of the
+ * game, so it follows a game that jumps to a keyframe (see ReplayPlayer).
+ *
+ * @author Ori Dabush
+ */
+public class ReplayInput implements InputSource {
+    private InputLog log;
+
+    /**
+     * A constructor for the ReplayInput class.
+     *
+     * @param log the recorded input.
+     */
+    public ReplayInput(InputLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public int sample(Game game) {
+        return this.log.maskAt(game.getTick());
+    }
+}
@@ -0,0 +1,61 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The ReplayPlayer class, which plays a replay from any tick - it restores the last keyframe before the tick (see
+ * GameState) and re-simulates only the ticks after the keyframe, headless and as fast as possible.
+ *
+ * @author Ori Dabush
+ */
+public class ReplayPlayer {
+    private Replay replay;
+
+    /**
+     * A constructor for the ReplayPlayer class.
+     *
+     * @param replay the replay to play.
+     */
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * A method to create a game of the replay in a given tick. The game can then be run (with run or runHeadless)
+     * to play the rest of the replay.
+     *
+     * @param tick    the tick to seek to (the game stops earlier if the replay ends before it).
+     * @param withGui true to create the game with a GUI, false to create a headless game.
+     * @return the game, after the given number of ticks were played.
+     */
+    public Game seek(long tick, boolean withGui) {
+        Game game = new Game();
+        game.setReplay(this.replay);
+        if (withGui) {
+            game.initialize();
+        } else {
+            game.initializeHeadless(null);
+        }
+        GameState keyframe = this.replay.keyframeAt(tick);
+        if (keyframe != null) {
+            keyframe.restore(game);
+        }
+        if (tick > game.getTick()) {
+            game.runHeadless(tick - game.getTick());
+        }
+        return game;
+    }
+
+    /**
+     * A method to re-simulate the whole replay headless, from its first tick.
+     *
+     * @return the game, after the replay was played to its end.
+     */
+    public Game playToEnd() {
+        Game game = new Game();
+        game.setReplay(this.replay);
+        game.initializeHeadless(null);
+        game.runHeadless(this.replay.getInput().getTicks());
+        return game;
+    }
+}
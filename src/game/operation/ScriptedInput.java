@@ -0,0 +1,49 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The ScriptedInput class, an InputSource that plays a fixed script - a list of actions and the number of ticks that
+ * each of them is held for, from the first tick of the game. When the script ends, the paddle stays still, or the
+ * script starts over if it loops. An empty script is a player that never moves.
+ *
+ * @author Ori Dabush
+ */
+public class ScriptedInput implements InputSource {
+    private InputLog script;
+    private boolean loop;
+
+    /**
+     * A constructor for the ScriptedInput class, which creates an empty script.
+     *
+     * @param loop whether the script starts over when it ends.
+     */
+    public ScriptedInput(boolean loop) {
+        this.script = new InputLog();
+        this.loop = loop;
+    }
+
+    /**
+     * A method to add an action to the end of the script. The script shouldn't be changed while a game plays it.
+     *
+     * @param mask  the mask of the action (see InputSource.LEFT and InputSource.RIGHT).
+     * @param ticks the number of ticks that the action is held for.
+     */
+    public void add(int mask, int ticks) {
+        if (ticks < 0) {
+            throw new RuntimeException("invalid number of ticks!");
+        }
+        for (int i = 0; i < ticks; i++) {
+            this.script.append(mask);
+        }
+    }
+
+    @Override
+    public int sample(Game game) {
+        long tick = game.getTick(), length = this.script.getTicks();
+        if (this.loop && length > 0) {
+            tick %= length;
+        }
+        return this.script.maskAt(tick);
+    }
+}
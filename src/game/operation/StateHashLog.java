@@ -0,0 +1,189 @@
+// ID - 212945760
+
+package game.operation;
+
+import extras.Hashing;
+import game.events.BrickField;
+import game.objects.Ball;
+import game.objects.Paddle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The StateHashLog class, the hashes of the states of a game after each of its ticks. A hash covers everything that
+ * a GameState keeps - the tick, the state of the random generator, the counters, the paddles, the balls that are in
+ * the game (by their ids) and the bricks (their hash is kept by the BrickField, so it costs O(1)) - so two runs of
+ * the same game (serial and parallel, or on two machines) can be compared tick by tick, to find the first tick in
+ * which they diverged.
+ *
+ * @author Ori Dabush
+ */
+public class StateHashLog {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The tick of the state of the first hash.
+    private long firstTick;
+    private long[] hashes;
+    private int size;
+    // A reusable array for the states of the paddle and the balls.
+    private double[] scratch;
+
+    /**
+     * A constructor for the StateHashLog class, which creates an empty log.
+     *
+     * @param firstTick the tick of the state of the first hash (the number of ticks that were played before it).
+     */
+    public StateHashLog(long firstTick) {
+        this.firstTick = firstTick;
+        this.hashes = new long[INITIAL_CAPACITY];
+        this.size = 0;
+        this.scratch = new double[Math.max(Ball.STATE_SIZE, Paddle.STATE_SIZE)];
+    }
+
+    /**
+     * A method to add the hash of the current state of a game to the log.
+     *
+     * @param game the game (between two ticks).
+     */
+    void record(Game game) {
+        if (game.getTick() != this.firstTick + this.size) {
+            throw new RuntimeException("the states of the game weren't all hashed!");
+        }
+        if (this.size == this.hashes.length) {
+            this.hashes = Arrays.copyOf(this.hashes, 2 * this.hashes.length);
+        }
+        this.hashes[this.size++] = this.hashOf(game);
+    }
+
+    /**
+     * A method to compute the hash of the current state of a game.
+     *
+     * @param game the game (between two ticks).
+     * @return the hash of the state.
+     */
+    private long hashOf(Game game) {
+        long h = Hashing.mix(game.getTick());
+        h = Hashing.combine(h, game.getRandom().getState());
+        h = Hashing.combine(h, game.getScore());
+        h = Hashing.combine(h, game.getRemainingBlocks().getValue());
+        h = Hashing.combine(h, game.getRemainingBalls().getValue());
+        for (int player = 0; player < game.getPaddleCount(); player++) {
+            game.getPaddle(player).saveState(this.scratch, 0);
+            for (int i = 0; i < Paddle.STATE_SIZE; i++) {
+                h = Hashing.combine(h, this.scratch[i]);
+            }
+        }
+        for (int id = 0; id < game.getBallCount(); id++) {
+            Ball ball = game.getBall(id);
+            if (!game.containsSprite(ball)) {
+                continue;
+            }
+            h = Hashing.combine(h, id);
+            ball.saveState(this.scratch, 0);
+            for (int i = 0; i < Ball.STATE_SIZE; i++) {
+                h = Hashing.combine(h, this.scratch[i]);
+            }
+        }
+        BrickField field = game.getBrickField();
+        if (field != null) {
+            h = Hashing.combine(h, field.getStateHash());
+        }
+        return h;
+    }
+
+    /**
+     * An access method to the tick of the state of the first hash.
+     *
+     * @return the first tick of the log.
+     */
+    public long getFirstTick() {
+        return this.firstTick;
+    }
+
+    /**
+     * A method to get the tick after the last hash of the log.
+     *
+     * @return the end tick of the log.
+     */
+    public long getEndTick() {
+        return this.firstTick + this.size;
+    }
+
+    /**
+     * A method to get the hash of the state of a tick.
+     *
+     * @param tick the tick (the number of ticks that were played before the state).
+     * @return the hash of the state.
+     */
+    public long get(long tick) {
+        if (tick < this.firstTick || tick >= this.getEndTick()) {
+            throw new RuntimeException("the tick is not in the log!");
+        }
+        return this.hashes[(int) (tick - this.firstTick)];
+    }
+
+    /**
+     * A method to find the first tick in which the states of two logs differ. Only the ticks that are in both logs
+     * are compared, and if all of them are equal but one log ends before the other, the end of the shorter log is
+     * the first difference.
+     *
+     * @param other the other log.
+     * @return the first tick in which the logs differ, or -1 if they are equal.
+     */
+    public long firstDivergence(StateHashLog other) {
+        long from = Math.max(this.firstTick, other.firstTick);
+        long to = Math.min(this.getEndTick(), other.getEndTick());
+        for (long tick = from; tick < to; tick++) {
+            if (this.get(tick) != other.get(tick)) {
+                return tick;
+            }
+        }
+        return this.getEndTick() == other.getEndTick() ? -1 : to;
+    }
+
+    /**
+     * A method to write the log to a file, to compare it with a log of another machine.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(this.firstTick);
+            out.writeInt(this.size);
+            for (int i = 0; i < this.size; i++) {
+                out.writeLong(this.hashes[i]);
+            }
+        }
+    }
+
+    /**
+     * A method to read a log from a file that was written by write.
+     *
+     * @param path the path of the file.
+     * @return the log.
+     * @throws IOException if the file can't be read.
+     */
+    public static StateHashLog read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            StateHashLog log = new StateHashLog(in.readLong());
+            int size = in.readInt();
+            if (size < 0) {
+                throw new RuntimeException("invalid state hash file!");
+            }
+            log.hashes = new long[Math.max(size, 1)];
+            for (int i = 0; i < size; i++) {
+                log.hashes[i] = in.readLong();
+            }
+            log.size = size;
+            return log;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+// ID - 212945760
+
+package game.operation;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The TickKeyboard class, the keyboard as the game sees it in a tick - the actions that move the paddle, as a bitmask
+ * (see InputSource) that the game sets once at the start of every tick. The sprites read the actions from it instead
+ * of the input source, so the input of every tick can be recorded and replayed (see InputLog). It is a
+ * KeyboardSensor too, in which the arrow keys are pressed by the actions.
+ *
+ * @author Ori Dabush
+ */
+public class TickKeyboard implements KeyboardSensor {
+    private volatile int mask;
+
+    /**
+     * A constructor for the TickKeyboard class, which creates a keyboard with no actions.
+     */
+    public TickKeyboard() {
+        this.mask = 0;
+    }
+
+    /**
+     * A method to set the actions of the current tick.
+     *
+     * @param newMask the mask of the actions.
+     */
+    public void setMask(int newMask) {
+        this.mask = newMask;
+    }
+
+    /**
+     * An access method to the actions of the current tick.
+     *
+     * @return the mask of the actions.
+     */
+    public int getMask() {
+        return this.mask;
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (this.mask & InputSource.LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (this.mask & InputSource.RIGHT) != 0;
+        }
+        return false;
+    }
+}
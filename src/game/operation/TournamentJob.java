@@ -0,0 +1,80 @@
+// ID - 212945760
+
+package game.operation;
+
+/**
+ * The TournamentJob class, a game that a TournamentRunner plays - a level, a seed and a controller.
+ *
+ * @author Ori Dabush
+ */
+public class TournamentJob {
+    // The level, or null for the built-in level.
+    private LevelFile level;
+    private long seed;
+    private String controllerName;
+    private InputSource controller;
+    // The maximal number of ticks of the game, or a negative number to play until the game ends.
+    private long maxTicks;
+
+    /**
+     * A constructor for the TournamentJob class.
+     *
+     * @param level          the level of the game, or null for the built-in level.
+     * @param seed           the seed of the game's random generator.
+     * @param controllerName the name of the controller, for the results.
+     * @param controller     the input of the paddle (it may be shared by games that run in parallel).
+     * @param maxTicks       the maximal number of ticks of the game, or a negative number to play until it ends.
+     */
+    public TournamentJob(LevelFile level, long seed, String controllerName, InputSource controller, long maxTicks) {
+        this.level = level;
+        this.seed = seed;
+        this.controllerName = controllerName;
+        this.controller = controller;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * An access method to the level of the game.
+     *
+     * @return the level, or null for the built-in level.
+     */
+    public LevelFile getLevel() {
+        return this.level;
+    }
+
+    /**
+     * An access method to the seed of the game's random generator.
+     *
+     * @return the seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * An access method to the name of the controller.
+     *
+     * @return the name of the controller.
+     */
+    public String getControllerName() {
+        return this.controllerName;
+    }
+
+    /**
+     * An access method to the player of the game.
+     *
+     * @return the controller.
+     */
+    public InputSource getController() {
+        return this.controller;
+    }
+
+    /**
+     * An access method to the maximal number of ticks of the game.
+     *
+     * @return the maximal number of ticks, or a negative number to play until the game ends.
+     */
+    public long getMaxTicks() {
+        return this.maxTicks;
+    }
+}
@@ -0,0 +1,206 @@
+// ID - 212945760
+
+package game.operation;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The TournamentRunner class, which plays many headless games (see TournamentJob) on all the cores. Every game is a
+ * Game of its own, which is simulated without drawing (see Game.simulate) on a thread of a fixed pool. The pool's
+ * queue is bounded, so the jobs are handed to the pool as it gets to them (when the queue is full, the thread that
+ * runs the tournament plays a game itself). The results stream to a GameResultListener as the games end. The games
+ * have no stats (see Game.getStats), so the threads don't write to shared counters on every tick.
+ *
+ * @author Ori Dabush
+ */
+public class TournamentRunner {
+    // The number of jobs that wait in the pool's queue for every thread.
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private int threads;
+
+    /**
+     * A constructor for the TournamentRunner class.
+     *
+     * @param threads the number of threads that play the games.
+     */
+    public TournamentRunner(int threads) {
+        if (threads <= 0) {
+            throw new RuntimeException("invalid number of threads!");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * A method to play the games of a tournament, and wait until all of them end.
+     *
+     * @param jobs     the games.
+     * @param listener the listener that gets the results of the games as they end.
+     * @return a summary of the tournament.
+     */
+    public Summary run(List<TournamentJob> jobs, GameResultListener listener) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_PER_THREAD * this.threads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicLong ticks = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < jobs.size(); i++) {
+                if (failure.get() != null) {
+                    break;
+                }
+                pool.execute(new GameTask(i, jobs.get(i), listener, ticks, failure));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                continue;
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("the tournament was interrupted!", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new Summary(jobs.size(), ticks.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * A method to play a single game of a tournament.
+     *
+     * @param index the index of the job.
+     * @param job   the job.
+     * @return the result of the game.
+     */
+    private GameResult play(int index, TournamentJob job) {
+        Game game = new Game();
+        game.setSeed(job.getSeed());
+        if (job.getLevel() != null) {
+            // Every game reads the level through a view of its own, since buffers are not thread-safe.
+            game.setLevel(new LevelFile(job.getLevel().getBytes()));
+        }
+        game.initializeHeadless(job.getController());
+        long start = System.nanoTime();
+        long ticks = game.simulate(job.getMaxTicks());
+        return new GameResult(index, job, game, ticks, System.nanoTime() - start);
+    }
+
+    /**
+     * The task of a game of the tournament.
+     */
+    private final class GameTask implements Runnable {
+        private int index;
+        private TournamentJob job;
+        private GameResultListener listener;
+        private AtomicLong ticks;
+        private AtomicReference<RuntimeException> failure;
+
+        /**
+         * A constructor for the GameTask class.
+         *
+         * @param index    the index of the job.
+         * @param job      the job.
+         * @param listener the listener of the results.
+         * @param ticks    the counter of the ticks of the tournament.
+         * @param failure  the first failure of a game of the tournament.
+         */
+        private GameTask(int index, TournamentJob job, GameResultListener listener, AtomicLong ticks,
+                         AtomicReference<RuntimeException> failure) {
+            this.index = index;
+            this.job = job;
+            this.listener = listener;
+            this.ticks = ticks;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            if (this.failure.get() != null) {
+                return;
+            }
+            try {
+                GameResult result = play(this.index, this.job);
+                this.ticks.addAndGet(result.getTicks());
+                synchronized (this.listener) {
+                    this.listener.gameEnded(result);
+                }
+            } catch (RuntimeException e) {
+                this.failure.compareAndSet(null, new RuntimeException("game " + this.index + " failed!", e));
+            }
+        }
+    }
+
+    /**
+     * The Summary class, the throughput of a tournament.
+     */
+    public static final class Summary {
+        private int games;
+        private long ticks;
+        private long nanos;
+
+        /**
+         * A constructor for the Summary class.
+         *
+         * @param games the number of games that were played.
+         * @param ticks the number of ticks of all the games.
+         * @param nanos the time it took to play all the games, in nanoseconds.
+         */
+        private Summary(int games, long ticks, long nanos) {
+            this.games = games;
+            this.ticks = ticks;
+            this.nanos = nanos;
+        }
+
+        /**
+         * An access method to the number of games that were played.
+         *
+         * @return the number of games.
+         */
+        public int getGames() {
+            return this.games;
+        }
+
+        /**
+         * An access method to the number of ticks of all the games.
+         *
+         * @return the number of ticks.
+         */
+        public long getTicks() {
+            return this.ticks;
+        }
+
+        /**
+         * An access method to the number of games that were played per second.
+         *
+         * @return the throughput in games per second.
+         */
+        public double getGamesPerSecond() {
+            return this.games / (this.nanos / 1e9);
+        }
+
+        /**
+         * An access method to the number of ticks that were played per second.
+         *
+         * @return the throughput in ticks per second.
+         */
+        public double getTicksPerSecond() {
+            return this.ticks / (this.nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games, %d ticks in %.3f seconds: %.1f games/second, %.0f ticks/second",
+                    this.games, this.ticks, this.nanos / 1e9, this.getGamesPerSecond(), this.getTicksPerSecond());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// ID - 212945760
+
+package game.operation;
+
+import game.objects.Ball;
+import game.objects.Paddle;
+import geometry.Rectangle;
+import geometry.Velocity;
+
+/**
+ * The TrackingBot class, an InputSource that plays the game by itself - it tracks the nearest ball that falls toward
+ * the paddle, and moves the paddle under the place where the ball will reach the paddle's height (it folds the
+ * ball's straight path at the side borders, and ignores the bricks). When no ball falls, the paddle follows the
+ * nearest ball. The bot plays one player (of a game of several players, see Game.setPlayers), and keeps no state
+ * between its samples.
+ *
+ * @author Ori Dabush
+ */
+public class TrackingBot implements InputSource {
+    // The part of the paddle's width around its center that the target may be in without moving the paddle.
+    private static final double TOLERANCE = 0.25;
+
+    private int player;
+
+    /**
+     * A constructor for the TrackingBot class, which plays the first player.
+     */
+    public TrackingBot() {
+        this(0);
+    }
+
+    /**
+     * A constructor for the TrackingBot class.
+     *
+     * @param player the index of the player that the bot plays.
+     */
+    public TrackingBot(int player) {
+        this.player = player;
+    }
+
+    @Override
+    public int sample(Game game) {
+        return this.actions(game) << (this.player * PLAYER_BITS);
+    }
+
+    /**
+     * A method to choose the actions of the bot's player.
+     *
+     * @param game the game.
+     * @return the actions (as the actions of the first player).
+     */
+    private int actions(Game game) {
+        Paddle paddle = game.getPaddle(this.player);
+        if (paddle == null) {
+            return 0;
+        }
+        Rectangle r = paddle.getCollisionRectangle();
+        double top = r.getY();
+        Ball tracked = null;
+        boolean falling = false;
+        double nearest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < game.getBallCount(); i++) {
+            Ball ball = game.getBall(i);
+            if (!game.containsSprite(ball)) {
+                continue;
+            }
+            boolean down = ball.getVelocity().getDy() > 0;
+            double distance = Math.abs(top - ball.getY());
+            // a falling ball is always preferred to a rising one.
+            if ((down && !falling) || (down == falling && distance < nearest)) {
+                tracked = ball;
+                falling = down;
+                nearest = distance;
+            }
+        }
+        if (tracked == null) {
+            return 0;
+        }
+        double target = falling ? landing(tracked, top) : tracked.getX();
+        double center = r.getX() + r.getWidth() / 2;
+        if (target < center - TOLERANCE * r.getWidth()) {
+            return LEFT;
+        }
+        if (target > center + TOLERANCE * r.getWidth()) {
+            return RIGHT;
+        }
+        return 0;
+    }
+
+    /**
+     * A method to predict the x value in which a falling ball reaches a height, by folding its straight path at the
+     * side borders of the game.
+     *
+     * @param ball   the ball.
+     * @param height the height (the y value).
+     * @return the predicted x value.
+     */
+    private static double landing(Ball ball, double height) {
+        Velocity v = ball.getVelocity();
+        double low = Game.SIDE_BORDER_SIZE + ball.getSize();
+        double width = Game.WIDTH - Game.SIDE_BORDER_SIZE - ball.getSize() - low;
+        if (width <= 0 || ball.getY() >= height) {
+            return ball.getX();
+        }
+        double x = ball.getX() + v.getDx() * (height - ball.getSize() - ball.getY()) / v.getDy();
+        double folded = (x - low) % (2 * width);
+        if (folded < 0) {
+            folded += 2 * width;
+        }
+        return low + (folded > width ? 2 * width - folded : folded);
+    }
+}
@@ -0,0 +1,82 @@
+// ID - 212945760
+
+package geometry;
+
+/**
+ * The Fixed class, the arithmetic of the fixed-point physics - a fixed-point value is a long that holds its value
+ * times 2^FRACTION_BITS (1/65536 of a pixel). Fixed-point values are added and compared as integers, so they are
+ * exact and need no epsilon, and every operation gives the same result on every machine.
+ *
+ * @author Ori Dabush
+ */
+public class Fixed {
+
+    /**
+     * The number of bits of the fraction of a fixed-point value.
+     */
+    public static final int FRACTION_BITS = 16;
+    /**
+     * The fixed-point value of 1.
+     */
+    public static final long ONE = 1L << FRACTION_BITS;
+
+    /**
+     * A method to convert a double to the closest fixed-point value.
+     *
+     * @param value the double.
+     * @return the fixed-point value.
+     */
+    public static long fromDouble(double value) {
+        return Math.round(value * ONE);
+    }
+
+    /**
+     * A method to convert a fixed-point value to a double (exactly, for values smaller than 2^37).
+     *
+     * @param value the fixed-point value.
+     * @return the double.
+     */
+    public static double toDouble(long value) {
+        return (double) value / ONE;
+    }
+
+    /**
+     * A method to multiply two fixed-point values (the result is rounded down).
+     *
+     * @param a the first value.
+     * @param b the second value.
+     * @return the product.
+     */
+    public static long multiply(long a, long b) {
+        return (a * b) >> FRACTION_BITS;
+    }
+
+    /**
+     * A method to divide two integers into a fixed-point value (the result is rounded down).
+     *
+     * @param numerator   the numerator (smaller than 2^47 in absolute value).
+     * @param denominator the denominator (positive).
+     * @return the fixed-point value of the quotient.
+     */
+    public static long divide(long numerator, long denominator) {
+        return Math.floorDiv(numerator << FRACTION_BITS, denominator);
+    }
+
+    /**
+     * A method to find the square root of an integer, rounded up.
+     *
+     * @param value the integer (not negative).
+     * @return the smallest integer whose square is not smaller than the value.
+     */
+    public static long sqrtCeil(long value) {
+        long root = (long) Math.sqrt((double) value);
+        // The double root can be off by one, so it is corrected with exact integer checks.
+        while (root > 0 && (root - 1) * (root - 1) >= value) {
+            root--;
+        }
+        while (root * root < value) {
+            root++;
+        }
+        return root;
+    }
+}
@@ -4,8 +4,6 @@ package geometry;
 
 import extras.Compare;
 
-import java.util.List;
-
 /**
  * geometry.Line class - A line (actually a line-segment) connects two points -- a start point and an end point.
  * Lines have lengths, and may intersect with other lines. It can also tell if it is the same as another line segment.
@@ -14,6 +12,22 @@ import java.util.List;
  */
 public class Line {
 
+    /**
+     * The square of the epsilon that is used to compare double values (in extras.Compare).
+     */
+    private static final double SQUARED_EPSILON = Math.pow(10, -16);
+
+    /**
+     * The reusable arrays of the calls to the intersection kernel, for every thread (the lines are also used by the
+     * physics threads).
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
     /**
      * The start and end points of the line.
      */
@@ -83,83 +97,188 @@ public class Line {
     }
 
     /**
-     * A method that finds the current line's slope, if it doesn't have a slope (x=5 for example), it returns null.
+     * A method to write the values of the line as a segment of the intersection kernel.
      *
-     * @return the slope of the current line.
+     * @param out an array of (at least) 4 values that {x1, y1, x2, y2} will be written to.
+     * @return the array.
      */
-    private Double slope() {
-        if (this.start == null || this.end == null) {
-            return null;
-        }
-        if (Compare.cmpDouble(this.start.getX(), this.end.getX())) {
-            return null;
-        }
-        return (this.start.getY() - this.end.getY()) / (this.start.getX() - this.end.getX());
+    private double[] segment(double[] out) {
+        out[0] = this.start.getX();
+        out[1] = this.start.getY();
+        out[2] = this.end.getX();
+        out[3] = this.end.getY();
+        return out;
+    }
+
+    /**
+     * A method to calculate the cross product of two vectors.
+     *
+     * @param x1 the x value of the first vector.
+     * @param y1 the y value of the first vector.
+     * @param x2 the x value of the second vector.
+     * @param y2 the y value of the second vector.
+     * @return the cross product of the vectors.
+     */
+    private static double cross(double x1, double y1, double x2, double y2) {
+        return x1 * y2 - y1 * x2;
+    }
+
+    /**
+     * A method to check if a point is close enough (by epsilon) to the infinite line of a segment, using the
+     * orientation of the point relative to the segment.
+     *
+     * @param s the segment, {x1, y1, x2, y2}.
+     * @param x the x value of the point.
+     * @param y the y value of the point.
+     * @return true if the point is on the line of the segment, false otherwise.
+     */
+    private static boolean isOnLineOf(double[] s, double x, double y) {
+        double rx = s[2] - s[0], ry = s[3] - s[1];
+        double orientation = cross(rx, ry, x - s[0], y - s[1]);
+        return orientation * orientation <= SQUARED_EPSILON * (rx * rx + ry * ry);
     }
 
     /**
-     * A method that checks if the point is in the range of the line.
+     * A method to check if a point is in the bounding box of a segment (with an epsilon tolerance).
      *
-     * @param p the point we would like to check
+     * @param s the segment, {x1, y1, x2, y2}.
+     * @param x the x value of the point.
+     * @param y the y value of the point.
      * @return true if it is in the range, false otherwise.
      */
-    private boolean isPointInRange(Point p) {
-        if (p == null || this.start == null || this.end == null) {
-            return false;
+    private static boolean isInRange(double[] s, double x, double y) {
+        return isBetween(x, s[0], s[2]) && isBetween(y, s[1], s[3]);
+    }
+
+    /**
+     * A method to check if a value is between two other values (with an epsilon tolerance).
+     *
+     * @param value the value.
+     * @param a     the first bound.
+     * @param b     the second bound.
+     * @return true if it is between the bounds, false otherwise.
+     */
+    private static boolean isBetween(double value, double a, double b) {
+        double min = Math.min(a, b), max = Math.max(a, b);
+        return (min <= value || Compare.cmpDouble(min, value)) && (value <= max || Compare.cmpDouble(value, max));
+    }
+
+    /**
+     * A method to check if a point is on a segment.
+     *
+     * @param s the segment, {x1, y1, x2, y2}.
+     * @param x the x value of the point.
+     * @param y the y value of the point.
+     * @return true if the point is on the segment, false otherwise.
+     */
+    private static boolean isOnSegment(double[] s, double x, double y) {
+        return isInRange(s, x, y) && isOnLineOf(s, x, y);
+    }
+
+    /**
+     * A method to check if one segment contains another segment (which is on the same line).
+     *
+     * @param s     the segment that may contain the other one.
+     * @param other the other segment.
+     * @return true if s contains other, false otherwise.
+     */
+    private static boolean contains(double[] s, double[] other) {
+        return isInRange(s, other[0], other[1]) && isInRange(s, other[2], other[3]);
+    }
+
+    /**
+     * A method to write an intersection point to the output array of the intersection kernel, after changing the
+     * values that are not precise.
+     *
+     * @param x   the x value of the point.
+     * @param y   the y value of the point.
+     * @param out the output array, or null.
+     * @return true (so it can be returned by the kernel).
+     */
+    private static boolean write(double x, double y, double[] out) {
+        if (out != null) {
+            out[0] = Compare.cmpDouble(x, Math.round(x)) ? Math.round(x) : x;
+            out[1] = Compare.cmpDouble(y, Math.round(y)) ? Math.round(y) : y;
         }
-        return (((this.start.getX() <= p.getX() && p.getX() <= this.end.getX())
-                || (this.end.getX() <= p.getX() && p.getX() <= this.start.getX()))
-                && ((this.start.getY() <= p.getY() && p.getY() <= this.end.getY())
-                || (this.end.getY() <= p.getY() && p.getY() <= this.start.getY())));
+        return true;
     }
 
     /**
-     * A method to check if a given point is on the current line.
+     * The segment intersection kernel - a method that checks if two segments intersect, and finds the intersection
+     * point, using orientation (cross product) tests on primitive values only. Each segment is given as
+     * {x1, y1, x2, y2}. Segments that are on the same line intersect only if one of them is a point on the other,
+     * or if they share an end point without containing each other.
      *
-     * @param p the given point.
-     * @return true if it is on the line, false otherwise.
+     * @param a   the first segment.
+     * @param b   the second segment.
+     * @param out an array of (at least) 2 values that the intersection point will be written to, or null if it is
+     *            not needed.
+     * @return true if the segments intersect, false otherwise.
      */
-    public boolean isPointOnLine(Point p) {
-        if (p == null) {
+    public static boolean intersect(double[] a, double[] b, double[] out) {
+        double rx = a[2] - a[0], ry = a[3] - a[1];
+        double sx = b[2] - b[0], sy = b[3] - b[1];
+        boolean aIsPoint = Compare.cmpDouble(rx, 0) && Compare.cmpDouble(ry, 0);
+        boolean bIsPoint = Compare.cmpDouble(sx, 0) && Compare.cmpDouble(sy, 0);
+        // case of segments which are points.
+        if (aIsPoint) {
+            if (bIsPoint ? Compare.cmpDouble(a[0], b[0]) && Compare.cmpDouble(a[1], b[1])
+                    : isOnSegment(b, a[0], a[1])) {
+                return write(a[0], a[1], out);
+            }
             return false;
         }
-        if (this.slope() == null) {
-            return ((this.start.getY() < p.getY() && p.getY() < this.end.getY())
-                    || (this.end.getY() < p.getY() && p.getY() < this.start.getY())
-                    || (p.equals(start)) || p.equals(end))
-                    && Compare.cmpDouble(this.start.getX(), p.getX());
+        if (bIsPoint) {
+            return isOnSegment(a, b[0], b[1]) && write(b[0], b[1], out);
         }
-        if (Compare.cmpDouble(this.slope(), 0.0)) {
-            return this.isPointInRange(p) && Compare.cmpDouble(this.start.getY(), p.getY());
+        double qx = b[0] - a[0], qy = b[1] - a[1];
+        double denominator = cross(rx, ry, sx, sy);
+        // case of segments which are not parallel - their lines intersect at a + t * r = b + u * s.
+        if (denominator * denominator > SQUARED_EPSILON * (rx * rx + ry * ry) * (sx * sx + sy * sy)) {
+            double t = cross(qx, qy, sx, sy) / denominator;
+            double u = cross(qx, qy, rx, ry) / denominator;
+            if (!isBetween(t, 0, 1) || !isBetween(u, 0, 1)) {
+                return false;
+            }
+            return write(a[0] + t * rx, a[1] + t * ry, out);
         }
-        if (this.isPointInRange(p)
-                && Compare.cmpDouble(p.getY(), this.slope() * (p.getX() - this.start.getX()) + this.start.getY())) {
-            return true;
+        // case of parallel segments which are on the same line (and don't contain each other).
+        if (!isOnLineOf(a, b[0], b[1]) || contains(a, b) || contains(b, a)) {
+            return false;
+        }
+        if (isSame(a[0], a[1], b[0], b[1]) || isSame(a[0], a[1], b[2], b[3])) {
+            return write(a[0], a[1], out);
+        }
+        if (isSame(a[2], a[3], b[2], b[3]) || isSame(a[2], a[3], b[0], b[1])) {
+            return write(a[2], a[3], out);
         }
         return false;
     }
 
     /**
-     * A method that checks if two lines have the same line equation.
+     * A method to check if two points are equal (like Point.equals, without the objects).
      *
-     * @param other the other line.
-     * @return true if they have the same line equation, false otherwise.
+     * @param x1 the x value of the first point.
+     * @param y1 the y value of the first point.
+     * @param x2 the x value of the second point.
+     * @param y2 the y value of the second point.
+     * @return true if the points are equal, false otherwise.
      */
-    private boolean haveSameLineEquation(Line other) {
-        if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
-            return false;
-        }
-        if (this.slope() == null && other.slope() == null) {
-            return this.start.getX() == other.start.getX();
-        }
-        if (this.slope() == null || other.slope() == null) {
+    private static boolean isSame(double x1, double y1, double x2, double y2) {
+        return Compare.cmpDouble(x1, x2) && Compare.cmpDouble(y1, y2);
+    }
+
+    /**
+     * A method to check if a given point is on the current line.
+     *
+     * @param p the given point.
+     * @return true if it is on the line, false otherwise.
+     */
+    public boolean isPointOnLine(Point p) {
+        if (p == null || this.start == null || this.end == null) {
             return false;
         }
-        // comparing the slope and the intersection with y axis
-        boolean isSlopeEqual = Compare.cmpDouble(this.slope(), other.slope());
-        boolean isYAxisIntersectionEqual = Compare.cmpDouble(-this.slope() * this.start.getX() + this.start.getY(),
-                -other.slope() * other.start.getX() + other.start.getY());
-        return isSlopeEqual && isYAxisIntersectionEqual;
+        return isOnSegment(this.segment(SCRATCH.get().first), p.getX(), p.getY());
     }
 
     /**
@@ -172,11 +291,20 @@ public class Line {
         if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
             return false;
         }
-        if (this.haveSameLineEquation(other)) {
-            return (this.isPointInRange(other.start) && this.isPointInRange(other.end))
-                    || (other.isPointInRange(this.start) && other.isPointInRange(this.end));
+        Scratch scratch = SCRATCH.get();
+        double[] a = this.segment(scratch.first), b = other.segment(scratch.second);
+        // the lines must be on the same line equation (a point is only on the same line as a vertical line).
+        boolean aIsPoint = Compare.cmpDouble(a[0], a[2]) && Compare.cmpDouble(a[1], a[3]);
+        boolean bIsPoint = Compare.cmpDouble(b[0], b[2]) && Compare.cmpDouble(b[1], b[3]);
+        if (aIsPoint || bIsPoint) {
+            double[] line = aIsPoint ? b : a, point = aIsPoint ? a : b;
+            if (!Compare.cmpDouble(line[0], line[2]) || !Compare.cmpDouble(line[0], point[0])) {
+                return false;
+            }
+        } else if (!isOnLineOf(a, b[0], b[1]) || !isOnLineOf(a, b[2], b[3])) {
+            return false;
         }
-        return false;
+        return contains(a, b) || contains(b, a);
     }
 
     /**
@@ -190,72 +318,8 @@ public class Line {
         if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
             return false;
         }
-        // case of two null slopes
-        if (this.slope() == null && other.slope() == null) {
-            if (!this.haveSameLineEquation(other)) {
-                return false;
-            } else {
-                if (this.isOn(other)) {
-                    return Compare.cmpDouble(this.length(), 0.0) || Compare.cmpDouble(other.length(), 0.0);
-                } else {
-                    return this.start.equals(other.start) || this.end.equals(other.end)
-                            || this.start.equals(other.end) || this.end.equals(other.start);
-                }
-            }
-        }
-        // case of 'this' having a null slope
-        if (this.slope() == null) {
-            double intersectionX = this.start.getX(),
-                    intersectionY = other.slope() * (intersectionX - other.start.getX()) + other.start.getY();
-            Point intersection = new Point(intersectionX, intersectionY);
-            // checking if the intersection is on the segments.
-            return this.isPointInRange(intersection) && other.isPointInRange(intersection);
-        }
-        // case of 'other' having a null slope
-        if (other.slope() == null) {
-            double intersectionX = other.start.getX(),
-                    intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
-            Point intersection = new Point(intersectionX, intersectionY);
-            // checking if the intersection is on the segments.
-            return this.isPointInRange(intersection) && other.isPointInRange(intersection);
-        }
-        // case of different slopes (which are not null)
-        if (!(Compare.cmpDouble(this.slope(), other.slope()))) {
-            // case of 'this' having a slope which is 0.
-            if (Compare.cmpDouble(this.slope(), 0.0)) {
-                double intersectionY = this.start.getY(),
-                        intersectionX = (intersectionY - other.start.getY()) / other.slope() + other.start.getX();
-                Point intersection = new Point(intersectionX, intersectionY);
-                // checking if the intersection is on the segments.
-                return this.isPointInRange(intersection) && other.isPointInRange(intersection);
-            }
-            // case of 'other' having a slope which is 0.
-            if (Compare.cmpDouble(other.slope(), 0.0)) {
-                double intersectionY = other.start.getY(),
-                        intersectionX = (intersectionY - this.start.getY()) / this.slope() + this.start.getX();
-                Point intersection = new Point(intersectionX, intersectionY);
-                // checking if the intersection is on the segments.
-                return this.isPointInRange(intersection) && other.isPointInRange(intersection);
-            }
-            // case of different slopes (which are not null / 0)
-            double intersectionX = (this.slope() * this.start.getX() - other.slope() * other.start.getX()
-                    + other.start.getY() - this.start.getY()) / (this.slope() - other.slope()),
-                    intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
-            Point intersection = new Point(intersectionX, intersectionY);
-            // checking if the intersection is on the segments.
-            return this.isPointInRange(intersection) && other.isPointInRange(intersection);
-        }
-        // case of equal slopes
-        if (!this.haveSameLineEquation(other)) {
-            return false;
-        } else {
-            if (this.isOn(other)) {
-                return Compare.cmpDouble(this.length(), 0.0) || Compare.cmpDouble(other.length(), 0.0);
-            } else {
-                return this.start.equals(other.start) || this.end.equals(other.end)
-                        || this.start.equals(other.end) || this.end.equals(other.start);
-            }
-        }
+        Scratch scratch = SCRATCH.get();
+        return intersect(this.segment(scratch.first), other.segment(scratch.second), null);
     }
 
     /**
@@ -269,64 +333,9 @@ public class Line {
         if (other == null || this.start == null || this.end == null || other.start == null || other.end == null) {
             return null;
         }
-        // check if they are intersecting.
-        if (this.isIntersecting(other)) {
-            // case of 2 null slopes.
-            if (this.slope() == null && other.slope() == null) {
-                if (Compare.cmpDouble(this.start.getY(), other.start.getY())) {
-                    return this.start;
-                }
-                if (Compare.cmpDouble(this.end.getY(), other.start.getY())) {
-                    return this.end;
-                }
-                if (Compare.cmpDouble(this.start.getY(), other.end.getY())) {
-                    return this.start;
-                }
-                if (Compare.cmpDouble(this.end.getY(), other.end.getY())) {
-                    return this.end;
-                }
-            }
-            // case of 'this' having a null slope.
-            if (this.slope() == null) {
-                double intersectionX = this.start.getX(),
-                        intersectionY = other.slope() * (intersectionX - other.start.getX()) + other.start.getY();
-                return new Point(intersectionX, intersectionY);
-            }
-            // case of 'other' having a null slope.
-            if (other.slope() == null) {
-                double intersectionX = other.start.getX(),
-                        intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
-                return new Point(intersectionX, intersectionY);
-            }
-            // case of 2 equal slopes which are not null
-            if (Compare.cmpDouble(other.slope(), this.slope())) {
-                if (Compare.cmpDouble(this.length(), 0.0)) {
-                    return this.start;
-                }
-                if (Compare.cmpDouble(other.length(), 0.0)) {
-                    return other.start;
-                }
-                if (this.start.equals(other.start) || this.start.equals(other.end)) {
-                    return this.start;
-                }
-                if (this.end.equals(other.end) || this.end.equals(other.start)) {
-                    return this.end;
-                }
-            }
-            //case of 2 different slopes which are not null
-            double intersectionX = (this.slope() * this.start.getX() - other.slope() * other.start.getX()
-                    + other.start.getY() - this.start.getY()) / (this.slope() - other.slope());
-            double intersectionY = this.slope() * (intersectionX - this.start.getX()) + this.start.getY();
-
-            // Changing the values that are not precise.
-            if (Compare.cmpDouble(intersectionX, Math.round(intersectionX))) {
-                intersectionX = Math.round(intersectionX);
-            }
-            if (Compare.cmpDouble(intersectionY, Math.round(intersectionY))) {
-                intersectionY = Math.round(intersectionY);
-            }
-
-            return new Point(intersectionX, intersectionY);
+        Scratch scratch = SCRATCH.get();
+        if (intersect(this.segment(scratch.first), other.segment(scratch.second), scratch.point)) {
+            return new Point(scratch.point[0], scratch.point[1]);
         }
         return null;
     }
@@ -352,65 +361,82 @@ public class Line {
      * @return null / the closest intersection point to the line.
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        if (rect == null) {
+        if (rect == null || this.start == null || this.end == null) {
             return null;
         }
-        List<Point> intersections = rect.intersectionPoints(this);
-        if (intersections == null || intersections.isEmpty()) {
+        SegmentHit hit = SCRATCH.get().hit;
+        if (!rect.intersectSegment(this.start.getX(), this.start.getY(), this.end.getX(), this.end.getY(), hit)) {
             return null;
         }
-        Point closestPoint = intersections.get(0);
-        for (Point p : intersections) {
-            if (p.distance(this.start) < closestPoint.distance(this.start)) {
-                closestPoint = p;
-            }
-        }
-        return closestPoint;
+        return new Point(hit.getX(), hit.getY());
     }
 
     /**
-     * A method to calculate the y value of a point using its x value.
+     * A method to get a point which is a point on the line, with x and y distance of 1 from the end of the line.
      *
-     * @param x the point's x value.
-     * @return the y value of the point.
+     * @return a point on the line, with x and y distance of 1 from the end of the line.
      */
-    private Double calculateY(double x) {
-        if (this.slope() == null) {
-            return null;
-        }
-        if (Compare.cmpDouble(this.slope(), 0.0)) {
-            return this.start.getY();
-        }
-        return this.slope() * (x - this.start.getX()) + this.start.getY();
+    public Point getEndCloser() {
+        double[] closer = SCRATCH.get().point;
+        getEndCloser(this.start.getX(), this.start.getY(), this.end.getX(), this.end.getY(), closer);
+        return new Point(closer[0], closer[1]);
     }
 
     /**
-     * A method to get a point which is a point on the line, with x and y distance of 1 from the end of the line.
+     * A method to find a point on a line segment, with x distance of 0.5 from its end (or y distance of 0.5 if the
+     * segment is vertical), without creating any objects.
      *
-     * @return a point on the line, with x and y distance of 1 from the end of the line.
+     * @param x1  the x value of the start of the segment.
+     * @param y1  the y value of the start of the segment.
+     * @param x2  the x value of the end of the segment.
+     * @param y2  the y value of the end of the segment.
+     * @param out an array of (at least) 2 values that the point will be written to.
      */
-    public Point getEndCloser() {
-        double x = this.end.getX(), y = this.end.getY();
-        if (Compare.cmpDouble(this.start.getX(), this.end.getX())) {
-            if (this.start.getY() < this.end.getY()) {
-                y = this.end.getY() - 0.5;
+    public static void getEndCloser(double x1, double y1, double x2, double y2, double[] out) {
+        double x = x2, y = y2;
+        if (Compare.cmpDouble(x1, x2)) {
+            if (y1 < y2) {
+                y = y2 - 0.5;
             } else {
-                y = this.end.getY() + 0.5;
+                y = y2 + 0.5;
             }
-        } else if (Compare.cmpDouble(this.start.getY(), this.end.getY())) {
-            if (this.start.getX() < this.end.getX()) {
-                x = this.end.getX() - 0.5;
+        } else if (Compare.cmpDouble(y1, y2)) {
+            if (x1 < x2) {
+                x = x2 - 0.5;
             } else {
-                x = this.end.getX() + 0.5;
+                x = x2 + 0.5;
             }
         } else {
-            if (this.start.getX() < this.end.getX()) {
-                x = this.end.getX() - 0.5;
+            if (x1 < x2) {
+                x = x2 - 0.5;
             } else {
-                x = this.end.getX() + 0.5;
+                x = x2 + 0.5;
             }
-            y = this.calculateY(x);
+            // calculating the y value of the point using the line equation.
+            y = (y2 - y1) / (x2 - x1) * (x - x1) + y1;
+        }
+        out[0] = x;
+        out[1] = y;
+    }
+
+    /**
+     * The Scratch class, the arrays of the calls of a thread to the intersection kernel - the two segments and the
+     * intersection point, and the result of the calls to the slab query of a rectangle.
+     */
+    private static final class Scratch {
+        private final double[] first;
+        private final double[] second;
+        private final double[] point;
+        private final SegmentHit hit;
+
+        /**
+         * A constructor for the Scratch class.
+         */
+        private Scratch() {
+            this.first = new double[4];
+            this.second = new double[4];
+            this.point = new double[2];
+            this.hit = new SegmentHit();
         }
-        return new Point(x, y);
     }
 }
\ No newline at end of file
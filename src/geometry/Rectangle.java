@@ -2,6 +2,8 @@
 
 package geometry;
 
+import extras.Compare;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,6 +13,18 @@ import java.util.List;
  * @author Ori Dabush
  */
 public class Rectangle {
+
+    /**
+     * The flags of the faces (edges) of the rectangle, used by SegmentHit.
+     */
+    public static final int TOP_FACE = 1;
+    public static final int BOTTOM_FACE = 2;
+    public static final int LEFT_FACE = 4;
+    public static final int RIGHT_FACE = 8;
+
+    // The values of the upper left point, and the point itself (created when it is asked for).
+    private double x;
+    private double y;
     private Point upperLeft;
     private double width;
     private double height;
@@ -23,7 +37,8 @@ public class Rectangle {
      * @param height    the height of the rectangle.
      */
     public Rectangle(Point upperLeft, double width, double height) {
-        this.upperLeft = new Point(upperLeft);
+        this.x = upperLeft.getX();
+        this.y = upperLeft.getY();
         this.width = width;
         this.height = height;
     }
@@ -37,7 +52,8 @@ public class Rectangle {
      * @param height the height of the rectangle.
      */
     public Rectangle(double x, double y, double width, double height) {
-        this.upperLeft = new Point(x, y);
+        this.x = x;
+        this.y = y;
         this.width = width;
         this.height = height;
     }
@@ -49,7 +65,8 @@ public class Rectangle {
      * @param r the rectangle we copy its values.
      */
     public Rectangle(Rectangle r) {
-        this.upperLeft = new Point(r.upperLeft);
+        this.x = r.x;
+        this.y = r.y;
         this.width = r.width;
         this.height = r.height;
     }
@@ -65,13 +82,14 @@ public class Rectangle {
             return null;
         }
         List<Point> list = new ArrayList<Point>();
-        Point upperRight = new Point(this.upperLeft.getX() + this.width, this.upperLeft.getY());
-        Point bottomLeft = new Point(this.upperLeft.getX(), this.upperLeft.getY() + this.height);
-        Point bottomRight = new Point(this.upperLeft.getX() + this.width, this.upperLeft.getY() + this.height);
-        Line upperEdge = new Line(this.upperLeft, upperRight);
+        Point upperLeftPoint = this.getUpperLeft();
+        Point upperRight = new Point(this.x + this.width, this.y);
+        Point bottomLeft = new Point(this.x, this.y + this.height);
+        Point bottomRight = new Point(this.x + this.width, this.y + this.height);
+        Line upperEdge = new Line(upperLeftPoint, upperRight);
         Line bottomEdge = new Line(bottomLeft, bottomRight);
         Line rightEdge = new Line(upperRight, bottomRight);
-        Line leftEdge = new Line(this.upperLeft, bottomLeft);
+        Line leftEdge = new Line(upperLeftPoint, bottomLeft);
         // case of line that is on one of the edges of the rectangle.
         if (line.isOn(upperEdge) || line.isOn(bottomEdge) || line.isOn(rightEdge) || line.isOn(leftEdge)) {
             return list;
@@ -97,6 +115,355 @@ public class Rectangle {
         return list;
     }
 
+    /**
+     * A method to find the closest intersection of a line segment with the edges of the rectangle to the start of
+     * the segment, using the slab method - the segment is clipped by the horizontal and the vertical slabs of the
+     * rectangle, without creating any objects. It gives the same result as finding the closest point in the list of
+     * intersectionPoints, so a segment that starts inside the rectangle intersects it where it exits it, and a
+     * segment that lies on an edge of the rectangle (or contains one) doesn't intersect it.
+     *
+     * @param x1  the x value of the start of the segment.
+     * @param y1  the y value of the start of the segment.
+     * @param x2  the x value of the end of the segment.
+     * @param y2  the y value of the end of the segment.
+     * @param hit the object that the intersection will be written to (if there is one).
+     * @return true if the segment intersects the edges of the rectangle, false otherwise.
+     */
+    public boolean intersectSegment(double x1, double y1, double x2, double y2, SegmentHit hit) {
+        double minX = this.x, minY = this.y;
+        double maxX = minX + this.width, maxY = minY + this.height;
+        double dx = x2 - x1, dy = y2 - y1;
+        // case of a segment that lies on an edge of the rectangle (if the rectangle has no width, its top and bottom
+        // edges are points on the same line as the vertical edges, so a segment that overlaps them lies on an edge).
+        if (Compare.cmpDouble(dx, 0) && (Compare.cmpDouble(x1, minX) || Compare.cmpDouble(x1, maxX))
+                && (isContained(y1, y2, minY, maxY)
+                || (Compare.cmpDouble(this.width, 0) && Math.min(y1, y2) <= maxY && minY <= Math.max(y1, y2)))) {
+            return false;
+        }
+        if (Compare.cmpDouble(dy, 0) && !Compare.cmpDouble(this.width, 0)
+                && (Compare.cmpDouble(y1, minY) || Compare.cmpDouble(y1, maxY)) && isContained(x1, x2, minX, maxX)) {
+            return false;
+        }
+        // clipping the (infinite) line of the segment by the vertical and the horizontal slabs.
+        double tNear = Double.NEGATIVE_INFINITY, tFar = Double.POSITIVE_INFINITY;
+        if (dx != 0) {
+            double t1 = (minX - x1) / dx, t2 = (maxX - x1) / dx;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        } else if (x1 < minX || x1 > maxX) {
+            return false;
+        }
+        if (dy != 0) {
+            double t1 = (minY - y1) / dy, t2 = (maxY - y1) / dy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        } else if (y1 < minY || y1 > maxY) {
+            return false;
+        }
+        if (tNear > tFar && !Compare.cmpDouble(tNear, tFar)) {
+            return false;
+        }
+        // the segment enters the rectangle at tNear, or exits it at tFar if it starts inside of it.
+        double t = tNear < 0 && !Compare.cmpDouble(tNear, 0) ? tFar : Math.max(tNear, 0);
+        if ((t < 0 && !Compare.cmpDouble(t, 0)) || (t > 1 && !Compare.cmpDouble(t, 1))) {
+            return false;
+        }
+        t = Math.max(0, Math.min(1, t));
+        double hitX = snap(x1 + t * dx, minX, maxX), hitY = snap(y1 + t * dy, minY, maxY);
+        int faces = 0;
+        faces |= Compare.cmpDouble(hitY, minY) ? TOP_FACE : 0;
+        faces |= Compare.cmpDouble(hitY, maxY) ? BOTTOM_FACE : 0;
+        faces |= Compare.cmpDouble(hitX, minX) ? LEFT_FACE : 0;
+        faces |= Compare.cmpDouble(hitX, maxX) ? RIGHT_FACE : 0;
+        hit.set(t, hitX, hitY, faces);
+        return true;
+    }
+
+    /**
+     * A method to find the first contact of a circle that moves from (x1, y1) to (x2, y2) with the rectangle
+     * (continuous collision detection). The circle touches the rectangle when its center is on the rectangle grown
+     * by the radius, with rounded corners, so the segment of the center is tested against this shape. The result is
+     * the parameter of the contact along the segment, the point of the rectangle that the circle touches, and the
+     * faces to bounce from - a single face, or both faces of a corner if bouncing from a single face wouldn't take
+     * the circle away from the rectangle. A circle that already touches the rectangle at the start of the segment
+     * collides with it (at parameter 0) only if it moves towards it.
+     *
+     * @param x1     the x value of the start of the center's segment.
+     * @param y1     the y value of the start of the center's segment.
+     * @param x2     the x value of the end of the center's segment.
+     * @param y2     the y value of the end of the center's segment.
+     * @param radius the radius of the circle.
+     * @param hit    the object that the contact will be written to (if there is one).
+     * @return true if the circle touches the rectangle while it moves, false otherwise.
+     */
+    public boolean intersectSweptCircle(double x1, double y1, double x2, double y2, double radius, SegmentHit hit) {
+        double minX = this.x, minY = this.y;
+        double maxX = minX + this.width, maxY = minY + this.height;
+        double dx = x2 - x1, dy = y2 - y1;
+        if (dx == 0 && dy == 0) {
+            return false;
+        }
+        // case of a circle that already touches (or overlaps) the rectangle.
+        double nearX = clamp(x1, minX, maxX), nearY = clamp(y1, minY, maxY);
+        double nx = x1 - nearX, ny = y1 - nearY;
+        if (nx * nx + ny * ny <= radius * radius) {
+            if (nx == 0 && ny == 0) {
+                // the center is inside the rectangle, so the circle bounces back from where it came.
+                nx = -dx;
+                ny = -dy;
+            } else if (nx * dx + ny * dy >= 0) {
+                return false;
+            }
+            hit.set(0, nearX, nearY, facesOf(nx, ny, dx, dy));
+            return true;
+        }
+        // clipping the segment by the slabs of the grown rectangle.
+        double tNear = 0, tFar = 1;
+        boolean verticalFace = false;
+        if (dx != 0) {
+            double t1 = (minX - radius - x1) / dx, t2 = (maxX + radius - x1) / dx;
+            if (Math.min(t1, t2) > tNear) {
+                tNear = Math.min(t1, t2);
+                verticalFace = true;
+            }
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        } else if (x1 < minX - radius || x1 > maxX + radius) {
+            return false;
+        }
+        if (dy != 0) {
+            double t1 = (minY - radius - y1) / dy, t2 = (maxY + radius - y1) / dy;
+            if (Math.min(t1, t2) > tNear) {
+                tNear = Math.min(t1, t2);
+                verticalFace = false;
+            }
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        } else if (y1 < minY - radius || y1 > maxY + radius) {
+            return false;
+        }
+        if (tNear > tFar) {
+            return false;
+        }
+        double cx = x1 + tNear * dx, cy = y1 + tNear * dy;
+        if ((cx < minX || cx > maxX) && (cy < minY || cy > maxY)) {
+            // the center enters the grown rectangle near a corner, so the circle can only touch the corner.
+            double cornerX = cx < minX ? minX : maxX, cornerY = cy < minY ? minY : maxY;
+            double fx = x1 - cornerX, fy = y1 - cornerY;
+            double a = dx * dx + dy * dy, b = fx * dx + fy * dy, c = fx * fx + fy * fy - radius * radius;
+            double discriminant = b * b - a * c;
+            if (discriminant < 0) {
+                return false;
+            }
+            double t = (-b - Math.sqrt(discriminant)) / a;
+            if (t < 0 || t > 1) {
+                return false;
+            }
+            hit.set(t, cornerX, cornerY, facesOf(fx + t * dx, fy + t * dy, dx, dy));
+            return true;
+        }
+        int face;
+        if (verticalFace) {
+            face = dx > 0 ? LEFT_FACE : RIGHT_FACE;
+        } else {
+            face = dy > 0 ? TOP_FACE : BOTTOM_FACE;
+        }
+        hit.set(tNear, clamp(cx, minX, maxX), clamp(cy, minY, maxY), face);
+        return true;
+    }
+
+    /**
+     * The fixed-point form of intersectSweptCircle (see Fixed) - the circle's values and the rectangle (converted to
+     * the closest fixed-point values) are integers, and all the tests are exact integer comparisons (the parameters
+     * of the slabs are compared as fractions), so there is no epsilon and the result is the same on every machine.
+     * The parameter of the contact is rounded down to a fixed-point value, so the circle stops at the contact or
+     * just before it. A contact with a corner is found with the values scaled down to 15 bits, so the quadratic
+     * equation fits in a long.
+     *
+     * @param x1     the x value of the start of the center's segment.
+     * @param y1     the y value of the start of the center's segment.
+     * @param x2     the x value of the end of the center's segment.
+     * @param y2     the y value of the end of the center's segment.
+     * @param radius the radius of the circle.
+     * @param hit    the object that the contact will be written to (if there is one), in doubles.
+     * @return true if the circle touches the rectangle while it moves, false otherwise.
+     */
+    public boolean intersectSweptCircleFixed(long x1, long y1, long x2, long y2, long radius, SegmentHit hit) {
+        long minX = Fixed.fromDouble(this.x), minY = Fixed.fromDouble(this.y);
+        long maxX = Fixed.fromDouble(this.x + this.width), maxY = Fixed.fromDouble(this.y + this.height);
+        long dx = x2 - x1, dy = y2 - y1;
+        if (dx == 0 && dy == 0) {
+            return false;
+        }
+        // case of a circle that already touches (or overlaps) the rectangle.
+        long nearX = clamp(x1, minX, maxX), nearY = clamp(y1, minY, maxY);
+        long nx = x1 - nearX, ny = y1 - nearY;
+        // (the first checks keep the squares of far circles from overflowing)
+        if (Math.abs(nx) <= radius && Math.abs(ny) <= radius && nx * nx + ny * ny <= radius * radius) {
+            if (nx == 0 && ny == 0) {
+                nx = -dx;
+                ny = -dy;
+            } else if (nx * dx + ny * dy >= 0) {
+                return false;
+            }
+            hit.set(0, Fixed.toDouble(nearX), Fixed.toDouble(nearY), facesOf(nx, ny, dx, dy));
+            return true;
+        }
+        // clipping the segment by the slabs of the grown rectangle - tNear = nearNum / nearDen and
+        // tFar = farNum / farDen, with positive denominators.
+        long nearNum = 0, nearDen = 1, farNum = 1, farDen = 1;
+        boolean verticalFace = false;
+        if (dx != 0) {
+            long den = Math.abs(dx), n1 = (minX - radius - x1) * Long.signum(dx);
+            long n2 = (maxX + radius - x1) * Long.signum(dx);
+            if (Math.min(n1, n2) * nearDen > nearNum * den) {
+                nearNum = Math.min(n1, n2);
+                nearDen = den;
+                verticalFace = true;
+            }
+            if (Math.max(n1, n2) * farDen < farNum * den) {
+                farNum = Math.max(n1, n2);
+                farDen = den;
+            }
+        } else if (x1 < minX - radius || x1 > maxX + radius) {
+            return false;
+        }
+        if (dy != 0) {
+            long den = Math.abs(dy), n1 = (minY - radius - y1) * Long.signum(dy);
+            long n2 = (maxY + radius - y1) * Long.signum(dy);
+            if (Math.min(n1, n2) * nearDen > nearNum * den) {
+                nearNum = Math.min(n1, n2);
+                nearDen = den;
+                verticalFace = false;
+            }
+            if (Math.max(n1, n2) * farDen < farNum * den) {
+                farNum = Math.max(n1, n2);
+                farDen = den;
+            }
+        } else if (y1 < minY - radius || y1 > maxY + radius) {
+            return false;
+        }
+        if (nearNum * farDen > farNum * nearDen) {
+            return false;
+        }
+        // the center when it enters the grown rectangle, times nearDen.
+        long cx = x1 * nearDen + dx * nearNum, cy = y1 * nearDen + dy * nearNum;
+        boolean outX = cx < minX * nearDen || cx > maxX * nearDen, outY = cy < minY * nearDen || cy > maxY * nearDen;
+        if (outX && outY) {
+            // the center enters the grown rectangle near a corner, so the circle can only touch the corner.
+            long cornerX = cx < minX * nearDen ? minX : maxX, cornerY = cy < minY * nearDen ? minY : maxY;
+            long fx = x1 - cornerX, fy = y1 - cornerY;
+            long largest = Math.max(Math.max(Math.abs(fx), Math.abs(fy)), Math.max(Math.abs(dx), Math.abs(dy)));
+            int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(Math.max(largest, radius)) - 15);
+            long sfx = fx >> shift, sfy = fy >> shift, sdx = dx >> shift, sdy = dy >> shift, sr = radius >> shift;
+            long a = sdx * sdx + sdy * sdy, b = sfx * sdx + sfy * sdy, c = sfx * sfx + sfy * sfy - sr * sr;
+            long discriminant = b * b - a * c;
+            if (a == 0 || discriminant < 0) {
+                return false;
+            }
+            // the root is rounded up, so the contact is not after the real one.
+            long numerator = -b - Fixed.sqrtCeil(discriminant);
+            if (numerator < 0 || numerator > a) {
+                return false;
+            }
+            long t = Fixed.divide(numerator, a);
+            hit.set(Fixed.toDouble(t), Fixed.toDouble(cornerX), Fixed.toDouble(cornerY),
+                    facesOf(fx + Fixed.multiply(t, dx), fy + Fixed.multiply(t, dy), dx, dy));
+            return true;
+        }
+        int face;
+        if (verticalFace) {
+            face = dx > 0 ? LEFT_FACE : RIGHT_FACE;
+        } else {
+            face = dy > 0 ? TOP_FACE : BOTTOM_FACE;
+        }
+        hit.set(Fixed.toDouble(Fixed.divide(nearNum, nearDen)),
+                Fixed.toDouble(clamp(Math.floorDiv(cx, nearDen), minX, maxX)),
+                Fixed.toDouble(clamp(Math.floorDiv(cy, nearDen), minY, maxY)), face);
+        return true;
+    }
+
+    /**
+     * A method to find the faces that a circle that touches the rectangle in a given direction (from the rectangle
+     * to the circle's center) bounces from. It is the face that the direction is closest to, unless bouncing from it
+     * (flipping one part of the velocity) doesn't take the circle away from the rectangle - then it is both faces.
+     *
+     * @param nx the x value of the direction from the rectangle to the circle's center.
+     * @param ny the y value of the direction from the rectangle to the circle's center.
+     * @param dx the dx value of the circle's movement.
+     * @param dy the dy value of the circle's movement.
+     * @return the faces.
+     */
+    private static int facesOf(double nx, double ny, double dx, double dy) {
+        int horizontal = ny < 0 ? TOP_FACE : BOTTOM_FACE;
+        int vertical = nx < 0 ? LEFT_FACE : RIGHT_FACE;
+        if (Math.abs(nx) > Math.abs(ny) && -dx * nx + dy * ny > 0) {
+            return vertical;
+        }
+        if (Math.abs(ny) > Math.abs(nx) && dx * nx - dy * ny > 0) {
+            return horizontal;
+        }
+        return horizontal | vertical;
+    }
+
+    /**
+     * A method to clamp a value into a range.
+     *
+     * @param value the value.
+     * @param min   the start of the range.
+     * @param max   the end of the range.
+     * @return the closest value to the given value in the range.
+     */
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * A method to clamp a fixed-point value into a range.
+     *
+     * @param value the value.
+     * @param min   the start of the range.
+     * @param max   the end of the range.
+     * @return the closest value to the given value in the range.
+     */
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * A method to check if one of two ranges contains the other (used for a segment that lies on an edge).
+     *
+     * @param a1 the first end of the first range.
+     * @param a2 the second end of the first range.
+     * @param b1 the start of the second range.
+     * @param b2 the end of the second range.
+     * @return true if one of the ranges contains the other, false otherwise.
+     */
+    private static boolean isContained(double a1, double a2, double b1, double b2) {
+        double aMin = Math.min(a1, a2), aMax = Math.max(a1, a2);
+        return (b1 <= aMin && aMax <= b2) || (aMin <= b1 && b2 <= aMax);
+    }
+
+    /**
+     * A method to change a value of an intersection that is not precise - to the edge it is on, or to a whole
+     * number (like Line.intersectionWith does).
+     *
+     * @param value the value.
+     * @param min   the value of the first edge.
+     * @param max   the value of the second edge.
+     * @return the changed value.
+     */
+    private static double snap(double value, double min, double max) {
+        if (Compare.cmpDouble(value, min)) {
+            return min;
+        }
+        if (Compare.cmpDouble(value, max)) {
+            return max;
+        }
+        if (Compare.cmpDouble(value, Math.round(value))) {
+            return Math.round(value);
+        }
+        return value;
+    }
+
     /**
      * An access method to the width of the rectangle.
      *
@@ -115,21 +482,60 @@ public class Rectangle {
         return this.height;
     }
 
+    /**
+     * An access method to the x value of the upper left point of the rectangle (without creating the point).
+     *
+     * @return the x value of the upper left point.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * An access method to the y value of the upper left point of the rectangle (without creating the point).
+     *
+     * @return the y value of the upper left point.
+     */
+    public double getY() {
+        return this.y;
+    }
+
     /**
      * An access method to the upper left point of the rectangle.
      *
      * @return the upper-left point of the rectangle.
      */
     public Point getUpperLeft() {
+        if (this.upperLeft == null) {
+            this.upperLeft = new Point(this.x, this.y);
+        }
         return this.upperLeft;
     }
 
+    /**
+     * A method to change the location and the size of the rectangle, so a single rectangle can be reused for many
+     * checks.
+     *
+     * @param newX      the x value of the new upper left point.
+     * @param newY      the y value of the new upper left point.
+     * @param newWidth  the new width.
+     * @param newHeight the new height.
+     */
+    public void set(double newX, double newY, double newWidth, double newHeight) {
+        this.x = newX;
+        this.y = newY;
+        this.width = newWidth;
+        this.height = newHeight;
+        this.upperLeft = null;
+    }
+
     /**
      * A method to move the rectangle horizontal numOfPixels pixels right.
      *
      * @param numOfPixels the number of pixels we want to move.
      */
-    public void moveRectangleHorizontal(int numOfPixels) {
-        this.upperLeft = new Point(this.upperLeft.getX() + numOfPixels, this.upperLeft.getY());
+    public void moveRectangleHorizontal(double numOfPixels) {
+        this.x += numOfPixels;
+        this.upperLeft = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+// ID - 212945760
+
+package geometry;
+
+/**
+ * The SegmentHit class, which holds the result of an intersection query of a line segment with a rectangle - the
+ * parameter of the intersection along the segment (0 at its start, 1 at its end), the intersection point, and the
+ * faces of the rectangle that the point is on. It is mutable, so a single object can be reused by many queries.
+ *
+ * @author Ori Dabush
+ */
+public class SegmentHit {
+    private double parameter;
+    private double x;
+    private double y;
+    private int faces;
+
+    /**
+     * A constructor for the SegmentHit class, which creates an empty result.
+     */
+    public SegmentHit() {
+        this.set(0, 0, 0, 0);
+    }
+
+    /**
+     * A method to set the values of the result.
+     *
+     * @param t      the parameter of the intersection along the segment.
+     * @param hitX   the x value of the intersection point.
+     * @param hitY   the y value of the intersection point.
+     * @param faceOf the faces of the rectangle that the intersection point is on.
+     */
+    public void set(double t, double hitX, double hitY, int faceOf) {
+        this.parameter = t;
+        this.x = hitX;
+        this.y = hitY;
+        this.faces = faceOf;
+    }
+
+    /**
+     * A method to copy the values of another result.
+     *
+     * @param other the other result.
+     */
+    public void set(SegmentHit other) {
+        this.set(other.parameter, other.x, other.y, other.faces);
+    }
+
+    /**
+     * An access method to the parameter of the intersection along the segment.
+     *
+     * @return the parameter of the intersection, between 0 (the start of the segment) and 1 (its end).
+     */
+    public double getParameter() {
+        return this.parameter;
+    }
+
+    /**
+     * An access method to the x value of the intersection point.
+     *
+     * @return the x value of the intersection point.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * An access method to the y value of the intersection point.
+     *
+     * @return the y value of the intersection point.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * An access method to the faces of the rectangle that the intersection point is on.
+     *
+     * @return the faces, as a combination of the Rectangle's face flags.
+     */
+    public int getFaces() {
+        return this.faces;
+    }
+
+    /**
+     * A method to check if the intersection point is on a given face of the rectangle.
+     *
+     * @param face the face flag (Rectangle.TOP_FACE for example).
+     * @return true if the point is on the face, false otherwise.
+     */
+    public boolean isOnFace(int face) {
+        return (this.faces & face) != 0;
+    }
+}
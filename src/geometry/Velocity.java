@@ -44,27 +44,52 @@ public class Velocity {
      * @return the velocity object.
      */
     public static Velocity fromAngleAndSpeed(double angle, double speed) {
-        double dx = 0, dy = 0;
+        Velocity v = new Velocity(0, 0);
+        v.setFromAngleAndSpeed(angle, speed);
+        return v;
+    }
+
+    /**
+     * A method that sets the velocity using angle and speed (like fromAngleAndSpeed, without creating a new object).
+     *
+     * @param angle the angle (in degrees) of the movement line (while assuming up's angle is 0).
+     * @param speed the speed value.
+     */
+    public void setFromAngleAndSpeed(double angle, double speed) {
+        double newDx = 0, newDy = 0;
         if (angle % 90 == 0) {
             if ((angle / 90) % 4 == 0) {
-                dx = 0;
-                dy = -speed;
+                newDx = 0;
+                newDy = -speed;
             } else if ((angle / 90) % 4 == 1) {
-                dx = speed;
-                dy = 0;
+                newDx = speed;
+                newDy = 0;
             } else if ((angle / 90) % 4 == 2) {
-                dx = 0;
-                dy = speed;
+                newDx = 0;
+                newDy = speed;
             } else if ((angle / 90) % 4 == 3) {
-                dx = -speed;
-                dy = 0;
+                newDx = -speed;
+                newDy = 0;
             }
         } else {
-            angle = Math.toRadians(angle);
-            dx = speed * Math.sin(angle);
-            dy = -1 * speed * Math.cos(angle); //because dy's direction is down
+            // StrictMath gives the same results on every platform (Math may use faster, platform-specific code), so
+            // the game plays the same on every machine.
+            double radians = Math.toRadians(angle);
+            newDx = speed * StrictMath.sin(radians);
+            newDy = -1 * speed * StrictMath.cos(radians); //because dy's direction is down
         }
-        return new Velocity(dx, dy);
+        this.set(newDx, newDy);
+    }
+
+    /**
+     * A method that sets the dx and dy values of the velocity.
+     *
+     * @param newDx the new change in x axis.
+     * @param newDy the new change in y axis.
+     */
+    public void set(double newDx, double newDy) {
+        this.dx = newDx;
+        this.dy = newDy;
     }
 
     /**
@@ -0,0 +1,69 @@
+// ID - 212945760
+
+package game.events;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorSlabKernel class, a slab kernel that tests the lanes with the Vector API - a vector of lanes at a time,
+ * in the preferred width of the machine, and the lanes that are left with the scalar test. It does the same
+ * operations as the scalar kernel on every lane, so it selects the same lanes. It needs the incubator module
+ * jdk.incubator.vector, so it is compiled and loaded only by the *-vector targets of build.xml (see SlabKernel).
+ *
+ * @author Ori Dabush
+ */
+public final class VectorSlabKernel extends SlabKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * A constructor for the VectorSlabKernel class (it is created by SlabKernel.best).
+     */
+    public VectorSlabKernel() {
+        super();
+    }
+
+    @Override
+    public int select(SlabLanes lanes, int[] selected) {
+        double[] minXs = lanes.getMinXs(), minYs = lanes.getMinYs(), maxXs = lanes.getMaxXs();
+        double[] maxYs = lanes.getMaxYs();
+        double x1 = lanes.getStartX(), y1 = lanes.getStartY(), radius = lanes.getRadius();
+        double inverseDx = lanes.getInverseDx(), inverseDy = lanes.getInverseDy();
+        boolean movesX = lanes.getDx() != 0, movesY = lanes.getDy() != 0;
+        int size = lanes.size(), bound = SPECIES.loopBound(size), count = 0;
+        for (int k = 0; k < bound; k += SPECIES.length()) {
+            DoubleVector minX = DoubleVector.fromArray(SPECIES, minXs, k).sub(radius);
+            DoubleVector maxX = DoubleVector.fromArray(SPECIES, maxXs, k).add(radius);
+            DoubleVector minY = DoubleVector.fromArray(SPECIES, minYs, k).sub(radius);
+            DoubleVector maxY = DoubleVector.fromArray(SPECIES, maxYs, k).add(radius);
+            DoubleVector tEnter = DoubleVector.broadcast(SPECIES, -EPSILON);
+            DoubleVector tExit = DoubleVector.broadcast(SPECIES, 1 + EPSILON);
+            VectorMask<Double> pass = SPECIES.maskAll(true);
+            if (movesX) {
+                DoubleVector t1 = minX.sub(x1).mul(inverseDx), t2 = maxX.sub(x1).mul(inverseDx);
+                tEnter = tEnter.max(t1.min(t2));
+                tExit = tExit.min(t1.max(t2));
+            } else {
+                pass = pass.andNot(minX.sub(EPSILON).compare(VectorOperators.GT, x1)
+                        .or(maxX.add(EPSILON).compare(VectorOperators.LT, x1)));
+            }
+            if (movesY) {
+                DoubleVector t1 = minY.sub(y1).mul(inverseDy), t2 = maxY.sub(y1).mul(inverseDy);
+                tEnter = tEnter.max(t1.min(t2));
+                tExit = tExit.min(t1.max(t2));
+            } else {
+                pass = pass.andNot(minY.sub(EPSILON).compare(VectorOperators.GT, y1)
+                        .or(maxY.add(EPSILON).compare(VectorOperators.LT, y1)));
+            }
+            long bits = pass.and(tEnter.compare(VectorOperators.LE, tExit.add(EPSILON))).toLong();
+            // The selected lanes of the vector, in their order.
+            while (bits != 0) {
+                selected[count++] = k + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return selectRange(lanes, bound, size, selected, count);
+    }
+}